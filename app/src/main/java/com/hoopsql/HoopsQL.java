@@ -0,0 +1,220 @@
+package com.hoopsql;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.Lexer;
+import com.hoopsql.compiler.NameReferences;
+import com.hoopsql.compiler.Parser;
+import com.hoopsql.compiler.Planner;
+import com.hoopsql.compiler.Token;
+import com.hoopsql.engine.InProcessEngine;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.runtime.CancellationToken;
+import com.hoopsql.runtime.Executor;
+import com.hoopsql.runtime.Page;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.runtime.QueryScheduler;
+import com.hoopsql.runtime.UnknownNameException;
+import com.hoopsql.storage.SQLiteStorage;
+import com.hoopsql.util.Config;
+import com.hoopsql.util.NameResolver;
+
+/**
+ * A long-lived HoopsQL session for embedding:
+ *
+ *   try (HoopsQL hoopsql = HoopsQL.open(config)) {
+ *       QueryResult result = hoopsql.query("Player p = \"Kobe Bryant\" get games where p.points >= 60");
+ *   }
+ *
+ * The session owns the storage and its connection pool (with per-connection
+ * prepared-statement caches), the executor, a cache of compiled plans keyed
+ * by query text, the name resolver (which also rejects unknown player and
+ * team names at compile time), and a scheduler for callers serving many
+ * clients at once. With Config.setInProcessEngine(true) it also loads the box
+ * scores into an InProcessEngine, which the executor uses for the player
+ * queries it supports. It is thread-safe; open one per
+ * database and share it, rather than one per query.
+ */
+public class HoopsQL implements AutoCloseable {
+    private static final int SUGGESTIONS = 3; // names offered for one that isn't known
+
+    private final Config config;
+    private final SQLiteStorage storage;
+    private final Executor executor;
+    private final Planner planner = new Planner();
+    private final NameResolver names;
+    private final QueryScheduler scheduler;
+    private final Map<String, ExecutionPlan> plans;
+    private final InProcessEngine engine;
+    private String engineDescription;
+
+    private HoopsQL(Config config) {
+        this.config = config;
+        this.storage = new SQLiteStorage(config);
+        this.executor = new Executor(storage, config.getMaxConcurrentQueries());
+        this.names = new NameResolver(storage);
+        this.scheduler = new QueryScheduler(executor, config);
+        this.engine = config.isInProcessEngine() ? loadEngine() : null;
+        executor.setEngine(engine);
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ExecutionPlan> eldest) {
+                return size() > config.getPlanCacheSize();
+            }
+        };
+    }
+
+    // Like the in-memory copy, a failed load leaves the session on SQLite alone
+    private InProcessEngine loadEngine() {
+        try {
+            InProcessEngine loaded = InProcessEngine.load(storage);
+            engineDescription = loaded.getDescription();
+            return loaded;
+        } catch (SQLException e) {
+            engineDescription = "in-process engine off (load failed: " + e.getMessage() + ")";
+            return null;
+        }
+    }
+    
+    public static HoopsQL open() {
+        return new HoopsQL(new Config());
+    }
+
+    public static HoopsQL open(Config config) {
+        return new HoopsQL(config);
+    }
+
+    public Config getConfig() { return config; }
+    public SQLiteStorage getStorage() { return storage; }
+    public Executor getExecutor() { return executor; }
+    public NameResolver names() { return names; }
+    public QueryScheduler getScheduler() { return scheduler; }
+    public InProcessEngine getEngine() { return engine; }
+    public String getEngineDescription() { return engineDescription; } // null unless the engine was requested
+
+    // Compile query text to a plan, reusing the plan from an earlier identical query
+    public ExecutionPlan compile(String query) {
+        String key = query.trim();
+        synchronized (plans) {
+            ExecutionPlan cached = plans.get(key);
+            if (cached != null) {
+                Metrics.PLAN_CACHE_HITS.increment();
+                return cached;
+            }
+        }
+        Metrics.PLAN_CACHE_MISSES.increment();
+
+        long start = System.nanoTime();
+        List<Token> tokens = new Lexer(key).tokenize();
+        Metrics.LEX.recordSince(start);
+
+        start = System.nanoTime();
+        var program = new Parser(tokens).parse();
+        Metrics.PARSE.recordSince(start);
+
+        // Misspelled names fail here, with suggestions, rather than as an empty result from SQLite.
+        // Names written another way ("lebron_james") are respelled as the database has them, since
+        // the SQL compares names exactly; the query is parsed again only if one was.
+        start = System.nanoTime();
+        List<Token> resolved = resolveNames(tokens);
+        Metrics.NAMES.recordSince(start);
+        if (resolved != tokens) {
+            program = new Parser(resolved).parse();
+        }
+
+        start = System.nanoTime();
+        ExecutionPlan plan = planner.createExecutionPlan(program);
+        Metrics.PLAN.recordSince(start);
+
+        if (config.getPlanCacheSize() > 0) {
+            synchronized (plans) {
+                plans.put(key, plan);
+            }
+        }
+        return plan;
+    }
+
+    // The tokens with each known name in the database's spelling; the same list if none needed respelling
+    private List<Token> resolveNames(List<Token> tokens) {
+        Map<Token, String> respelled = new IdentityHashMap<>();
+        for (NameReferences.Reference reference : NameReferences.find(tokens)) {
+            boolean player = reference.kind() == NameReferences.Kind.PLAYER;
+            Optional<String> canonical;
+            try {
+                if (player ? names.playerNames().isEmpty() : names.teamNames().isEmpty()) {
+                    continue; // nothing to check against
+                }
+                canonical = player ? names.canonicalPlayer(reference.name()) : names.canonicalTeam(reference.name());
+            } catch (IllegalStateException e) {
+                continue; // no name table of this kind; let the name through as before
+            }
+            if (canonical.isEmpty()) {
+                List<String> suggestions = player
+                    ? names.suggestPlayers(reference.name(), SUGGESTIONS)
+                    : names.suggestTeams(reference.name(), SUGGESTIONS);
+                throw new UnknownNameException(player ? "player" : "team", reference.name(), reference.line(), suggestions);
+            }
+            if (!canonical.get().equals(reference.name())) {
+                respelled.put(reference.token(), canonical.get());
+            }
+        }
+        if (respelled.isEmpty()) {
+            return tokens;
+        }
+        List<Token> resolved = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            String name = respelled.get(token);
+            resolved.add(name == null ? token : new Token(token.getType(), name, token.getLine(), token.getColumn()));
+        }
+        return resolved;
+    }
+
+    public QueryResult query(String query) throws SQLException {
+        return executor.execute(compile(query));
+    }
+
+    public QueryResult query(String query, CancellationToken token) throws SQLException {
+        return executor.execute(compile(query), token);
+    }
+
+    // Pass rows to writer as they are read rather than building a QueryResult; returns the row count
+    public long stream(String query, CancellationToken token, Executor.RowWriter writer) throws SQLException, IOException {
+        return executor.stream(compile(query), token, writer);
+    }
+
+    // Run through the scheduler, queued fairly against other clients' queries of the same cost class
+    public QueryResult query(String client, String query, CancellationToken token) throws SQLException {
+        return scheduler.execute(client, compile(query), token);
+    }
+
+    public CompletableFuture<QueryResult> queryAsync(String query) {
+        return executor.executeAsync(compile(query));
+    }
+
+    // One page of a game listing; pass null for the first page, then each page's resume token
+    public Page queryPage(String query, int pageSize, String resumeToken) throws SQLException {
+        return executor.executePage(compile(query), pageSize, resumeToken);
+    }
+
+    public CancellationToken newToken() {
+        return executor.newToken();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+        storage.close();
+        synchronized (plans) {
+            plans.clear();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.hoopsql.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * A compact binary stream for loading results into other tools.
+ *
+ * Layout (big-endian):
+ *   header  "HQLB", version byte (1), varint column count, then each column
+ *           label as varint length + UTF-8 bytes
+ *   rows    byte 1 followed by one value per column
+ *   end     byte 0
+ * Each value is a type byte and its payload: 0 NULL, 1 integer (zigzag
+ * varint), 2 real (8-byte IEEE 754), 3 text (varint length + UTF-8),
+ * 4 blob (varint length + bytes).
+ */
+public class BinaryFormatter implements ResultFormatter {
+    private static final byte[] MAGIC = {'H', 'Q', 'L', 'B'};
+    private static final int VERSION = 1;
+
+    private static final int ROW = 1;
+    private static final int END = 0;
+
+    private static final int NULL = 0;
+    private static final int INTEGER = 1;
+    private static final int REAL = 2;
+    private static final int TEXT = 3;
+    private static final int BLOB = 4;
+
+    @Override
+    public long write(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        writeVarint(data, columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            writeBytes(data, metaData.getColumnLabel(i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        long rows = 0;
+        while (rs.next()) {
+            data.writeByte(ROW);
+            for (int i = 1; i <= columnCount; i++) {
+                Object value = rs.getObject(i);
+                if (value == null) {
+                    data.writeByte(NULL);
+                } else if (value instanceof Integer || value instanceof Long) {
+                    long n = ((Number) value).longValue();
+                    data.writeByte(INTEGER);
+                    writeVarint(data, (n << 1) ^ (n >> 63));
+                } else if (value instanceof Double d) {
+                    data.writeByte(REAL);
+                    data.writeDouble(d);
+                } else if (value instanceof byte[] bytes) {
+                    data.writeByte(BLOB);
+                    writeBytes(data, bytes);
+                } else {
+                    data.writeByte(TEXT);
+                    writeBytes(data, value.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            rows++;
+        }
+        data.writeByte(END);
+        data.flush();
+        return rows;
+    }
+
+    private static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+        writeVarint(data, bytes.length);
+        data.write(bytes);
+    }
+
+    // Unsigned LEB128
+    private static void writeVarint(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+}
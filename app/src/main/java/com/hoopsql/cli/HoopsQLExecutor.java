@@ -1,6 +1,7 @@
 package com.hoopsql.cli;
 
 import com.hoopsql.compiler.*;
+import com.hoopsql.runtime.Executor;
 import com.hoopsql.storage.SQLiteStorage;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -12,12 +13,19 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Map;
 
 public class HoopsQLExecutor {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: java -cp target/classes com.hoopsql.cli.HoopsQLExecutor <query-file.hpsql>");
+        ResultFormatter format = null;
+        if (args.length == 3 && "--format".equals(args[1])) {
+            try {
+                format = ResultFormatter.forName(args[2]);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+        } else if (args.length != 1) {
+            System.err.println("Usage: java -cp target/classes com.hoopsql.cli.HoopsQLExecutor <query-file.hpsql> [--format csv|jsonl|bin]");
             System.exit(1);
         }
         
@@ -31,17 +39,19 @@ public class HoopsQLExecutor {
         
         try {
             String query = Files.readString(filePath);
-            executeQuery(query, filename);
+            executeQuery(query, filename, format);
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
             System.exit(1);
         }
     }
     
-    private static void executeQuery(String query, String filename) {
-        System.out.println("HoopsQL - Running " + filename);
-        System.out.println("Query: " + query.trim());
-        System.out.println("");
+    private static void executeQuery(String query, String filename, ResultFormatter format) {
+        if (format == null) {
+            System.out.println("HoopsQL - Running " + filename);
+            System.out.println("Query: " + query.trim());
+            System.out.println("");
+        }
         
         try {
             // Compile the query
@@ -62,14 +72,15 @@ public class HoopsQLExecutor {
                  PreparedStatement stmt = conn.prepareStatement(intelligentSql)) {
                 
                 // Set parameters
-                int paramIndex = 1;
-                for (Map.Entry<String, Object> entry : plan.getParameters().entrySet()) {
-                    stmt.setObject(paramIndex++, entry.getValue());
-                }
+                Executor.setParameters(stmt, plan.getParameters());
                 
-                // Execute and show results
+                // Execute and show (or export) results
                 try (ResultSet rs = stmt.executeQuery()) {
-                    showResults(rs);
+                    if (format != null) {
+                        format.write(rs, System.out);
+                    } else {
+                        showResults(rs);
+                    }
                 }
                 
             } catch (SQLException e) {
@@ -1,8 +1,25 @@
 package com.hoopsql.cli;
 
-import com.hoopsql.compiler.*;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.metrics.Counter;
+import com.hoopsql.metrics.Histogram;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.metrics.MetricsRegistry;
+import com.hoopsql.metrics.Timer;
+import com.hoopsql.runtime.CancellationToken;
+import com.hoopsql.runtime.Executor;
+import com.hoopsql.runtime.Page;
+import com.hoopsql.runtime.QueryCancelledException;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.runtime.UnknownNameException;
 import com.hoopsql.storage.SQLiteStorage;
+import com.hoopsql.util.Config;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,37 +27,76 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 public class HoopsQLRunner {
+    private static final Config config = new Config();
+    private static HoopsQL session;
+    
+    // Game listings are shown a page at a time; 'next' resumes the last one
+    private static final int PAGE_SIZE = 10;
+    private static ExecutionPlan pagedPlan;
+    private static String pagedResumeToken;
+    
+    // Query currently executing, so Ctrl-C can cancel it instead of killing the shell
+    private static volatile CancellationToken running;
+    
     public static void main(String[] args) {
-        if (args.length == 0) {
+        MetricsRegistry.global().registerMBean();
+        
+        if (args.length > 0 && "serve".equals(args[0])) {
+            serve(args);
+            return;
+        }
+        
+        // --format csv|jsonl|bin streams the full result instead of the summary view
+        ResultFormatter format = null;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--format".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    format = ResultFormatter.forName(args[++i]);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    System.exit(1);
+                }
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        
+        if (positional.isEmpty() && format == null) {
             // Interactive mode
             runInteractive();
-        } else if (args.length == 1) {
+        } else if (positional.size() == 1) {
             // Single query mode
-            String input = args[0];
+            String input = positional.get(0);
             Path filePath = Paths.get(input);
             
             if (Files.exists(filePath) && input.endsWith(".hpsql")) {
                 // It's a file - read the query from file
                 try {
                     String query = Files.readString(filePath);
-                    runQuery(query);
+                    runQuery(query, format);
                 } catch (IOException e) {
                     System.err.println("Error reading file: " + e.getMessage());
                     System.exit(1);
                 }
             } else {
                 // It's a direct query string
-                runQuery(input);
+                runQuery(input, format);
             }
         } else {
             System.err.println("Usage:");
             System.err.println("  hoopsql                           # Interactive mode");
             System.err.println("  hoopsql \"<query>\"                 # Run single query");
             System.err.println("  hoopsql <file.hpsql>              # Run query from file");
+            System.err.println("  hoopsql <query|file> --format csv|jsonl|bin   # Export every row to stdout");
+            System.err.println("  hoopsql serve [--host H] [--port N]           # HTTP server on one shared session");
             System.err.println();
             System.err.println("Examples:");
             System.err.println("  hoopsql");
@@ -50,11 +106,61 @@ public class HoopsQLRunner {
         }
     }
     
+    // 'hoopsql serve': answer HTTP queries until the process is stopped
+    private static void serve(String[] args) {
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                System.err.println("Missing value for " + args[i]);
+                System.exit(1);
+            }
+            String value = args[++i];
+            try {
+                switch (args[i - 1]) {
+                    case "--host" -> config.setServerHost(value);
+                    case "--port" -> config.setServerPort(Integer.parseInt(value));
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i - 1]);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println("Usage: hoopsql serve [--host 127.0.0.1] [--port 8080]");
+                System.exit(1);
+            }
+        }
+        
+        try {
+            HoopsQLServer server = new HoopsQLServer(session());
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                session().close();
+            }));
+            System.out.println("Database: " + storage().getModeDescription());
+            if (config.isInProcessEngine()) {
+                System.out.println("Engine: " + session().getEngineDescription());
+            }
+            System.out.printf("Listening on http://%s:%d (POST /query, GET /health, GET /metrics)%n",
+                server.getAddress().getHostString(), server.getAddress().getPort());
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
     private static void runInteractive() {
         System.out.println("=== HoopsQL Interactive Shell ===");
         System.out.println("Type your HoopsQL queries below. Type 'exit' to quit, 'help' for examples.");
         System.out.println();
         
+        installInterruptHandler();
+        if (config.isInMemory()) {
+            System.out.println("Database: " + storage().getModeDescription());
+        }
+        if (config.isInProcessEngine()) {
+            System.out.println("Engine: " + session().getEngineDescription());
+        }
+        if (config.isInMemory() || config.isInProcessEngine()) {
+            System.out.println();
+        }
         Scanner scanner = new Scanner(System.in);
         
         while (true) {
@@ -67,6 +173,23 @@ public class HoopsQLRunner {
             } else if (input.equalsIgnoreCase("help")) {
                 showHelp();
                 continue;
+            } else if (input.startsWith("\\stats")) {
+                if (input.equalsIgnoreCase("\\stats reset")) {
+                    MetricsRegistry.global().reset();
+                    System.out.println("Metrics reset.");
+                } else {
+                    showStats();
+                }
+                System.out.println();
+                continue;
+            } else if (input.equalsIgnoreCase("next")) {
+                showNextPage();
+                System.out.println();
+                continue;
+            } else if (input.startsWith("\\timeout")) {
+                setTimeout(input.substring("\\timeout".length()).trim());
+                System.out.println();
+                continue;
             } else if (input.isEmpty()) {
                 continue;
             }
@@ -78,6 +201,22 @@ public class HoopsQLRunner {
         scanner.close();
     }
     
+    // One session per process: pools, caches and an in-memory copy stay warm across queries
+    private static synchronized HoopsQL session() {
+        if (session == null) {
+            session = HoopsQL.open(config);
+        }
+        return session;
+    }
+    
+    private static SQLiteStorage storage() {
+        return session().getStorage();
+    }
+    
+    private static Executor executor() {
+        return session().getExecutor();
+    }
+    
     private static void showHelp() {
         System.out.println("HoopsQL Query Examples:");
         System.out.println();
@@ -91,26 +230,112 @@ public class HoopsQLRunner {
         System.out.println("  Player p = \"Kobe Bryant\" get games where p.points >= 40 and p.opponent = \"Celtics\"");
         System.out.println();
         System.out.println("Commands:");
-        System.out.println("  help  - Show this help");
-        System.out.println("  exit  - Quit the shell");
+        System.out.println("  help          - Show this help");
+        System.out.println("  \\stats        - Show per-phase latency and throughput metrics");
+        System.out.println("  \\stats reset  - Clear collected metrics");
+        System.out.println("  next          - Show the next page of the last game listing");
+        System.out.println("  \\timeout [ms] - Show or set the per-query timeout (0 = none)");
+        System.out.println("  Ctrl-C        - Cancel the running query");
+        System.out.println("  exit          - Quit the shell");
         System.out.println();
     }
     
+    // sun.misc.Signal is the only way to catch Ctrl-C without the JVM exiting; it is reached
+    // reflectively so the build doesn't depend on (or warn about) the unsupported API
+    private static void installInterruptHandler() {
+        try {
+            Class<?> signalClass = Class.forName("sun.misc.Signal");
+            Class<?> handlerClass = Class.forName("sun.misc.SignalHandler");
+            Object handler = Proxy.newProxyInstance(handlerClass.getClassLoader(), new Class<?>[] {handlerClass},
+                (proxy, method, arguments) -> {
+                    switch (method.getName()) {
+                        case "equals": return proxy == arguments[0];
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "toString": return "HoopsQL interrupt handler";
+                        default: break;
+                    }
+                    CancellationToken token = running;
+                    if (token != null) {
+                        token.cancel();
+                    } else {
+                        // Nothing to cancel: behave like the default handler
+                        System.out.println();
+                        System.exit(130);
+                    }
+                    return null;
+                });
+            Object interrupt = signalClass.getConstructor(String.class).newInstance("INT");
+            signalClass.getMethod("handle", signalClass, handlerClass).invoke(null, interrupt, handler);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // Signal not available on this platform; Ctrl-C keeps its default behaviour
+        }
+    }
+    
+    private static void setTimeout(String value) {
+        if (!value.isEmpty()) {
+            try {
+                config.setQueryTimeoutMillis(Long.parseLong(value));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Usage: \\timeout <milliseconds>  (0 disables the timeout)");
+                return;
+            }
+        }
+        long timeout = config.getQueryTimeoutMillis();
+        System.out.println(timeout == 0 ? "Query timeout: none" : "Query timeout: " + timeout + " ms");
+    }
+    
+    private static void showStats() {
+        MetricsRegistry registry = MetricsRegistry.global();
+        
+        System.out.println("Phase timings (ms):");
+        System.out.printf("  %-14s %8s %9s %9s %9s %9s %9s\n", "phase", "count", "mean", "p50", "p95", "p99", "max");
+        for (Timer timer : registry.getTimers().values()) {
+            System.out.printf("  %-14s %8d %9.3f %9.3f %9.3f %9.3f %9.3f\n",
+                timer.getName(), timer.getCount(),
+                timer.getMean(TimeUnit.MILLISECONDS),
+                timer.getPercentile(0.50, TimeUnit.MILLISECONDS),
+                timer.getPercentile(0.95, TimeUnit.MILLISECONDS),
+                timer.getPercentile(0.99, TimeUnit.MILLISECONDS),
+                timer.getMax(TimeUnit.MILLISECONDS));
+        }
+        
+        for (var entry : registry.getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            System.out.printf("  %-14s %8d %9.1f %9d %9d %9d %9d\n",
+                entry.getKey(), histogram.getCount(), histogram.getMean(),
+                histogram.getPercentile(0.50), histogram.getPercentile(0.95),
+                histogram.getPercentile(0.99), histogram.getMax());
+        }
+        
+        System.out.println("Counters:");
+        for (Counter counter : registry.getCounters().values()) {
+            System.out.printf("  %-14s %8d\n", counter.getName(), counter.get());
+        }
+    }
+    
     private static void runQuery(String query) {
+        runQuery(query, null);
+    }
+    
+    private static void runQuery(String query, ResultFormatter format) {
+        long queryStart = System.nanoTime();
+        Metrics.QUERIES.increment();
         try {
-            Lexer lexer = new Lexer(query);
-            List<Token> tokens = lexer.tokenize();
-            Parser parser = new Parser(tokens);
-            var program = parser.parse();
+            ExecutionPlan plan = session().compile(query);
             
-            Planner planner = new Planner();
-            ExecutionPlan plan = planner.createExecutionPlan(program);
-            
-            executeAndShowResults(plan);
+            if (format != null) {
+                exportResults(plan, format);
+            } else {
+                executeAndShowResults(plan);
+            }
+            Metrics.QUERY.recordSince(queryStart);
             
         } catch (Exception e) {
+            Metrics.QUERY_ERRORS.increment();
             String msg = e.getMessage();
-            if (msg.contains("Unexpected token") && query.contains("=") && !query.contains("\"")) {
+            if (e instanceof UnknownNameException) {
+                System.out.println(msg); // already a full "Error on line N: ..." diagnostic
+            } else if (msg.contains("Unexpected token") && query.contains("=") && !query.contains("\"")) {
                 System.out.println("Error: Player names must be in quotes. Try: Player p = \"Kobe Bryant\"");
             } else {
                 System.out.println("Error: " + msg);
@@ -119,180 +344,369 @@ public class HoopsQLRunner {
     }
     
     private static void executeAndShowResults(ExecutionPlan plan) {
+        CancellationToken token = CancellationToken.withTimeout(config.getQueryTimeoutMillis());
+        running = token;
         try {
-            SQLiteStorage storage = new SQLiteStorage();
-            try (Connection conn = storage.connect();
+            long start = System.nanoTime();
+            try (Connection conn = storage().connect();
                  PreparedStatement stmt = conn.prepareStatement(plan.getSql())) {
+                Metrics.PREPARE.recordSince(start);
+                try {
+                    // Covers both the count and the main query on this connection
+                    token.attach(conn, stmt);
                 
-                // Set parameters in correct order (if any)
-                if (!plan.getParameters().isEmpty()) {
-                    java.util.List<String> sortedKeys = new java.util.ArrayList<>(plan.getParameters().keySet());
-                    sortedKeys.sort((a, b) -> {
-                        int numA = Integer.parseInt(a.substring(5));
-                        int numB = Integer.parseInt(b.substring(5));
-                        return Integer.compare(numA, numB);
-                    });
+                    // Set parameters in correct order (if any)
+                    if (!plan.getParameters().isEmpty()) {
+                        java.util.List<String> sortedKeys = new java.util.ArrayList<>(plan.getParameters().keySet());
+                        sortedKeys.sort((a, b) -> {
+                            int numA = Integer.parseInt(a.substring(5));
+                            int numB = Integer.parseInt(b.substring(5));
+                            return Integer.compare(numA, numB);
+                        });
                     
-                    int paramIndex = 1;
-                    for (String key : sortedKeys) {
-                        Object value = plan.getParameters().get(key);
-                        stmt.setObject(paramIndex++, value);
+                        int paramIndex = 1;
+                        for (String key : sortedKeys) {
+                            Object value = plan.getParameters().get(key);
+                            stmt.setObject(paramIndex++, value);
+                        }
                     }
-                }
                 
-                // First, execute a COUNT query to get total results
-                int totalGames = 0;
-                if (!"averages".equals(plan.getResultType())) {
-                    String countSql = plan.getSql().replaceFirst("SELECT.*?FROM", "SELECT COUNT(*) FROM");
-                    // Remove ORDER BY clause for counting
-                    if (countSql.contains("ORDER BY")) {
-                        countSql = countSql.substring(0, countSql.indexOf("ORDER BY"));
-                    }
-                    // Remove LIMIT clause for counting
-                    if (countSql.contains("LIMIT")) {
-                        countSql = countSql.substring(0, countSql.indexOf("LIMIT"));
-                    }
+                    // First, execute a COUNT query to get total results
+                    int totalGames = 0;
+                    if ("games".equals(plan.getResultType())) {
+                        String countSql = plan.getSql().replaceFirst("SELECT.*?FROM", "SELECT COUNT(*) FROM");
+                        // Remove ORDER BY clause for counting
+                        if (countSql.contains("ORDER BY")) {
+                            countSql = countSql.substring(0, countSql.indexOf("ORDER BY"));
+                        }
+                        // Remove LIMIT clause for counting
+                        if (countSql.contains("LIMIT")) {
+                            countSql = countSql.substring(0, countSql.indexOf("LIMIT"));
+                        }
                     
-                    try (PreparedStatement countStmt = conn.prepareStatement(countSql)) {
-                        // Set parameters for count query (same as main query)
-                        if (!plan.getParameters().isEmpty()) {
-                            java.util.List<String> sortedKeys = new java.util.ArrayList<>(plan.getParameters().keySet());
-                            sortedKeys.sort((a, b) -> {
-                                int numA = Integer.parseInt(a.substring(5));
-                                int numB = Integer.parseInt(b.substring(5));
-                                return Integer.compare(numA, numB);
-                            });
+                        try (PreparedStatement countStmt = conn.prepareStatement(countSql)) {
+                            // Set parameters for count query (same as main query)
+                            if (!plan.getParameters().isEmpty()) {
+                                java.util.List<String> sortedKeys = new java.util.ArrayList<>(plan.getParameters().keySet());
+                                sortedKeys.sort((a, b) -> {
+                                    int numA = Integer.parseInt(a.substring(5));
+                                    int numB = Integer.parseInt(b.substring(5));
+                                    return Integer.compare(numA, numB);
+                                });
                             
-                            int paramIndex = 1;
-                            for (String key : sortedKeys) {
-                                Object value = plan.getParameters().get(key);
-                                countStmt.setObject(paramIndex++, value);
+                                int paramIndex = 1;
+                                for (String key : sortedKeys) {
+                                    Object value = plan.getParameters().get(key);
+                                    countStmt.setObject(paramIndex++, value);
+                                }
                             }
-                        }
                         
-                        try (ResultSet countRs = countStmt.executeQuery()) {
-                            if (countRs.next()) {
-                                totalGames = countRs.getInt(1);
+                            try (ResultSet countRs = countStmt.executeQuery()) {
+                                if (countRs.next()) {
+                                    totalGames = countRs.getInt(1);
+                                }
                             }
+                        } catch (SQLException e) {
+                            if (token.shouldStop()) {
+                                throw token.translate(e);
+                            }
+                            // If count fails, we'll just show results without total
+                            totalGames = -1;
                         }
-                    } catch (SQLException e) {
-                        // If count fails, we'll just show results without total
-                        totalGames = -1;
                     }
-                }
                 
-                try (ResultSet rs = stmt.executeQuery()) {
+                    start = System.nanoTime();
                     System.out.println("\nResults:");
                     System.out.println("========");
                     
-                    // Check if this is an averaging query
-                    java.sql.ResultSetMetaData metaData = rs.getMetaData();
-                    boolean isAveraging = "averages".equals(plan.getResultType());
-                    
-                    if (isAveraging) {
-                        // For averaging queries, the games count is in the result
-                        if (rs.next()) {
-                            System.out.println("Season Averages:");
+                    if ("averages".equals(plan.getResultType())) {
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            Metrics.EXECUTE.recordSince(start);
+                            start = System.nanoTime();
+                            
+                            // For averaging queries, the games count is in the result; "by" gives one row per group
+                            boolean grouped = plan.getParts() != null && plan.getParts().isGrouped();
+                            int groups = 0;
                             try {
-                                System.out.printf("  Points: %.1f\n", rs.getDouble("avg_points"));
-                                System.out.printf("  Rebounds: %.1f\n", rs.getDouble("avg_rebounds"));
-                                System.out.printf("  Assists: %.1f\n", rs.getDouble("avg_assists"));
-                                System.out.printf("  Steals: %.1f\n", rs.getDouble("avg_steals"));
-                                System.out.printf("  Blocks: %.1f\n", rs.getDouble("avg_blocks"));
-                                System.out.printf("  Turnovers: %.1f\n", rs.getDouble("avg_turnovers"));
-                                System.out.printf("  3PM: %.1f\n", rs.getDouble("avg_threePointersMade"));
-                                System.out.printf("  Games: %d\n", rs.getInt("games_count"));
+                                java.sql.ResultSetMetaData meta = rs.getMetaData();
+                                while (rs.next()) {
+                                    groups++;
+                                    int first = 1;
+                                    if (grouped) {
+                                        Object group = rs.getObject(1);
+                                        System.out.printf("%s%s %s:\n", groups > 1 ? "\n" : "", meta.getColumnLabel(1),
+                                            group == null ? "-" : group);
+                                        first = 2;
+                                    } else {
+                                        System.out.println("Season Averages:");
+                                    }
+                                    // Whatever avg(games) or agg(...) asked for, in order; averages to one decimal
+                                    for (int i = first; i <= meta.getColumnCount(); i++) {
+                                        String alias = meta.getColumnLabel(i);
+                                        Object value = rs.getObject(i);
+                                        String shown = value == null ? "-"
+                                            : value instanceof Double d ? String.format("%.1f", d) : value.toString();
+                                        System.out.printf("  %s: %s\n", aggregateLabel(alias), shown);
+                                    }
+                                }
                             } catch (SQLException e) {
+                                Metrics.QUERY_ERRORS.increment();
                                 System.out.println("Error displaying averages: " + e.getMessage());
                             }
-                        } else {
-                            System.out.println("No data found for the specified criteria.");
+                            if (groups == 0) {
+                                System.out.println("No data found for the specified criteria.");
+                            }
+                            Metrics.ROWS_RETURNED.add(groups);
+                            Metrics.ROWS_PER_QUERY.record(groups);
+                            Metrics.ITERATE.recordSince(start);
                         }
+                    } else if ("streaks".equals(plan.getResultType())) {
+                        showStreaks(plan, token);
+                    } else if ("rolling".equals(plan.getResultType())) {
+                        showRolling(plan, token);
                     } else {
                         // Display individual game results
                         if (totalGames >= 0) {
                             System.out.printf("(%d games)\n", totalGames);
                             System.out.println("");
                         }
-                        
-                        int count = 0;
-                        while (rs.next() && count < 10) {
-                            count++;
-                            
-                            // Game header info
-                            String gameDate = rs.getString("game_date");
-                            String playerName = rs.getString("player_name");
-                            String team = rs.getString("team");
-                            String opponent = rs.getString("opponent");
-                            String result = rs.getString("win").equals("1") ? "W" : "L";
-                            
-                            System.out.printf("\n%d. %s - %s (%s vs %s) - %s\n", 
-                                count, gameDate, playerName, team, opponent, result);
-                            
-                            // Build stats line with proper spacing
-                            StringBuilder stats = new StringBuilder("   Stats: ");
-                            
-                            // Core stats (always show)
-                            stats.append(String.format("%.0f pts", rs.getDouble("points")));
-                            stats.append(String.format(", %.0f reb", rs.getDouble("rebounds")));
-                            stats.append(String.format(", %.0f ast", rs.getDouble("assists")));
-                            
-                            // Show queried stats (in addition to core stats)
-                            try {
-                                int columnCount = metaData.getColumnCount();
-                                
-                                for (int i = 1; i <= columnCount; i++) {
-                                    String columnName = metaData.getColumnName(i).toLowerCase();
-                                    
-                                    // Skip core stats (already shown) and non-stat columns
-                                    if (columnName.equals("points") || columnName.equals("rebounds") || 
-                                        columnName.equals("assists") || columnName.equals("game_date") || 
-                                        columnName.equals("player_name") || columnName.equals("team") || 
-                                        columnName.equals("opponent") || columnName.equals("win") || 
-                                        columnName.equals("margin")) {
-                                        continue;
-                                    }
-                                    
-                                    // Get the value and show it
-                                    try {
-                                        String value = rs.getString(columnName);
-                                        if (value != null && !value.isEmpty()) {
-                                            String label = getStatLabel(columnName);
-                                            if (label != null) {
-                                                double numValue = Double.parseDouble(value);
-                                                // Always show important stats, even if zero (especially for ORDER BY fields)
-                                                stats.append(String.format(", %.0f %s", numValue, label));
-                                            }
-                                        }
-                                    } catch (SQLException | NumberFormatException ignored2) {
-                                        // Skip if can't read this column or parse as number
-                                    }
-                                }
-                            } catch (SQLException ignored) {
-                                // Some stats might not be in the result set - that's okay
-                            }
-                            
-                            System.out.println(stats.toString());
-                        }
-                        
-                        if (count == 0) {
-                            System.out.println("\nNo results found");
-                        } else {
-                            // Check if there are more results
-                            if (rs.next()) {
-                                System.out.println("\n... (showing first " + count + " results)");
-                            }
-                        }
+                        showGames(plan, null, token);
                     }
+                } finally {
+                    token.detach(conn);
                 }
                 
             } catch (SQLException e) {
-                System.out.println("Database Error: " + e.getMessage());
+                Metrics.QUERY_ERRORS.increment();
+                reportSqlError(token, e);
             }
             
         } catch (Exception e) {
+            Metrics.QUERY_ERRORS.increment();
             System.out.println("Execution Error: " + e.getMessage());
+        } finally {
+            running = null;
+        }
+    }
+    
+    // Stream the whole result to stdout; the row count goes to stderr so it stays out of the data
+    private static void exportResults(ExecutionPlan plan, ResultFormatter format) throws IOException {
+        CancellationToken token = CancellationToken.withTimeout(config.getQueryTimeoutMillis());
+        running = token;
+        System.out.flush();
+        OutputStream out = new FileOutputStream(FileDescriptor.out);
+        try (Connection conn = storage().connect();
+             PreparedStatement stmt = conn.prepareStatement(plan.getSql())) {
+            Executor.setParameters(stmt, plan.getParameters());
+            try {
+                token.attach(conn, stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    long start = System.nanoTime();
+                    long rows = format.write(rs, out);
+                    Metrics.ITERATE.recordSince(start);
+                    Metrics.ROWS_RETURNED.add(rows);
+                    Metrics.ROWS_PER_QUERY.record(rows);
+                    System.err.println(rows + " rows");
+                }
+            } finally {
+                token.detach(conn);
+            }
+        } catch (SQLException e) {
+            SQLException error = token.translate(e);
+            if (error instanceof QueryCancelledException cancelled) {
+                (cancelled.isTimedOut() ? Metrics.QUERY_TIMEOUTS : Metrics.QUERY_CANCELS).increment();
+            }
+            System.err.println("Database Error: " + error.getMessage());
+            System.exit(1);
+        } finally {
+            running = null;
+        }
+    }
+    
+    // Print one page of a game listing and remember where it stopped for 'next'
+    private static void showGames(ExecutionPlan plan, String resumeToken, CancellationToken token) throws SQLException {
+        List<Map<String, Object>> rows;
+        int firstRow;
+        String next = null;
+        boolean truncated = false;
+        if (Executor.canPage(plan)) {
+            Page page = executor().executePage(plan, PAGE_SIZE, resumeToken, token);
+            rows = page.getResult().getRows();
+            firstRow = page.getFirstRow();
+            next = page.getResumeToken();
+        } else {
+            // Nothing to seek on: show the first page only
+            QueryResult result = executor().execute(plan, token);
+            rows = result.getRows().subList(0, Math.min(PAGE_SIZE, result.getRowCount()));
+            firstRow = 1;
+            truncated = result.getRowCount() > PAGE_SIZE;
+        }
+        
+        for (int i = 0; i < rows.size(); i++) {
+            printGame(firstRow + i, rows.get(i));
+        }
+        
+        int lastRow = firstRow + rows.size() - 1;
+        if (rows.isEmpty()) {
+            System.out.println(firstRow == 1 ? "\nNo results found" : "\nNo more results");
+        } else if (next != null) {
+            System.out.println("\n... (showing " + firstRow + "-" + lastRow + "; type 'next' for more)");
+        } else if (truncated) {
+            System.out.println("\n... (showing first " + rows.size() + " results)");
+        }
+        
+        pagedPlan = next != null ? plan : null;
+        pagedResumeToken = next;
+    }
+    
+    // Streaks, longest first: one line each
+    private static void showStreaks(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        QueryResult result = executor().execute(plan, token);
+        List<Map<String, Object>> rows = result.getRows().subList(0, Math.min(PAGE_SIZE, result.getRowCount()));
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            int length = ((Number) row.get("length")).intValue();
+            System.out.printf("%d. %s - %d game%s (%s to %s)\n", i + 1, row.get("player_name"), length,
+                length == 1 ? "" : "s", row.get("start_date"), row.get("end_date"));
+        }
+        if (rows.isEmpty()) {
+            System.out.println("No streaks found");
+        } else if (result.getRowCount() > PAGE_SIZE) {
+            System.out.println("\n... (showing the " + rows.size() + " longest of " + result.getRowCount() + " streaks)");
         }
+        pagedPlan = null;
+        pagedResumeToken = null;
+    }
+    
+    // Rolling windows: a line per game, printed as SQLite produces them rather than collected first
+    private static void showRolling(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        long games;
+        try {
+            games = executor().stream(plan, token, rs -> {
+                java.sql.ResultSetMetaData meta = rs.getMetaData();
+                long count = 0;
+                while (rs.next()) {
+                    count++;
+                    // game_date, player_name, the rolling columns, then window_games
+                    StringBuilder line = new StringBuilder();
+                    line.append(count).append(". ").append(rs.getString(1)).append(" - ").append(rs.getString(2)).append(":");
+                    for (int i = 3; i < meta.getColumnCount(); i++) {
+                        Object value = rs.getObject(i);
+                        String shown = value == null ? "-"
+                            : value instanceof Double d ? String.format("%.1f", d) : value.toString();
+                        line.append(i > 3 ? ", " : " ").append(meta.getColumnLabel(i)).append(" ").append(shown);
+                    }
+                    int window = rs.getInt(meta.getColumnCount());
+                    line.append(" (over ").append(window).append(window == 1 ? " game)" : " games)");
+                    System.out.println(line);
+                }
+                return count;
+            });
+        } catch (IOException e) {
+            throw new SQLException("Cannot print results: " + e.getMessage(), e);
+        }
+        if (games == 0) {
+            System.out.println("No results found");
+        }
+        pagedPlan = null;
+        pagedResumeToken = null;
+    }
+    
+    private static void showNextPage() {
+        if (pagedPlan == null) {
+            System.out.println("No more results to show.");
+            return;
+        }
+        CancellationToken token = CancellationToken.withTimeout(config.getQueryTimeoutMillis());
+        running = token;
+        try {
+            showGames(pagedPlan, pagedResumeToken, token);
+        } catch (SQLException e) {
+            reportSqlError(token, e);
+        } finally {
+            running = null;
+        }
+    }
+    
+    private static void printGame(int number, Map<String, Object> row) {
+        // Game header info
+        String result = "1".equals(String.valueOf(row.get("win"))) ? "W" : "L";
+        System.out.printf("\n%d. %s - %s (%s vs %s) - %s\n", 
+            number, row.get("game_date"), row.get("player_name"), row.get("team"), row.get("opponent"), result);
+        
+        // Build stats line with proper spacing
+        StringBuilder stats = new StringBuilder("   Stats: ");
+        
+        // Core stats (always show)
+        stats.append(String.format("%.0f pts", number(row.get("points"))));
+        stats.append(String.format(", %.0f reb", number(row.get("rebounds"))));
+        stats.append(String.format(", %.0f ast", number(row.get("assists"))));
+        
+        // Show queried stats (in addition to core stats)
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            String columnName = column.getKey().toLowerCase();
+            
+            // Skip core stats (already shown) and non-stat columns
+            if (columnName.equals("points") || columnName.equals("rebounds") || 
+                columnName.equals("assists") || columnName.equals("game_date") || 
+                columnName.equals("player_name") || columnName.equals("team") || 
+                columnName.equals("opponent") || columnName.equals("win") || 
+                columnName.equals("margin")) {
+                continue;
+            }
+            
+            String label = getStatLabel(columnName);
+            if (label != null && column.getValue() != null) {
+                try {
+                    // Always show important stats, even if zero (especially for ORDER BY fields)
+                    stats.append(String.format(", %.0f %s", Double.parseDouble(column.getValue().toString()), label));
+                } catch (NumberFormatException ignored) {
+                    // Skip values that aren't numbers
+                }
+            }
+        }
+        
+        System.out.println(stats.toString());
+    }
+    
+    private static double number(Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        try {
+            return value != null ? Double.parseDouble(value.toString()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    // Print why a query failed; timeouts and cancels reported by the Executor are already counted
+    private static void reportSqlError(CancellationToken token, SQLException e) {
+        if (token.translate(e) instanceof QueryCancelledException cancelled) {
+            if (cancelled != e) {
+                (cancelled.isTimedOut() ? Metrics.QUERY_TIMEOUTS : Metrics.QUERY_CANCELS).increment();
+            }
+            System.out.println(cancelled.isTimedOut()
+                ? "\n" + cancelled.getMessage() + " (raise it with \\timeout <ms>)"
+                : "\n" + cancelled.getMessage() + ".");
+        } else {
+            System.out.println("Database Error: " + e.getMessage());
+        }
+    }
+    
+    // The labels the averages display has always used; any other aggregate shows its alias (max_points)
+    private static String aggregateLabel(String alias) {
+        return switch (alias) {
+            case "avg_points" -> "Points";
+            case "avg_rebounds" -> "Rebounds";
+            case "avg_assists" -> "Assists";
+            case "avg_steals" -> "Steals";
+            case "avg_blocks" -> "Blocks";
+            case "avg_turnovers" -> "Turnovers";
+            case "avg_threePointersMade" -> "3PM";
+            case "games_count" -> "Games";
+            default -> alias;
+        };
     }
     
     private static String getStatLabel(String columnName) {
@@ -0,0 +1,291 @@
+package com.hoopsql.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hoopsql.HoopsQL;
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.metrics.Counter;
+import com.hoopsql.metrics.Histogram;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.metrics.MetricsRegistry;
+import com.hoopsql.metrics.Timer;
+import com.hoopsql.runtime.CancellationToken;
+import com.hoopsql.runtime.QueryCancelledException;
+import com.hoopsql.runtime.QueryRejectedException;
+import com.hoopsql.runtime.QueryScheduler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP front end for one shared HoopsQL session ('hoopsql serve').
+ *
+ * Endpoints:
+ *   POST /query    HoopsQL text in the body; rows streamed back as JSON Lines
+ *   GET  /health   200 and the database mode while the server is up
+ *   GET  /metrics  timers, histograms, counters and scheduler lanes as one JSON object
+ *
+ * Each exchange runs on its own virtual thread, so hundreds of slow clients
+ * cost little more than their sockets. The session's QueryScheduler admits
+ * each query into its cheap or heavy lane, taking turns between clients (see
+ * clientOf); a full lane answers 503 with Retry-After, and a query whose
+ * deadline passes while queued answers 504. Admitted SQLite work runs on a
+ * platform-thread pool the size of the read pool: a native SQLite call pins
+ * the carrier of a virtual thread, and a few long queries would otherwise
+ * stall every other exchange, /health included. Rows go from the ResultSet
+ * to the socket through JsonLinesFormatter without being collected first.
+ * Errors found before the first row get a status code and a JSON body; a
+ * failure mid-stream can only cut the response short.
+ */
+public class HoopsQLServer implements AutoCloseable {
+    private static final int BACKLOG = 1024;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String JSON_LINES = "application/x-ndjson; charset=utf-8";
+    private static final String CLIENT_HEADER = "X-HoopsQL-Client";
+
+    private final HoopsQL session;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ExecutorService queries;
+
+    public HoopsQLServer(HoopsQL session) throws IOException {
+        this.session = session;
+        InetSocketAddress address = new InetSocketAddress(
+            session.getConfig().getServerHost(), session.getConfig().getServerPort());
+        this.server = HttpServer.create(address, BACKLOG);
+        this.handlers = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(handlers);
+        AtomicInteger threads = new AtomicInteger();
+        this.queries = Executors.newFixedThreadPool(session.getConfig().getReadPoolSize(), task -> {
+            Thread thread = new Thread(task, "hoopsql-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/query", exchange -> handle(exchange, "POST", this::query));
+        server.createContext("/health", exchange -> handle(exchange, "GET", this::health));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET", this::metrics));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Stop accepting, give in-flight exchanges a moment to finish, then stop
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdown();
+        queries.shutdown();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Metrics.SERVER_REQUESTS.increment();
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendJson(exchange, 405, error("Use " + method));
+                return;
+            }
+            handler.handle(exchange);
+        }
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+        String text;
+        try (InputStream body = exchange.getRequestBody()) {
+            text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (text.isBlank()) {
+            sendJson(exchange, 400, error("Request body must be a HoopsQL query"));
+            return;
+        }
+
+        long queryStart = System.nanoTime();
+        Metrics.QUERIES.increment();
+        ExecutionPlan plan;
+        try {
+            plan = session.compile(text);
+        } catch (RuntimeException e) {
+            Metrics.QUERY_ERRORS.increment();
+            sendJson(exchange, 400, error(e.getMessage()));
+            return;
+        }
+
+        CancellationToken token = session.newToken();
+        CommitOnWrite out = new CommitOnWrite(exchange);
+        try {
+            session.getScheduler().run(clientOf(exchange), plan, token, () -> offload(
+                () -> session.getExecutor().stream(plan, token, rs -> new JsonLinesFormatter().write(rs, out)), token));
+            out.commit();
+            Metrics.QUERY.recordSince(queryStart);
+        } catch (QueryRejectedException e) {
+            Metrics.QUERY_ERRORS.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendJson(exchange, 503, error(e.getMessage()));
+        } catch (SQLException e) {
+            Metrics.QUERY_ERRORS.increment();
+            if (!out.committed) {
+                boolean timedOut = e instanceof QueryCancelledException cancelled && cancelled.isTimedOut();
+                sendJson(exchange, timedOut ? 504 : 500, error(e.getMessage()));
+            }
+        } catch (IOException e) {
+            // Client went away mid-stream; the statement is already closed
+            Metrics.QUERY_ERRORS.increment();
+        }
+    }
+
+    // Fairness is per client: the X-HoopsQL-Client header if given, else the remote address
+    private static String clientOf(HttpExchange exchange) {
+        String client = exchange.getRequestHeaders().getFirst(CLIENT_HEADER);
+        return client != null && !client.isBlank() ? client : exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    // Run SQLite work on the query pool and wait for it, unwrapping its failure
+    private long offload(Callable<Long> work, CancellationToken token) throws SQLException, IOException {
+        Future<Long> future = queries.submit(work);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            token.cancel();
+            throw new SQLException("Interrupted while waiting for the query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new SQLException("Query failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Liveness only: borrowing a connection would queue behind running queries
+    private void health(HttpExchange exchange) throws IOException {
+        sendJson(exchange, 200, "{\"status\":\"ok\",\"database\":"
+            + quote(session.getStorage().getModeDescription()) + "}");
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        MetricsRegistry registry = MetricsRegistry.global();
+        StringBuilder json = new StringBuilder("{\"timers\":{");
+        String separator = "";
+        for (Timer timer : registry.getTimers().values()) {
+            json.append(separator).append(quote(timer.getName())).append(String.format(Locale.ROOT,
+                ":{\"count\":%d,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                timer.getCount(),
+                timer.getMean(TimeUnit.MILLISECONDS),
+                timer.getPercentile(0.50, TimeUnit.MILLISECONDS),
+                timer.getPercentile(0.95, TimeUnit.MILLISECONDS),
+                timer.getPercentile(0.99, TimeUnit.MILLISECONDS),
+                timer.getMax(TimeUnit.MILLISECONDS)));
+            separator = ",";
+        }
+        json.append("},\"histograms\":{");
+        separator = "";
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.append(separator).append(quote(entry.getKey())).append(String.format(Locale.ROOT,
+                ":{\"count\":%d,\"mean\":%.1f,\"p50\":%d,\"p95\":%d,\"p99\":%d,\"max\":%d}",
+                histogram.getCount(), histogram.getMean(),
+                histogram.getPercentile(0.50), histogram.getPercentile(0.95),
+                histogram.getPercentile(0.99), histogram.getMax()));
+            separator = ",";
+        }
+        json.append("},\"counters\":{");
+        separator = "";
+        for (Counter counter : registry.getCounters().values()) {
+            json.append(separator).append(quote(counter.getName())).append(':').append(counter.get());
+            separator = ",";
+        }
+        json.append("},\"scheduler\":{");
+        separator = "";
+        QueryScheduler scheduler = session.getScheduler();
+        for (QueryScheduler.Lane lane : QueryScheduler.Lane.values()) {
+            json.append(separator).append(quote(lane.name().toLowerCase()))
+                .append(":{\"running\":").append(scheduler.getRunning(lane))
+                .append(",\"queued\":").append(scheduler.getQueued(lane)).append('}');
+            separator = ",";
+        }
+        json.append("}}");
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message != null ? message : "Unknown error") + "}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder out = new StringBuilder();
+        JsonLinesFormatter.appendString(out, value);
+        return out.toString();
+    }
+
+    // Sends the 200 and chunked-encoding headers on the first byte written, so an
+    // error raised before any row can still be reported with its own status
+    private static final class CommitOnWrite extends OutputStream {
+        private final HttpExchange exchange;
+        private OutputStream body;
+        private boolean committed;
+
+        CommitOnWrite(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        void commit() throws IOException {
+            if (!committed) {
+                exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+                exchange.sendResponseHeaders(200, 0);
+                body = exchange.getResponseBody();
+                committed = true;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            commit();
+            body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            commit();
+            body.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (committed) {
+                body.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hoopsql.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * JSON Lines: one object per row, keyed by column label. Integers and reals
+ * are written as JSON numbers (non-finite reals as null), text as strings.
+ */
+public class JsonLinesFormatter implements ResultFormatter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public long write(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        // Keys are the same on every line; escape them once
+        String[] keys = new String[columnCount + 1];
+        for (int i = 1; i <= columnCount; i++) {
+            StringBuilder key = new StringBuilder(i == 1 ? "{" : ",");
+            appendString(key, metaData.getColumnLabel(i));
+            keys[i] = key.append(':').toString();
+        }
+
+        long rows = 0;
+        StringBuilder text = new StringBuilder();
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                writer.write(keys[i]);
+                Object value = rs.getObject(i);
+                if (value == null) {
+                    writer.write("null");
+                } else if (value instanceof Integer || value instanceof Long) {
+                    writer.write(value.toString());
+                } else if (value instanceof Double d) {
+                    writer.write(Double.isFinite(d) ? d.toString() : "null");
+                } else {
+                    text.setLength(0);
+                    appendString(text, value.toString());
+                    writer.append(text);
+                }
+            }
+            writer.write(columnCount == 0 ? "{}\n" : "}\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
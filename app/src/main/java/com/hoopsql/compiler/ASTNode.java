@@ -49,19 +49,26 @@ class VariableDeclarationNode extends DeclarationNode {
 
 // Main query (get games where ...)
 class QueryNode extends ASTNode {
-    private final String scope; // games, seasons, careers
+    private final String scope; // games, seasons, careers, avg(games), agg, streaks, rolling
     private final java.util.List<ExpressionNode> whereConditions;
     private final SelectNode selectClause; // null if no select
     private final OrderByNode orderByClause; // null if no order by
     private final LimitNode limitClause; // null if no limit
+    private final java.util.List<AggregationNode> aggregations; // the agg(...) or rolling(N) list, null for other scopes
+    private final String groupBy; // dimension after 'by' (season, team, ...), null if ungrouped
+    private final Integer window; // N in rolling(N), null for other scopes
     
     public QueryNode(String scope, java.util.List<ExpressionNode> whereConditions, 
-                     SelectNode selectClause, OrderByNode orderByClause, LimitNode limitClause) {
+                     SelectNode selectClause, OrderByNode orderByClause, LimitNode limitClause,
+                     java.util.List<AggregationNode> aggregations, String groupBy, Integer window) {
         this.scope = scope;
         this.whereConditions = whereConditions;
         this.selectClause = selectClause;
         this.orderByClause = orderByClause;
         this.limitClause = limitClause;
+        this.aggregations = aggregations;
+        this.groupBy = groupBy;
+        this.window = window;
     }
     
     public String getScope() { return scope; }
@@ -69,6 +76,9 @@ class QueryNode extends ASTNode {
     public SelectNode getSelectClause() { return selectClause; }
     public OrderByNode getOrderByClause() { return orderByClause; }
     public LimitNode getLimitClause() { return limitClause; }
+    public java.util.List<AggregationNode> getAggregations() { return aggregations; }
+    public String getGroupBy() { return groupBy; }
+    public Integer getWindow() { return window; }
     
     @Override
     public <T> T accept(ASTVisitor<T> visitor) {
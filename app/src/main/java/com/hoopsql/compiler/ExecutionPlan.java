@@ -12,13 +12,25 @@ public class ExecutionPlan {
     private final String resultType; // "games", "seasons", "careers"
     private final Set<String> referencedFields; // Fields mentioned in WHERE conditions
     private final Set<String> playerVariables; // Player variable names
+    private final QueryParts parts; // Structured clauses; null for hand-written SQL
+    private final PlayerQuery playerQuery; // SQL-free form for the in-process engine; null when the query doesn't fit it
     
     public ExecutionPlan(String sql, Map<String, Object> parameters, String resultType) {
+        this(sql, parameters, resultType, (QueryParts) null);
+    }
+    
+    public ExecutionPlan(String sql, Map<String, Object> parameters, String resultType, QueryParts parts) {
+        this(sql, parameters, resultType, parts, null);
+    }
+    
+    public ExecutionPlan(String sql, Map<String, Object> parameters, String resultType, QueryParts parts, PlayerQuery playerQuery) {
         this.sql = sql;
         this.parameters = parameters;
         this.resultType = resultType;
         this.referencedFields = new HashSet<>();
         this.playerVariables = new HashSet<>();
+        this.parts = parts;
+        this.playerQuery = playerQuery;
     }
     
     public ExecutionPlan(String sql, Map<String, Object> parameters, String resultType, 
@@ -28,6 +40,8 @@ public class ExecutionPlan {
         this.resultType = resultType;
         this.referencedFields = referencedFields;
         this.playerVariables = playerVariables;
+        this.parts = null;
+        this.playerQuery = null;
     }
     
     public String getSql() { return sql; }
@@ -35,6 +49,8 @@ public class ExecutionPlan {
     public String getResultType() { return resultType; }
     public Set<String> getReferencedFields() { return referencedFields; }
     public Set<String> getPlayerVariables() { return playerVariables; }
+    public QueryParts getParts() { return parts; }
+    public PlayerQuery getPlayerQuery() { return playerQuery; }
     
     @Override
     public String toString() {
@@ -100,8 +116,17 @@ class VariableBinding {
     public String getRelationshipType() { return relationshipType; }
 }
 
-// Schema information for mapping HoopsQL concepts to SQL
+// Schema information for mapping HoopsQL concepts to SQL. Stateless, so every Planner shares one.
 class SchemaInfo {
+    // Numeric player_statistics columns: the ones aggregates can read
+    private static final java.util.Set<String> STAT_COLUMNS = java.util.Set.of(
+        "points", "assists", "blocks", "steals", "turnovers", "foulsPersonal", "plusMinusPoints", "numMinutes",
+        "reboundsTotal", "reboundsDefensive", "reboundsOffensive",
+        "fieldGoalsAttempted", "fieldGoalsMade", "fieldGoalsPercentage",
+        "threePointersAttempted", "threePointersMade", "threePointersPercentage",
+        "freeThrowsAttempted", "freeThrowsMade", "freeThrowsPercentage",
+        "win", "home");
+    
     // Map HoopsQL field names to SQL column names
     public String getColumnName(String entityType, String fieldName) {
         // Player fields - ALL STATS AVAILABLE
@@ -177,6 +202,12 @@ class SchemaInfo {
         return fieldName;
     }
     
+    // The numeric column a Player field reads (rebounds -> reboundsTotal), or null for names, teams and unknown fields
+    public String getStatColumn(String fieldName) {
+        String column = getColumnName("Player", fieldName);
+        return STAT_COLUMNS.contains(column) ? column : null;
+    }
+    
     // Map HoopsQL scopes to SQL tables/joins
     public String getMainTable(String scope) {
         return switch (scope) {
@@ -0,0 +1,86 @@
+package com.hoopsql.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the player and team names a query mentions, with the line each is
+ * on, so they can be checked against the database before the query runs.
+ *
+ * Works on tokens rather than the AST because only tokens carry lines. The
+ * forms recognised are the ones the planner binds as names:
+ *   Player p = "Kobe Bryant"          Team t = "Lakers"   Opponent o = "Paul Pierce"
+ *   p.name = "Kobe Bryant"            p.team = "Lakers"   p.opponent != "Celtics"
+ * An Opponent is an opposing player, so its name is a player's; a Team's
+ * name is a team's.
+ */
+public final class NameReferences {
+    public enum Kind { PLAYER, TEAM }
+
+    // token is the name's own token, so a caller can respell it before the query is parsed again
+    public record Reference(Kind kind, Token token) {
+        public String name() { return token.getText(); }
+        public int line() { return token.getLine(); }
+    }
+
+    private NameReferences() {}
+
+    public static List<Reference> find(List<Token> tokens) {
+        List<Token> significant = new ArrayList<>();
+        for (Token token : tokens) {
+            if (token.getType() != TokenType.NEWLINE && token.getType() != TokenType.COMMENT) {
+                significant.add(token);
+            }
+        }
+
+        List<Reference> references = new ArrayList<>();
+        Map<String, TokenType> declared = new HashMap<>(); // variable -> PLAYER, TEAM or OPPONENT
+        for (int i = 0; i + 2 < significant.size(); i++) {
+            Token first = significant.get(i);
+            switch (first.getType()) {
+                case PLAYER, TEAM, OPPONENT -> {
+                    if (significant.get(i + 1).getType() != TokenType.IDENTIFIER) {
+                        break;
+                    }
+                    declared.put(significant.get(i + 1).getText(), first.getType());
+                    // Player p = "Name"
+                    if (i + 3 < significant.size()
+                            && significant.get(i + 2).getType() == TokenType.EQUALS
+                            && isName(significant.get(i + 3))) {
+                        Kind kind = first.getType() == TokenType.TEAM ? Kind.TEAM : Kind.PLAYER;
+                        Token name = significant.get(i + 3);
+                        references.add(new Reference(kind, name));
+                    }
+                }
+                case FIELD_ACCESS -> {
+                    // p.team = "Name"
+                    Kind kind = fieldKind(first.getText(), declared);
+                    TokenType operator = significant.get(i + 1).getType();
+                    Token name = significant.get(i + 2);
+                    if (kind != null && (operator == TokenType.EQUALS || operator == TokenType.NOT_EQUALS)
+                            && isName(name)) {
+                        references.add(new Reference(kind, name));
+                    }
+                }
+                default -> { }
+            }
+        }
+        return references;
+    }
+
+    private static Kind fieldKind(String fieldAccess, Map<String, TokenType> declared) {
+        int dot = fieldAccess.indexOf('.');
+        String field = fieldAccess.substring(dot + 1);
+        return switch (field) {
+            case "name" -> declared.get(fieldAccess.substring(0, dot)) == TokenType.TEAM ? Kind.TEAM : Kind.PLAYER;
+            case "team", "opponent" -> Kind.TEAM;
+            default -> null;
+        };
+    }
+
+    private static boolean isName(Token token) {
+        return token.getType() == TokenType.STRING || token.getType() == TokenType.CANONICAL_NAME;
+    }
+}
@@ -66,9 +66,20 @@ public class Parser {
         
         skipWhitespace();
         
-        // Parse scope (games, seasons, careers, or avg(games))
+        // Parse scope (games, seasons, careers, streaks, avg(games), agg(...) or rolling(N) ...)
         String scope;
-        if (check(TokenType.AVG)) {
+        List<AggregationNode> aggregations = null;
+        Integer window = null;
+        if (checkCall("agg")) {
+            advance(); // consume 'agg'
+            aggregations = parseAggregations();
+            scope = "agg";
+        } else if (checkCall("rolling")) {
+            advance(); // consume 'rolling'
+            window = parseWindow();
+            aggregations = parseRollingAggregations();
+            scope = "rolling";
+        } else if (check(TokenType.AVG)) {
             advance(); // consume 'avg'
             if (!match(TokenType.LEFT_PAREN)) {
                 throw new RuntimeException("Expected '(' after 'avg'");
@@ -89,6 +100,13 @@ public class Parser {
         
         skipWhitespace();
         
+        // "by season" may come straight after the scope, or with the other clauses after where
+        String groupBy = null;
+        if (match(TokenType.BY)) {
+            groupBy = parseGroupBy();
+            skipWhitespace();
+        }
+        
         // Parse WHERE conditions
         List<ExpressionNode> whereConditions = new ArrayList<>();
         if (match(TokenType.WHERE)) {
@@ -126,13 +144,109 @@ public class Parser {
                 orderByClause = parseOrderBy();
             } else if (match(TokenType.LIMIT)) {
                 limitClause = parseLimit();
+            } else if (match(TokenType.BY)) {
+                groupBy = parseGroupBy();
             } else {
                 break;
             }
             skipWhitespace();
         }
         
-        return new QueryNode(scope, whereConditions, selectClause, orderByClause, limitClause);
+        return new QueryNode(scope, whereConditions, selectClause, orderByClause, limitClause, aggregations, groupBy, window);
+    }
+    
+    // The dimension after 'by'; the planner checks it is one it can group on
+    private String parseGroupBy() {
+        skipWhitespace();
+        if (match(TokenType.SEASON)) {
+            return "season";
+        }
+        // home_or_away lexes as a canonical name, for its underscore
+        if (!check(TokenType.IDENTIFIER) && !check(TokenType.CANONICAL_NAME)) {
+            throw new RuntimeException("Expected season, team, opponent, home_or_away or win after 'by'");
+        }
+        return advance().getText();
+    }
+    
+    // A scope written like a call, agg(...) or rolling(10): the name, then '('
+    private boolean checkCall(String name) {
+        return check(TokenType.IDENTIFIER) && name.equals(peek().getText())
+            && current + 1 < tokens.size() && tokens.get(current + 1).getType() == TokenType.LEFT_PAREN;
+    }
+    
+    // (10) after 'rolling': the number of games in each window
+    private int parseWindow() {
+        advance(); // consume '('
+        if (!check(TokenType.NUMBER)) {
+            throw new RuntimeException("Expected the number of games after 'rolling('");
+        }
+        String size = advance().getText();
+        int window;
+        try {
+            window = Integer.parseInt(size);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Expected a whole number of games in rolling(), got '" + size + "'");
+        }
+        if (window < 1) {
+            throw new RuntimeException("rolling() needs a window of at least one game, got " + window);
+        }
+        if (!match(TokenType.RIGHT_PAREN)) {
+            throw new RuntimeException("Expected ')' after 'rolling(" + size + "'");
+        }
+        return window;
+    }
+    
+    // avg points, sum p.rebounds after rolling(N): each a running average or sum over the window
+    private List<AggregationNode> parseRollingAggregations() {
+        List<AggregationNode> aggregations = new ArrayList<>();
+        do {
+            skipWhitespace();
+            if (!match(TokenType.AVG, TokenType.SUM)) {
+                throw new RuntimeException("Expected avg or sum after rolling(), got '" + peek().getText() + "'");
+            }
+            String function = previous().getText();
+            skipWhitespace();
+            if (!check(TokenType.FIELD_ACCESS) && !check(TokenType.IDENTIFIER)) {
+                throw new RuntimeException("Expected a field after '" + function + "'");
+            }
+            aggregations.add(new AggregationNode(function, parsePrimary()));
+            skipWhitespace();
+        } while (match(TokenType.COMMA));
+        return aggregations;
+    }
+    
+    // agg(avg(points), max(p.points), count(games)): the '(' after 'agg' is next
+    private List<AggregationNode> parseAggregations() {
+        advance(); // consume '('
+        List<AggregationNode> aggregations = new ArrayList<>();
+        do {
+            skipWhitespace();
+            if (!match(TokenType.AVG, TokenType.SUM, TokenType.MIN, TokenType.MAX, TokenType.COUNT)) {
+                throw new RuntimeException("Expected avg, sum, min, max or count in agg(), got '" + peek().getText() + "'");
+            }
+            String function = previous().getText();
+            if (!match(TokenType.LEFT_PAREN)) {
+                throw new RuntimeException("Expected '(' after '" + function + "'");
+            }
+            ExpressionNode argument;
+            if (check(TokenType.GAMES)) {
+                advance();
+                argument = new IdentifierNode("games");
+            } else if (check(TokenType.FIELD_ACCESS) || check(TokenType.IDENTIFIER)) {
+                argument = parsePrimary();
+            } else {
+                throw new RuntimeException("Expected a field after '" + function + "('");
+            }
+            if (!match(TokenType.RIGHT_PAREN)) {
+                throw new RuntimeException("Expected ')' after '" + function + "(...'");
+            }
+            aggregations.add(new AggregationNode(function, argument));
+            skipWhitespace();
+        } while (match(TokenType.COMMA));
+        if (!match(TokenType.RIGHT_PAREN)) {
+            throw new RuntimeException("Expected ')' to close agg(");
+        }
+        return aggregations;
     }
     
     private SelectNode parseSelect() {
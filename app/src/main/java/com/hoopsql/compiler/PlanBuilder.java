@@ -0,0 +1,1154 @@
+package com.hoopsql.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles one program to an ExecutionPlan. Holds everything that changes
+ * while planning (variable bindings, SQL text, parameters, captured clauses),
+ * so each instance is single-use and confined to the thread that made it;
+ * Planner creates one per call.
+ */
+class PlanBuilder implements ASTVisitor<String> {
+    private final PlanningContext context;
+    private final StringBuilder sqlBuilder = new StringBuilder();
+    private final Map<String, Object> parameters = new HashMap<>();
+    private int parameterCount;
+    private boolean used;
+    
+    // Clauses captured while building the SQL (see QueryParts)
+    private String selectList;
+    private String fromClause;
+    private final List<String> whereConditions = new ArrayList<>();
+    private String orderByExpression;
+    private boolean orderAscending;
+    private final List<QueryParts.Aggregate> aggregates = new ArrayList<>();
+    private String dateFrom;
+    private String dateTo;
+    private List<String> rowKey = List.of();
+    private String groupBy; // GROUP BY expression for "by <dimension>", null if ungrouped
+    
+    // Default output columns and the player they show, for PlayerQuery; null with a select list
+    private List<PlayerQuery.Output> outputs;
+    private String primaryPlayer;
+    
+    PlanBuilder(SchemaInfo schema) {
+        this.context = new PlanningContext(new HashMap<>(), schema);
+    }
+    
+    ExecutionPlan build(ProgramNode program) {
+        if (used) {
+            throw new IllegalStateException("PlanBuilder is single-use");
+        }
+        used = true;
+        
+        // Process variable declarations
+        for (DeclarationNode decl : program.getDeclarations()) {
+            decl.accept(this);
+        }
+        
+        // Process main query
+        String resultType = "unknown";
+        Integer limit = null;
+        if (program.getQuery() != null) {
+            String scope = program.getQuery().getScope();
+            if (isAggregateScope(scope)) {
+                resultType = "averages";
+            } else {
+                resultType = scope;
+            }
+            
+            // Actually visit the query to generate SQL!
+            program.getQuery().accept(this);
+            if (program.getQuery().getLimitClause() != null) {
+                limit = program.getQuery().getLimitClause().getCount();
+            }
+        }
+        
+        QueryParts parts = null;
+        if (selectList != null) {
+            parts = new QueryParts(selectList, fromClause, whereConditions,
+                orderByExpression, orderAscending, limit, aggregates, dateFrom, dateTo).withRowKey(rowKey);
+            if (groupBy != null) {
+                parts = parts.withGroupBy(groupBy);
+            }
+        }
+        PlayerQuery playerQuery = null;
+        if (outputs != null) {
+            playerQuery = PlayerQueryExtractor.extract(program, context, outputs, primaryPlayer);
+        }
+        return new ExecutionPlan(sqlBuilder.toString(), parameters, resultType, parts, playerQuery);
+    }
+    
+    @Override
+    public String visitProgram(ProgramNode node) {
+        // This won't be called directly since we handle it in build
+        return "";
+    }
+    
+    @Override
+    public String visitVariableDeclaration(VariableDeclarationNode node) {
+        VariableBinding binding;
+        
+        if (node.getBinding() != null) {
+            if (node.getBinding() instanceof LiteralNode) {
+                // Standard literal binding: Player p = "LeBron James"
+                Object boundValue = ((LiteralNode) node.getBinding()).getValue();
+                binding = new VariableBinding(
+                    node.getEntityType(), 
+                    node.getVariableName(), 
+                    boundValue
+                );
+            } else if (node.getBinding() instanceof FieldAccessNode) {
+                // Relational binding: Player q = p.opponent
+                FieldAccessNode fieldAccess = (FieldAccessNode) node.getBinding();
+                String relationToVariable = fieldAccess.getVariableName();
+                String relationshipType = fieldAccess.getFieldName();
+                
+                // Validate that the referenced variable exists
+                VariableBinding referencedVar = context.getVariable(relationToVariable);
+                if (referencedVar == null) {
+                    throw new RuntimeException("Undefined variable in relational binding: " + relationToVariable);
+                }
+                
+                // Validate relationship type based on entity types
+                validateRelationalBinding(node.getEntityType(), referencedVar.getEntityType(), relationshipType);
+                
+                binding = new VariableBinding(
+                    node.getEntityType(), 
+                    node.getVariableName(), 
+                    relationToVariable, 
+                    relationshipType
+                );
+            } else {
+                // Unbound variable declaration: Player p
+                binding = new VariableBinding(
+                    node.getEntityType(), 
+                    node.getVariableName(), 
+                    (Object) null
+                );
+            }
+        } else {
+            // Unbound variable declaration: Player p
+            binding = new VariableBinding(
+                node.getEntityType(), 
+                node.getVariableName(), 
+                (Object) null
+            );
+        }
+        
+        context.addVariable(node.getVariableName(), binding);
+        return "";
+    }
+    
+    private void validateRelationalBinding(String targetEntityType, String sourceEntityType, String relationshipType) {
+        // Validate that the relationship makes sense based on HoopsSQL spec
+        switch (relationshipType) {
+            case "opponent":
+                if (!"Player".equals(sourceEntityType)) {
+                    throw new RuntimeException("'opponent' relationship is only valid from Player variables, not " + sourceEntityType);
+                }
+                if (!"Player".equals(targetEntityType) && !"Team".equals(targetEntityType) && !"Opponent".equals(targetEntityType)) {
+                    throw new RuntimeException("'opponent' relationship can only bind to Player, Team, or Opponent variables, not " + targetEntityType);
+                }
+                break;
+            case "team":
+                if (!"Player".equals(sourceEntityType)) {
+                    throw new RuntimeException("'team' relationship is only valid from Player variables, not " + sourceEntityType);
+                }
+                if (!"Team".equals(targetEntityType)) {
+                    throw new RuntimeException("'team' relationship can only bind to Team variables, not " + targetEntityType);
+                }
+                break;
+            case "played":
+                if (!"Player".equals(sourceEntityType)) {
+                    throw new RuntimeException("'played' relationship is only valid from Player variables, not " + sourceEntityType);
+                }
+                if (!"Player".equals(targetEntityType)) {
+                    throw new RuntimeException("'played' relationship can only bind to Player variables, not " + targetEntityType);
+                }
+                break;
+            default:
+                throw new RuntimeException("Unknown relationship type: " + relationshipType + 
+                    ". Valid relationships are: opponent, team, played");
+        }
+    }
+    
+    @Override
+    public String visitQuery(QueryNode node) {
+        // Support games scope, the aggregate scopes, avg(games) and agg(...), streaks and rolling(N)
+        String scope = node.getScope();
+        if (node.getGroupBy() != null && !isAggregateScope(scope)) {
+            throw new RuntimeException("'by " + node.getGroupBy() + "' groups aggregates: use it with avg(games) or agg(...)");
+        }
+        if ("games".equals(scope)) {
+            buildGamesQuery(node);
+        } else if (isAggregateScope(scope)) {
+            buildAvgGamesQuery(node);
+        } else if ("streaks".equals(scope)) {
+            buildStreaksQuery(node);
+        } else if ("rolling".equals(scope)) {
+            buildRollingQuery(node);
+        } else {
+            throw new RuntimeException("Only 'games', 'avg(games)', 'agg(...)', 'streaks' and 'rolling(N)' scopes are supported. Got: '" + scope + "'");
+        }
+        return sqlBuilder.toString();
+    }
+    
+    private void buildGamesQuery(QueryNode node) {
+        int start = sqlBuilder.length();
+        buildSelectClause(node);
+        selectList = sqlBuilder.substring(start + "SELECT ".length());
+        start = sqlBuilder.length();
+        buildFromClause(node);
+        fromClause = sqlBuilder.substring(start + " FROM ".length());
+        rowKey = rowKeyFor(fromClause);
+        buildWhereClause(node);
+        
+        // Build ORDER BY clause
+        if (node.getOrderByClause() != null) {
+            node.getOrderByClause().accept(this);
+        }
+        
+        // Build LIMIT clause
+        if (node.getLimitClause() != null) {
+            node.getLimitClause().accept(this);
+        }
+    }
+    
+    private static final Pattern JOIN = Pattern.compile("JOIN (\\w+)(?: AS (\\w+))? ON");
+    
+    // Columns that together identify one result row: the game plus each joined player or team.
+    // Empty when the FROM clause joins something without a known key.
+    private static List<String> rowKeyFor(String from) {
+        if (!from.startsWith("games")) {
+            return List.of();
+        }
+        List<String> key = new ArrayList<>();
+        key.add("games.gameId");
+        Matcher join = JOIN.matcher(from);
+        while (join.find()) {
+            String table = join.group(1);
+            String alias = join.group(2) != null ? join.group(2) : table;
+            switch (table) {
+                case "player_statistics" -> key.add(alias + ".personId");
+                case "team_histories", "team_statistics" -> key.add(alias + ".teamId");
+                default -> {
+                    return List.of();
+                }
+            }
+        }
+        return key;
+    }
+    
+    private void buildAvgGamesQuery(QueryNode node) {
+        // Build aggregated query that returns averages instead of individual games
+        int start = sqlBuilder.length();
+        buildAvgSelectClause(node);
+        selectList = sqlBuilder.substring(start + "SELECT ".length());
+        start = sqlBuilder.length();
+        buildFromClause(node);
+        fromClause = sqlBuilder.substring(start + " FROM ".length());
+        buildWhereClause(node);
+        
+        // One row per group, in the group's order (the full expression: an alias like win could name a column)
+        if (groupBy != null) {
+            sqlBuilder.append(" GROUP BY ").append(groupBy).append(" ORDER BY ").append(groupBy).append(" ASC");
+        }
+        
+        // The first N groups; without 'by', limit 0 drops the one row
+        if (node.getLimitClause() != null) {
+            node.getLimitClause().accept(this);
+        }
+    }
+    
+    // What get streaks returns for each streak
+    private static final List<PlayerQuery.Output> STREAK_OUTPUTS = List.of(
+        new PlayerQuery.Output("player_name", "playerName", "MAX"),
+        new PlayerQuery.Output("start_date", "gameDate", "MIN"),
+        new PlayerQuery.Output("end_date", "gameDate", "MAX"),
+        new PlayerQuery.Output("length", null, "COUNT"));
+    
+    // get streaks: each player's games in date order, cut into runs of consecutive games where every condition
+    // holds; a game where one fails (or is NULL) ends the run. One window pass numbers the runs: a game's run
+    // is the count of failing games up to it, the same for every game of one run. Longest first.
+    // No QueryParts: a run can cross any date split, so the plan is never partitioned or paged.
+    private void buildStreaksQuery(QueryNode node) {
+        if (node.getSelectClause() != null || node.getOrderByClause() != null) {
+            throw new RuntimeException("Streaks are listed longest first with their player, dates and length: "
+                + "'select' and 'order by' do not apply");
+        }
+        VariableBinding player = onlyPlayer("Streaks");
+        
+        List<String> conditions = new ArrayList<>();
+        for (ExpressionNode condition : node.getWhereConditions()) {
+            conditions.add(condition.accept(this));
+        }
+        String hit = conditions.isEmpty() ? "1" : "CASE WHEN " + String.join(" AND ", conditions) + " THEN 1 ELSE 0 END";
+        
+        sqlBuilder.append("SELECT MAX(player_name) AS player_name, MIN(gameDate) AS start_date, ")
+                  .append("MAX(gameDate) AS end_date, COUNT(*) AS length")
+                  .append(" FROM (SELECT personId, player_name, gameDate, hit, SUM(1 - hit) OVER ")
+                  .append("(PARTITION BY personId ORDER BY gameDate, gameId ROWS UNBOUNDED PRECEDING) AS run")
+                  .append(" FROM (SELECT player_statistics.personId AS personId, ")
+                  .append("TRIM(player_statistics.firstName || ' ' || player_statistics.lastName) AS player_name, ")
+                  .append("games.gameDate AS gameDate, games.gameId AS gameId, ").append(hit).append(" AS hit");
+        buildFromClause(node);
+        
+        sqlBuilder.append(" WHERE ").append(String.join(" AND ", playerRows(player))).append("))")
+                  .append(" WHERE hit = 1 GROUP BY personId, run")
+                  .append(" ORDER BY COUNT(*) DESC, MIN(gameDate) ASC, personId ASC");
+        if (node.getLimitClause() != null) {
+            node.getLimitClause().accept(this);
+        }
+        
+        outputs = STREAK_OUTPUTS;
+        primaryPlayer = player.getVariableName();
+    }
+    
+    // get rolling(10) avg points: each of the player's games in date order, with the average (or sum) over it
+    // and the games before it, N in all. The WHERE conditions pick the games; the windows run over those.
+    // A frame of N rows: SQLite adds the game entering it and takes out the one leaving, so each row costs
+    // the same whatever N is. No QueryParts: a date split or a page would cut windows short.
+    private void buildRollingQuery(QueryNode node) {
+        if (node.getSelectClause() != null || node.getOrderByClause() != null) {
+            throw new RuntimeException("Rolling windows are listed game by game in date order: "
+                + "'select' and 'order by' do not apply");
+        }
+        VariableBinding player = onlyPlayer("Rolling windows");
+        
+        List<String> fields = new ArrayList<>();
+        fields.add("games.gameDate AS game_date");
+        fields.add("TRIM(player_statistics.firstName || ' ' || player_statistics.lastName) AS player_name");
+        outputs = new ArrayList<>();
+        outputs.add(new PlayerQuery.Output("game_date", "gameDate", null));
+        outputs.add(new PlayerQuery.Output("player_name", "playerName", null));
+        Set<String> aliases = new HashSet<>();
+        for (AggregationNode aggregation : node.getAggregations()) {
+            QueryParts.Aggregate aggregate = aggregateFor(aggregation);
+            String alias = "rolling_" + aggregate.alias();
+            if (!aliases.add(alias)) {
+                throw new RuntimeException("Rolling aggregate listed twice: " + alias);
+            }
+            fields.add(aggregate.function() + "(" + aggregate.expression() + ") OVER w AS " + alias);
+            outputs.add(new PlayerQuery.Output(alias, aggregatedColumn(aggregate), aggregate.function()));
+        }
+        // Fewer than N at the start of a career (or of the games the conditions pick)
+        fields.add("COUNT(*) OVER w AS window_games");
+        outputs.add(new PlayerQuery.Output("window_games", null, "COUNT"));
+        sqlBuilder.append("SELECT ").append(String.join(", ", fields));
+        buildFromClause(node);
+        
+        List<String> conditions = playerRows(player);
+        for (ExpressionNode condition : node.getWhereConditions()) {
+            conditions.add(condition.accept(this));
+        }
+        sqlBuilder.append(" WHERE ").append(String.join(" AND ", conditions))
+                  .append(" WINDOW w AS (PARTITION BY player_statistics.personId")
+                  .append(" ORDER BY games.gameDate, games.gameId")
+                  .append(" ROWS BETWEEN ").append(node.getWindow() - 1).append(" PRECEDING AND CURRENT ROW)")
+                  .append(" ORDER BY player_statistics.personId, games.gameDate, games.gameId");
+        if (node.getLimitClause() != null) {
+            node.getLimitClause().accept(this);
+        }
+        primaryPlayer = player.getVariableName();
+    }
+    
+    // The one Player variable streaks and rolling windows follow, each player's games in order
+    private VariableBinding onlyPlayer(String feature) {
+        List<VariableBinding> variables = new ArrayList<>(context.getVariables().values());
+        if (variables.size() != 1 || !"Player".equals(variables.get(0).getEntityType()) || variables.get(0).isRelational()) {
+            throw new RuntimeException(feature + " follow one player's games: declare a single Player variable");
+        }
+        return variables.get(0);
+    }
+    
+    // Conditions that keep the player's box scores: the LEFT JOIN's games without one are no player's
+    private List<String> playerRows(VariableBinding player) {
+        List<String> conditions = new ArrayList<>();
+        conditions.add("player_statistics.gameId IS NOT NULL");
+        if (player.isBound()) {
+            parameterCount++;
+            conditions.add("TRIM(player_statistics.firstName || ' ' || player_statistics.lastName) = ?" + parameterCount);
+            parameters.put("param" + parameterCount, player.getBoundValue());
+        }
+        return conditions;
+    }
+    
+    private void buildSelectClause(QueryNode node) {
+        sqlBuilder.append("SELECT ");
+        
+        if (node.getSelectClause() != null) {
+            // User specified fields
+            SelectNode select = node.getSelectClause();
+            List<String> sqlFields = new ArrayList<>();
+            
+            for (String field : select.getFields()) {
+                // Map field names to actual database columns
+                if ("date".equals(field)) {
+                    sqlFields.add("games.gameDate AS date");
+                } else if ("opponent".equals(field)) {
+                    sqlFields.add("games.awayteamName AS opponent");
+                } else if ("points".equals(field)) {
+                    sqlFields.add("player_statistics.points AS points");
+                } else if ("rebounds".equals(field)) {
+                    sqlFields.add("player_statistics.reboundsTotal AS rebounds");
+                } else if ("assists".equals(field)) {
+                    sqlFields.add("player_statistics.assists AS assists");
+                } else if ("name".equals(field)) {
+                    // Could be player or team name - context dependent
+                    sqlFields.add("TRIM(players.firstName || ' ' || players.lastName) AS name");
+                } else {
+                    // Default mapping - try player_statistics first
+                    sqlFields.add("player_statistics." + field);
+                }
+            }
+            
+            sqlBuilder.append(String.join(", ", sqlFields));
+        } else {
+            // Default selection based on scope per spec
+            if ("games".equals(node.getScope())) {
+                // Per spec: game_date, season, home_or_away, team, opponent, win, margin
+                // Plus player headline fields (points, rebounds, assists) if Player is declared
+                List<String> defaultFields = new ArrayList<>();
+                
+                defaultFields.add("games.gameDate AS game_date");
+                
+                // Add player name if Player variables exist
+                boolean hasPlayerVar = context.getVariables().values().stream()
+                    .anyMatch(b -> "Player".equals(b.getEntityType()));
+                    
+                if (hasPlayerVar) {
+                    // Use appropriate alias based on query complexity
+                    boolean hasRelationalBindings = context.getVariables().values().stream()
+                        .anyMatch(VariableBinding::isRelational);
+                    long playerCount = context.getVariables().values().stream()
+                        .filter(b -> "Player".equals(b.getEntityType()))
+                        .count();
+                    
+                    // For multi-player queries, use the first player variable as the primary display
+                    String primaryPlayerVar = null;
+                    if (hasRelationalBindings || playerCount > 1) {
+                        // Find the first player variable to use as the primary display
+                        primaryPlayerVar = context.getVariables().values().stream()
+                            .filter(b -> "Player".equals(b.getEntityType()))
+                            .map(VariableBinding::getVariableName)
+                            .findFirst()
+                            .orElse("p");
+                    }
+                    
+                    String statsAlias = (hasRelationalBindings || playerCount > 1) ? primaryPlayerVar + "_stats" : "player_statistics";
+                    primaryPlayer = primaryPlayerVar != null ? primaryPlayerVar : context.getVariables().values().stream()
+                        .filter(b -> "Player".equals(b.getEntityType()))
+                        .map(VariableBinding::getVariableName)
+                        .findFirst()
+                        .orElseThrow();
+                    outputs = new ArrayList<>();
+                    outputs.add(new PlayerQuery.Output("game_date", "gameDate", null));
+                    
+                    defaultFields.add("TRIM(" + statsAlias + ".firstName || ' ' || " + statsAlias + ".lastName) AS player_name");
+                    defaultFields.add(statsAlias + ".playerteamName AS team");
+                    defaultFields.add(statsAlias + ".opponentteamName AS opponent");
+                    defaultFields.add(statsAlias + ".win AS win");
+                    defaultFields.add("ABS(CAST(games.homeScore AS INTEGER) - CAST(games.awayScore AS INTEGER)) AS margin");                    // Add ALL AVAILABLE STATS - be comprehensive!
+                    outputs.add(new PlayerQuery.Output("player_name", "playerName", null));
+                    outputs.add(new PlayerQuery.Output("team", "playerteamName", null));
+                    outputs.add(new PlayerQuery.Output("opponent", "opponentteamName", null));
+                    outputs.add(new PlayerQuery.Output("win", "win", null));
+                    outputs.add(new PlayerQuery.Output("margin", "margin", null));
+                    Set<String> referencedFields = extractReferencedFieldsFromQuery(node);
+                    
+                    // Core stats - always include
+                    defaultFields.add(statsAlias + ".points AS points");
+                    defaultFields.add(statsAlias + ".reboundsTotal AS rebounds");
+                    defaultFields.add(statsAlias + ".assists AS assists");
+                    outputs.add(new PlayerQuery.Output("points", "points", null));
+                    outputs.add(new PlayerQuery.Output("rebounds", "reboundsTotal", null));
+                    outputs.add(new PlayerQuery.Output("assists", "assists", null));
+                    
+                    // Add ALL other stats that are referenced or if no specific fields mentioned
+                    Set<String> allPossibleStats = Set.of(
+                        "steals", "blocks", "turnovers", "minutes", 
+                        "reboundsDefensive", "reboundsOffensive",
+                        "fieldGoalsAttempted", "fieldGoalsMade", "fieldGoalsPercentage",
+                        "threePointersAttempted", "threePointersMade", "threePointersPercentage", 
+                        "freeThrowsAttempted", "freeThrowsMade", "freeThrowsPercentage",
+                        "foulsPersonal", "plusMinusPoints"
+                    );
+                    
+                    for (String stat : allPossibleStats) {
+                        if (referencedFields.contains(stat) || referencedFields.isEmpty()) {
+                            String columnName = context.getSchema().getColumnName("Player", stat);
+                            String alias = stat;
+                            
+                            // Handle special column mappings
+                            if ("minutes".equals(stat)) {
+                                defaultFields.add(statsAlias + ".numMinutes AS " + alias);
+                                outputs.add(new PlayerQuery.Output(alias, "numMinutes", null));
+                            } else if (columnName.contains("||")) {
+                                // Skip complex expressions for now
+                                continue;
+                            } else {
+                                defaultFields.add(statsAlias + "." + columnName + " AS " + alias);
+                                outputs.add(new PlayerQuery.Output(alias, columnName, null));
+                            }
+                        }
+                    }
+                } else {
+                    // No player variables - just basic game info
+                    defaultFields.add("games.hometeamName AS home_team");
+                    defaultFields.add("games.awayteamName AS away_team");
+                    defaultFields.add("games.homeScore AS home_score");
+                    defaultFields.add("games.awayScore AS away_score");
+                }
+                
+                sqlBuilder.append(String.join(", ", defaultFields));
+            } else {
+                sqlBuilder.append("*");
+            }
+        }
+    }
+    
+    // Scopes that return one row of aggregates over the matching games
+    static boolean isAggregateScope(String scope) {
+        return "avg(games)".equals(scope) || "agg".equals(scope);
+    }
+    
+    // What avg(games) averages when there is no select list
+    private static final List<String> DEFAULT_AVERAGES = List.of("points", "rebounds", "assists", "steals", "blocks",
+        "turnovers", "threePointersMade", "fieldGoalsMade", "freeThrowsMade");
+    
+    private void buildAvgSelectClause(QueryNode node) {
+        sqlBuilder.append("SELECT ");
+        
+        // agg(...) lists its aggregates; avg(games) averages the selected stats (or the defaults) and counts games
+        List<AggregationNode> requested = node.getAggregations();
+        if (requested == null) {
+            requested = new ArrayList<>();
+            List<String> fields = node.getSelectClause() != null ? node.getSelectClause().getFields() : DEFAULT_AVERAGES;
+            for (String field : fields) {
+                requested.add(new AggregationNode("avg", new IdentifierNode(field)));
+            }
+            requested.add(new AggregationNode("count", new IdentifierNode("games")));
+        }
+        
+        // One SELECT, so SQLite computes every aggregate in a single pass over the matching rows; grouped, the
+        // group comes first and each row of it updates its own aggregates in that same pass
+        List<String> aggregateFields = new ArrayList<>();
+        if (node.getGroupBy() != null) {
+            groupBy = groupExpression(node.getGroupBy());
+            aggregateFields.add(groupBy + " AS " + node.getGroupBy());
+        }
+        outputs = new ArrayList<>();
+        Set<String> aliases = new HashSet<>();
+        for (AggregationNode aggregation : requested) {
+            QueryParts.Aggregate aggregate = aggregateFor(aggregation);
+            if (!aliases.add(aggregate.alias())) {
+                throw new RuntimeException("Aggregate listed twice: " + aggregate.alias());
+            }
+            aggregates.add(aggregate);
+            aggregateFields.add(aggregate.toSql());
+            outputs.add(new PlayerQuery.Output(aggregate.alias(), aggregatedColumn(aggregate), aggregate.function()));
+        }
+        
+        sqlBuilder.append(String.join(", ", aggregateFields));
+    }
+    
+    // avg(points) -> AVG(player_statistics.points) AS avg_points; count(games) -> COUNT(*) AS games_count.
+    // A bare field is the first Player's; p.points names the player, and with several players the alias does too.
+    // The stat columns are typed INTEGER or REAL, so they are aggregated as stored, without a CAST.
+    private QueryParts.Aggregate aggregateFor(AggregationNode node) {
+        String function = node.getFunction().toUpperCase();
+        ExpressionNode argument = node.getExpression();
+        if (argument instanceof IdentifierNode identifier && "games".equals(identifier.getName())) {
+            if (!"COUNT".equals(function)) {
+                throw new RuntimeException("Only count can take 'games'. Try: " + node.getFunction() + "(points)");
+            }
+            return new QueryParts.Aggregate("COUNT", "*", "games_count");
+        }
+        
+        String variable;
+        String field;
+        boolean qualified = argument instanceof FieldAccessNode;
+        if (argument instanceof FieldAccessNode access) {
+            variable = access.getVariableName();
+            field = access.getFieldName();
+        } else if (argument instanceof IdentifierNode identifier) {
+            variable = firstPlayerVariable();
+            field = identifier.getName();
+        } else {
+            throw new RuntimeException("Expected a field inside " + node.getFunction() + "()");
+        }
+        
+        VariableBinding binding = context.getVariable(variable);
+        if (binding == null) {
+            throw new RuntimeException("Undefined variable: " + variable);
+        }
+        if (!"Player".equals(binding.getEntityType())) {
+            throw new RuntimeException("Only Player stats can be aggregated, not " + binding.getEntityType() + " " + variable);
+        }
+        String column = context.getSchema().getStatColumn(field);
+        if (column == null) {
+            throw new RuntimeException("Cannot aggregate '" + field + "': it is not a numeric player stat");
+        }
+        
+        boolean aliased = usesPlayerAliases();
+        String alias = function.toLowerCase() + "_" + (qualified && aliased ? variable + "_" : "") + field;
+        return new QueryParts.Aggregate(function, statsTable(variable) + "." + column, alias);
+    }
+    
+    // The player whose stats a bare field means
+    private String firstPlayerVariable() {
+        return context.getVariables().values().stream()
+            .filter(b -> "Player".equals(b.getEntityType()))
+            .map(VariableBinding::getVariableName)
+            .findFirst()
+            .orElseThrow(() -> new RuntimeException("Aggregates read player stats; declare a Player variable"));
+    }
+    
+    // Multi-player and relational queries join player_statistics once per variable, as <variable>_stats
+    private boolean usesPlayerAliases() {
+        return context.getVariables().values().stream().anyMatch(VariableBinding::isRelational)
+            || context.getVariables().values().stream().filter(b -> "Player".equals(b.getEntityType())).count() > 1;
+    }
+    
+    private String statsTable(String variable) {
+        return usesPlayerAliases() ? variable + "_stats" : "player_statistics";
+    }
+    
+    // What "by <dimension>" groups on, for the first Player's games; its values sort the way the groups are listed
+    private String groupExpression(String dimension) {
+        String table = statsTable(firstPlayerVariable());
+        return switch (dimension) {
+            case "season" -> SEASON_CASE;
+            case "team" -> table + ".playerteamName";
+            case "opponent" -> table + ".opponentteamName";
+            case "home_or_away" -> "CASE " + table + ".home WHEN 1 THEN 'home' WHEN 0 THEN 'away' END";
+            case "win" -> table + ".win";
+            default -> throw new RuntimeException("Cannot group by '" + dimension
+                + "'. Group by season, team, opponent, home_or_away or win");
+        };
+    }
+    
+    // The season of games.gameDate, with the same inclusive bounds as season = "..." (NULL outside every season)
+    private static final String SEASON_CASE = seasonCase();
+    
+    private static String seasonCase() {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (String season : com.hoopsql.util.SeasonMapper.getSeasons()) {
+            com.hoopsql.util.SeasonMapper.SeasonDates dates = com.hoopsql.util.SeasonMapper.getSeasonDates(season);
+            sql.append(" WHEN games.gameDate >= '").append(dates.getStartDate())
+               .append("' AND games.gameDate <= '").append(dates.getEndDate())
+               .append("' THEN '").append(season).append("'");
+        }
+        return sql.append(" END").toString();
+    }
+    
+    // The column an aggregate reads; null for COUNT(*)
+    private static String aggregatedColumn(QueryParts.Aggregate aggregate) {
+        String expression = aggregate.expression();
+        return "*".equals(expression) ? null : expression.substring(expression.indexOf('.') + 1);
+    }
+    
+    private void buildFromClause(QueryNode node) {
+        sqlBuilder.append(" FROM ");
+        
+        // Handle aggregation scopes, and streaks and rolling windows, which read the same rows
+        String effectiveScope = node.getScope();
+        if (isAggregateScope(effectiveScope) || "streaks".equals(effectiveScope) || "rolling".equals(effectiveScope)) {
+            effectiveScope = "games";
+        }
+        
+        String mainTable = context.getSchema().getMainTable(effectiveScope);
+        sqlBuilder.append(mainTable);
+        
+        // For relational bindings, we need separate joins for each player variable
+        if ("games".equals(effectiveScope)) {
+            Set<String> playerVariables = new HashSet<>();
+            Set<String> teamVariables = new HashSet<>();
+            
+            for (VariableBinding binding : context.getVariables().values()) {
+                if ("Player".equals(binding.getEntityType()) || "Opponent".equals(binding.getEntityType())) {
+                    // Both Player and Opponent variables need player_statistics JOINs
+                    playerVariables.add(binding.getVariableName());
+                } else if ("Team".equals(binding.getEntityType())) {
+                    teamVariables.add(binding.getVariableName());
+                }
+            }
+            
+            // Check if we have relational bindings - if so, use variable-specific aliases
+            boolean hasRelationalBindings = context.getVariables().values().stream()
+                .anyMatch(VariableBinding::isRelational);
+            
+            if (hasRelationalBindings || playerVariables.size() > 1) {
+                // Use variable-specific aliases for complex queries
+                for (String playerVar : playerVariables) {
+                    sqlBuilder.append(" LEFT JOIN player_statistics AS ").append(playerVar).append("_stats")
+                              .append(" ON games.gameId = ").append(playerVar).append("_stats.gameId");
+                }
+                
+                // Add joins for team variables (but skip if relationally bound to players)
+                for (String teamVar : teamVariables) {
+                    VariableBinding teamBinding = context.getVariable(teamVar);
+                    if (teamBinding != null && teamBinding.isRelational()) {
+                        if ("team".equals(teamBinding.getRelationshipType()) || "opponent".equals(teamBinding.getRelationshipType())) {
+                            // Skip join for Team t = p.team and Opponent o = p.opponent - we'll use player_statistics team names
+                            continue;
+                        }
+                    }
+                    sqlBuilder.append(" LEFT JOIN team_histories AS ").append(teamVar).append("_team")
+                              .append(" ON games.hometeamId = ").append(teamVar).append("_team.teamId OR games.awayteamId = ").append(teamVar).append("_team.teamId");
+                }
+            } else {
+                // Use simple aliases for backward compatibility with existing tests
+                Set<String> entityTypes = new HashSet<>();
+                for (VariableBinding binding : context.getVariables().values()) {
+                    entityTypes.add(binding.getEntityType());
+                }
+                
+                List<String> joins = context.getSchema().getRequiredJoins(effectiveScope, new ArrayList<>(entityTypes));
+                for (String join : joins) {
+                    sqlBuilder.append(" ").append(join);
+                }
+            }
+        } else {
+            // For non-games scopes, use basic joins
+            Set<String> entityTypes = new HashSet<>();
+            for (VariableBinding binding : context.getVariables().values()) {
+                entityTypes.add(binding.getEntityType());
+            }
+            
+            // Use effective scope for aggregation scopes like avg(games)
+            String scopeForJoins = isAggregateScope(node.getScope()) ? "games" : node.getScope();
+            List<String> joins = context.getSchema().getRequiredJoins(scopeForJoins, new ArrayList<>(entityTypes));
+            for (String join : joins) {
+                sqlBuilder.append(" ").append(join);
+            }
+        }
+    }
+    
+    private void buildWhereClause(QueryNode node) {
+        List<String> conditions = new ArrayList<>();
+        
+        // Add variable binding conditions
+        boolean hasRelationalBindings = context.getVariables().values().stream()
+            .anyMatch(VariableBinding::isRelational);
+        long playerCount = context.getVariables().values().stream()
+            .filter(b -> "Player".equals(b.getEntityType()))
+            .count();
+            
+        for (VariableBinding binding : context.getVariables().values()) {
+            if (binding.isBound() && "Player".equals(binding.getEntityType())) {
+                parameterCount++;
+                String paramName = "param" + parameterCount;
+                
+                // Use specific player alias for multi-player or relational queries
+                if (hasRelationalBindings || playerCount > 1) {
+                    String statsAlias = binding.getVariableName() + "_stats";
+                    conditions.add("TRIM(" + statsAlias + ".firstName || ' ' || " + statsAlias + ".lastName) = ?" + parameterCount);
+                } else {
+                    // Use simple alias for backward compatibility
+                    conditions.add("TRIM(player_statistics.firstName || ' ' || player_statistics.lastName) = ?" + parameterCount);
+                }
+                parameters.put(paramName, binding.getBoundValue());
+            } else if (binding.isRelational()) {
+                // Handle relational bindings like Player q = p.opponent
+                String relationalCondition = buildRelationalCondition(binding);
+                if (relationalCondition != null && !relationalCondition.isEmpty()) {
+                    conditions.add(relationalCondition);
+                }
+            }
+        }
+        
+        // AUTOMATIC SAME-GAME CONSTRAINT: If multiple players are declared, automatically ensure they're in the same games
+        if (playerCount > 1) {
+            List<String> playerVars = context.getVariables().values().stream()
+                .filter(b -> "Player".equals(b.getEntityType()))
+                .map(VariableBinding::getVariableName)
+                .sorted() // Ensure consistent ordering
+                .toList();
+                
+            // Add same-game constraints between all pairs of players
+            for (int i = 0; i < playerVars.size() - 1; i++) {
+                String var1 = playerVars.get(i);
+                String var2 = playerVars.get(i + 1);
+                conditions.add(var1 + "_stats.gameId = " + var2 + "_stats.gameId");
+            }
+        }
+        
+        // Add WHERE clause conditions
+        for (ExpressionNode condition : node.getWhereConditions()) {
+            conditions.add(condition.accept(this));
+        }
+        
+        whereConditions.addAll(conditions);
+        if (!conditions.isEmpty()) {
+            sqlBuilder.append(" WHERE ");
+            sqlBuilder.append(String.join(" AND ", conditions));
+        }
+    }
+    
+    private String buildRelationalCondition(VariableBinding binding) {
+        // Generate SQL condition for relational bindings like Player q = p.opponent
+        String relationshipType = binding.getRelationshipType();
+        String relationToVariable = binding.getRelationToVariable();
+        
+        // Get the referenced variable binding
+        VariableBinding referencedVar = context.getVariable(relationToVariable);
+        if (referencedVar == null) {
+            throw new RuntimeException("Referenced variable not found: " + relationToVariable);
+        }
+        
+        switch (relationshipType) {
+            case "opponent":
+                // For both Player q = p.opponent and Opponent o = p.opponent
+                // We need opponents to be in the same game but on different teams
+                if (("Player".equals(binding.getEntityType()) || "Opponent".equals(binding.getEntityType())) 
+                    && "Player".equals(referencedVar.getEntityType())) {
+                    // Both are player entities - they must be in the same game but different teams
+                    return buildOpponentPlayerCondition(binding.getVariableName(), relationToVariable);
+                } else if ("Team".equals(binding.getEntityType())) {
+                    // Team represents the opposing team to player p
+                    return buildOpponentTeamCondition(binding.getVariableName(), relationToVariable);
+                }
+                break;
+            case "team":
+                // For Team t = p.team, link the player's team in their game
+                if ("Team".equals(binding.getEntityType()) && "Player".equals(referencedVar.getEntityType())) {
+                    return buildPlayerTeamCondition(binding.getVariableName(), relationToVariable);
+                }
+                break;
+            case "played":
+                // For Player q = p.played (same game), this is now handled automatically by multi-player detection
+                // No explicit condition needed since same-game constraints are added automatically
+                return null;
+        }
+        
+        return null; // No condition needed for unhandled cases
+    }
+    
+    private String buildOpponentPlayerCondition(String playerVar1, String playerVar2) {
+        // Both players are in the same game but on different teams
+        // gameId condition is redundant since tables are already JOINed on gameId
+        return String.format("(%s_stats.playerteamName != %s_stats.playerteamName)", 
+                           playerVar1, playerVar2);
+    }
+    
+    private String buildOpponentTeamCondition(String teamVar, String playerVar) {
+        // The team variable represents the opponent of the player
+        // For now, implement a simplified version 
+        // TODO: Implement proper logic to determine opponent team based on which team player was on
+        return String.format("(%s_team.teamId = games.hometeamId OR %s_team.teamId = games.awayteamId)",
+                           teamVar, teamVar);
+    }
+    
+    private String buildPlayerTeamCondition(String teamVar, String playerVar) {
+        // Team t = p.team means the team variable is bound to the player's team in each game
+        // We don't need complex joins - just ensure any team conditions match the player's team
+        // The actual team name checking will be done in the WHERE conditions 
+        return "1=1"; // This condition is always true - the real constraint comes from WHERE conditions
+    }
+    
+
+    
+    @Override
+    public String visitBinaryExpression(BinaryExpressionNode node) {
+        // Handle season comparisons (season = "1996-97")
+        if ("=".equals(node.getOperator()) && 
+            node.getLeft() instanceof IdentifierNode && 
+            "season".equals(((IdentifierNode) node.getLeft()).getName()) &&
+            node.getRight() instanceof LiteralNode) {
+            
+            LiteralNode seasonLiteral = (LiteralNode) node.getRight();
+            String seasonName = seasonLiteral.getValue().toString();
+            
+            // Import SeasonMapper here (we'll add this import at the top of the file)
+            com.hoopsql.util.SeasonMapper.SeasonDates dates = com.hoopsql.util.SeasonMapper.getSeasonDates(seasonName);
+            if (dates != null) {
+                // Create parameter placeholders for start and end dates
+                parameterCount++;
+                String startParamName = "param" + parameterCount;
+                parameters.put(startParamName, dates.getStartDate());
+                String startParamPlaceholder = "?" + parameterCount;
+                
+                parameterCount++;
+                String endParamName = "param" + parameterCount;
+                parameters.put(endParamName, dates.getEndDate());
+                String endParamPlaceholder = "?" + parameterCount;
+                
+                // Remember the range so storage can route to the right shards
+                dateFrom = QueryParts.later(dateFrom, dates.getStartDate());
+                dateTo = QueryParts.earlier(dateTo, dates.getEndDate());
+                
+                return "games.gameDate >= " + startParamPlaceholder + " AND games.gameDate <= " + endParamPlaceholder;
+            } else {
+                throw new RuntimeException("Unknown season: " + seasonName);
+            }
+        }
+        
+        String left = node.getLeft().accept(this);
+        String right = node.getRight().accept(this);
+        
+        // game_date compared to a literal also bounds the date range
+        if (node.getLeft() instanceof IdentifierNode identifier && "game_date".equals(identifier.getName())
+                && node.getRight() instanceof LiteralNode literal && literal.getValue() instanceof String date) {
+            switch (node.getOperator()) {
+                case ">=", ">" -> dateFrom = QueryParts.later(dateFrom, date);
+                case "<=", "<" -> dateTo = QueryParts.earlier(dateTo, date);
+                case "=" -> {
+                    dateFrom = QueryParts.later(dateFrom, date);
+                    dateTo = QueryParts.earlier(dateTo, date + "~");
+                }
+                default -> { }
+            }
+        }
+        
+        // Handle player variable comparisons like p != q
+        if (("=".equals(node.getOperator()) || "!=".equals(node.getOperator())) && 
+            node.getLeft() instanceof IdentifierNode && node.getRight() instanceof IdentifierNode) {
+            
+            IdentifierNode leftId = (IdentifierNode) node.getLeft();
+            IdentifierNode rightId = (IdentifierNode) node.getRight();
+            
+            VariableBinding leftBinding = context.getVariable(leftId.getName());
+            VariableBinding rightBinding = context.getVariable(rightId.getName());
+            
+            if (leftBinding != null && rightBinding != null && 
+                "Player".equals(leftBinding.getEntityType()) && "Player".equals(rightBinding.getEntityType())) {
+                
+                // Use personId for player comparisons with proper aliases
+                String leftAlias = leftId.getName() + "_stats";
+                String rightAlias = rightId.getName() + "_stats";
+                String sqlOperator = "=".equals(node.getOperator()) ? "=" : "!=";
+                return leftAlias + ".personId " + sqlOperator + " " + rightAlias + ".personId";
+            }
+        }
+        
+        // Handle field access comparisons like p1.played = p2.played (which should be automatic now)
+        if (("=".equals(node.getOperator()) || "!=".equals(node.getOperator())) && 
+            node.getLeft() instanceof FieldAccessNode && node.getRight() instanceof FieldAccessNode) {
+            
+            FieldAccessNode leftField = (FieldAccessNode) node.getLeft();
+            FieldAccessNode rightField = (FieldAccessNode) node.getRight();
+            
+            if ("played".equals(leftField.getFieldName()) && "played".equals(rightField.getFieldName())) {
+                // p1.played = p2.played is automatically handled by multi-player same-game constraints
+                // Just return a condition that's always true since the automatic constraints handle this
+                return "1=1";
+            }
+        }
+        
+        // Map HoopsSQL operators to SQL operators
+        String sqlOperator = switch (node.getOperator()) {
+            case ">=" -> ">=";
+            case ">" -> ">";
+            case "<=" -> "<=";
+            case "<" -> "<";
+            case "=" -> "=";
+            case "!=" -> "!=";
+            default -> node.getOperator();
+        };
+        
+        // Handle numeric comparisons - cast left side to REAL if it's a stat column
+        if (left.contains("points") || left.contains("assists") || left.contains("rebounds") || 
+            left.contains("steals") || left.contains("blocks") || left.contains("turnovers") || 
+            left.contains("threePointersMade") || left.contains("threePointersAttempted") ||
+            left.contains("fieldGoalsMade") || left.contains("fieldGoalsAttempted") ||
+            left.contains("freeThrowsMade") || left.contains("freeThrowsAttempted") ||
+            left.contains("foulsPersonal") || left.contains("plusMinusPoints") ||
+            left.contains("numMinutes") || left.contains("reboundsDefensive") || left.contains("reboundsOffensive")) {
+            left = "CAST(" + left + " AS REAL)";
+        }
+        
+        return left + " " + sqlOperator + " " + right;
+    }
+    
+    @Override
+    public String visitFieldAccess(FieldAccessNode node) {
+        VariableBinding binding = context.getVariable(node.getVariableName());
+        if (binding == null) {
+            throw new RuntimeException("Undefined variable: " + node.getVariableName());
+        }
+        
+        // Handle special case: p.played means "player participated in game" 
+        if ("played".equals(node.getFieldName()) && "Player".equals(binding.getEntityType())) {
+            // For p.played, we just return a condition that's always true since the JOIN already ensures the player played
+            // The real constraint is that the player_statistics record exists (via JOIN)
+            return "1=1"; // Always true - the JOIN constraint does the work
+        }
+        
+        String columnName = context.getSchema().getColumnName(binding.getEntityType(), node.getFieldName());
+        
+        // Return the appropriate SQL column reference based on actual database structure
+        if ("Player".equals(binding.getEntityType())) {
+            // Check if we need variable-specific aliases  
+            boolean hasRelationalBindings = context.getVariables().values().stream()
+                .anyMatch(VariableBinding::isRelational);
+            long playerCount = context.getVariables().values().stream()
+                .filter(b -> "Player".equals(b.getEntityType()))
+                .count();
+                
+            if (hasRelationalBindings || playerCount > 1) {
+                // Use variable-specific aliases for complex queries
+                String varName = node.getVariableName();
+                if ("name".equals(node.getFieldName())) {
+                    // Player names require joining players table
+                    return "TRIM(" + varName + "_player.firstName || ' ' || " + varName + "_player.lastName)";
+                } else {
+                    // Stats fields are in player_statistics
+                    return varName + "_stats." + columnName;
+                }
+            } else {
+                // Use simple aliases for backward compatibility
+                if ("name".equals(node.getFieldName())) {
+                    return "TRIM(players.firstName || ' ' || players.lastName)";
+                } else {
+                    return "player_statistics." + columnName;
+                }
+            }
+        } else if ("Team".equals(binding.getEntityType())) {
+            // If Team is relationally bound (Team t = p.team), use player's team name
+            if (binding.isRelational() && "team".equals(binding.getRelationshipType())) {
+                String playerVar = binding.getRelationToVariable();
+                String statsAlias = playerVar + "_stats";
+                if ("name".equals(node.getFieldName())) {
+                    return statsAlias + ".playerteamName";
+                } else {
+                    return statsAlias + ".playerteam" + node.getFieldName();
+                }
+            } else {
+                // Team fields are directly in games table as home team
+                return "games." + columnName;
+            }
+        } else if ("Opponent".equals(binding.getEntityType())) {
+            // Opponent is a Player entity - an opposing player, not a team
+            if (binding.isRelational() && "opponent".equals(binding.getRelationshipType())) {
+                String playerVar = binding.getRelationToVariable();
+                String playerAlias = playerVar + "_stats";
+                String opponentAlias = binding.getVariableName() + "_stats";
+                
+                if ("name".equals(node.getFieldName())) {
+                    // Opponent player name - need to join opponent player stats
+                    return "TRIM(" + opponentAlias + ".firstName || ' ' || " + opponentAlias + ".lastName)";
+                } else if ("team".equals(node.getFieldName())) {
+                    // Opponent's team name
+                    return opponentAlias + ".playerteamName";
+                } else {
+                    // Other opponent player stats
+                    return opponentAlias + "." + columnName;
+                }
+            }
+            // For other opponent fields, map to games table
+            return "games." + columnName;
+        }
+        
+        return columnName;
+    }
+    
+    @Override
+    public String visitLiteral(LiteralNode node) {
+        parameterCount++;
+        String paramName = "param" + parameterCount;
+        parameters.put(paramName, node.getValue());
+        return "?" + parameterCount;
+    }
+    
+    @Override
+    public String visitIdentifier(IdentifierNode node) {
+        // Handle standalone identifiers
+        String name = node.getName();
+        
+        // Map special field references to SQL columns
+        if ("game_date".equals(name)) {
+            return "games.gameDate";
+        }
+        
+        return name;
+    }
+    
+    @Override
+    public String visitSelect(SelectNode node) {
+        // This is handled in buildSelectClause
+        return "";
+    }
+    
+    @Override
+    public String visitOrderBy(OrderByNode node) {
+        sqlBuilder.append(" ORDER BY ");
+        
+        // Map field name to actual database column with proper casting for numeric sorts
+        String columnName = node.getField();
+        if ("points".equals(columnName)) {
+            columnName = "CAST(player_statistics.points AS INTEGER)";
+        } else if ("rebounds".equals(columnName)) {
+            columnName = "CAST(player_statistics.reboundsTotal AS INTEGER)";
+        } else if ("assists".equals(columnName)) {
+            columnName = "CAST(player_statistics.assists AS INTEGER)";
+        } else if ("minutes".equals(columnName)) {
+            columnName = "CAST(player_statistics.numMinutes AS REAL)";
+        } else if ("name".equals(columnName)) {
+            columnName = "TRIM(player_statistics.firstName || ' ' || player_statistics.lastName)";
+        } else {
+            // Default mapping - try to cast as integer for numeric fields
+            columnName = "CAST(player_statistics." + columnName + " AS INTEGER)";
+        }
+        
+        sqlBuilder.append(columnName);
+        sqlBuilder.append(node.isAscending() ? " ASC" : " DESC");
+        orderByExpression = columnName;
+        orderAscending = node.isAscending();
+        
+        return "";
+    }
+    
+    @Override
+    public String visitLimit(LimitNode node) {
+        sqlBuilder.append(" LIMIT ").append(node.getCount());
+        return "";
+    }
+    
+    @Override
+    public String visitAggregation(AggregationNode node) {
+        // Handle aggregation functions
+        QueryParts.Aggregate aggregate = aggregateFor(node);
+        return aggregate.function() + "(" + aggregate.expression() + ")";
+    }
+
+    // Extract fields referenced in WHERE conditions for smart column selection
+    private Set<String> extractReferencedFieldsFromQuery(QueryNode node) {
+        Set<String> fields = new HashSet<>();
+        
+        // Extract fields from WHERE conditions
+        if (node.getWhereConditions() != null) {
+            for (ExpressionNode condition : node.getWhereConditions()) {
+                extractFieldsFromExpression(condition, fields);
+            }
+        }
+        
+        // Extract fields from ORDER BY clause
+        if (node.getOrderByClause() != null) {
+            fields.add(node.getOrderByClause().getField());
+        }
+        
+        return fields;
+    }
+    
+    private void extractFieldsFromExpression(ExpressionNode expr, Set<String> fields) {
+        if (expr instanceof BinaryExpressionNode) {
+            BinaryExpressionNode binaryExpr = (BinaryExpressionNode) expr;
+            extractFieldsFromExpression(binaryExpr.getLeft(), fields);
+            extractFieldsFromExpression(binaryExpr.getRight(), fields);
+        } else if (expr instanceof FieldAccessNode) {
+            FieldAccessNode fieldAccess = (FieldAccessNode) expr;
+            fields.add(fieldAccess.getFieldName());
+        }
+    }
+    
+
+}
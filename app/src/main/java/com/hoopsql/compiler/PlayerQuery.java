@@ -0,0 +1,61 @@
+package com.hoopsql.compiler;
+
+import java.util.List;
+
+/**
+ * A planned player query in terms that need no SQL: which players, the
+ * filters on each, how they relate, the date bounds and the output columns.
+ * The planner attaches one to the ExecutionPlan when the whole query fits
+ * this shape, so an in-process engine can run it instead of SQLite; the SQL
+ * stays the reference and the description mirrors it exactly, down to the
+ * output columns and the primary player whose stats they show.
+ *
+ * Absent (null on the plan) for select lists outside avg(games), Team or
+ * Opponent variables, name fields, variable-to-variable comparisons and
+ * other constructs outside this shape, and for a lone unbound player with no
+ * filters (a LEFT JOIN row for every game).
+ */
+public record PlayerQuery(
+        boolean averages,          // avg(games) or agg(...): one row of aggregates instead of a listing
+        boolean streaks,           // get streaks: runs of consecutive games passing the filters, longest first
+        List<Term> players,        // in declaration order
+        String primary,            // variable whose row the output columns show
+        DateBound from,            // games.gameDate lower bound, null if open
+        DateBound to,              // games.gameDate upper bound, null if open
+        List<Output> outputs,
+        String groupBy,            // averages per season, team, opponent, home_or_away or win; null for one row
+        Integer window,            // rolling(N): each game's aggregates over it and the N - 1 games before; null otherwise
+        Sort sort,                 // null when unordered
+        Integer limit) {           // null when unlimited; with averages, cuts the groups (or the one row)
+
+    public PlayerQuery {
+        players = List.copyOf(players);
+        outputs = List.copyOf(outputs);
+    }
+
+    // One Player variable: bound to a name, related to another variable, or free
+    public record Term(String variable, String name, String relatedTo, String relationship, List<Filter> filters) {
+        public Term {
+            filters = List.copyOf(filters);
+        }
+
+        public boolean isBound() { return name != null; }
+        public boolean isRelational() { return relatedTo != null; }
+    }
+
+    // column op value on the variable's box score; value is a Number, or a String for text columns
+    public record Filter(String column, String operator, Object value) {}
+
+    // Inclusive or exclusive bound compared as text, as SQLite compares games.gameDate
+    public record DateBound(String value, boolean inclusive) {}
+
+    // One output column: source is gameDate, playerName, margin or a player_statistics column (a groupBy
+    // column is not among them: it comes first, named after the dimension);
+    // function is AVG, SUM, MIN, MAX or COUNT for aggregates (COUNT(*) has no source), null for a plain column.
+    // A streak's columns are aggregates over its games: MAX(playerName), MIN and MAX(gameDate), COUNT(*).
+    // With a window, the aggregates are over each game's window: AVG or SUM of a column, COUNT(*) its games.
+    public record Output(String alias, String source, String function) {}
+
+    // ORDER BY on the primary player's column; integer when the SQL casts it AS INTEGER
+    public record Sort(String column, boolean integer, boolean ascending) {}
+}
@@ -0,0 +1,230 @@
+package com.hoopsql.compiler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hoopsql.util.SeasonMapper;
+
+/**
+ * Describes a planned program as a PlayerQuery, or returns null when any
+ * part of it falls outside what PlayerQuery can say. Each accepted construct
+ * is read the way PlanBuilder turns it into SQL, so the two agree.
+ */
+final class PlayerQueryExtractor {
+    private PlayerQueryExtractor() {}
+
+    static PlayerQuery extract(ProgramNode program, PlanningContext context,
+                               List<PlayerQuery.Output> outputs, String primary) {
+        QueryNode query = program.getQuery();
+        if (query == null) {
+            return null;
+        }
+        // For avg(games) a select list only picks the stats to average, which outputs already has
+        boolean averages = PlanBuilder.isAggregateScope(query.getScope());
+        boolean streaks = "streaks".equals(query.getScope());
+        boolean rolling = "rolling".equals(query.getScope());
+        if (query.getSelectClause() != null && !averages) {
+            return null;
+        }
+
+        // Terms in declaration order; every variable must be a Player
+        Map<String, TermBuilder> terms = new LinkedHashMap<>();
+        for (DeclarationNode declaration : program.getDeclarations()) {
+            if (!(declaration instanceof VariableDeclarationNode variable)) {
+                return null;
+            }
+            VariableBinding binding = context.getVariable(variable.getVariableName());
+            if (binding == null || !"Player".equals(binding.getEntityType())) {
+                return null;
+            }
+            TermBuilder term = new TermBuilder(binding.getVariableName());
+            if (binding.isRelational()) {
+                String relationship = binding.getRelationshipType();
+                if (!"opponent".equals(relationship) && !"played".equals(relationship)) {
+                    return null;
+                }
+                term.relatedTo = binding.getRelationToVariable();
+                term.relationship = relationship;
+            } else if (binding.isBound()) {
+                if (!(binding.getBoundValue() instanceof String name)) {
+                    return null;
+                }
+                term.name = name;
+            }
+            terms.put(term.variable, term);
+        }
+        if (terms.isEmpty() || terms.size() != context.getVariables().size()) {
+            return null;
+        }
+        if (averages && terms.size() > 1) {
+            // The averages SQL reads an unaliased player_statistics, which only the single-player form joins
+            return null;
+        }
+
+        Bounds bounds = new Bounds();
+        for (ExpressionNode condition : query.getWhereConditions()) {
+            if (!addCondition(condition, context, terms, bounds)) {
+                return null;
+            }
+        }
+
+        if (terms.size() == 1) {
+            TermBuilder only = terms.values().iterator().next();
+            if (!only.isBound() && only.filters.isEmpty() && !streaks && !rolling) {
+                // LEFT JOIN: every game without a box score would show up as a row of nulls (streaks and
+                // rolling windows drop them)
+                return null;
+            }
+            primary = only.variable;
+        }
+
+        PlayerQuery.Sort sort = null;
+        if (query.getOrderByClause() != null) {
+            if (terms.size() > 1) {
+                // The ORDER BY SQL names player_statistics, which multi-player queries alias away
+                return null;
+            }
+            sort = sortFor(query.getOrderByClause());
+            if (sort == null) {
+                return null;
+            }
+        }
+        Integer limit = query.getLimitClause() != null ? query.getLimitClause().getCount() : null;
+
+        List<PlayerQuery.Term> players = new ArrayList<>();
+        for (TermBuilder term : terms.values()) {
+            players.add(new PlayerQuery.Term(term.variable, term.name, term.relatedTo, term.relationship, term.filters));
+        }
+        return new PlayerQuery(averages, streaks, players, primary, bounds.from, bounds.to, outputs, query.getGroupBy(),
+            query.getWindow(), sort, limit);
+    }
+
+    private static boolean addCondition(ExpressionNode condition, PlanningContext context,
+                                        Map<String, TermBuilder> terms, Bounds bounds) {
+        // p.played on its own is always true: the join already requires a box score
+        if (condition instanceof FieldAccessNode field) {
+            return "played".equals(field.getFieldName()) && terms.containsKey(field.getVariableName());
+        }
+        if (!(condition instanceof BinaryExpressionNode binary)) {
+            return false;
+        }
+        String operator = binary.getOperator();
+        ExpressionNode left = binary.getLeft();
+        ExpressionNode right = binary.getRight();
+
+        if (left instanceof IdentifierNode identifier && right instanceof LiteralNode literal) {
+            if ("season".equals(identifier.getName()) && "=".equals(operator)) {
+                SeasonMapper.SeasonDates dates = SeasonMapper.getSeasonDates(literal.getValue().toString());
+                if (dates == null) {
+                    return false;
+                }
+                bounds.lower(new PlayerQuery.DateBound(dates.getStartDate(), true));
+                bounds.upper(new PlayerQuery.DateBound(dates.getEndDate(), true));
+                return true;
+            }
+            if ("game_date".equals(identifier.getName()) && literal.getValue() instanceof String date) {
+                switch (operator) {
+                    case ">=" -> bounds.lower(new PlayerQuery.DateBound(date, true));
+                    case ">" -> bounds.lower(new PlayerQuery.DateBound(date, false));
+                    case "<=" -> bounds.upper(new PlayerQuery.DateBound(date, true));
+                    case "<" -> bounds.upper(new PlayerQuery.DateBound(date, false));
+                    case "=" -> {
+                        bounds.lower(new PlayerQuery.DateBound(date, true));
+                        bounds.upper(new PlayerQuery.DateBound(date, true));
+                    }
+                    default -> {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        if (left instanceof FieldAccessNode leftField && right instanceof FieldAccessNode rightField) {
+            // p.played = q.played: the same-game constraint every multi-player query already has
+            return ("=".equals(operator) || "!=".equals(operator))
+                && "played".equals(leftField.getFieldName()) && "played".equals(rightField.getFieldName());
+        }
+
+        if (left instanceof FieldAccessNode field && right instanceof LiteralNode literal) {
+            TermBuilder term = terms.get(field.getVariableName());
+            String fieldName = field.getFieldName();
+            if (term == null || "name".equals(fieldName) || "played".equals(fieldName)) {
+                return false;
+            }
+            Object value = literal.getValue();
+            if (value instanceof Boolean flag) {
+                // Bound with setBoolean, which SQLite stores as 1 or 0
+                value = flag ? 1 : 0;
+            }
+            switch (operator) {
+                case ">=", ">", "<=", "<", "=", "!=" -> { }
+                default -> {
+                    return false;
+                }
+            }
+            String column = context.getSchema().getColumnName("Player", fieldName);
+            term.filters.add(new PlayerQuery.Filter(column, operator, value));
+            return true;
+        }
+        return false;
+    }
+
+    // Mirrors PlanBuilder.visitOrderBy
+    private static PlayerQuery.Sort sortFor(OrderByNode orderBy) {
+        String field = orderBy.getField();
+        return switch (field) {
+            case "name" -> null;
+            case "points" -> new PlayerQuery.Sort("points", true, orderBy.isAscending());
+            case "rebounds" -> new PlayerQuery.Sort("reboundsTotal", true, orderBy.isAscending());
+            case "assists" -> new PlayerQuery.Sort("assists", true, orderBy.isAscending());
+            case "minutes" -> new PlayerQuery.Sort("numMinutes", false, orderBy.isAscending());
+            default -> new PlayerQuery.Sort(field, true, orderBy.isAscending());
+        };
+    }
+
+    private static final class TermBuilder {
+        final String variable;
+        final List<PlayerQuery.Filter> filters = new ArrayList<>();
+        String name;
+        String relatedTo;
+        String relationship;
+
+        TermBuilder(String variable) {
+            this.variable = variable;
+        }
+
+        boolean isBound() { return name != null; }
+    }
+
+    // Tightest date bounds seen so far; on a tie the exclusive bound is the tighter one
+    private static final class Bounds {
+        PlayerQuery.DateBound from;
+        PlayerQuery.DateBound to;
+
+        void lower(PlayerQuery.DateBound bound) {
+            if (from == null) {
+                from = bound;
+                return;
+            }
+            int order = bound.value().compareTo(from.value());
+            if (order > 0 || (order == 0 && !bound.inclusive())) {
+                from = bound;
+            }
+        }
+
+        void upper(PlayerQuery.DateBound bound) {
+            if (to == null) {
+                to = bound;
+                return;
+            }
+            int order = bound.value().compareTo(to.value());
+            if (order < 0 || (order == 0 && !bound.inclusive())) {
+                to = bound;
+            }
+        }
+    }
+}
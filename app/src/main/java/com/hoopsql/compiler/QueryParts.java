@@ -0,0 +1,145 @@
+package com.hoopsql.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The clauses of a planned SELECT, kept next to the SQL text so the runtime
+ * can rewrite a plan (extra predicates, partial aggregates, a different
+ * limit) without parsing SQL. toSql() reproduces the planner's SQL exactly.
+ */
+public class QueryParts {
+    // One output column of an aggregate query, e.g. AVG(points) AS avg_points
+    public record Aggregate(String function, String expression, String alias) {
+        public String toSql() {
+            return function + "(" + expression + ") AS " + alias;
+        }
+    }
+
+    private final String select;
+    private final String from;
+    private final List<String> conditions;
+    private final String orderBy; // sort expression, null when unordered
+    private final boolean ascending;
+    private final Integer limit; // null when unlimited
+    private final List<Aggregate> aggregates; // empty unless the select list is all aggregates
+    private final String dateFrom; // games.gameDate bounds implied by the conditions (inclusive), null if open
+    private final String dateTo;
+    private final List<String> rowKey; // columns that identify a result row (e.g. gameId, personId); empty if unknown
+    private final String groupBy; // GROUP BY expression, null when the aggregates cover all rows
+
+    public QueryParts(String select, String from, List<String> conditions,
+                      String orderBy, boolean ascending, Integer limit, List<Aggregate> aggregates) {
+        this(select, from, conditions, orderBy, ascending, limit, aggregates, null, null);
+    }
+
+    public QueryParts(String select, String from, List<String> conditions,
+                      String orderBy, boolean ascending, Integer limit, List<Aggregate> aggregates,
+                      String dateFrom, String dateTo) {
+        this(select, from, conditions, orderBy, ascending, limit, aggregates, dateFrom, dateTo, List.of(), null);
+    }
+
+    private QueryParts(String select, String from, List<String> conditions,
+                       String orderBy, boolean ascending, Integer limit, List<Aggregate> aggregates,
+                       String dateFrom, String dateTo, List<String> rowKey, String groupBy) {
+        this.select = select;
+        this.from = from;
+        this.conditions = List.copyOf(conditions);
+        this.orderBy = orderBy;
+        this.ascending = ascending;
+        this.limit = limit;
+        this.aggregates = List.copyOf(aggregates);
+        this.dateFrom = dateFrom;
+        this.dateTo = dateTo;
+        this.rowKey = List.copyOf(rowKey);
+        this.groupBy = groupBy;
+    }
+
+    public String getSelect() { return select; }
+    public String getFrom() { return from; }
+    public List<String> getConditions() { return conditions; }
+    public String getOrderBy() { return orderBy; }
+    public boolean isAscending() { return ascending; }
+    public Integer getLimit() { return limit; }
+    public List<Aggregate> getAggregates() { return aggregates; }
+    public boolean isAggregate() { return !aggregates.isEmpty(); }
+    public String getDateFrom() { return dateFrom; }
+    public String getDateTo() { return dateTo; }
+    public List<String> getRowKey() { return rowKey; }
+    public String getGroupBy() { return groupBy; }
+    public boolean isGrouped() { return groupBy != null; }
+
+    public QueryParts withSelect(String newSelect) {
+        return new QueryParts(newSelect, from, conditions, orderBy, ascending, limit, aggregates, dateFrom, dateTo, rowKey, groupBy);
+    }
+
+    public QueryParts withCondition(String condition) {
+        List<String> newConditions = new ArrayList<>(conditions);
+        newConditions.add(condition);
+        return new QueryParts(select, from, newConditions, orderBy, ascending, limit, aggregates, dateFrom, dateTo, rowKey, groupBy);
+    }
+
+    public QueryParts withLimit(Integer newLimit) {
+        return new QueryParts(select, from, conditions, orderBy, ascending, newLimit, aggregates, dateFrom, dateTo, rowKey, groupBy);
+    }
+
+    // Replace an aggregate select list (the select text is rebuilt from the aggregates, so only for ungrouped parts)
+    public QueryParts withAggregates(List<Aggregate> newAggregates) {
+        List<String> fields = new ArrayList<>();
+        for (Aggregate aggregate : newAggregates) {
+            fields.add(aggregate.toSql());
+        }
+        return new QueryParts(String.join(", ", fields), from, conditions, orderBy, ascending, limit,
+            newAggregates, dateFrom, dateTo, rowKey, groupBy);
+    }
+
+    // Narrow the known date bounds (the matching condition must be added separately)
+    public QueryParts withDateRange(String newFrom, String newTo) {
+        return new QueryParts(select, from, conditions, orderBy, ascending, limit, aggregates,
+            later(dateFrom, newFrom), earlier(dateTo, newTo), rowKey, groupBy);
+    }
+
+    // Aggregate per value of an expression, in its order; the select list must already start with it
+    public QueryParts withGroupBy(String expression) {
+        return new QueryParts(select, from, conditions, expression, true, limit, aggregates, dateFrom, dateTo, rowKey, expression);
+    }
+
+    public QueryParts withRowKey(List<String> newRowKey) {
+        return new QueryParts(select, from, conditions, orderBy, ascending, limit, aggregates, dateFrom, dateTo, newRowKey, groupBy);
+    }
+
+    // Replace the sort; terms are listed in priority order and all use the same direction
+    public QueryParts withOrderBy(List<String> terms, boolean newAscending) {
+        String joined = terms.isEmpty() ? null : String.join(newAscending ? " ASC, " : " DESC, ", terms);
+        return new QueryParts(select, from, conditions, joined, newAscending, limit, aggregates, dateFrom, dateTo, rowKey, groupBy);
+    }
+
+    static String later(String a, String b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    static String earlier(String a, String b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    public String toSql() {
+        StringBuilder sql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(from);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (groupBy != null) {
+            sql.append(" GROUP BY ").append(groupBy);
+        }
+        if (orderBy != null) {
+            sql.append(" ORDER BY ").append(orderBy).append(ascending ? " ASC" : " DESC");
+        }
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+}
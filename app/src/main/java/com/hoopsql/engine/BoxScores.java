@@ -0,0 +1,476 @@
+package com.hoopsql.engine;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hoopsql.compiler.PlayerQuery;
+
+/**
+ * Every box score with its game, held column by column in primitive arrays.
+ *
+ * Games are numbered 0..gameCount-1 in (gameDate, gameId) order, so a date
+ * range is a contiguous run of game numbers and game numbers double as
+ * dense hash keys for joins. Box scores are grouped by player and, within a
+ * player, ordered by game number: one player's games over any date range are
+ * a contiguous run of rows found by binary search.
+ *
+ * Values are what the SQL path would return for the same cells: integer
+ * columns hold NULL_INT for NULL, real columns NaN, and text columns are
+ * dictionary codes with -1 for NULL. A stat cell of any other storage class
+ * (the '' a CSV .import leaves for a missing value, a real in an integer
+ * column) is held as NULL and its column is marked inexact. The cell's own
+ * value is kept aside, so listings still show it, but SQLite compares, sorts
+ * and averages such cells by rules of its own: the engine declines queries
+ * that filter, sort, group or aggregate on an inexact column rather than
+ * approximate them. A game
+ * or player id that isn't an integer still fails the load. Box scores whose
+ * game is missing from games are left out, as the games-first joins the
+ * planner writes do.
+ */
+final class BoxScores {
+    static final int NULL_INT = Integer.MIN_VALUE;
+
+    enum Kind { INT, REAL, TEXT }
+
+    // A player_statistics column the engine can filter, sort or output; slot indexes ints, reals or texts
+    record Column(String name, Kind kind, int slot) {}
+
+    private static final String[] INT_COLUMNS = {
+        "win", "home", "points", "assists", "blocks", "steals",
+        "fieldGoalsAttempted", "fieldGoalsMade", "threePointersAttempted", "threePointersMade",
+        "freeThrowsAttempted", "freeThrowsMade", "reboundsDefensive", "reboundsOffensive", "reboundsTotal",
+        "foulsPersonal", "turnovers", "plusMinusPoints"
+    };
+    private static final String[] REAL_COLUMNS = {
+        "fieldGoalsPercentage", "threePointersPercentage", "freeThrowsPercentage", "numMinutes"
+    };
+    private static final String[] TEXT_COLUMNS = { "playerteamName", "opponentteamName" };
+
+    private static final Map<String, Column> COLUMNS = new LinkedHashMap<>();
+    static {
+        for (int i = 0; i < INT_COLUMNS.length; i++) {
+            COLUMNS.put(INT_COLUMNS[i], new Column(INT_COLUMNS[i], Kind.INT, i));
+        }
+        for (int i = 0; i < REAL_COLUMNS.length; i++) {
+            COLUMNS.put(REAL_COLUMNS[i], new Column(REAL_COLUMNS[i], Kind.REAL, i));
+        }
+        for (int i = 0; i < TEXT_COLUMNS.length; i++) {
+            COLUMNS.put(TEXT_COLUMNS[i], new Column(TEXT_COLUMNS[i], Kind.TEXT, i));
+        }
+    }
+
+    // Games, by game number
+    final int gameCount;
+    final int[] gameIds;
+    final String[] gameDates;
+    final int[] margins;
+    private final int firstDatedGame; // games with a NULL date sort first
+
+    // Box scores, by row
+    final int rowCount;
+    final int[] rowGame;
+    final int[] rowName;
+    final int[][] ints;
+    final double[][] reals;
+    final int[][] texts;
+
+    // Rows of player i are personStart[i] until personStart[i + 1]
+    final int[] personIds;
+    final int[] personStart;
+    private final int[] personName; // the one name on all of a player's rows, or -1
+
+    final String[] names;
+    private final Map<String, Integer> nameCodes;
+    private final Map<String, int[]> personsByName;
+    final String[] teams;
+    private final Map<String, Integer> teamCodes;
+    private final List<String> inexactColumns; // columns holding cells read as NULL, in column order
+    private final Map<String, Map<Integer, Object>> oddCells; // those cells' values, by column and row
+
+    private BoxScores(Games games, Rows rows) {
+        this.gameCount = games.count;
+        this.gameIds = games.ids;
+        this.gameDates = games.dates;
+        this.margins = games.margins;
+        int dated = 0;
+        while (dated < gameCount && gameDates[dated] == null) {
+            dated++;
+        }
+        this.firstDatedGame = dated;
+
+        this.rowCount = rows.count;
+        this.rowGame = rows.game;
+        this.rowName = rows.name;
+        this.ints = rows.ints;
+        this.reals = rows.reals;
+        this.texts = rows.texts;
+        this.personIds = rows.personIds.toArray();
+        this.personStart = rows.personStart.toArray();
+        this.names = rows.names.values.toArray(new String[0]);
+        this.nameCodes = rows.names.codes;
+        this.teams = rows.teams.values.toArray(new String[0]);
+        this.teamCodes = rows.teams.codes;
+        List<String> inexact = new ArrayList<>();
+        for (Column column : COLUMNS.values()) {
+            if (rows.oddCells.containsKey(column.name())) {
+                inexact.add(column.name());
+            }
+        }
+        this.inexactColumns = List.copyOf(inexact);
+        this.oddCells = rows.oddCells;
+
+        Map<String, IntList> byName = new HashMap<>();
+        this.personName = new int[personIds.length];
+        for (int person = 0; person < personIds.length; person++) {
+            int start = personStart[person];
+            personName[person] = start < personStart[person + 1] ? rowName[start] : -1;
+            int previous = -1;
+            for (int row = personStart[person]; row < personStart[person + 1]; row++) {
+                int name = rowName[row];
+                if (name != personName[person]) {
+                    personName[person] = -1;
+                }
+                if (name >= 0 && name != previous) {
+                    IntList persons = byName.computeIfAbsent(names[name], n -> new IntList());
+                    if (persons.size() == 0 || persons.get(persons.size() - 1) != person) {
+                        persons.add(person);
+                    }
+                    previous = name;
+                }
+            }
+        }
+        this.personsByName = new HashMap<>();
+        byName.forEach((name, persons) -> personsByName.put(name, persons.toArray()));
+    }
+
+    static BoxScores load(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            Games games = loadGames(stmt);
+            Rows rows = loadRows(stmt, games);
+            return new BoxScores(games, rows);
+        }
+    }
+
+    static Column column(String name) {
+        return COLUMNS.get(name);
+    }
+
+    int personCount() { return personIds.length; }
+
+    // False when some of the column's cells couldn't be held as SQLite returns them and read as NULL
+    boolean isExact(Column column) {
+        return !inexactColumns.contains(column.name());
+    }
+
+    List<String> inexactColumns() { return inexactColumns; }
+
+    // The value of a cell held as NULL because it wasn't a number (or text, in a text column); null if it is NULL
+    Object oddCell(Column column, int row) {
+        Map<Integer, Object> cells = oddCells.get(column.name());
+        return cells != null ? cells.get(row) : null;
+    }
+
+    // The player a row belongs to
+    int personOf(int row) {
+        int low = 0;
+        int high = personIds.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (personStart[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Players whose box scores carry this exact display name
+    int[] personsNamed(String name) {
+        int[] persons = personsByName.get(name);
+        return persons != null ? persons : new int[0];
+    }
+
+    // True when every row of the player carries this name, so a run of its rows needs no name check
+    boolean hasOnlyName(int person, int name) {
+        return name >= 0 && personName[person] == name;
+    }
+
+    // Dictionary code for a display name; -1 if no box score has it
+    int nameCode(String name) {
+        Integer code = nameCodes.get(name);
+        return code != null ? code : -1;
+    }
+
+    // Dictionary code for a team name; -1 if no box score has it
+    int teamCode(String team) {
+        Integer code = teamCodes.get(team);
+        return code != null ? code : -1;
+    }
+
+    // First game number on or after the lower bound; dates compare as text, as in SQLite.
+    // Games with a NULL date fail every comparison, so any bound skips them.
+    int firstGame(PlayerQuery.DateBound from, PlayerQuery.DateBound to) {
+        if (from == null) {
+            return to == null ? 0 : firstDatedGame;
+        }
+        int low = firstDatedGame;
+        int high = gameCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int order = gameDates[mid].compareTo(from.value());
+            if (order < 0 || (order == 0 && !from.inclusive())) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Last game number on or before the upper bound; below firstGame when the range is empty
+    int lastGame(PlayerQuery.DateBound to) {
+        if (to == null) {
+            return gameCount - 1;
+        }
+        int low = firstDatedGame;
+        int high = gameCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int order = gameDates[mid].compareTo(to.value());
+            if (order < 0 || (order == 0 && to.inclusive())) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    // First row in [start, end) whose game number is at least game
+    int seekGame(int start, int end, int game) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowGame[mid] < game) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Rows sorted by game number, then row number
+    int[] inGameOrder(int[] rows) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = ((long) rowGame[rows[i]] << 32) | rows[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[rows.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    // Rough heap footprint of the arrays, for the session description
+    long bytes() {
+        long perRow = 4L * (2 + ints.length + texts.length) + 8L * reals.length;
+        long perGame = 4L * 2 + 48;
+        long oddBytes = 0;
+        for (Map<Integer, Object> cells : oddCells.values()) {
+            oddBytes += 64L * cells.size(); // boxed row, map node and table slot
+        }
+        return perRow * rowCount + perGame * gameCount + 12L * personIds.length + oddBytes;
+    }
+
+    private record Games(int count, int[] ids, String[] dates, int[] margins, Map<Integer, Integer> numbers) {}
+
+    private static Games loadGames(Statement stmt) throws SQLException {
+        IntList ids = new IntList();
+        List<String> dates = new ArrayList<>();
+        IntList margins = new IntList();
+        // Same margin expression as the planner's default select list
+        try (ResultSet rs = stmt.executeQuery("SELECT gameId, gameDate, "
+                + "ABS(CAST(homeScore AS INTEGER) - CAST(awayScore AS INTEGER)) "
+                + "FROM games ORDER BY gameDate, gameId")) {
+            while (rs.next()) {
+                ids.add(intValue(rs.getObject(1), "games.gameId"));
+                dates.add(rs.getString(2));
+                margins.add(intValue(rs.getObject(3), "games margin"));
+            }
+        }
+        Map<Integer, Integer> numbers = new HashMap<>(ids.size() * 2);
+        for (int game = 0; game < ids.size(); game++) {
+            numbers.put(ids.get(game), game);
+        }
+        return new Games(ids.size(), ids.toArray(), dates.toArray(new String[0]), margins.toArray(), numbers);
+    }
+
+    private static final class Rows {
+        int count;
+        int[] game = new int[1024];
+        int[] name = new int[1024];
+        int[][] ints = new int[INT_COLUMNS.length][1024];
+        double[][] reals = new double[REAL_COLUMNS.length][1024];
+        int[][] texts = new int[TEXT_COLUMNS.length][1024];
+        final IntList personIds = new IntList();
+        final IntList personStart = new IntList();
+        final Dictionary names = new Dictionary();
+        final Dictionary teams = new Dictionary();
+        final Map<String, Map<Integer, Object>> oddCells = new HashMap<>();
+
+        // Keep a cell the arrays can't hold, and mark its column inexact
+        void odd(String column, Object value) {
+            oddCells.computeIfAbsent(column, c -> new HashMap<>()).put(count, value);
+        }
+
+        void grow() {
+            int capacity = game.length * 2;
+            game = Arrays.copyOf(game, capacity);
+            name = Arrays.copyOf(name, capacity);
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = Arrays.copyOf(ints[i], capacity);
+            }
+            for (int i = 0; i < reals.length; i++) {
+                reals[i] = Arrays.copyOf(reals[i], capacity);
+            }
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = Arrays.copyOf(texts[i], capacity);
+            }
+        }
+
+        void trim() {
+            game = Arrays.copyOf(game, count);
+            name = Arrays.copyOf(name, count);
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = Arrays.copyOf(ints[i], count);
+            }
+            for (int i = 0; i < reals.length; i++) {
+                reals[i] = Arrays.copyOf(reals[i], count);
+            }
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = Arrays.copyOf(texts[i], count);
+            }
+            personStart.add(count);
+        }
+    }
+
+    private static final class Dictionary {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> codes = new HashMap<>();
+
+        int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+
+    private static Rows loadRows(Statement stmt, Games games) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT s.personId, g.gameId, TRIM(s.firstName || ' ' || s.lastName)");
+        for (String column : INT_COLUMNS) {
+            sql.append(", s.").append(column);
+        }
+        for (String column : REAL_COLUMNS) {
+            sql.append(", s.").append(column);
+        }
+        for (String column : TEXT_COLUMNS) {
+            sql.append(", s.").append(column);
+        }
+        // Players in id order, each one's games in date order: the grouping the row ranges rely on
+        sql.append(" FROM games g JOIN player_statistics s ON g.gameId = s.gameId")
+           .append(" ORDER BY s.personId, g.gameDate, g.gameId");
+
+        Rows rows = new Rows();
+        try (ResultSet rs = stmt.executeQuery(sql.toString())) {
+            while (rs.next()) {
+                if (rows.count == rows.game.length) {
+                    rows.grow();
+                }
+                int row = rows.count;
+                // NULL ids sort first and group together as one player
+                int person = intValue(rs.getObject(1), "player_statistics.personId");
+                if (row == 0 || person != rows.personIds.get(rows.personIds.size() - 1)) {
+                    rows.personIds.add(person);
+                    rows.personStart.add(row);
+                }
+                rows.game[row] = games.numbers.get(rs.getInt(2));
+                rows.name[row] = rows.names.code(rs.getString(3));
+                int index = 4;
+                // getObject rather than the typed getters: a cell of another storage class (say '' from
+                // a CSV import) must be told apart from a real value, not be read as 0
+                for (int i = 0; i < INT_COLUMNS.length; i++, index++) {
+                    rows.ints[i][row] = intCell(rs.getObject(index), INT_COLUMNS[i], rows);
+                }
+                for (int i = 0; i < REAL_COLUMNS.length; i++, index++) {
+                    rows.reals[i][row] = realCell(rs.getObject(index), REAL_COLUMNS[i], rows);
+                }
+                for (int i = 0; i < TEXT_COLUMNS.length; i++, index++) {
+                    rows.texts[i][row] = rows.teams.code(textCell(rs.getObject(index), TEXT_COLUMNS[i], rows));
+                }
+                rows.count++;
+            }
+        }
+        rows.trim();
+        return rows;
+    }
+
+    // A cell the SQL path would return as an Integer; anything else can't be reproduced from an int
+    private static int intValue(Object value, String column) throws SQLException {
+        if (value == null) {
+            return NULL_INT;
+        }
+        if (value instanceof Integer number && number != NULL_INT) {
+            return number;
+        }
+        throw new SQLException(column + " holds a value the in-process engine can't store: "
+            + value.getClass().getSimpleName() + " '" + value + "'");
+    }
+
+    // A stat cell as the SQL path returns it; any other storage class reads as NULL and is kept aside
+    private static int intCell(Object value, String column, Rows rows) {
+        if (value == null) {
+            return NULL_INT;
+        }
+        if (value instanceof Integer number && number != NULL_INT) {
+            return number;
+        }
+        rows.odd(column, value);
+        return NULL_INT;
+    }
+
+    private static double realCell(Object value, String column, Rows rows) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        if (value instanceof Double number) {
+            return number;
+        }
+        rows.odd(column, value);
+        return Double.NaN;
+    }
+
+    private static String textCell(Object value, String column, Rows rows) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        rows.odd(column, value);
+        return null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.hoopsql.engine;
+
+import java.util.Arrays;
+
+/**
+ * The hash side of a GROUP BY: numbers the distinct int keys it is given
+ * 0, 1, 2, ... in the order they first appear, so aggregates can live in
+ * plain arrays indexed by group. Open addressing with linear probing over
+ * int arrays, so looking up a row's group allocates nothing and boxes
+ * nothing.
+ */
+final class GroupTable {
+    private int[] slotKeys = new int[16];
+    private int[] slotGroups = emptySlots(16); // group number in each slot, -1 when free
+    private int[] groupKeys = new int[16];     // key of each group
+    private int size;
+
+    // The group of a key, numbering it as the next group if it is new
+    int groupOf(int key) {
+        int mask = slotKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (slotGroups[slot] >= 0) {
+            if (slotKeys[slot] == key) {
+                return slotGroups[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int group = size++;
+        slotKeys[slot] = key;
+        slotGroups[slot] = group;
+        if (group == groupKeys.length) {
+            groupKeys = Arrays.copyOf(groupKeys, group * 2);
+        }
+        groupKeys[group] = key;
+        if (size * 2 > slotKeys.length) {
+            grow();
+        }
+        return group;
+    }
+
+    int size() { return size; }
+    int key(int group) { return groupKeys[group]; }
+
+    // Keep the table at most half full, so probes stay short
+    private void grow() {
+        int[] oldKeys = slotKeys;
+        int[] oldGroups = slotGroups;
+        slotKeys = new int[oldKeys.length * 2];
+        slotGroups = emptySlots(oldKeys.length * 2);
+        int mask = slotKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldGroups[i] >= 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (slotGroups[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slotKeys[slot] = oldKeys[i];
+                slotGroups[slot] = oldGroups[i];
+            }
+        }
+    }
+
+    // Spread small consecutive keys (season numbers, team codes) across the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] emptySlots(int length) {
+        int[] slots = new int[length];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+}
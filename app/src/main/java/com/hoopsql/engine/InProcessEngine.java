@@ -0,0 +1,1006 @@
+package com.hoopsql.engine;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.PlayerQuery;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.runtime.CancellationToken;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.storage.ConnectionPool;
+import com.hoopsql.storage.SQLiteStorage;
+import com.hoopsql.util.SeasonMapper;
+
+/**
+ * Runs player queries in process, over a columnar copy of the box scores
+ * (BoxScores), instead of in SQLite.
+ *
+ * Only plans that carry a PlayerQuery, and whose columns the copy holds, are
+ * supported; the Executor sends everything else to SQLite. Results match the
+ * SQL path row for row: same columns in the same order, same values and
+ * types. Unordered listings come back in game order, which SQLite does not
+ * promise either, so only the order of rows can differ.
+ *
+ * Multi-player queries (Player q = p.opponent, p.played, ...) go through
+ * PlayerJoin: a semi-join to the games every player shares, then a hash
+ * join on the game, where SQLite would run nested loops over
+ * player_statistics once per player. When two or more of the players are
+ * named, their rows are first cut to the games they all played, read from
+ * SharedGames (built by the first such query); named players who never met
+ * return no rows without reading any.
+ *
+ * avg(games), and agg(...) averages, sums and counts, for a named player
+ * without stat filters are answered from RangeSums: each of the player's
+ * rows in the date range is one contiguous run, and its totals are two
+ * lookups and a subtraction. Other aggregates read each requested column
+ * once over the matching rows, and no other column. Likewise "order by
+ * most points limit 1" for a named player reads the run's best row from
+ * RangeExtremes, built for each sort the first time it is asked for.
+ *
+ * rolling(N) windows slide over each player's matching rows once, in
+ * order, adding the row entering each window and removing the one leaving.
+ *
+ * get streaks walks each player's rows once, in date order, counting runs
+ * of consecutive games that pass the filters (see Streaks), where SQLite
+ * sorts for a window function and then groups.
+ *
+ * Grouped aggregates (avg(games) by season, team, ...) number each row's
+ * group with a GroupTable keyed by a plain int (season number, team code,
+ * home or win) and keep every aggregate in arrays indexed by group, so the
+ * rows are read once whatever the number of groups.
+ *
+ * League-wide rows (an unbound Player) come from a StatIndex when one of
+ * their thresholds is selective: the rows passing it are one run of the
+ * column's sorted order, and only those are checked against the other
+ * filters. Without one, an ORDER BY with a LIMIT walks the sort column's
+ * index from the top and stops once the limit is filled. Each column's
+ * index is built the first time a query needs it.
+ *
+ * The copy is read once, when the engine is loaded, and is immutable; one
+ * engine serves any number of threads.
+ */
+public final class InProcessEngine {
+    private static final String GAME_DATE = "gameDate";
+    private static final String PLAYER_NAME = "playerName";
+    private static final String MARGIN = "margin";
+    private static final int CHECK_INTERVAL = 1 << 16;
+    private static final String[] SEASONS = SeasonMapper.getSeasons().toArray(new String[0]);
+    private static final int SELECTIVE = 8; // an index run is read instead of a scan when it holds at most 1/8 of the rows
+
+    private final BoxScores data;
+    private final RangeSums sums;
+    private final Map<PlayerQuery.Sort, RangeExtremes> extremes = new ConcurrentHashMap<>();
+    private final Map<String, StatIndex> statIndexes = new ConcurrentHashMap<>();
+    private final long loadMillis;
+    private volatile int[] gameSeasons; // built by the first query grouped by season
+    private volatile Streaks streaks;   // built by the first streaks query
+    private volatile SharedGames shared; // built by the first query naming two players; null when too large
+    private volatile boolean sharedBuilt;
+
+    private InProcessEngine(BoxScores data, RangeSums sums, long loadMillis) {
+        this.data = data;
+        this.sums = sums;
+        this.loadMillis = loadMillis;
+    }
+
+    // Read every box score from storage (all shards, when sharded)
+    public static InProcessEngine load(SQLiteStorage storage) throws SQLException {
+        long start = System.nanoTime();
+        ConnectionPool pool = storage.getReadPool();
+        Connection connection = pool.acquire();
+        BoxScores data;
+        try {
+            data = BoxScores.load(connection);
+        } finally {
+            pool.release(connection);
+        }
+        RangeSums sums = new RangeSums(data);
+        Metrics.ENGINE_LOAD.recordSince(start);
+        return new InProcessEngine(data, sums, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public int getRowCount() { return data.rowCount; }
+    public long getLoadMillis() { return loadMillis; }
+
+    public long getMemoryBytes() {
+        SharedGames pairs = shared;
+        long bytes = data.bytes() + sums.bytes() + (pairs != null ? pairs.bytes() : 0);
+        for (RangeExtremes index : extremes.values()) {
+            bytes += index.bytes();
+        }
+        for (StatIndex index : statIndexes.values()) {
+            bytes += index.bytes();
+        }
+        return bytes;
+    }
+
+    public String getDescription() {
+        String description = String.format("in-process engine: %,d box scores, %,d games (~%.1f MB, loaded in %d ms)",
+            data.rowCount, data.gameCount, getMemoryBytes() / (1024.0 * 1024.0), loadMillis);
+        if (!data.inexactColumns().isEmpty()) {
+            // Say why queries on these columns still take as long as before
+            description += "; filters, sorts and aggregates on " + String.join(", ", data.inexactColumns())
+                + " run in SQLite (cells that aren't numbers, such as '')";
+        }
+        return description;
+    }
+
+    public boolean supports(ExecutionPlan plan) {
+        PlayerQuery query = plan.getPlayerQuery();
+        if (query == null) {
+            return false;
+        }
+        for (PlayerQuery.Term term : query.players()) {
+            for (PlayerQuery.Filter filter : term.filters()) {
+                if (!supports(filter)) {
+                    return false;
+                }
+            }
+        }
+        if (query.streaks()) {
+            // Its outputs are the streak's own columns; the runs must also fit Streaks' keys
+            return streaks().fits();
+        }
+        for (PlayerQuery.Output output : query.outputs()) {
+            if (!supports(output)) {
+                return false;
+            }
+        }
+        if (query.sort() != null) {
+            BoxScores.Column column = BoxScores.column(query.sort().column());
+            if (column == null || column.kind() == BoxScores.Kind.TEXT || !data.isExact(column)) {
+                return false;
+            }
+        }
+        if (query.groupBy() != null) {
+            BoxScores.Column column = dimensionColumn(query.groupBy());
+            return column == null || data.isExact(column);
+        }
+        return true;
+    }
+
+    private boolean supports(PlayerQuery.Filter filter) {
+        BoxScores.Column column = BoxScores.column(filter.column());
+        if (column == null || !data.isExact(column)) {
+            return false;
+        }
+        if (column.kind() == BoxScores.Kind.TEXT) {
+            return filter.value() instanceof String
+                && ("=".equals(filter.operator()) || "!=".equals(filter.operator()));
+        }
+        return filter.value() instanceof Integer || filter.value() instanceof Double;
+    }
+
+    private boolean supports(PlayerQuery.Output output) {
+        if ("COUNT".equals(output.function()) && output.source() == null) {
+            return true;
+        }
+        if (output.function() != null) {
+            BoxScores.Column column = output.source() != null ? BoxScores.column(output.source()) : null;
+            return column != null && column.kind() != BoxScores.Kind.TEXT && data.isExact(column);
+        }
+        return switch (output.source()) {
+            case GAME_DATE, PLAYER_NAME, MARGIN -> true;
+            default -> BoxScores.column(output.source()) != null; // an inexact cell is shown as it is
+        };
+    }
+
+    // The box score column a "by" dimension reads; null for season, which comes from the game date
+    private static BoxScores.Column dimensionColumn(String dimension) {
+        return switch (dimension) {
+            case "season" -> null;
+            case "team" -> BoxScores.column("playerteamName");
+            case "opponent" -> BoxScores.column("opponentteamName");
+            case "home_or_away" -> BoxScores.column("home");
+            default -> BoxScores.column(dimension);
+        };
+    }
+
+    public QueryResult execute(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        if (!supports(plan)) {
+            throw new IllegalArgumentException("Plan is not supported by the in-process engine");
+        }
+        token.check();
+        long start = System.nanoTime();
+        Metrics.ENGINE_QUERIES.increment();
+        PlayerQuery query = plan.getPlayerQuery();
+
+        int firstGame = data.firstGame(query.from(), query.to());
+        int lastGame = data.lastGame(query.to());
+        List<String> columnNames = new ArrayList<>();
+        for (PlayerQuery.Output output : query.outputs()) {
+            columnNames.add(output.alias());
+        }
+        if (query.groupBy() != null) {
+            columnNames.add(0, query.groupBy());
+        }
+        List<PlayerQuery.Term> terms = query.players();
+
+        Map<String, Object> ranged = query.averages() && query.groupBy() == null ? rangeAggregates(query, firstGame, lastGame) : null;
+        int[] extreme = query.averages() ? null : rangeFirst(query, firstGame, lastGame);
+        int[] leaders = query.averages() || extreme != null ? null : topCandidates(query, firstGame, lastGame, token);
+        int[] together = query.averages() ? null : gamesTogether(terms);
+        boolean neverMet = together != null && together.length == 0;
+        int[][] candidates = new int[terms.size()][];
+        if (!query.streaks() && ranged == null && extreme == null && leaders == null && !neverMet) {
+            for (int i = 0; i < terms.size(); i++) {
+                candidates[i] = select(terms.get(i), firstGame, lastGame, together, token);
+            }
+        }
+        List<Map<String, Object>> rows;
+        if (query.streaks()) {
+            rows = streakRows(query, firstGame, lastGame, token);
+        } else if (ranged != null) {
+            rows = limited(List.of(ranged), query.limit());
+        } else if (extreme != null) {
+            rows = project(query.outputs(), extreme);
+        } else if (leaders != null) {
+            rows = project(query.outputs(), ordered(query, leaders));
+        } else if (neverMet) {
+            rows = project(query.outputs(), new int[0]);
+        } else if (query.window() != null) {
+            rows = rolling(query, candidates[0]);
+        } else if (query.groupBy() != null) {
+            rows = limited(grouped(query, candidates[0]), query.limit());
+        } else if (query.averages()) {
+            rows = limited(List.of(aggregates(query.outputs(), candidates[0])), query.limit());
+        } else if (terms.size() == 1) {
+            rows = project(query.outputs(), ordered(query, candidates[0]));
+        } else {
+            rows = project(query.outputs(), join(query, candidates, token));
+        }
+
+        Metrics.ENGINE_EXECUTE.recordSince(start);
+        Metrics.ROWS_RETURNED.add(rows.size());
+        Metrics.ROWS_PER_QUERY.record(rows.size());
+        return new QueryResult(rows, columnNames, plan.getResultType());
+    }
+
+    // Rows of one player variable inside the game range that pass all its filters; a named player's
+    // rows are also cut to together, the games all named players share, when there is such a list
+    private int[] select(PlayerQuery.Term term, int firstGame, int lastGame, int[] together,
+                         CancellationToken token) throws SQLException {
+        RowFilter filter = RowFilter.of(data, term.filters());
+        IntList rows = new IntList();
+        if (term.isBound() && together != null) {
+            int name = data.nameCode(term.name());
+            for (int person : data.personsNamed(term.name())) {
+                int end = data.personStart[person + 1];
+                int row = data.personStart[person];
+                for (int game : together) {
+                    if (game < firstGame || game > lastGame) {
+                        continue;
+                    }
+                    row = data.seekGame(row, end, game);
+                    for (; row < end && data.rowGame[row] == game; row++) {
+                        if (data.rowName[row] == name && filter.test(row)) {
+                            rows.add(row);
+                        }
+                    }
+                }
+            }
+            return rows.toArray();
+        }
+        if (term.isBound()) {
+            int name = data.nameCode(term.name());
+            for (int person : data.personsNamed(term.name())) {
+                int end = data.personStart[person + 1];
+                int from = data.seekGame(data.personStart[person], end, firstGame);
+                int to = data.seekGame(from, end, lastGame + 1);
+                for (int row = from; row < to; row++) {
+                    if (data.rowName[row] == name && filter.test(row)) {
+                        rows.add(row);
+                    }
+                }
+            }
+            return rows.toArray();
+        }
+        int[] rowGame = data.rowGame;
+        IndexRun run = narrowestRun(term.filters());
+        if (run != null && run.isSelective()) {
+            for (int position = run.start(); position < run.end(); position++) {
+                if ((position & (CHECK_INTERVAL - 1)) == 0) {
+                    token.check();
+                }
+                int row = run.index().row(position);
+                int game = rowGame[row];
+                if (game >= firstGame && game <= lastGame && filter.test(row)) {
+                    rows.add(row);
+                }
+            }
+            int[] selected = rows.toArray();
+            Arrays.sort(selected); // row order, as the scan yields them
+            return selected;
+        }
+        for (int row = 0; row < data.rowCount; row++) {
+            if ((row & (CHECK_INTERVAL - 1)) == 0) {
+                token.check();
+            }
+            int game = rowGame[row];
+            if (game >= firstGame && game <= lastGame && filter.test(row)) {
+                rows.add(row);
+            }
+        }
+        return rows.toArray();
+    }
+
+    // rolling(N): one pass over the rows, in order. Each total gains the row entering the window and loses the
+    // one leaving it, so a row costs the same whatever N is; a new player starts the totals over. Reals are
+    // summed with SQLite's compensation, a leaving value added negated as SQLite's inverse step does.
+    private List<Map<String, Object>> rolling(PlayerQuery query, int[] rows) {
+        int window = query.window();
+        List<PlayerQuery.Output> outputs = query.outputs();
+        int count = outputs.size();
+        int[][] intCells = new int[count][];
+        double[][] realCells = new double[count][];
+        for (int o = 0; o < count; o++) {
+            PlayerQuery.Output output = outputs.get(o);
+            if (output.function() != null && output.source() != null) {
+                BoxScores.Column column = BoxScores.column(output.source());
+                if (column.kind() == BoxScores.Kind.INT) {
+                    intCells[o] = data.ints[column.slot()];
+                } else {
+                    realCells[o] = data.reals[column.slot()];
+                }
+            }
+        }
+        long[] intSums = new long[count];
+        double[] sums = new double[count];
+        double[] errors = new double[count];
+        int[] counts = new int[count];
+
+        // A window only looks back, so rows past the limit are never needed
+        int end = query.limit() != null ? Math.max(0, Math.min(query.limit(), rows.length)) : rows.length;
+        List<Map<String, Object>> result = new ArrayList<>(end);
+        int first = 0; // position in rows of the window's first row
+        int personEnd = -1;
+        for (int i = 0; i < end; i++) {
+            int row = rows[i];
+            if (row >= personEnd) {
+                personEnd = data.personStart[data.personOf(row) + 1];
+                first = i;
+                Arrays.fill(intSums, 0);
+                Arrays.fill(sums, 0);
+                Arrays.fill(errors, 0);
+                Arrays.fill(counts, 0);
+            }
+            slide(intCells, realCells, row, 1, intSums, sums, errors, counts);
+            if (i - first == window) {
+                slide(intCells, realCells, rows[first++], -1, intSums, sums, errors, counts);
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int o = 0; o < count; o++) {
+                PlayerQuery.Output output = outputs.get(o);
+                Object value;
+                if (output.function() == null) {
+                    value = value(output.source(), row);
+                } else if (output.source() == null) {
+                    value = i - first + 1; // COUNT(*): the window's rows
+                } else if (counts[o] == 0) {
+                    value = null;
+                } else if (intCells[o] != null) {
+                    value = "AVG".equals(output.function()) ? (Object) ((double) intSums[o] / counts[o]) : integer(intSums[o]);
+                } else {
+                    double total = sums[o] + errors[o];
+                    value = "AVG".equals(output.function()) ? total / counts[o] : total;
+                }
+                values.put(output.alias(), value);
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    // Add (sign 1) or take out (sign -1) one row's cells from each window total, skipping NULLs
+    private static void slide(int[][] intCells, double[][] realCells, int row, int sign,
+                              long[] intSums, double[] sums, double[] errors, int[] counts) {
+        for (int o = 0; o < counts.length; o++) {
+            if (intCells[o] != null) {
+                int cell = intCells[o][row];
+                if (cell != BoxScores.NULL_INT) {
+                    intSums[o] += sign * (long) cell;
+                    counts[o] += sign;
+                }
+            } else if (realCells[o] != null) {
+                double cell = realCells[o][row];
+                if (!Double.isNaN(cell)) {
+                    double value = sign * cell;
+                    double sum = sums[o];
+                    double next = sum + value;
+                    errors[o] += Math.abs(sum) > Math.abs(value) ? (sum - next) + value : (value - next) + sum;
+                    sums[o] = next;
+                    counts[o] += sign;
+                }
+            }
+        }
+    }
+
+    // get streaks: the runs from Streaks, each read back over its rows for the columns MAX(player_name),
+    // MIN(gameDate), MAX(gameDate) and COUNT(*) compute in SQL
+    private List<Map<String, Object>> streakRows(PlayerQuery query, int firstGame, int lastGame,
+                                                 CancellationToken token) throws SQLException {
+        PlayerQuery.Term term = query.players().get(0);
+        int[] persons = term.isBound() ? data.personsNamed(term.name()) : null;
+        int name = term.isBound() ? data.nameCode(term.name()) : -1;
+        Streaks runs = streaks();
+        long[] found = runs.find(persons, name, RowFilter.of(data, term.filters()), firstGame, lastGame,
+            query.limit(), token);
+
+        List<PlayerQuery.Output> outputs = query.outputs();
+        List<Map<String, Object>> rows = new ArrayList<>(found.length);
+        for (long key : found) {
+            int length = runs.length(key);
+            String player = null;
+            String start = null;
+            String end = null;
+            int row = runs.firstRow(key);
+            for (int seen = 0; seen < length; row++) {
+                if (name >= 0 && data.rowName[row] != name) {
+                    continue;
+                }
+                seen++;
+                String rowPlayer = data.rowName[row] >= 0 ? data.names[data.rowName[row]] : null;
+                if (rowPlayer != null && (player == null || rowPlayer.compareTo(player) > 0)) {
+                    player = rowPlayer;
+                }
+                // Dates ascend within a run, NULLs first: the first non-NULL is MIN, the last date MAX
+                String date = data.gameDates[data.rowGame[row]];
+                if (start == null) {
+                    start = date;
+                }
+                end = date;
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put(outputs.get(0).alias(), player);
+            values.put(outputs.get(1).alias(), start);
+            values.put(outputs.get(2).alias(), end);
+            values.put(outputs.get(3).alias(), length);
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    private Streaks streaks() {
+        Streaks built = streaks;
+        if (built == null) {
+            built = new Streaks(data);
+            streaks = built;
+        }
+        return built;
+    }
+
+    // Built once, under the lock: a million box scores take a couple of seconds and ~60 MB
+    private SharedGames sharedGames() {
+        if (!sharedBuilt) {
+            synchronized (this) {
+                if (!sharedBuilt) {
+                    shared = SharedGames.build(data);
+                    sharedBuilt = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Games every named player has a box score in, ascending; null with fewer than two named players
+    private int[] gamesTogether(List<PlayerQuery.Term> terms) {
+        List<int[]> named = new ArrayList<>();
+        for (PlayerQuery.Term term : terms) {
+            if (term.isBound()) {
+                named.add(data.personsNamed(term.name()));
+            }
+        }
+        if (named.size() < 2) {
+            return null;
+        }
+        SharedGames pairs = sharedGames();
+        if (pairs == null) {
+            return null;
+        }
+        int[] together = null;
+        for (int i = 1; i < named.size(); i++) {
+            IntList games = new IntList();
+            for (int person : named.get(0)) {
+                for (int other : named.get(i)) {
+                    for (int game : person == other ? gamesOf(person) : pairs.between(person, other)) {
+                        games.add(game);
+                    }
+                }
+            }
+            int[] pairGames = distinctSorted(games.toArray());
+            together = together == null ? pairGames : intersect(together, pairGames);
+            if (together.length == 0) {
+                break;
+            }
+        }
+        return together;
+    }
+
+    // One player's games, ascending; two names on one player pair it with itself
+    private int[] gamesOf(int person) {
+        IntList games = new IntList();
+        for (int row = data.personStart[person]; row < data.personStart[person + 1]; row++) {
+            if (games.size() == 0 || games.get(games.size() - 1) != data.rowGame[row]) {
+                games.add(data.rowGame[row]);
+            }
+        }
+        return games.toArray();
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (size == 0 || values[size - 1] != values[i]) {
+                values[size++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        IntList both = new IntList();
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                both.add(a[i]);
+                i++;
+                j++;
+            }
+        }
+        return both.toArray();
+    }
+
+    // The positions of one StatIndex that pass one of the filters
+    private record IndexRun(StatIndex index, int start, int end) {
+        boolean isSelective() {
+            return (long) (end - start) * SELECTIVE <= index.size();
+        }
+    }
+
+    // The shortest run any numeric threshold among the filters gives, or null if none has one
+    private IndexRun narrowestRun(List<PlayerQuery.Filter> filters) {
+        IndexRun narrowest = null;
+        for (PlayerQuery.Filter filter : filters) {
+            BoxScores.Column column = BoxScores.column(filter.column());
+            if (column.kind() == BoxScores.Kind.TEXT) {
+                continue;
+            }
+            StatIndex index = statIndex(column);
+            int[] range = index.range(filter.operator(), ((Number) filter.value()).doubleValue());
+            if (range != null && (narrowest == null || range[1] - range[0] < narrowest.end() - narrowest.start())) {
+                narrowest = new IndexRun(index, range[0], range[1]);
+            }
+        }
+        return narrowest;
+    }
+
+    private StatIndex statIndex(BoxScores.Column column) {
+        return statIndexes.computeIfAbsent(column.name(), name -> new StatIndex(data, column));
+    }
+
+    // A league-wide ORDER BY ... LIMIT n with no selective threshold: walk the sort column's index from the
+    // top until n rows pass, plus any rows tied with the last one, which ordered() then sorts and cuts.
+    // Null when the query is not of that shape.
+    private int[] topCandidates(PlayerQuery query, int firstGame, int lastGame, CancellationToken token) throws SQLException {
+        PlayerQuery.Sort sort = query.sort();
+        PlayerQuery.Term term = query.players().get(0);
+        if (sort == null || query.limit() == null || query.players().size() != 1 || term.isBound()) {
+            return null;
+        }
+        IndexRun run = narrowestRun(term.filters());
+        if (run != null && run.isSelective()) {
+            return null;
+        }
+        int limit = Math.max(query.limit(), 0);
+        StatIndex index = statIndex(BoxScores.column(sort.column()));
+        SortKey key = new SortKey(data, sort);
+        RowFilter filter = RowFilter.of(data, term.filters());
+        IntList picked = new IntList();
+        int last = -1;
+        for (int i = 0; i < index.size() && limit > 0; i++) {
+            if ((i & (CHECK_INTERVAL - 1)) == 0) {
+                token.check();
+            }
+            // The index ascends with NULLs first: the order of an ascending sort, and reversed, a descending one
+            int row = index.row(sort.ascending() ? i : index.size() - 1 - i);
+            if (picked.size() >= limit && key.compare(row, last) != 0) {
+                break;
+            }
+            int game = data.rowGame[row];
+            if (game >= firstGame && game <= lastGame && filter.test(row)) {
+                picked.add(row);
+                last = row;
+            }
+        }
+        return picked.toArray();
+    }
+
+    // One player's rows in game order, or sorted like the SQL ORDER BY, cut to the limit
+    private int[] ordered(PlayerQuery query, int[] rows) {
+        int[] sorted = data.inGameOrder(rows);
+        if (query.sort() != null) {
+            // Stable: ties stay in game order
+            return RowSort.sort(new SortKey(data, query.sort()), sorted, query.limit());
+        }
+        if (query.limit() != null && query.limit() < sorted.length) {
+            sorted = Arrays.copyOf(sorted, Math.max(query.limit(), 0));
+        }
+        return sorted;
+    }
+
+    // Join the players on their games; each result row shows the primary player's box score
+    private int[] join(PlayerQuery query, int[][] candidates, CancellationToken token) throws SQLException {
+        List<PlayerQuery.Term> terms = query.players();
+        List<String> variables = new ArrayList<>();
+        for (PlayerQuery.Term term : terms) {
+            variables.add(term.variable());
+        }
+        int[] opponentOf = new int[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            PlayerQuery.Term term = terms.get(i);
+            opponentOf[i] = "opponent".equals(term.relationship()) ? variables.indexOf(term.relatedTo()) : -1;
+        }
+        int primary = variables.indexOf(query.primary());
+        int limit = query.limit() != null ? Math.max(query.limit(), 0) : Integer.MAX_VALUE;
+
+        IntList shown = new IntList();
+        if (limit > 0) {
+            new PlayerJoin(data, candidates, opponentOf, token).run(tuple -> {
+                shown.add(tuple[primary]);
+                return shown.size() < limit;
+            });
+        }
+        return shown.toArray();
+    }
+
+    private List<Map<String, Object>> project(List<PlayerQuery.Output> outputs, int[] rows) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (PlayerQuery.Output output : outputs) {
+                values.put(output.alias(), value(output.source(), row));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    // The value the SQL path's ResultSet.getObject would return for this cell
+    private Object value(String source, int row) {
+        int game = data.rowGame[row];
+        switch (source) {
+            case GAME_DATE:
+                return data.gameDates[game];
+            case PLAYER_NAME:
+                return data.rowName[row] >= 0 ? data.names[data.rowName[row]] : null;
+            case MARGIN:
+                return data.margins[game] != BoxScores.NULL_INT ? data.margins[game] : null;
+            default:
+                break;
+        }
+        BoxScores.Column column = BoxScores.column(source);
+        switch (column.kind()) {
+            case INT: {
+                int value = data.ints[column.slot()][row];
+                return value != BoxScores.NULL_INT ? value : data.oddCell(column, row);
+            }
+            case REAL: {
+                double value = data.reals[column.slot()][row];
+                return Double.isNaN(value) ? data.oddCell(column, row) : value;
+            }
+            default: {
+                int code = data.texts[column.slot()][row];
+                return code >= 0 ? data.teams[code] : data.oddCell(column, row);
+            }
+        }
+    }
+
+    // Aggregates from the running totals, or null when the query needs its rows looked at one by one
+    private Map<String, Object> rangeAggregates(PlayerQuery query, int firstGame, int lastGame) {
+        PlayerQuery.Term term = query.players().get(0);
+        if (!term.isBound() || !term.filters().isEmpty()) {
+            return null;
+        }
+        for (PlayerQuery.Output output : query.outputs()) {
+            if (output.source() == null) {
+                continue; // COUNT(*)
+            }
+            if ("MIN".equals(output.function()) || "MAX".equals(output.function())
+                    || BoxScores.column(output.source()).kind() != BoxScores.Kind.INT) {
+                return null;
+            }
+        }
+        int name = data.nameCode(term.name());
+        int[] persons = data.personsNamed(term.name());
+        int[] from = new int[persons.length];
+        int[] to = new int[persons.length];
+        int rowCount = 0;
+        for (int i = 0; i < persons.length; i++) {
+            int person = persons[i];
+            if (!data.hasOnlyName(person, name)) {
+                return null;
+            }
+            int end = data.personStart[person + 1];
+            from[i] = data.seekGame(data.personStart[person], end, firstGame);
+            to[i] = data.seekGame(from[i], end, lastGame + 1);
+            rowCount += to[i] - from[i];
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (PlayerQuery.Output output : query.outputs()) {
+            if (output.source() == null) {
+                values.put(output.alias(), rowCount);
+                continue;
+            }
+            int slot = BoxScores.column(output.source()).slot();
+            long sum = 0;
+            int count = 0;
+            for (int i = 0; i < persons.length; i++) {
+                sum += sums.sum(slot, persons[i], from[i], to[i]);
+                count += sums.count(slot, persons[i], from[i], to[i]);
+            }
+            values.put(output.alias(), switch (output.function()) {
+                case "AVG" -> count > 0 ? (double) sum / count : null;
+                case "SUM" -> count > 0 ? integer(sum) : null;
+                default -> count; // COUNT(column)
+            });
+        }
+        return values;
+    }
+
+    // order by ... limit 1 for a named player from RangeExtremes, or null when the rows need filtering
+    private int[] rangeFirst(PlayerQuery query, int firstGame, int lastGame) {
+        PlayerQuery.Term term = query.players().get(0);
+        if (query.sort() == null || query.limit() == null || query.limit() != 1
+                || query.players().size() != 1 || !term.isBound() || !term.filters().isEmpty()) {
+            return null;
+        }
+        int name = data.nameCode(term.name());
+        int[] persons = data.personsNamed(term.name());
+        for (int person : persons) {
+            if (!data.hasOnlyName(person, name)) {
+                return null;
+            }
+        }
+        RangeExtremes index = extremes.computeIfAbsent(query.sort(),
+            sort -> new RangeExtremes(data, new SortKey(data, sort)));
+        SortKey key = new SortKey(data, query.sort());
+        int best = -1;
+        for (int person : persons) {
+            int end = data.personStart[person + 1];
+            int from = data.seekGame(data.personStart[person], end, firstGame);
+            int row = index.first(from, data.seekGame(from, end, lastGame + 1));
+            if (row < 0) {
+                continue;
+            }
+            if (best < 0) {
+                best = row;
+                continue;
+            }
+            // Across players with the same name, ties go to the earlier game, as in ordered()
+            int order = key.compare(row, best);
+            if (order == 0) {
+                order = data.rowGame[row] != data.rowGame[best]
+                    ? Integer.compare(data.rowGame[row], data.rowGame[best])
+                    : Integer.compare(row, best);
+            }
+            if (order < 0) {
+                best = row;
+            }
+        }
+        return best >= 0 ? new int[] { best } : new int[0];
+    }
+
+    private Map<String, Object> aggregates(List<PlayerQuery.Output> outputs, int[] rows) {
+        Object[][] values = aggregates(outputs, rows, new int[rows.length], 1);
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < outputs.size(); i++) {
+            row.put(outputs.get(i).alias(), values[i][0]);
+        }
+        return row;
+    }
+
+    // "by <dimension>": each row's key numbered by a GroupTable, every aggregate computed for all groups
+    // in one pass, and one row per group in the order of GROUP BY ... ORDER BY: NULL first, then ascending
+    private List<Map<String, Object>> grouped(PlayerQuery query, int[] rows) {
+        String dimension = query.groupBy();
+        GroupTable groups = new GroupTable();
+        int[] rowGroups = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowGroups[i] = groups.groupOf(groupKey(dimension, rows[i]));
+        }
+        int groupCount = groups.size();
+        Object[][] values = aggregates(query.outputs(), rows, rowGroups, groupCount);
+
+        Object[] labels = new Object[groupCount];
+        Integer[] order = new Integer[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            labels[group] = groupLabel(dimension, groups.key(group));
+            order[group] = group;
+        }
+        Comparator<Object> byLabel = Comparator.nullsFirst((a, b) -> compareLabels(a, b));
+        Arrays.sort(order, (a, b) -> byLabel.compare(labels[a], labels[b]));
+
+        List<Map<String, Object>> result = new ArrayList<>(groupCount);
+        for (int group : order) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(dimension, labels[group]);
+            for (int i = 0; i < query.outputs().size(); i++) {
+                row.put(query.outputs().get(i).alias(), values[i][group]);
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    // The first limit rows, as SQLite's LIMIT keeps them
+    private static List<Map<String, Object>> limited(List<Map<String, Object>> rows, Integer limit) {
+        return limit != null && limit < rows.size() ? rows.subList(0, Math.max(limit, 0)) : rows;
+    }
+
+    // A row's group as an int: season number, team code, home or win value; NULL_INT for NULL
+    private int groupKey(String dimension, int row) {
+        return switch (dimension) {
+            case "season" -> {
+                int season = gameSeasons()[data.rowGame[row]];
+                yield season >= 0 ? season : BoxScores.NULL_INT;
+            }
+            case "team", "opponent" -> {
+                String source = dimension.equals("team") ? "playerteamName" : "opponentteamName";
+                int code = data.texts[BoxScores.column(source).slot()][row];
+                yield code >= 0 ? code : BoxScores.NULL_INT;
+            }
+            case "home_or_away" -> {
+                int home = data.ints[BoxScores.column("home").slot()][row];
+                yield home == 0 || home == 1 ? home : BoxScores.NULL_INT; // CASE ... END is NULL otherwise
+            }
+            default -> data.ints[BoxScores.column(dimension).slot()][row];
+        };
+    }
+
+    // The dimension's value for a group key, as the SQL's first column holds it
+    private Object groupLabel(String dimension, int key) {
+        if (key == BoxScores.NULL_INT) {
+            return null;
+        }
+        return switch (dimension) {
+            case "season" -> SEASONS[key];
+            case "team", "opponent" -> data.teams[key];
+            case "home_or_away" -> key == 1 ? "home" : "away";
+            default -> key;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareLabels(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    // The season of each game, by SeasonMapper's date ranges as the SQL's CASE WHEN tests them; -1 for none
+    private int[] gameSeasons() {
+        int[] seasons = gameSeasons;
+        if (seasons == null) {
+            seasons = new int[data.gameCount];
+            for (int game = 0; game < data.gameCount; game++) {
+                seasons[game] = seasonOf(data.gameDates[game]);
+            }
+            gameSeasons = seasons;
+        }
+        return seasons;
+    }
+
+    private static int seasonOf(String date) {
+        if (date == null) {
+            return -1;
+        }
+        for (int season = 0; season < SEASONS.length; season++) {
+            SeasonMapper.SeasonDates dates = SeasonMapper.getSeasonDates(SEASONS[season]);
+            if (date.compareTo(dates.getStartDate()) >= 0 && date.compareTo(dates.getEndDate()) <= 0) {
+                return season;
+            }
+        }
+        return -1;
+    }
+
+    // values[output][group]. Each requested column is read once over the rows. As in SQLite, AVG, SUM,
+    // MIN and MAX skip NULLs and are NULL over no values; COUNT(*) counts rows and COUNT(column) the
+    // non-NULL cells.
+    private Object[][] aggregates(List<PlayerQuery.Output> outputs, int[] rows, int[] rowGroups, int groupCount) {
+        Object[][] values = new Object[outputs.size()][groupCount];
+        int[] sizes = new int[groupCount];
+        for (int group : rowGroups) {
+            sizes[group]++;
+        }
+        for (int o = 0; o < outputs.size(); o++) {
+            PlayerQuery.Output output = outputs.get(o);
+            if (output.source() == null) {
+                for (int group = 0; group < groupCount; group++) {
+                    values[o][group] = sizes[group];
+                }
+                continue;
+            }
+            BoxScores.Column column = BoxScores.column(output.source());
+            int[] counts = new int[groupCount];
+            if (column.kind() == BoxScores.Kind.INT) {
+                int[] cells = data.ints[column.slot()];
+                long[] sums = new long[groupCount];
+                int[] mins = new int[groupCount];
+                int[] maxes = new int[groupCount];
+                Arrays.fill(mins, Integer.MAX_VALUE);
+                Arrays.fill(maxes, Integer.MIN_VALUE);
+                for (int i = 0; i < rows.length; i++) {
+                    int cell = cells[rows[i]];
+                    if (cell != BoxScores.NULL_INT) {
+                        int group = rowGroups[i];
+                        sums[group] += cell;
+                        mins[group] = Math.min(mins[group], cell);
+                        maxes[group] = Math.max(maxes[group], cell);
+                        counts[group]++;
+                    }
+                }
+                for (int group = 0; group < groupCount; group++) {
+                    int count = counts[group];
+                    values[o][group] = switch (output.function()) {
+                        case "AVG" -> count > 0 ? (double) sums[group] / count : null;
+                        case "SUM" -> count > 0 ? integer(sums[group]) : null;
+                        case "MIN" -> count > 0 ? mins[group] : null;
+                        case "MAX" -> count > 0 ? maxes[group] : null;
+                        default -> count;
+                    };
+                }
+            } else {
+                double[] cells = data.reals[column.slot()];
+                // Compensated (Kahan-Babuska-Neumaier) summation, as SQLite sums reals, so the low bits agree
+                double[] sums = new double[groupCount];
+                double[] errors = new double[groupCount];
+                double[] mins = new double[groupCount];
+                double[] maxes = new double[groupCount];
+                Arrays.fill(mins, Double.POSITIVE_INFINITY);
+                Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+                for (int i = 0; i < rows.length; i++) {
+                    double cell = cells[rows[i]];
+                    if (!Double.isNaN(cell)) {
+                        int group = rowGroups[i];
+                        double sum = sums[group];
+                        double next = sum + cell;
+                        errors[group] += Math.abs(sum) > Math.abs(cell) ? (sum - next) + cell : (cell - next) + sum;
+                        sums[group] = next;
+                        mins[group] = Math.min(mins[group], cell);
+                        maxes[group] = Math.max(maxes[group], cell);
+                        counts[group]++;
+                    }
+                }
+                for (int group = 0; group < groupCount; group++) {
+                    int count = counts[group];
+                    double total = sums[group] + errors[group];
+                    values[o][group] = switch (output.function()) {
+                        case "AVG" -> count > 0 ? total / count : null;
+                        case "SUM" -> count > 0 ? total : null;
+                        case "MIN" -> count > 0 ? mins[group] : null;
+                        case "MAX" -> count > 0 ? maxes[group] : null;
+                        default -> count;
+                    };
+                }
+            }
+        }
+        return values;
+    }
+
+    // An integer result as the SQLite driver returns it: Integer when it fits, Long otherwise
+    private static Object integer(long value) {
+        return value == (int) value ? (Object) (int) value : (Object) value;
+    }
+}
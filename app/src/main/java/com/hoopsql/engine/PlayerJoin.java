@@ -0,0 +1,179 @@
+package com.hoopsql.engine;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.hoopsql.runtime.CancellationToken;
+
+/**
+ * Joins the box-score rows of several players on their game.
+ *
+ * Each player arrives as its candidate rows, already filtered. A semi-join
+ * pass first cuts every side down to the games all sides share: starting
+ * from the most selective player's games, each side keeps only rows in the
+ * games seen so far and narrows the set for the next. A hash join then builds
+ * a game table (game to rows) for every side but the smallest and probes it
+ * with the smallest side's rows, game by game, emitting each combination that
+ * satisfies the opponent constraints. Game numbers are dense, so the game set
+ * is a bitset and the table is addressed by game number directly.
+ */
+final class PlayerJoin {
+    // Receives each joined combination, rows indexed like the candidates; false stops the join
+    interface Sink {
+        boolean accept(int[] rows) throws SQLException;
+    }
+
+    private final BoxScores data;
+    private final int[][] candidates;
+    private final int[] opponentOf; // side whose team this side must differ from, or -1
+    private final CancellationToken token;
+
+    PlayerJoin(BoxScores data, int[][] candidates, int[] opponentOf, CancellationToken token) {
+        this.data = data;
+        this.candidates = candidates.clone();
+        this.opponentOf = opponentOf;
+        this.token = token;
+    }
+
+    void run(Sink sink) throws SQLException {
+        int sides = candidates.length;
+        Integer[] order = new Integer[sides];
+        for (int i = 0; i < sides; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(candidates[a].length, candidates[b].length));
+
+        // Semi-join forward from the most selective side; the last set is every side's common games
+        BitSet games = gamesOf(candidates[order[0]]);
+        for (int i = 1; i < sides; i++) {
+            candidates[order[i]] = semiJoin(candidates[order[i]], games);
+            games = gamesOf(candidates[order[i]]);
+            token.check();
+        }
+        for (int i = 0; i < sides - 1; i++) {
+            candidates[order[i]] = semiJoin(candidates[order[i]], games);
+        }
+
+        // Build on every side but the driver, probe with the driver's rows in game order
+        int driver = order[0];
+        GameTable[] tables = new GameTable[sides];
+        for (int i = 1; i < sides; i++) {
+            tables[order[i]] = new GameTable(candidates[order[i]]);
+        }
+        int[] probe = data.inGameOrder(candidates[driver]);
+        List<int[]> checks = constraintsByPosition(order);
+
+        int[] tuple = new int[sides];
+        for (int i = 0; i < probe.length; i++) {
+            if ((i & 1023) == 0) {
+                token.check();
+            }
+            tuple[driver] = probe[i];
+            if (!extend(tuple, order, 1, data.rowGame[probe[i]], tables, checks, sink)) {
+                return;
+            }
+        }
+    }
+
+    // Fill the side at position, then the rest; false once the sink wants no more
+    private boolean extend(int[] tuple, Integer[] order, int position, int game,
+                           GameTable[] tables, List<int[]> checks, Sink sink) throws SQLException {
+        if (position == order.length) {
+            return sink.accept(tuple.clone());
+        }
+        int side = order[position];
+        GameTable table = tables[side];
+        for (int entry = table.first(game); entry >= 0; entry = table.next(entry)) {
+            tuple[side] = table.row(entry);
+            if (satisfies(tuple, checks.get(position))
+                    && !extend(tuple, order, position + 1, game, tables, checks, sink)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Pairs of sides (a, b) to compare once the side at each position is filled: a's team != b's team
+    private List<int[]> constraintsByPosition(Integer[] order) {
+        int[] position = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        List<int[]> checks = new ArrayList<>();
+        for (int i = 0; i < order.length; i++) {
+            checks.add(new int[0]);
+        }
+        for (int side = 0; side < opponentOf.length; side++) {
+            int other = opponentOf[side];
+            if (other < 0) {
+                continue;
+            }
+            int at = Math.max(position[side], position[other]);
+            int[] pairs = checks.get(at);
+            int[] grown = Arrays.copyOf(pairs, pairs.length + 2);
+            grown[pairs.length] = side;
+            grown[pairs.length + 1] = other;
+            checks.set(at, grown);
+        }
+        return checks;
+    }
+
+    // Opponents: both teams known and different, like (a.playerteamName != b.playerteamName) in SQL
+    private boolean satisfies(int[] tuple, int[] pairs) {
+        int[] team = data.texts[BoxScores.column("playerteamName").slot()];
+        for (int i = 0; i < pairs.length; i += 2) {
+            int a = team[tuple[pairs[i]]];
+            int b = team[tuple[pairs[i + 1]]];
+            if (a < 0 || b < 0 || a == b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BitSet gamesOf(int[] rows) {
+        BitSet games = new BitSet(data.gameCount);
+        for (int row : rows) {
+            games.set(data.rowGame[row]);
+        }
+        return games;
+    }
+
+    // Semi-join: the rows whose game is in games, in their original order
+    private int[] semiJoin(int[] rows, BitSet games) {
+        IntList kept = new IntList(rows.length);
+        for (int row : rows) {
+            if (games.get(data.rowGame[row])) {
+                kept.add(row);
+            }
+        }
+        return kept.toArray();
+    }
+
+    // Game number -> rows of one side, chained through next[] in row order
+    private final class GameTable {
+        private final int[] head;
+        private final int[] next;
+        private final int[] rows;
+
+        GameTable(int[] rows) {
+            this.rows = rows;
+            this.head = new int[data.gameCount];
+            this.next = new int[rows.length];
+            Arrays.fill(head, -1);
+            // Insert backwards so each chain reads front to back in row order
+            for (int i = rows.length - 1; i >= 0; i--) {
+                int game = data.rowGame[rows[i]];
+                next[i] = head[game];
+                head[game] = i;
+            }
+        }
+
+        int first(int game) { return head[game]; }
+        int next(int entry) { return next[entry]; }
+        int row(int entry) { return rows[entry]; }
+    }
+}
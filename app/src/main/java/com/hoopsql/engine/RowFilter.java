@@ -0,0 +1,64 @@
+package com.hoopsql.engine;
+
+import java.util.List;
+
+import com.hoopsql.compiler.PlayerQuery;
+
+/**
+ * A player's filters compiled against the column arrays. Numeric filters
+ * compare as REAL, as the planner's CAST(... AS REAL) does; a NULL cell fails
+ * every comparison, != included, as it does in SQL.
+ */
+@FunctionalInterface
+interface RowFilter {
+    boolean test(int row);
+
+    static RowFilter of(BoxScores data, List<PlayerQuery.Filter> filters) {
+        RowFilter all = null;
+        for (PlayerQuery.Filter filter : filters) {
+            RowFilter next = of(data, filter);
+            RowFilter previous = all;
+            all = previous == null ? next : row -> previous.test(row) && next.test(row);
+        }
+        return all != null ? all : row -> true;
+    }
+
+    private static RowFilter of(BoxScores data, PlayerQuery.Filter filter) {
+        BoxScores.Column column = BoxScores.column(filter.column());
+        String operator = filter.operator();
+        switch (column.kind()) {
+            case INT: {
+                int[] cells = data.ints[column.slot()];
+                double value = ((Number) filter.value()).doubleValue();
+                return switch (operator) {
+                    case ">=" -> row -> cells[row] != BoxScores.NULL_INT && cells[row] >= value;
+                    case ">" -> row -> cells[row] != BoxScores.NULL_INT && cells[row] > value;
+                    case "<=" -> row -> cells[row] != BoxScores.NULL_INT && cells[row] <= value;
+                    case "<" -> row -> cells[row] != BoxScores.NULL_INT && cells[row] < value;
+                    case "=" -> row -> cells[row] != BoxScores.NULL_INT && cells[row] == value;
+                    default -> row -> cells[row] != BoxScores.NULL_INT && cells[row] != value;
+                };
+            }
+            case REAL: {
+                double[] cells = data.reals[column.slot()];
+                double value = ((Number) filter.value()).doubleValue();
+                // NaN (NULL) already fails every comparison but !=
+                return switch (operator) {
+                    case ">=" -> row -> cells[row] >= value;
+                    case ">" -> row -> cells[row] > value;
+                    case "<=" -> row -> cells[row] <= value;
+                    case "<" -> row -> cells[row] < value;
+                    case "=" -> row -> cells[row] == value;
+                    default -> row -> !Double.isNaN(cells[row]) && cells[row] != value;
+                };
+            }
+            default: {
+                int[] cells = data.texts[column.slot()];
+                int code = data.teamCode((String) filter.value());
+                return "=".equals(operator)
+                    ? row -> code >= 0 && cells[row] == code
+                    : row -> cells[row] >= 0 && cells[row] != code;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hoopsql.engine;
+
+import java.util.Arrays;
+
+/**
+ * ORDER BY over rows already in game order, without boxing: each row
+ * becomes a long (its SortKey order key, then its position in game order),
+ * so sorting the longs is a stable sort of the rows. Positions are unique,
+ * so no two longs tie and the result is the same however they are sorted.
+ *
+ * With a LIMIT k below the row count only the first k are kept, through a
+ * bounded max-heap: O(n log k), and nothing past the heap is allocated.
+ * Without one, the longs go through Arrays.parallelSort. Integer columns
+ * fit their key and position into one long; real columns are first ranked
+ * among the rows' distinct keys.
+ */
+final class RowSort {
+    private RowSort() {}
+
+    // The rows in sort order, cut to limit (null for none)
+    static int[] sort(SortKey key, int[] rowsInGameOrder, Integer limit) {
+        int count = rowsInGameOrder.length;
+        if (limit != null && limit < count) {
+            return top(key, rowsInGameOrder, Math.max(limit, 0));
+        }
+        long[] packed = new long[count];
+        if (key.hasIntKeys()) {
+            for (int i = 0; i < count; i++) {
+                packed[i] = (key.orderKey(rowsInGameOrder[i]) << 32) | i;
+            }
+        } else {
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = key.orderKey(rowsInGameOrder[i]);
+            }
+            long[] ranks = keys.clone();
+            Arrays.parallelSort(ranks);
+            for (int i = 0; i < count; i++) {
+                packed[i] = ((long) Arrays.binarySearch(ranks, keys[i]) << 32) | i;
+            }
+        }
+        Arrays.parallelSort(packed);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = rowsInGameOrder[(int) packed[i]];
+        }
+        return sorted;
+    }
+
+    // The first k rows in sort order, kept in a max-heap of (order key, position) that evicts its largest
+    private static int[] top(SortKey key, int[] rows, int k) {
+        if (k == 0) {
+            return new int[0];
+        }
+        long[] keys = new long[k];
+        int[] positions = new int[k];
+        int size = 0;
+        for (int i = 0; i < rows.length; i++) {
+            long value = key.orderKey(rows[i]);
+            if (size < k) {
+                keys[size] = value;
+                positions[size] = i;
+                siftUp(keys, positions, size++);
+            } else if (value < keys[0]) {
+                // Later positions lose ties, so only a strictly smaller key displaces the largest
+                keys[0] = value;
+                positions[0] = i;
+                siftDown(keys, positions, 0, k);
+            }
+        }
+        // Heapsort in place: the largest goes to the back each round
+        for (int end = k - 1; end > 0; end--) {
+            swap(keys, positions, 0, end);
+            siftDown(keys, positions, 0, end);
+        }
+        int[] sorted = new int[k];
+        for (int i = 0; i < k; i++) {
+            sorted[i] = rows[positions[i]];
+        }
+        return sorted;
+    }
+
+    private static boolean greater(long[] keys, int[] positions, int a, int b) {
+        return keys[a] != keys[b] ? keys[a] > keys[b] : positions[a] > positions[b];
+    }
+
+    private static void siftUp(long[] keys, int[] positions, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!greater(keys, positions, index, parent)) {
+                return;
+            }
+            swap(keys, positions, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] keys, int[] positions, int index, int size) {
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && greater(keys, positions, left, largest)) {
+                largest = left;
+            }
+            if (right < size && greater(keys, positions, right, largest)) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(keys, positions, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(long[] keys, int[] positions, int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int position = positions[a];
+        positions[a] = positions[b];
+        positions[b] = position;
+    }
+}
@@ -0,0 +1,119 @@
+package com.hoopsql.engine;
+
+import java.util.Arrays;
+
+/**
+ * For every two players who shared a court, the games they both played,
+ * in game order: the same-game constraint the planner puts between player
+ * variables, worked out once, the first time a query names two players.
+ *
+ * Built game by game: each game contributes one entry per pair of players
+ * in its box scores, packed as (player, player, game) into a long. One sort
+ * groups the entries by pair, and the result is stored compactly: sorted
+ * pair keys, each pointing at its run in one array of game numbers. A pair
+ * that never met is a failed binary search, so the lookup is empty at once.
+ */
+final class SharedGames {
+    private final int personBits;
+    private final long[] pairs;    // (lower person << personBits) | higher person, ascending
+    private final int[] pairStart; // games of pairs[i] are games[pairStart[i]] until games[pairStart[i + 1]]
+    private final int[] games;
+
+    private SharedGames(int personBits, long[] pairs, int[] pairStart, int[] games) {
+        this.personBits = personBits;
+        this.pairs = pairs;
+        this.pairStart = pairStart;
+        this.games = games;
+    }
+
+    // Null when player and game numbers don't fit in one long, or there are too many entries for one array
+    static SharedGames build(BoxScores data) {
+        int personBits = bitsFor(data.personCount());
+        int gameBits = bitsFor(data.gameCount);
+        if (2 * personBits + gameBits > 63) {
+            return null;
+        }
+
+        // Players in each game, ascending, from the rows (grouped by player already)
+        int[] gameStart = new int[data.gameCount + 1];
+        for (int row = 0; row < data.rowCount; row++) {
+            gameStart[data.rowGame[row] + 1]++;
+        }
+        for (int game = 0; game < data.gameCount; game++) {
+            gameStart[game + 1] += gameStart[game];
+        }
+        int[] fill = Arrays.copyOf(gameStart, data.gameCount);
+        int[] players = new int[data.rowCount];
+        for (int person = 0; person < data.personCount(); person++) {
+            for (int row = data.personStart[person]; row < data.personStart[person + 1]; row++) {
+                int game = data.rowGame[row];
+                // A player listed twice in one game pairs with everyone once
+                if (fill[game] == gameStart[game] || players[fill[game] - 1] != person) {
+                    players[fill[game]++] = person;
+                }
+            }
+        }
+
+        long entryCount = 0;
+        for (int game = 0; game < data.gameCount; game++) {
+            long n = fill[game] - gameStart[game];
+            entryCount += n * (n - 1) / 2;
+        }
+        if (entryCount > Integer.MAX_VALUE - 8) {
+            return null;
+        }
+        long[] entries = new long[(int) entryCount];
+        int next = 0;
+        for (int game = 0; game < data.gameCount; game++) {
+            for (int i = gameStart[game]; i < fill[game]; i++) {
+                long lower = (long) players[i] << (personBits + gameBits);
+                for (int j = i + 1; j < fill[game]; j++) {
+                    entries[next++] = lower | ((long) players[j] << gameBits) | game;
+                }
+            }
+        }
+        Arrays.parallelSort(entries);
+
+        long gameMask = (1L << gameBits) - 1;
+        IntList starts = new IntList();
+        int pairCount = 0;
+        long[] pairs = new long[16];
+        int[] games = new int[entries.length];
+        long previous = -1;
+        for (int i = 0; i < entries.length; i++) {
+            long pair = entries[i] >>> gameBits;
+            if (pair != previous) {
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairCount * 2);
+                }
+                pairs[pairCount++] = pair;
+                starts.add(i);
+                previous = pair;
+            }
+            games[i] = (int) (entries[i] & gameMask);
+        }
+        starts.add(entries.length);
+        return new SharedGames(personBits, Arrays.copyOf(pairs, pairCount), starts.toArray(), games);
+    }
+
+    // Game numbers both players have a box score in, ascending; empty if they never met
+    int[] between(int person, int other) {
+        if (person == other) {
+            return new int[0];
+        }
+        long key = ((long) Math.min(person, other) << personBits) | Math.max(person, other);
+        int index = Arrays.binarySearch(pairs, key);
+        if (index < 0) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(games, pairStart[index], pairStart[index + 1]);
+    }
+
+    long bytes() {
+        return 8L * pairs.length + 4L * pairStart.length + 4L * games.length;
+    }
+
+    private static int bitsFor(int count) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.hoopsql.engine;
+
+import com.hoopsql.compiler.PlayerQuery;
+
+/**
+ * Compares rows like the planner's ORDER BY on one column: CAST(... AS
+ * INTEGER) truncates reals toward zero, and NULLs sort first ascending and
+ * last descending, as in SQLite.
+ */
+final class SortKey {
+    private final int[] ints;
+    private final double[] reals;
+    private final boolean integer;
+    private final boolean ascending;
+
+    SortKey(BoxScores data, PlayerQuery.Sort sort) {
+        BoxScores.Column column = BoxScores.column(sort.column());
+        this.ints = column.kind() == BoxScores.Kind.INT ? data.ints[column.slot()] : null;
+        this.reals = column.kind() == BoxScores.Kind.REAL ? data.reals[column.slot()] : null;
+        this.integer = sort.integer();
+        this.ascending = sort.ascending();
+    }
+
+    // The sort value of a row, NaN for NULL
+    double value(int row) {
+        if (ints != null) {
+            return ints[row] != BoxScores.NULL_INT ? ints[row] : Double.NaN;
+        }
+        double value = reals[row];
+        return integer && !Double.isNaN(value) ? (double) (long) value : value;
+    }
+
+    // Whether orderKey values fit in an int, leaving room to pack them with a position
+    boolean hasIntKeys() {
+        return ints != null;
+    }
+
+    // The sort value as a long in sort order: ascending with NULLs first, or reversed for a descending
+    // sort. Equal longs are ties under compare().
+    long orderKey(int row) {
+        long key;
+        if (ints != null) {
+            key = ints[row]; // NULL_INT is already the smallest
+        } else {
+            double value = value(row);
+            key = value == 0 ? 0 : orderedBits(value); // -0.0 ties with 0.0, as in compare()
+        }
+        return ascending ? key : ~key;
+    }
+
+    int compare(int a, int b) {
+        double x = value(a);
+        double y = value(b);
+        int order;
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            order = Boolean.compare(!Double.isNaN(x), !Double.isNaN(y));
+        } else {
+            order = x < y ? -1 : (x > y ? 1 : 0);
+        }
+        return ascending ? order : -order;
+    }
+
+    // Doubles as longs in numeric order, NaN (NULL) below everything
+    static long orderedBits(double value) {
+        if (Double.isNaN(value)) {
+            return Long.MIN_VALUE;
+        }
+        long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+    }
+}
@@ -0,0 +1,99 @@
+package com.hoopsql.engine;
+
+import java.util.Arrays;
+
+/**
+ * Every row of one numeric column, ordered by its value: NULLs first, then
+ * ascending, the order of an ascending ORDER BY on the column. A threshold
+ * filter (p.points >= 60) is then one run of the order found by binary
+ * search, and the top of a descending sort is its tail.
+ *
+ * Within equal values rows stay in row order. Callers re-sort what they
+ * take from the index, so that order is not relied on.
+ */
+final class StatIndex {
+    private final int[] ints;
+    private final double[] reals;
+    private final int[] order;
+    private final int nulls;
+
+    StatIndex(BoxScores data, BoxScores.Column column) {
+        int rowCount = data.rowCount;
+        long[] keys = new long[rowCount];
+        if (column.kind() == BoxScores.Kind.INT) {
+            this.ints = data.ints[column.slot()];
+            this.reals = null;
+            // NULL_INT is the smallest int, so NULLs come first on their own
+            for (int row = 0; row < rowCount; row++) {
+                keys[row] = ((long) ints[row] << 32) | row;
+            }
+        } else {
+            this.ints = null;
+            this.reals = data.reals[column.slot()];
+            // Rank each value among all values, then pack rank and row like the ints
+            long[] values = new long[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                values[row] = SortKey.orderedBits(reals[row]);
+            }
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int row = 0; row < rowCount; row++) {
+                keys[row] = ((long) Arrays.binarySearch(sorted, values[row]) << 32) | row;
+            }
+        }
+        Arrays.sort(keys);
+        this.order = new int[rowCount];
+        int nullCount = 0;
+        for (int i = 0; i < rowCount; i++) {
+            order[i] = (int) keys[i];
+            if (Double.isNaN(value(i))) {
+                nullCount++;
+            }
+        }
+        this.nulls = nullCount;
+    }
+
+    int size() { return order.length; }
+    int row(int position) { return order[position]; }
+
+    // Positions [start, end) whose rows pass "column operator value"; null for != and other operators
+    int[] range(String operator, double value) {
+        return switch (operator) {
+            case ">=" -> new int[] { firstAtLeast(value, true), order.length };
+            case ">" -> new int[] { firstAtLeast(value, false), order.length };
+            case "<=" -> new int[] { nulls, firstAtLeast(value, false) };
+            case "<" -> new int[] { nulls, firstAtLeast(value, true) };
+            case "=" -> new int[] { firstAtLeast(value, true), firstAtLeast(value, false) };
+            default -> null;
+        };
+    }
+
+    long bytes() {
+        return 4L * order.length;
+    }
+
+    // The cell at a position as the filters compare it: NaN for NULL
+    private double value(int position) {
+        int row = order[position];
+        if (ints != null) {
+            return ints[row] != BoxScores.NULL_INT ? ints[row] : Double.NaN;
+        }
+        return reals[row];
+    }
+
+    // First position past the NULLs whose value is >= bound (inclusive) or > bound
+    private int firstAtLeast(double bound, boolean inclusive) {
+        int low = nulls;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double value = value(mid);
+            if (value > bound || (inclusive && value == bound)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
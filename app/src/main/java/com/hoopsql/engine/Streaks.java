@@ -0,0 +1,184 @@
+package com.hoopsql.engine;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import com.hoopsql.runtime.CancellationToken;
+
+/**
+ * get streaks: runs of a player's consecutive games that all pass the
+ * filters, found in one pass over each player's rows, which are already in
+ * date order. Where the SQL numbers the runs with a window function and
+ * groups on the number, here a run is counted as the rows go by.
+ *
+ * Each run becomes one long that sorts the way the SQL orders streaks:
+ * longest first, then by start date, then by player (rows are grouped by
+ * player in id order, so the run's first row stands in for the player and
+ * identifies the run). With a LIMIT k only the k smallest longs are kept,
+ * in a bounded max-heap; without one they are sorted at the end.
+ */
+final class Streaks {
+    private static final int CHECK_INTERVAL = 1 << 16;
+
+    private final BoxScores data;
+    private final int[] startRanks; // per game: the first game on its date, so one date ranks once; 0 for NULL
+    private final int rowBits;
+    private final int rankBits;
+    private final int lengthBits;
+
+    Streaks(BoxScores data) {
+        this.data = data;
+        this.startRanks = new int[data.gameCount];
+        for (int game = 0; game < data.gameCount; game++) {
+            String date = data.gameDates[game];
+            if (date == null) {
+                startRanks[game] = 0; // NULL dates sort first, and dated games follow them from 1 on
+            } else {
+                boolean sameDate = game > 0 && date.equals(data.gameDates[game - 1]);
+                startRanks[game] = sameDate ? startRanks[game - 1] : game;
+            }
+        }
+        int longest = 0;
+        for (int person = 0; person < data.personCount(); person++) {
+            longest = Math.max(longest, data.personStart[person + 1] - data.personStart[person]);
+        }
+        this.rowBits = bitsFor(data.rowCount);
+        this.rankBits = bitsFor(data.gameCount);
+        this.lengthBits = bitsFor(longest + 1);
+    }
+
+    // Whether a run's length, start date rank and first row fit in one long
+    boolean fits() {
+        return lengthBits + rankBits + rowBits <= 63;
+    }
+
+    // The runs of the given players (every player when persons is null), in order, cut to limit (null for none).
+    // With name >= 0 only the rows under that name are the players' games, as a bound player's SQL selects them.
+    long[] find(int[] persons, int name, RowFilter filter, int firstGame, int lastGame, Integer limit,
+                CancellationToken token) throws SQLException {
+        Keys keys = new Keys(limit);
+        int personCount = persons != null ? persons.length : data.personCount();
+        int scanned = 0;
+        for (int i = 0; i < personCount; i++) {
+            int person = persons != null ? persons[i] : i;
+            int end = data.personStart[person + 1];
+            int from = data.seekGame(data.personStart[person], end, firstGame);
+            int to = data.seekGame(from, end, lastGame + 1);
+            int length = 0;
+            int first = -1;
+            int rank = -1; // of the run's first dated game, as MIN(gameDate) skips NULLs
+            for (int row = from; row < to; row++) {
+                if ((++scanned & (CHECK_INTERVAL - 1)) == 0) {
+                    token.check();
+                }
+                if (name >= 0 && data.rowName[row] != name) {
+                    continue;
+                }
+                if (filter.test(row)) {
+                    if (length++ == 0) {
+                        first = row;
+                        rank = -1;
+                    }
+                    int game = data.rowGame[row];
+                    if (rank < 0 && data.gameDates[game] != null) {
+                        rank = startRanks[game];
+                    }
+                } else if (length > 0) {
+                    keys.offer(key(length, rank, first));
+                    length = 0;
+                }
+            }
+            if (length > 0) {
+                keys.offer(key(length, rank, first));
+            }
+        }
+        return keys.sorted();
+    }
+
+    int firstRow(long key) {
+        return (int) (key & ((1L << rowBits) - 1));
+    }
+
+    int length(long key) {
+        return (int) ((1L << lengthBits) - 1 - (key >>> (rankBits + rowBits)));
+    }
+
+    // Shorter runs get larger keys; a run with no dated game ranks 0, first among equal lengths like a NULL date
+    private long key(int length, int rank, int firstRow) {
+        long longer = (1L << lengthBits) - 1 - length;
+        return (longer << (rankBits + rowBits)) | ((long) Math.max(rank, 0) << rowBits) | firstRow;
+    }
+
+    private static int bitsFor(int count) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1)));
+    }
+
+    // Every key offered, or with a limit the smallest ones, in a max-heap that evicts its largest
+    private static final class Keys {
+        private final int limit; // -1 for none
+        private long[] keys;
+        private int size;
+
+        Keys(Integer limit) {
+            this.limit = limit != null ? Math.max(limit, 0) : -1;
+            this.keys = new long[limit != null ? Math.max(limit, 0) : 16];
+        }
+
+        void offer(long key) {
+            if (limit < 0) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size++] = key;
+            } else if (size < limit) {
+                keys[size] = key;
+                siftUp(size++);
+            } else if (limit > 0 && key < keys[0]) {
+                keys[0] = key;
+                siftDown(0);
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(keys, size);
+            Arrays.parallelSort(result);
+            return result;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (keys[parent] >= keys[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int largest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && keys[left] > keys[largest]) {
+                    largest = left;
+                }
+                if (right < size && keys[right] > keys[largest]) {
+                    largest = right;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long swap = keys[a];
+            keys[a] = keys[b];
+            keys[b] = swap;
+        }
+    }
+}
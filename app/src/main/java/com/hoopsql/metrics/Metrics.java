@@ -0,0 +1,49 @@
+package com.hoopsql.metrics;
+
+/**
+ * Well-known metrics for the query pipeline, resolved once against the
+ * global registry.
+ */
+public final class Metrics {
+    // Compiler phases
+    public static final Timer LEX = MetricsRegistry.global().timer("compile.lex");
+    public static final Timer PARSE = MetricsRegistry.global().timer("compile.parse");
+    public static final Timer NAMES = MetricsRegistry.global().timer("compile.names");
+    public static final Timer PLAN = MetricsRegistry.global().timer("compile.plan");
+
+    // SQLite phases
+    public static final Timer PREPARE = MetricsRegistry.global().timer("sql.prepare");
+    public static final Timer EXECUTE = MetricsRegistry.global().timer("sql.execute");
+    public static final Timer ITERATE = MetricsRegistry.global().timer("sql.iterate");
+    public static final Timer POOL_WAIT = MetricsRegistry.global().timer("pool.wait");
+    public static final Timer DB_LOAD = MetricsRegistry.global().timer("storage.load");
+
+    // In-process engine: loading its copy of the box scores, and running a query on it
+    public static final Timer ENGINE_LOAD = MetricsRegistry.global().timer("engine.load");
+    public static final Timer ENGINE_EXECUTE = MetricsRegistry.global().timer("engine.execute");
+
+    // Time a query waits for a slot in its scheduler lane
+    public static final Timer QUEUE_CHEAP = MetricsRegistry.global().timer("queue.cheap");
+    public static final Timer QUEUE_HEAVY = MetricsRegistry.global().timer("queue.heavy");
+
+    // End to end, from query text to the last row
+    public static final Timer QUERY = MetricsRegistry.global().timer("query.total");
+
+    public static final Histogram ROWS_PER_QUERY = MetricsRegistry.global().histogram("query.rows");
+
+    public static final Counter QUERIES = MetricsRegistry.global().counter("query.count");
+    public static final Counter QUERY_ERRORS = MetricsRegistry.global().counter("query.errors");
+    public static final Counter QUERY_TIMEOUTS = MetricsRegistry.global().counter("query.timeouts");
+    public static final Counter QUERIES_REJECTED = MetricsRegistry.global().counter("query.rejected");
+    public static final Counter QUERY_CANCELS = MetricsRegistry.global().counter("query.cancels");
+    public static final Counter ENGINE_QUERIES = MetricsRegistry.global().counter("engine.queries");
+    public static final Counter ROWS_RETURNED = MetricsRegistry.global().counter("rows.returned");
+    public static final Counter PLAN_CACHE_HITS = MetricsRegistry.global().counter("cache.plan.hits");
+    public static final Counter PLAN_CACHE_MISSES = MetricsRegistry.global().counter("cache.plan.misses");
+    public static final Counter STATEMENT_CACHE_HITS = MetricsRegistry.global().counter("cache.statement.hits");
+    public static final Counter STATEMENT_CACHE_MISSES = MetricsRegistry.global().counter("cache.statement.misses");
+
+    public static final Counter SERVER_REQUESTS = MetricsRegistry.global().counter("server.requests");
+
+    private Metrics() {}
+}
@@ -0,0 +1,116 @@
+package com.hoopsql.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Read-only JMX view over a {@link MetricsRegistry}.
+ * Attributes are flattened as "<metric>.<stat>", e.g. "compile.plan.p99Millis",
+ * so new metrics show up in jconsole without code changes.
+ */
+class MetricsMBean implements DynamicMBean {
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    private Map<String, Supplier<Object>> attributes() {
+        Map<String, Supplier<Object>> attrs = new LinkedHashMap<>();
+
+        for (Timer timer : registry.getTimers().values()) {
+            String prefix = timer.getName() + ".";
+            attrs.put(prefix + "count", () -> timer.getCount());
+            attrs.put(prefix + "meanMillis", () -> timer.getMean(TimeUnit.MILLISECONDS));
+            attrs.put(prefix + "p50Millis", () -> timer.getPercentile(0.50, TimeUnit.MILLISECONDS));
+            attrs.put(prefix + "p95Millis", () -> timer.getPercentile(0.95, TimeUnit.MILLISECONDS));
+            attrs.put(prefix + "p99Millis", () -> timer.getPercentile(0.99, TimeUnit.MILLISECONDS));
+            attrs.put(prefix + "maxMillis", () -> timer.getMax(TimeUnit.MILLISECONDS));
+        }
+
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            String prefix = entry.getKey() + ".";
+            Histogram histogram = entry.getValue();
+            attrs.put(prefix + "count", () -> histogram.getCount());
+            attrs.put(prefix + "mean", () -> histogram.getMean());
+            attrs.put(prefix + "p50", () -> histogram.getPercentile(0.50));
+            attrs.put(prefix + "p99", () -> histogram.getPercentile(0.99));
+            attrs.put(prefix + "max", () -> histogram.getMax());
+        }
+
+        for (Counter counter : registry.getCounters().values()) {
+            attrs.put(counter.getName(), () -> counter.get());
+        }
+
+        return attrs;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Supplier<Object> supplier = attributes().get(attribute);
+        if (supplier == null) {
+            throw new AttributeNotFoundException("Unknown metric: " + attribute);
+        }
+        return supplier.get();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        Map<String, Supplier<Object>> attrs = attributes();
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> supplier = attrs.get(name);
+            if (supplier != null) {
+                list.add(new Attribute(name, supplier.get()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("reset".equals(actionName)) {
+            registry.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> infos = new ArrayList<>();
+        for (Map.Entry<String, Supplier<Object>> entry : attributes().entrySet()) {
+            String type = entry.getValue().get().getClass().getName();
+            infos.add(new MBeanAttributeInfo(entry.getKey(), type, entry.getKey(), true, false, false));
+        }
+
+        MBeanOperationInfo reset = new MBeanOperationInfo(
+            "reset", "Reset all metrics", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+
+        return new MBeanInfo(getClass().getName(), "HoopsQL query pipeline metrics",
+            infos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.hoopsql.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of named timers, histograms and counters.
+ * Lookups are cached by callers (see {@link Metrics}) so the hot path
+ * only touches the metric objects themselves.
+ */
+public class MetricsRegistry {
+    public static final String JMX_NAME = "com.hoopsql:type=Metrics";
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    // Sorted by name, live views
+    public Map<String, Timer> getTimers() { return timers; }
+    public Map<String, Histogram> getHistograms() { return histograms; }
+    public Map<String, Counter> getCounters() { return counters; }
+
+    public void reset() {
+        timers.values().forEach(Timer::reset);
+        histograms.values().forEach(Histogram::reset);
+        counters.values().forEach(Counter::reset);
+    }
+
+    // Expose this registry through the platform MBean server (idempotent)
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(this), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean: " + e.getMessage(), e);
+        }
+    }
+}
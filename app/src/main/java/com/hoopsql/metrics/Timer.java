@@ -0,0 +1,47 @@
+package com.hoopsql.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records elapsed nanoseconds for one pipeline phase.
+ * Typical use:
+ *   long start = System.nanoTime();
+ *   ... work ...
+ *   timer.recordSince(start);
+ */
+public class Timer {
+    private final String name;
+    private final Histogram histogram = new Histogram();
+
+    public Timer(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+    public Histogram getHistogram() { return histogram; }
+    public long getCount() { return histogram.getCount(); }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    public void recordSince(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public double getMean(TimeUnit unit) {
+        return histogram.getMean() / unit.toNanos(1);
+    }
+
+    public double getPercentile(double quantile, TimeUnit unit) {
+        return (double) histogram.getPercentile(quantile) / unit.toNanos(1);
+    }
+
+    public double getMax(TimeUnit unit) {
+        return (double) histogram.getMax() / unit.toNanos(1);
+    }
+
+    public void reset() {
+        histogram.reset();
+    }
+}
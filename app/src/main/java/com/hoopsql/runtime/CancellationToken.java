@@ -0,0 +1,132 @@
+package com.hoopsql.runtime;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.sqlite.ProgressHandler;
+
+/**
+ * Deadline and cancel switch for a single query.
+ *
+ * While a statement is attached, SQLite's progress handler polls the token
+ * every few thousand VM instructions and aborts the statement once it is
+ * cancelled or past its deadline. cancel() additionally interrupts the
+ * attached statements so a blocked step returns right away. One token may
+ * cover several connections at once (e.g. the partitions of a parallel query).
+ */
+public class CancellationToken {
+    // VM instructions between progress callbacks; well under a millisecond of work
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final long timeoutMillis;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+    private final Map<Connection, Statement> attached = new HashMap<>();
+
+    private CancellationToken(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : 0;
+    }
+
+    // Token whose deadline starts now; 0 means no deadline
+    public static CancellationToken withTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative");
+        }
+        return new CancellationToken(timeoutMillis);
+    }
+
+    public long getTimeoutMillis() { return timeoutMillis; }
+    public boolean isCancelled() { return cancelled; }
+
+    public boolean isExpired() {
+        return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    // Time left before the deadline; Long.MAX_VALUE when there is none
+    public long remainingNanos() {
+        if (deadlineNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public boolean shouldStop() {
+        return cancelled || isExpired();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            for (Statement statement : attached.values()) {
+                try {
+                    statement.cancel();
+                } catch (SQLException ignored) {
+                    // The progress handler stops it at the next callback anyway
+                }
+            }
+        }
+    }
+
+    // Throws if the query should not start (or continue) running
+    public void check() throws QueryCancelledException {
+        if (shouldStop()) {
+            throw stopped(null);
+        }
+    }
+
+    // Install the progress handler for a statement about to run on this connection. A token that
+    // has already stopped installs nothing, and one stopped while installing takes it off again,
+    // so a connection never goes back to its pool still watched by a token that threw here.
+    public void attach(Connection connection, Statement statement) throws SQLException {
+        check();
+        ProgressHandler.setHandler(connection, PROGRESS_INTERVAL, new ProgressHandler() {
+            @Override
+            protected int progress() {
+                return shouldStop() ? 1 : 0;
+            }
+        });
+        synchronized (this) {
+            attached.put(connection, statement);
+        }
+        if (shouldStop()) {
+            detach(connection);
+            throw stopped(null);
+        }
+    }
+
+    // Connections this token is attached to, for tests
+    synchronized int attachedCount() {
+        return attached.size();
+    }
+
+    // Must run before the connection goes back to the pool
+    public void detach(Connection connection) {
+        synchronized (this) {
+            attached.remove(connection);
+        }
+        try {
+            ProgressHandler.clearHandler(connection);
+        } catch (SQLException ignored) {
+            // Connection is broken; the pool drops it on release
+        }
+    }
+
+    // Replace the driver's "interrupted" error with one that says why the query stopped
+    public SQLException translate(SQLException e) {
+        if (e instanceof QueryCancelledException || !shouldStop()) {
+            return e;
+        }
+        return stopped(e);
+    }
+
+    private QueryCancelledException stopped(Throwable cause) {
+        if (cancelled) {
+            return new QueryCancelledException("Query cancelled", false, cause);
+        }
+        return new QueryCancelledException("Query timed out after " + timeoutMillis + " ms", true, cause);
+    }
+}
@@ -1,5 +1,35 @@
 package com.hoopsql.runtime;
 
-public class ErrorReporter {
-    // TODO: Handle and format errors
+import java.util.List;
+
+/**
+ * Formats diagnostics the way the spec shows them: the 1-based line, a
+ * short description, and an optional suggestion on the next line.
+ *
+ *   Error on line 1: Unknown player 'Stepen_Curry'.
+ *   Maybe you meant 'Stephen_Curry'?
+ */
+public final class ErrorReporter {
+    private ErrorReporter() {}
+
+    // suggestion may be null
+    public static String format(int line, String description, String suggestion) {
+        String error = "Error on line " + line + ": " + description;
+        return suggestion != null ? error + "\n" + suggestion : error;
+    }
+
+    // "Maybe you meant 'A'?" or "Maybe you meant 'A', 'B' or 'C'?"; null when there is nothing to suggest
+    public static String maybe(List<String> candidates) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder("Maybe you meant ");
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i > 0) {
+                text.append(i == candidates.size() - 1 ? " or " : ", ");
+            }
+            text.append('\'').append(candidates.get(i)).append('\'');
+        }
+        return text.append('?').toString();
+    }
 }
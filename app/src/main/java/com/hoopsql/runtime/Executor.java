@@ -1,52 +1,382 @@
 package com.hoopsql.runtime;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.QueryParts;
+import com.hoopsql.engine.InProcessEngine;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.storage.ConnectionPool;
 import com.hoopsql.storage.SQLiteStorage;
 
-public class Executor {
+/**
+ * Runs execution plans against SQLite using the storage's read-connection pool.
+ *
+ * The async API runs each query on its own platform thread: a native SQLite
+ * call pins the carrier of a virtual thread, so one long query could stall
+ * every other task on it, the rest of its own batch included. Concurrency is
+ * bounded by the pool (a query holds one connection while it runs) and can be
+ * capped further with maxConcurrency, so independent queries overlap their
+ * SQLite time across cores without oversubscribing the database.
+ *
+ * Every query runs under a CancellationToken; plans executed without one get
+ * the configured default timeout (Config.getQueryTimeoutMillis()).
+ *
+ * Sharded plans spanning several shards, and league-wide scans of one file
+ * when Config.getQueryPartitions() is above 1, are scattered across
+ * connections and gathered again by a ParallelExecutor.
+ *
+ * With an InProcessEngine set, execute() hands it the plans it supports
+ * (see ExecutionPlan.getPlayerQuery()); streaming and everything else stay
+ * on SQLite.
+ */
+public class Executor implements AutoCloseable {
     private final SQLiteStorage storage;
+    private final Semaphore concurrency;
+    private final int maxConcurrency;
+    private final ParallelExecutor parallel;
+    private ExecutorService asyncExecutor;
+    private volatile InProcessEngine engine;
     
     public Executor() {
-        this.storage = new SQLiteStorage();
+        this(new SQLiteStorage());
     }
     
     public Executor(SQLiteStorage storage) {
+        this(storage, storage.getConfig().getReadPoolSize());
+    }
+    
+    public Executor(SQLiteStorage storage, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
         this.storage = storage;
+        this.maxConcurrency = Math.min(maxConcurrency, storage.getConfig().getReadPoolSize());
+        this.concurrency = new Semaphore(this.maxConcurrency, true);
+        this.parallel = new ParallelExecutor(this, storage.getConfig().getQueryPartitions());
+    }
+    
+    public SQLiteStorage getStorage() { return storage; }
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public InProcessEngine getEngine() { return engine; }
+    
+    // Plans the engine supports run there instead of in SQLite; null sends everything to SQLite
+    public void setEngine(InProcessEngine engine) {
+        this.engine = engine;
     }
     
+    // Run with the configured default deadline
     public QueryResult execute(ExecutionPlan plan) throws SQLException {
-        try (Connection connection = storage.connect()) {
-            return executeQuery(connection, plan);
+        return execute(plan, newToken());
+    }
+    
+    public QueryResult execute(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        token.check();
+        InProcessEngine inProcess = engine;
+        if (inProcess != null && inProcess.supports(plan)) {
+            try {
+                return inProcess.execute(plan, token);
+            } catch (SQLException e) {
+                throw countStopped(e);
+            }
         }
+        if (parallel.shouldPartition(plan)) {
+            return parallel.executePartitions(plan, token);
+        }
+        return executeWhole(plan, token);
     }
     
-    private QueryResult executeQuery(Connection connection, ExecutionPlan plan) throws SQLException {
-        String sql = plan.getSql();
-        Map<String, Object> parameters = plan.getParameters();
+    // Run a plan without splitting it by season: on the file, or on the shards its date range touches
+    QueryResult executeWhole(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        QueryParts parts = plan.getParts();
+        if (!storage.isSharded() || parts == null) {
+            return executeOn(storage, plan, token);
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            // Set parameters
-            setParameters(stmt, parameters);
-            
+        List<SQLiteStorage> shards = storage.route(parts.getDateFrom(), parts.getDateTo());
+        if (shards.size() == 1) {
+            return executeOn(shards.get(0), plan, token);
+        }
+        if (ResultMerger.canMerge(parts)) {
+            return parallel.executeOnShards(shards, plan, token);
+        }
+        // Not splittable: one federated connection with every shard attached
+        return executeOn(storage, plan, token);
+    }
+    
+    QueryResult executeOn(SQLiteStorage target, ExecutionPlan plan, CancellationToken token) throws SQLException {
+        ConnectionPool pool = target.getReadPool();
+        Connection connection = pool.acquire();
+        try {
+            return executeQuery(pool, connection, plan, token);
+        } catch (SQLException e) {
+            throw countStopped(token.translate(e));
+        } finally {
+            pool.release(connection);
+        }
+    }
+    
+    // Consumes a live result set, e.g. a ResultFormatter writing to a socket
+    @FunctionalInterface
+    public interface RowWriter {
+        long write(java.sql.ResultSet rs) throws SQLException, IOException;
+    }
+    
+    // Hand the rows to writer as SQLite produces them instead of collecting a QueryResult.
+    // Runs on one connection: sharded plans spanning several shards use the federated one.
+    public long stream(ExecutionPlan plan, CancellationToken token, RowWriter writer) throws SQLException, IOException {
+        token.check();
+        SQLiteStorage target = storage;
+        QueryParts parts = plan.getParts();
+        if (storage.isSharded() && parts != null) {
+            List<SQLiteStorage> shards = storage.route(parts.getDateFrom(), parts.getDateTo());
+            if (shards.size() == 1) {
+                target = shards.get(0);
+            }
+        }
+        
+        ConnectionPool pool = target.getReadPool();
+        Connection connection = pool.acquire();
+        try (PreparedStatement stmt = connection.prepareStatement(plan.getSql())) {
+            setParameters(stmt, plan.getParameters());
+            try {
+                token.attach(connection, stmt);
+                long start = System.nanoTime();
+                try (java.sql.ResultSet rs = stmt.executeQuery()) {
+                    Metrics.EXECUTE.recordSince(start);
+                    
+                    start = System.nanoTime();
+                    long rows = writer.write(rs);
+                    Metrics.ITERATE.recordSince(start);
+                    Metrics.ROWS_RETURNED.add(rows);
+                    Metrics.ROWS_PER_QUERY.record(rows);
+                    return rows;
+                }
+            } finally {
+                token.detach(connection);
+            }
+        } catch (SQLException e) {
+            throw countStopped(token.translate(e));
+        } finally {
+            pool.release(connection);
+        }
+    }
+    
+    public static boolean canPage(ExecutionPlan plan) {
+        return Paginator.canPage(plan);
+    }
+    
+    public Page executePage(ExecutionPlan plan, int pageSize, String resumeToken) throws SQLException {
+        return executePage(plan, pageSize, resumeToken, newToken());
+    }
+    
+    // One page of a listing: null resumeToken for the first, then the previous page's token
+    public Page executePage(ExecutionPlan plan, int pageSize, String resumeToken, CancellationToken token) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        if (!Paginator.canPage(plan)) {
+            throw new IllegalArgumentException("Only game listings can be paged");
+        }
+        ResumeToken resume = null;
+        if (resumeToken != null) {
+            resume = ResumeToken.decode(resumeToken);
+            resume.checkIssuedFor(plan);
+        }
+        
+        QueryResult result = execute(Paginator.pagedPlan(plan, pageSize, resume), token);
+        return Paginator.toPage(plan, pageSize, resume, result);
+    }
+    
+    public CompletableFuture<QueryResult> executeAsync(ExecutionPlan plan) {
+        return executeAsync(plan, newToken());
+    }
+    
+    // Run a single plan on its own thread; completes exceptionally with the SQLException on failure.
+    // Cancelling the token (not the future) is what stops a running query.
+    public CompletableFuture<QueryResult> executeAsync(ExecutionPlan plan, CancellationToken token) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                concurrency.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(new SQLException("Interrupted while queued", e));
+            }
+            try {
+                return execute(plan, token);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                concurrency.release();
+            }
+        }, asyncExecutor());
+    }
+    
+    // Run independent plans concurrently; results come back in input order
+    public List<QueryResult> executeAll(List<ExecutionPlan> plans) throws SQLException {
+        List<CancellationToken> tokens = new ArrayList<>(plans.size());
+        for (int i = 0; i < plans.size(); i++) {
+            tokens.add(newToken());
+        }
+        return executeAll(plans, tokens);
+    }
+    
+    // Run a batch that belongs to one query (e.g. its partitions) under a single token
+    public List<QueryResult> executeAll(List<ExecutionPlan> plans, CancellationToken token) throws SQLException {
+        return executeAll(plans, Collections.nCopies(plans.size(), token));
+    }
+    
+    private List<QueryResult> executeAll(List<ExecutionPlan> plans, List<CancellationToken> tokens) throws SQLException {
+        List<CompletableFuture<QueryResult>> futures = new ArrayList<>(plans.size());
+        for (int i = 0; i < plans.size(); i++) {
+            futures.add(executeAsync(plans.get(i), tokens.get(i)));
+        }
+        return join(futures, () -> cancelAll(tokens, futures));
+    }
+    
+    // Wait for the whole batch; on the first failure, whichever plan it comes from, run onFailure and rethrow.
+    // Results come back in input order.
+    List<QueryResult> join(List<CompletableFuture<QueryResult>> futures, Runnable onFailure) throws SQLException {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> outcome.complete(null));
+        for (CompletableFuture<QueryResult> future : futures) {
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    outcome.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            outcome.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onFailure.run();
+            throw new SQLException("Interrupted while waiting for batch results", e);
+        } catch (ExecutionException e) {
+            onFailure.run();
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException("Batch query failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        List<QueryResult> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<QueryResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+    
+    // Stop the rest of a failed batch so their connections go back to the pool
+    private void cancelAll(List<CancellationToken> tokens, List<CompletableFuture<QueryResult>> futures) {
+        tokens.forEach(CancellationToken::cancel);
+        futures.forEach(f -> f.cancel(true));
+    }
+    
+    // Token carrying the configured default timeout, starting now
+    public CancellationToken newToken() {
+        return CancellationToken.withTimeout(storage.getConfig().getQueryTimeoutMillis());
+    }
+    
+    private SQLException countStopped(SQLException e) {
+        if (e instanceof QueryCancelledException cancelled) {
+            if (cancelled.isTimedOut()) {
+                Metrics.QUERY_TIMEOUTS.increment();
+            } else {
+                Metrics.QUERY_CANCELS.increment();
+            }
+        }
+        return e;
+    }
+    
+    // Async queries holding a concurrency permit, for tests
+    int runningAsync() {
+        return maxConcurrency - concurrency.availablePermits();
+    }
+    
+    synchronized ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            asyncExecutor = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "hoopsql-async-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return asyncExecutor;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+        }
+    }
+    
+    private QueryResult executeQuery(ConnectionPool pool, Connection connection, ExecutionPlan plan, CancellationToken token) throws SQLException {
+        if (!pool.isStatementCacheEnabled()) {
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = connection.prepareStatement(plan.getSql())) {
+                Metrics.PREPARE.recordSince(start);
+                return executeStatement(connection, stmt, plan, token);
+            }
+        }
+        
+        // Cached statements stay open for the next query with the same SQL
+        long start = System.nanoTime();
+        PreparedStatement stmt = pool.prepare(connection, plan.getSql());
+        Metrics.PREPARE.recordSince(start);
+        try {
+            return executeStatement(connection, stmt, plan, token);
+        } catch (SQLException e) {
+            // A cancelled or failed statement is not safe to hand out again
+            pool.discard(connection, plan.getSql());
+            throw e;
+        }
+    }
+    
+    private QueryResult executeStatement(Connection connection, PreparedStatement stmt, ExecutionPlan plan, CancellationToken token) throws SQLException {
+        // Set parameters
+        setParameters(stmt, plan.getParameters());
+        
+        try {
+            token.attach(connection, stmt);
             // Execute query
+            long start = System.nanoTime();
             try (java.sql.ResultSet rs = stmt.executeQuery()) {
-                return processResultSet(rs, plan.getResultType());
+                Metrics.EXECUTE.recordSince(start);
+                
+                start = System.nanoTime();
+                QueryResult result = processResultSet(rs, plan.getResultType());
+                Metrics.ITERATE.recordSince(start);
+                Metrics.ROWS_RETURNED.add(result.getRowCount());
+                Metrics.ROWS_PER_QUERY.record(result.getRowCount());
+                return result;
             }
+        } finally {
+            token.detach(connection);
         }
     }
     
-    private void setParameters(PreparedStatement stmt, Map<String, Object> parameters) throws SQLException {
-        // Parameters are numbered ?1, ?2, ?3, etc.
+    // Bind a plan's parameters; they are numbered ?1, ?2, ?3, etc.
+    public static void setParameters(PreparedStatement stmt, Map<String, Object> parameters) throws SQLException {
         for (int i = 1; i <= parameters.size(); i++) {
             String paramKey = "param" + i;
             Object value = parameters.get(paramKey);
@@ -57,6 +387,8 @@ public class Executor {
                 stmt.setString(i, (String) value);
             } else if (value instanceof Integer) {
                 stmt.setInt(i, (Integer) value);
+            } else if (value instanceof Long) {
+                stmt.setLong(i, (Long) value);
             } else if (value instanceof Double) {
                 stmt.setDouble(i, (Double) value);
             } else if (value instanceof Boolean) {
@@ -0,0 +1,22 @@
+package com.hoopsql.runtime;
+
+/**
+ * One page of a keyset-paginated listing. The resume token (null on the last
+ * page) is passed back to Executor.executePage to fetch the next one.
+ */
+public class Page {
+    private final QueryResult result;
+    private final String resumeToken;
+    private final int firstRow; // 1-based position of the first row in the whole listing
+
+    public Page(QueryResult result, String resumeToken, int firstRow) {
+        this.result = result;
+        this.resumeToken = resumeToken;
+        this.firstRow = firstRow;
+    }
+
+    public QueryResult getResult() { return result; }
+    public String getResumeToken() { return resumeToken; }
+    public int getFirstRow() { return firstRow; }
+    public boolean hasMore() { return resumeToken != null; }
+}
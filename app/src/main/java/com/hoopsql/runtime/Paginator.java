@@ -0,0 +1,187 @@
+package com.hoopsql.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.QueryParts;
+
+/**
+ * Keyset pagination over a planned listing.
+ *
+ * The plan's sort is extended with its row key (gameId, personId, ...), and
+ * each page after the first adds a row-value predicate such as
+ * (key, gameId, personId) <= (?, ?, ?) on the last row returned. That seeks
+ * straight to the resume point, so page N costs the same as page 1; OFFSET
+ * would re-read every earlier page. The key is unique except for a box score
+ * listed twice, so the seek keeps rows at the last key and the token says how
+ * many of them the earlier pages already returned.
+ */
+final class Paginator {
+    private static final String KEY_COLUMN = "__page_key";
+
+    private Paginator() {}
+
+    static boolean canPage(ExecutionPlan plan) {
+        QueryParts parts = plan.getParts();
+        return parts != null && !parts.isAggregate() && !parts.getRowKey().isEmpty();
+    }
+
+    // The query for one page, fetching a row beyond pageSize to tell whether more follow
+    static ExecutionPlan pagedPlan(ExecutionPlan plan, int pageSize, ResumeToken resume) {
+        QueryParts parts = plan.getParts();
+        List<String> terms = sortTerms(parts);
+        boolean ascending = parts.getOrderBy() == null || parts.isAscending();
+
+        StringBuilder select = new StringBuilder(parts.getSelect());
+        for (int i = 0; i < terms.size(); i++) {
+            select.append(", ").append(terms.get(i)).append(" AS ").append(KEY_COLUMN).append(i);
+        }
+
+        Map<String, Object> parameters = new HashMap<>(plan.getParameters());
+        int repeats = resume != null ? resume.getRepeats() : 0;
+        QueryParts paged = parts.withSelect(select.toString())
+            .withOrderBy(terms, ascending)
+            .withLimit(repeats + pageLength(parts, pageSize, resume) + 1);
+        if (resume != null) {
+            paged = paged.withCondition(seekCondition(parts, terms, ascending, resume.getLastKey(), parameters));
+        }
+        // No QueryParts: the extra columns and compound sort are not something ResultMerger can split
+        return new ExecutionPlan(paged.toSql(), parameters, plan.getResultType());
+    }
+
+    // Skip the rows at the resume key that earlier pages returned, trim the look-ahead row and the key
+    // columns, and issue a token if rows remain
+    static Page toPage(ExecutionPlan plan, int pageSize, ResumeToken resume, QueryResult result) {
+        QueryParts parts = plan.getParts();
+        int length = pageLength(parts, pageSize, resume);
+        int returnedBefore = resume != null ? resume.getReturned() : 0;
+
+        List<String> columns = new ArrayList<>();
+        for (String column : result.getColumnNames()) {
+            if (!column.startsWith(KEY_COLUMN)) {
+                columns.add(column);
+            }
+        }
+
+        int terms = sortTerms(parts).size();
+        List<Map<String, Object>> fetched = result.getRows();
+        int skip = 0;
+        while (resume != null && skip < resume.getRepeats() && skip < fetched.size()
+                && sameKey(key(fetched.get(skip), terms), resume.getLastKey())) {
+            skip++;
+        }
+        List<Map<String, Object>> page = fetched.subList(skip, Math.min(skip + length, fetched.size()));
+
+        List<Map<String, Object>> rows = new ArrayList<>(page.size());
+        for (Map<String, Object> row : page) {
+            Map<String, Object> visible = new LinkedHashMap<>();
+            for (String column : columns) {
+                visible.put(column, row.get(column));
+            }
+            rows.add(visible);
+        }
+
+        int returned = returnedBefore + rows.size();
+        boolean limitReached = parts.getLimit() != null && returned >= parts.getLimit();
+        String next = null;
+        if (fetched.size() > skip + length && !limitReached) {
+            List<Object> lastKey = key(page.get(page.size() - 1), terms);
+            int repeats = 0;
+            while (repeats < page.size() && sameKey(key(page.get(page.size() - 1 - repeats), terms), lastKey)) {
+                repeats++;
+            }
+            if (repeats == page.size() && resume != null && sameKey(resume.getLastKey(), lastKey)) {
+                // The whole page repeats the key the last one ended on
+                repeats += resume.getRepeats();
+            }
+            next = new ResumeToken(ResumeToken.fingerprint(plan), returned, repeats, lastKey).encode();
+        }
+        return new Page(new QueryResult(rows, columns, result.getResultType()), next, returnedBefore + 1);
+    }
+
+    private static List<Object> key(Map<String, Object> row, int terms) {
+        List<Object> key = new ArrayList<>(terms);
+        for (int i = 0; i < terms; i++) {
+            key.add(row.get(KEY_COLUMN + i));
+        }
+        return key;
+    }
+
+    // Decoded keys hold longs where the driver returns ints; SQLite compares them as equal
+    private static boolean sameKey(List<Object> a, List<Object> b) {
+        for (int i = 0; i < a.size(); i++) {
+            if (ResultMerger.compareKeys(a.get(i), b.get(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Rows this page may return: the page size, cut short by the plan's own limit
+    private static int pageLength(QueryParts parts, int pageSize, ResumeToken resume) {
+        if (parts.getLimit() == null) {
+            return pageSize;
+        }
+        int returned = resume != null ? resume.getReturned() : 0;
+        return Math.max(0, Math.min(pageSize, parts.getLimit() - returned));
+    }
+
+    // The plan's sort expression (if any) followed by the row key
+    private static List<String> sortTerms(QueryParts parts) {
+        List<String> terms = new ArrayList<>();
+        if (parts.getOrderBy() != null) {
+            terms.add(parts.getOrderBy());
+        }
+        List<String> rowKey = parts.getRowKey();
+        for (int i = 0; i < rowKey.size(); i++) {
+            // Joined rows can be missing (LEFT JOIN); a NULL would drop out of the row-value comparison
+            terms.add(i == 0 ? rowKey.get(i) : "IFNULL(" + rowKey.get(i) + ", '')");
+        }
+        return terms;
+    }
+
+    // Rows at or after lastKey in the sort order. SQLite sorts NULL first, so a
+    // NULL sort key is handled apart from the row-value comparison.
+    private static String seekCondition(QueryParts parts, List<String> terms, boolean ascending,
+                                        List<Object> lastKey, Map<String, Object> parameters) {
+        if (lastKey.size() != terms.size()) {
+            throw new IllegalArgumentException("Resume token does not match this query");
+        }
+        String after = ascending ? " >= " : " <= ";
+        if (parts.getOrderBy() == null) {
+            return rowValue(terms) + after + bind(lastKey, parameters);
+        }
+
+        String key = terms.get(0);
+        List<String> rest = terms.subList(1, terms.size());
+        List<Object> restValues = lastKey.subList(1, lastKey.size());
+        if (lastKey.get(0) == null) {
+            String tieBreak = rowValue(rest) + after + bind(restValues, parameters);
+            return ascending
+                ? "(" + key + " IS NOT NULL OR " + tieBreak + ")"
+                : key + " IS NULL AND " + tieBreak;
+        }
+        String seek = rowValue(terms) + after + bind(lastKey, parameters);
+        // Descending puts NULL keys last, still ahead of us
+        return ascending ? seek : "(" + seek + " OR " + key + " IS NULL)";
+    }
+
+    private static String rowValue(List<String> terms) {
+        return "(" + String.join(", ", terms) + ")";
+    }
+
+    // Add values as the next numbered parameters and return their placeholders
+    private static String bind(List<Object> values, Map<String, Object> parameters) {
+        List<String> placeholders = new ArrayList<>(values.size());
+        for (Object value : values) {
+            int index = parameters.size() + 1;
+            parameters.put("param" + index, value);
+            placeholders.add("?" + index);
+        }
+        return "(" + String.join(", ", placeholders) + ")";
+    }
+}
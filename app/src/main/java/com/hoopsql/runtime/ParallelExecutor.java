@@ -0,0 +1,164 @@
+package com.hoopsql.runtime;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.QueryParts;
+import com.hoopsql.storage.SQLiteStorage;
+import com.hoopsql.util.SeasonMapper;
+
+/**
+ * Scatter-gather execution for large scans (unbound players, league-wide averages).
+ *
+ * A plan is split into disjoint games.gameDate ranges aligned to season starts;
+ * each partition runs on its own pooled read connection and the partial results
+ * are merged by ResultMerger (k-way merge for ORDER BY + LIMIT, recombined
+ * SUM/COUNT for AVG). Plans without QueryParts, or with aggregates that cannot
+ * be split, run as one query.
+ *
+ * The Executor owns one, sized by Config.getQueryPartitions(), and sends it
+ * the heavy plans (see QueryScheduler.classify) on an unsharded database when
+ * that is above 1. On a sharded database the shards are the partitions: a
+ * plan spanning several runs once per shard through executeOnShards().
+ * Pieces go straight onto the Executor's async threads rather than through its
+ * concurrency permits, since the caller may already hold one; the read pool
+ * bounds the work.
+ */
+public class ParallelExecutor {
+    private final Executor executor;
+    private final int partitions;
+
+    public ParallelExecutor(Executor executor) {
+        // A couple of partitions per worker evens out seasons of different sizes
+        this(executor, executor.getMaxConcurrency() * 2);
+    }
+
+    public ParallelExecutor(Executor executor, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partition count must be at least 1");
+        }
+        this.executor = executor;
+        this.partitions = partitions;
+    }
+
+    public int getPartitions() { return partitions; }
+
+    public static boolean canPartition(ExecutionPlan plan) {
+        QueryParts parts = plan.getParts();
+        return parts != null && parts.getFrom().startsWith("games") && ResultMerger.canMerge(parts);
+    }
+
+    // Whether the Executor should split a plan: a league-wide scan of one file, with partitions to split it into.
+    // An unordered LIMIT stays whole, since SQLite stops at the first rows found and partitions would each scan on.
+    boolean shouldPartition(ExecutionPlan plan) {
+        if (partitions == 1 || executor.getStorage().isSharded() || !canPartition(plan)) {
+            return false;
+        }
+        QueryParts parts = plan.getParts();
+        boolean stopsEarly = parts.getLimit() != null && parts.getOrderBy() == null && !parts.isAggregate();
+        return !stopsEarly && QueryScheduler.classify(plan) == QueryScheduler.Lane.HEAVY;
+    }
+
+    public QueryResult execute(ExecutionPlan plan) throws SQLException {
+        return execute(plan, executor.newToken());
+    }
+
+    // One token covers every partition, so a timeout or cancel stops them all
+    public QueryResult execute(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        if (partitions == 1 || !canPartition(plan)) {
+            return executor.execute(plan, token);
+        }
+        return executePartitions(plan, token);
+    }
+
+    QueryResult executePartitions(ExecutionPlan plan, CancellationToken token) throws SQLException {
+        List<Piece> pieces = new ArrayList<>();
+        for (ExecutionPlan partition : partition(plan)) {
+            pieces.add(() -> executor.executeWhole(partition, token));
+        }
+        return ResultMerger.merge(plan.getParts(), scatter(pieces, token), plan.getResultType());
+    }
+
+    // Run a plan's partial form on each shard and merge the results; shards are given in date order
+    QueryResult executeOnShards(List<SQLiteStorage> shards, ExecutionPlan plan, CancellationToken token) throws SQLException {
+        QueryParts partial = ResultMerger.partialForm(plan.getParts());
+        ExecutionPlan partialPlan = new ExecutionPlan(partial.toSql(), plan.getParameters(), plan.getResultType(), partial);
+        List<Piece> pieces = new ArrayList<>(shards.size());
+        for (SQLiteStorage shard : shards) {
+            pieces.add(() -> executor.executeOn(shard, partialPlan, token));
+        }
+        return ResultMerger.merge(plan.getParts(), scatter(pieces, token), plan.getResultType());
+    }
+
+    @FunctionalInterface
+    private interface Piece {
+        QueryResult run() throws SQLException;
+    }
+
+    // Start every piece on its own thread; results come back in piece order
+    private List<QueryResult> scatter(List<Piece> pieces, CancellationToken token) throws SQLException {
+        List<CompletableFuture<QueryResult>> futures = new ArrayList<>(pieces.size());
+        for (Piece piece : pieces) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return piece.run();
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor.asyncExecutor()));
+        }
+        return executor.join(futures, token::cancel);
+    }
+
+    // Split a plan into per-date-range plans whose results merge back into the original
+    public List<ExecutionPlan> partition(ExecutionPlan plan) {
+        QueryParts base = ResultMerger.partialForm(plan.getParts());
+        List<String> bounds = partitionBounds();
+
+        List<ExecutionPlan> plans = new ArrayList<>(bounds.size() + 1);
+        for (int i = 0; i <= bounds.size(); i++) {
+            Map<String, Object> parameters = new HashMap<>(plan.getParameters());
+            int next = parameters.size() + 1;
+
+            String from = i == 0 ? null : bounds.get(i - 1);
+            String to = i == bounds.size() ? null : bounds.get(i);
+
+            String condition;
+            if (from == null) {
+                // First range also takes undated rows so nothing falls through the cracks
+                condition = "(games.gameDate < ?" + next + " OR games.gameDate IS NULL)";
+                parameters.put("param" + next, to);
+            } else if (to == null) {
+                condition = "games.gameDate >= ?" + next;
+                parameters.put("param" + next, from);
+            } else {
+                condition = "games.gameDate >= ?" + next + " AND games.gameDate < ?" + (next + 1);
+                parameters.put("param" + next, from);
+                parameters.put("param" + (next + 1), to);
+            }
+
+            // The date range lets a sharded storage send each partition to its own shards
+            QueryParts partitionParts = base.withCondition(condition).withDateRange(from, to);
+            plans.add(new ExecutionPlan(partitionParts.toSql(), parameters, plan.getResultType(), partitionParts));
+        }
+        return plans;
+    }
+
+    // Season start dates dividing the known seasons into evenly sized groups
+    private List<String> partitionBounds() {
+        List<String> seasons = SeasonMapper.getSeasons();
+        int count = Math.min(partitions, seasons.size());
+        List<String> bounds = new ArrayList<>(count - 1);
+        for (int k = 1; k < count; k++) {
+            String season = seasons.get(k * seasons.size() / count);
+            bounds.add(SeasonMapper.getSeasonDates(season).getStartDate());
+        }
+        return bounds;
+    }
+}
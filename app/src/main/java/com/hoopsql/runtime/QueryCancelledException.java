@@ -0,0 +1,19 @@
+package com.hoopsql.runtime;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a query is stopped by its deadline or an explicit cancel.
+ */
+public class QueryCancelledException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean timedOut;
+
+    public QueryCancelledException(String message, boolean timedOut, Throwable cause) {
+        super(message, cause);
+        this.timedOut = timedOut;
+    }
+
+    public boolean isTimedOut() { return timedOut; }
+}
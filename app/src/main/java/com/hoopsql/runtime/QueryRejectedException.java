@@ -0,0 +1,14 @@
+package com.hoopsql.runtime;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a query is turned away because its scheduler lane's queue is full.
+ */
+public class QueryRejectedException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
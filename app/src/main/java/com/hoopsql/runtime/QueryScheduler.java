@@ -0,0 +1,256 @@
+package com.hoopsql.runtime;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.QueryParts;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.metrics.Timer;
+import com.hoopsql.util.Config;
+
+/**
+ * Admission control for many concurrent clients.
+ *
+ * Each plan is classified as cheap or heavy and runs in that class's lane.
+ * A lane has a fixed number of running slots and a bounded queue. Cheap
+ * plans are bound to a player (the name lookup is indexed) or to at most a
+ * season of dates; everything else, such as league-wide scans and averages,
+ * is heavy. The heavy lane gets fewer slots than the read pool has
+ * connections, so a batch of scans always leaves connections for lookups;
+ * the exception is a pool of one connection, which the heavy lane shares
+ * with lookups (see Config.getHeavyQuerySlots).
+ *
+ * Within a lane, waiting clients take turns: a free slot goes to the next
+ * client in rotation, not to whoever queued the most work. A query waits
+ * under its own deadline and is turned away with QueryRejectedException
+ * once the lane's queue is full. Time spent queued is recorded per lane.
+ */
+public class QueryScheduler {
+    public enum Lane { CHEAP, HEAVY }
+
+    // The planner's predicate for a named player: TRIM(<alias>.firstName || ' ' || <alias>.lastName) = ?N
+    private static final Pattern BOUND_PLAYER = Pattern.compile("\\.lastName\\) = \\?\\d+");
+    private static final long MAX_CHEAP_DAYS = 366;
+    // How often a queued query rechecks its token for a cancel
+    private static final long CANCEL_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Executor executor;
+    private final LaneQueue cheap;
+    private final LaneQueue heavy;
+
+    public QueryScheduler(Executor executor, Config config) {
+        this(executor, config.getReadPoolSize(), config.getHeavyQuerySlots(), config.getMaxQueuedQueries());
+    }
+
+    public QueryScheduler(Executor executor, int cheapSlots, int heavySlots, int maxQueued) {
+        if (cheapSlots < 1 || heavySlots < 1) {
+            throw new IllegalArgumentException("Each lane needs at least one slot");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Queue limit must not be negative");
+        }
+        this.executor = executor;
+        this.cheap = new LaneQueue(Lane.CHEAP, cheapSlots, maxQueued, Metrics.QUEUE_CHEAP);
+        this.heavy = new LaneQueue(Lane.HEAVY, heavySlots, maxQueued, Metrics.QUEUE_HEAVY);
+    }
+
+    public static Lane classify(ExecutionPlan plan) {
+        QueryParts parts = plan.getParts();
+        if (parts == null) {
+            // Nothing to go on: assume the worst
+            return Lane.HEAVY;
+        }
+        for (String condition : parts.getConditions()) {
+            if (BOUND_PLAYER.matcher(condition).find()) {
+                return Lane.CHEAP;
+            }
+        }
+        if (parts.getDateFrom() != null && parts.getDateTo() != null) {
+            LocalDate from = LocalDate.parse(parts.getDateFrom().substring(0, 10));
+            LocalDate to = LocalDate.parse(parts.getDateTo().substring(0, 10));
+            if (ChronoUnit.DAYS.between(from, to) <= MAX_CHEAP_DAYS) {
+                return Lane.CHEAP;
+            }
+        }
+        return Lane.HEAVY;
+    }
+
+    public int getRunning(Lane lane) { return queue(lane).running(); }
+    public int getQueued(Lane lane) { return queue(lane).queued(); }
+
+    // The query work to do once admitted, e.g. an Executor call
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws SQLException, IOException;
+    }
+
+    public QueryResult execute(String client, ExecutionPlan plan, CancellationToken token) throws SQLException {
+        try {
+            return run(client, plan, token, () -> executor.execute(plan, token));
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    public long stream(String client, ExecutionPlan plan, CancellationToken token, Executor.RowWriter writer)
+            throws SQLException, IOException {
+        return run(client, plan, token, () -> executor.stream(plan, token, writer));
+    }
+
+    // Wait for a slot in the plan's lane, run work in it, and free the slot
+    public <T> T run(String client, ExecutionPlan plan, CancellationToken token, Work<T> work)
+            throws SQLException, IOException {
+        LaneQueue lane = queue(classify(plan));
+        lane.acquire(client, token);
+        try {
+            return work.run();
+        } finally {
+            lane.release();
+        }
+    }
+
+    private LaneQueue queue(Lane lane) {
+        return lane == Lane.CHEAP ? cheap : heavy;
+    }
+
+    private static final class LaneQueue {
+        private final Lane lane;
+        private final int slots;
+        private final int maxQueued;
+        private final Timer queueTime;
+        private final ReentrantLock lock = new ReentrantLock();
+        // Waiters by client, and the clients with waiters in the order they get their next turn
+        private final Map<String, ArrayDeque<Waiter>> waiting = new HashMap<>();
+        private final ArrayDeque<String> turns = new ArrayDeque<>();
+        private int running;
+        private int queued;
+
+        private static final class Waiter {
+            private final Condition admitted;
+            private boolean granted;
+
+            Waiter(Condition admitted) {
+                this.admitted = admitted;
+            }
+        }
+
+        LaneQueue(Lane lane, int slots, int maxQueued, Timer queueTime) {
+            this.lane = lane;
+            this.slots = slots;
+            this.maxQueued = maxQueued;
+            this.queueTime = queueTime;
+        }
+
+        int running() {
+            lock.lock();
+            try {
+                return running;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int queued() {
+            lock.lock();
+            try {
+                return queued;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void acquire(String client, CancellationToken token) throws SQLException {
+            long start = System.nanoTime();
+            lock.lock();
+            try {
+                token.check();
+                if (running < slots && queued == 0) {
+                    running++;
+                    queueTime.recordSince(start);
+                    return;
+                }
+                if (queued >= maxQueued) {
+                    Metrics.QUERIES_REJECTED.increment();
+                    throw new QueryRejectedException("Too many " + lane.name().toLowerCase()
+                        + " queries waiting (" + maxQueued + "); try again shortly");
+                }
+
+                Waiter waiter = new Waiter(lock.newCondition());
+                waiting.computeIfAbsent(client, c -> {
+                    turns.add(c);
+                    return new ArrayDeque<>();
+                }).add(waiter);
+                queued++;
+                try {
+                    while (!waiter.granted) {
+                        if (token.shouldStop()) {
+                            withdraw(client, waiter);
+                            token.check();
+                        }
+                        waiter.admitted.awaitNanos(Math.min(token.remainingNanos(), CANCEL_POLL_NANOS));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (waiter.granted) {
+                        running--;
+                        grantNext();
+                    } else {
+                        withdraw(client, waiter);
+                    }
+                    throw new SQLException("Interrupted while queued", e);
+                }
+                queueTime.recordSince(start);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                running--;
+                grantNext();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Hand free slots out one client at a time, in rotation
+        private void grantNext() {
+            while (running < slots && queued > 0) {
+                String client = turns.poll();
+                ArrayDeque<Waiter> waiters = waiting.get(client);
+                Waiter next = waiters.poll();
+                if (waiters.isEmpty()) {
+                    waiting.remove(client);
+                } else {
+                    turns.add(client);
+                }
+                queued--;
+                running++;
+                next.granted = true;
+                next.admitted.signal();
+            }
+        }
+
+        private void withdraw(String client, Waiter waiter) {
+            ArrayDeque<Waiter> waiters = waiting.get(client);
+            waiters.remove(waiter);
+            queued--;
+            if (waiters.isEmpty()) {
+                waiting.remove(client);
+                turns.remove(client);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.hoopsql.runtime;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.hoopsql.compiler.QueryParts;
+
+/**
+ * Runs one query as several partial queries over disjoint slices of the data
+ * (date partitions, shards) and merges their results back:
+ *   - ORDER BY ... LIMIT n: each slice returns its own top n plus the sort
+ *     key, and a k-way merge keeps the global top n
+ *   - no ORDER BY: slices are concatenated in date order, then truncated to LIMIT
+ *   - aggregates: AVG runs as SUM/COUNT per slice and is recombined; COUNT and
+ *     SUM add up, MIN/MAX keep the extreme; LIMIT 0 drops the row
+ */
+final class ResultMerger {
+    private static final String SORT_KEY = "__sort_key";
+    private static final Set<String> SPLITTABLE = Set.of("AVG", "COUNT", "SUM", "MIN", "MAX");
+
+    private ResultMerger() {}
+
+    static boolean canMerge(QueryParts parts) {
+        if (parts == null || parts.isGrouped()) {
+            // Grouped aggregates would need merging group by group; they run whole
+            return false;
+        }
+        for (QueryParts.Aggregate aggregate : parts.getAggregates()) {
+            if (!SPLITTABLE.contains(aggregate.function()) || aggregate.expression().startsWith("DISTINCT")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The query each slice runs so that merge() can combine the results
+    static QueryParts partialForm(QueryParts parts) {
+        return parts.isAggregate() ? partialAggregates(parts) : withSortKey(parts);
+    }
+
+    // Partials must be in date order (ties and unordered rows keep that order)
+    static QueryResult merge(QueryParts parts, List<QueryResult> partials, String resultType) {
+        if (parts.isAggregate()) {
+            return mergeAggregates(parts, partials, resultType);
+        }
+        return mergeRows(parts, partials, resultType);
+    }
+
+    private static QueryParts withSortKey(QueryParts parts) {
+        if (parts.getOrderBy() == null || carriesSortKey(parts)) {
+            return parts;
+        }
+        return parts.withSelect(parts.getSelect() + ", " + parts.getOrderBy() + " AS " + SORT_KEY);
+    }
+
+    // A partial query that is itself split again (a partition spanning shards) keeps its key
+    private static boolean carriesSortKey(QueryParts parts) {
+        return parts.getSelect().endsWith(" AS " + SORT_KEY);
+    }
+
+    // AVG becomes SUM + COUNT; the rest already combine. Partial forms are stable under re-splitting.
+    private static QueryParts partialAggregates(QueryParts parts) {
+        List<QueryParts.Aggregate> partial = new ArrayList<>();
+        for (QueryParts.Aggregate aggregate : parts.getAggregates()) {
+            if ("AVG".equals(aggregate.function())) {
+                partial.add(new QueryParts.Aggregate("SUM", aggregate.expression(), aggregate.alias() + "__sum"));
+                partial.add(new QueryParts.Aggregate("COUNT", aggregate.expression(), aggregate.alias() + "__count"));
+            } else {
+                partial.add(aggregate);
+            }
+        }
+        return parts.withAggregates(partial);
+    }
+
+    private record Cursor(int partition, int position) {}
+
+    private static QueryResult mergeRows(QueryParts parts, List<QueryResult> partials, String resultType) {
+        int limit = parts.getLimit() == null ? Integer.MAX_VALUE : parts.getLimit();
+        List<String> columns = new ArrayList<>(partials.get(0).getColumnNames());
+        if (!carriesSortKey(parts)) {
+            columns.remove(SORT_KEY);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (parts.getOrderBy() == null) {
+            for (QueryResult partial : partials) {
+                for (Map<String, Object> row : partial.getRows()) {
+                    if (rows.size() >= limit) {
+                        break;
+                    }
+                    rows.add(row);
+                }
+            }
+        } else {
+            // k-way merge of already sorted partitions; ties go to the earlier date range
+            Comparator<Object> keyOrder = parts.isAscending()
+                ? ResultMerger::compareKeys
+                : (a, b) -> compareKeys(b, a);
+            PriorityQueue<Cursor> heap = new PriorityQueue<>((x, y) -> {
+                int c = keyOrder.compare(sortKey(partials, x), sortKey(partials, y));
+                return c != 0 ? c : Integer.compare(x.partition(), y.partition());
+            });
+            for (int i = 0; i < partials.size(); i++) {
+                if (!partials.get(i).isEmpty()) {
+                    heap.add(new Cursor(i, 0));
+                }
+            }
+            while (!heap.isEmpty() && rows.size() < limit) {
+                Cursor cursor = heap.poll();
+                List<Map<String, Object>> source = partials.get(cursor.partition()).getRows();
+                rows.add(source.get(cursor.position()));
+                if (cursor.position() + 1 < source.size()) {
+                    heap.add(new Cursor(cursor.partition(), cursor.position() + 1));
+                }
+            }
+        }
+
+        if (!carriesSortKey(parts)) {
+            for (Map<String, Object> row : rows) {
+                row.remove(SORT_KEY);
+            }
+        }
+        return new QueryResult(rows, columns, resultType);
+    }
+
+    private static Object sortKey(List<QueryResult> partials, Cursor cursor) {
+        return partials.get(cursor.partition()).getRows().get(cursor.position()).get(SORT_KEY);
+    }
+
+    // SQLite ordering: NULL < numbers < text
+    static int compareKeys(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a instanceof Number) return -1;
+        if (b instanceof Number) return 1;
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static QueryResult mergeAggregates(QueryParts parts, List<QueryResult> partials, String resultType) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        List<String> columns = new ArrayList<>();
+
+        for (QueryParts.Aggregate aggregate : parts.getAggregates()) {
+            String alias = aggregate.alias();
+            columns.add(alias);
+
+            switch (aggregate.function()) {
+                case "AVG" -> {
+                    double sum = 0;
+                    long count = 0;
+                    for (QueryResult partial : partials) {
+                        Object partialSum = value(partial, alias + "__sum");
+                        Object partialCount = value(partial, alias + "__count");
+                        if (partialSum != null) sum += ((Number) partialSum).doubleValue();
+                        if (partialCount != null) count += ((Number) partialCount).longValue();
+                    }
+                    row.put(alias, count == 0 ? null : sum / count);
+                }
+                case "COUNT" -> {
+                    // No partial rows at all still counts nothing, as COUNT over no rows does
+                    Object count = sum(partials, alias);
+                    row.put(alias, count != null ? count : 0);
+                }
+                case "SUM" -> row.put(alias, sum(partials, alias));
+                default -> {
+                    // MIN / MAX
+                    boolean max = "MAX".equals(aggregate.function());
+                    Object best = null;
+                    for (QueryResult partial : partials) {
+                        Object v = value(partial, alias);
+                        if (v != null && (best == null || (max ? compareKeys(v, best) > 0 : compareKeys(v, best) < 0))) {
+                            best = v;
+                        }
+                    }
+                    row.put(alias, best);
+                }
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (parts.getLimit() == null || parts.getLimit() > 0) {
+            rows.add(row);
+        }
+        return new QueryResult(rows, columns, resultType);
+    }
+
+    // Adds partial COUNT/SUM values, keeping integer results integral like SQLite does
+    private static Object sum(List<QueryResult> partials, String alias) {
+        long longTotal = 0;
+        double doubleTotal = 0;
+        boolean fractional = false;
+        boolean any = false;
+        for (QueryResult partial : partials) {
+            Object v = value(partial, alias);
+            if (v instanceof Number n) {
+                any = true;
+                if (v instanceof Double || v instanceof Float) {
+                    fractional = true;
+                    doubleTotal += n.doubleValue();
+                } else {
+                    longTotal += n.longValue();
+                }
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        if (fractional) {
+            return doubleTotal + longTotal;
+        }
+        return longTotal <= Integer.MAX_VALUE && longTotal >= Integer.MIN_VALUE ? (Object) (int) longTotal : longTotal;
+    }
+
+    private static Object value(QueryResult partial, String column) {
+        return partial.isEmpty() ? null : partial.getRows().get(0).get(column);
+    }
+}
@@ -0,0 +1,128 @@
+package com.hoopsql.runtime;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.hoopsql.compiler.ExecutionPlan;
+
+/**
+ * Where a paged listing stopped: the sort key and row key of the last row
+ * returned, how many rows at exactly that key were returned (a box score
+ * listed twice has one key for both), plus how many rows have been returned
+ * so far (for plans with a limit). Encoded as an opaque URL-safe string, tied to the query it came
+ * from so it can't be replayed against a different one.
+ */
+public final class ResumeToken {
+    private static final byte VERSION = 2;
+    // Stands in for a NULL sort key, which List.copyOf would reject
+    private static final Object NULL = new Object();
+
+    private final String fingerprint;
+    private final int returned;
+    private final int repeats;
+    private final List<Object> lastKey;
+
+    ResumeToken(String fingerprint, int returned, int repeats, List<Object> lastKey) {
+        this.fingerprint = fingerprint;
+        this.returned = returned;
+        this.repeats = repeats;
+        this.lastKey = List.copyOf(lastKey.stream().map(v -> v == null ? NULL : v).toList());
+    }
+
+    int getReturned() { return returned; }
+    int getRepeats() { return repeats; }
+
+    List<Object> getLastKey() {
+        List<Object> values = new ArrayList<>(lastKey.size());
+        for (Object value : lastKey) {
+            values.add(value == NULL ? null : value);
+        }
+        return values;
+    }
+
+    // Identifies a plan by its SQL and parameter values; stable across processes
+    static String fingerprint(ExecutionPlan plan) {
+        Map<String, Object> parameters = new TreeMap<>(plan.getParameters());
+        return Integer.toHexString(Objects.hash(plan.getSql(), parameters.toString()));
+    }
+
+    // Check that this token was issued for the given plan
+    void checkIssuedFor(ExecutionPlan plan) {
+        if (!fingerprint.equals(fingerprint(plan))) {
+            throw new IllegalArgumentException("Resume token belongs to a different query");
+        }
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(returned);
+            out.writeInt(repeats);
+            out.writeByte(lastKey.size());
+            for (Object value : lastKey) {
+                if (value == NULL) {
+                    out.writeByte('N');
+                } else if (value instanceof Integer || value instanceof Long) {
+                    out.writeByte('I');
+                    out.writeLong(((Number) value).longValue());
+                } else if (value instanceof Number number) {
+                    out.writeByte('D');
+                    out.writeDouble(number.doubleValue());
+                } else {
+                    out.writeByte('S');
+                    out.writeUTF(value.toString());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot encode resume token", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static ResumeToken decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed resume token", e);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported resume token version");
+            }
+            String fingerprint = in.readUTF();
+            int returned = in.readInt();
+            int repeats = in.readInt();
+            int size = in.readByte();
+            List<Object> lastKey = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                switch (in.readByte()) {
+                    case 'N' -> lastKey.add(null);
+                    case 'I' -> lastKey.add(in.readLong());
+                    case 'D' -> lastKey.add(in.readDouble());
+                    case 'S' -> lastKey.add(in.readUTF());
+                    default -> throw new IllegalArgumentException("Malformed resume token");
+                }
+            }
+            return new ResumeToken(fingerprint, returned, repeats, lastKey);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed resume token", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,28 @@
+package com.hoopsql.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown at compile time when a query names a player or team the database
+ * doesn't have. The message is the full diagnostic, suggestions included.
+ */
+public class UnknownNameException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final String name;
+    private final ArrayList<String> suggestions; // a concrete list, so the exception stays serializable
+
+    public UnknownNameException(String kind, String name, int line, List<String> suggestions) {
+        super(ErrorReporter.format(line, "Unknown " + kind + " '" + name + "'.", ErrorReporter.maybe(suggestions)));
+        this.line = line;
+        this.name = name;
+        this.suggestions = new ArrayList<>(suggestions);
+    }
+
+    public int getLine() { return line; }
+    public String getName() { return name; }
+    public List<String> getSuggestions() { return Collections.unmodifiableList(suggestions); }
+}
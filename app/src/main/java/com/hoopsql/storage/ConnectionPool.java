@@ -0,0 +1,135 @@
+package com.hoopsql.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import com.hoopsql.metrics.Metrics;
+
+/**
+ * Fixed-size pool of read-only SQLite connections.
+ * Connections are opened lazily; callers block in {@link #acquire()} once
+ * all of them are in use, which is what bounds concurrent query execution.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final SQLiteStorage storage;
+    private final int size;
+    private final Semaphore available;
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> opened = new ArrayList<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public ConnectionPool(SQLiteStorage storage, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.storage = storage;
+        this.size = size;
+        this.available = new Semaphore(size, true);
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    public int getSize() { return size; }
+
+    // A prepared statement for an acquired connection, reused across queries with the same SQL.
+    // The pool owns it: callers close their ResultSets but not the statement.
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        int capacity = storage.getConfig().getStatementCacheSize();
+        if (capacity == 0) {
+            throw new IllegalStateException("Statement cache is disabled");
+        }
+        return statementCaches.computeIfAbsent(connection, c -> new StatementCache(c, capacity)).prepare(sql);
+    }
+
+    // Drop the cached statement for sql after a failed run, so the next query prepares it again
+    public void discard(Connection connection, String sql) {
+        StatementCache cache = statementCaches.get(connection);
+        if (cache != null) {
+            cache.discard(sql);
+        }
+    }
+
+    public boolean isStatementCacheEnabled() {
+        return storage.getConfig().getStatementCacheSize() > 0;
+    }
+
+    public Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            available.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        Metrics.POOL_WAIT.recordSince(start);
+
+        try {
+            Connection connection = idle.poll();
+            if (connection == null || connection.isClosed()) {
+                connection = open();
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (closed || connection.isClosed()) {
+                statementCaches.remove(connection);
+                connection.close();
+                synchronized (opened) {
+                    opened.remove(connection);
+                }
+            } else {
+                idle.offer(connection);
+            }
+        } catch (SQLException ignored) {
+            // A broken connection is simply not returned; the next acquire opens a new one
+        } finally {
+            available.release();
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection connection = storage.connectReadOnly();
+        synchronized (opened) {
+            opened.add(connection);
+        }
+        return connection;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (opened) {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // Closing anyway
+                }
+            }
+            opened.clear();
+        }
+        statementCaches.clear();
+        idle.clear();
+    }
+}
@@ -0,0 +1,727 @@
+package com.hoopsql.storage;
+
+import com.hoopsql.util.SeasonMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic, schema-compatible hoopsql.db (games, players,
+ * player_statistics, team_statistics, team_histories) for offline and
+ * scale testing.
+ *
+ * Output is fully determined by the seed and the target row count. Box
+ * scores are internally consistent (points = 2*FG2 + 3*FG3 + FT, rebounds =
+ * offensive + defensive, team totals = sum of players) and follow skewed
+ * per-player skill distributions, so threshold and top-K queries behave like
+ * they do on the real data.
+ *
+ * Usage:
+ *   java -cp hoopsql.jar com.hoopsql.storage.DatasetGenerator \
+ *       --out SQLite/synthetic.db --box-scores 16M --seed 42 [--seasons 30]
+ */
+public class DatasetGenerator {
+    private static final int ROSTER_SIZE = 15;
+    private static final int GAMES_PER_TEAM = 82;
+    private static final double DNP_RATE = 0.08;
+    private static final double BOX_SCORES_PER_GAME = 2 * ROSTER_SIZE * (1 - DNP_RATE);
+    private static final int LAST_SEASON_END_YEAR = 2025; // 2024-25
+
+    // Star franchises come first so small datasets still contain them
+    private static final String[][] FRANCHISES = {
+        {"Los Angeles", "Lakers", "LAL"}, {"Cleveland", "Cavaliers", "CLE"}, {"Golden State", "Warriors", "GSW"},
+        {"Miami", "Heat", "MIA"}, {"Boston", "Celtics", "BOS"}, {"Chicago", "Bulls", "CHI"},
+        {"San Antonio", "Spurs", "SAS"}, {"New York", "Knicks", "NYK"}, {"Atlanta", "Hawks", "ATL"},
+        {"Brooklyn", "Nets", "BKN"}, {"Charlotte", "Hornets", "CHA"}, {"Dallas", "Mavericks", "DAL"},
+        {"Denver", "Nuggets", "DEN"}, {"Detroit", "Pistons", "DET"}, {"Houston", "Rockets", "HOU"},
+        {"Indiana", "Pacers", "IND"}, {"LA", "Clippers", "LAC"}, {"Memphis", "Grizzlies", "MEM"},
+        {"Milwaukee", "Bucks", "MIL"}, {"Minnesota", "Timberwolves", "MIN"}, {"New Orleans", "Pelicans", "NOP"},
+        {"Oklahoma City", "Thunder", "OKC"}, {"Orlando", "Magic", "ORL"}, {"Philadelphia", "76ers", "PHI"},
+        {"Phoenix", "Suns", "PHX"}, {"Portland", "Trail Blazers", "POR"}, {"Sacramento", "Kings", "SAC"},
+        {"Toronto", "Raptors", "TOR"}, {"Utah", "Jazz", "UTA"}, {"Washington", "Wizards", "WAS"}
+    };
+
+    // first, last, then (franchise, first season end year, last season end year) stints
+    private static final Object[][] STARS = {
+        {"Kobe", "Bryant", new int[][] {{0, 1997, 2016}}},
+        {"Shaquille", "O'Neal", new int[][] {{0, 1997, 2004}, {3, 2005, 2008}}},
+        {"LeBron", "James", new int[][] {{1, 2004, 2010}, {3, 2011, 2014}, {1, 2015, 2018}, {0, 2019, 2025}}},
+        {"Stephen", "Curry", new int[][] {{2, 2010, 2025}}},
+        {"Michael", "Jordan", new int[][] {{5, 1996, 1998}}},
+        {"Tim", "Duncan", new int[][] {{6, 1998, 2016}}}
+    };
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Chris", "Anthony", "Kevin", "Marcus", "Jalen", "Tyrese", "Devin", "Jaylen", "Paul",
+        "Damian", "Kyle", "Jamal", "Derrick", "Dwight", "Andre", "Trey", "Malik", "Zach", "Jordan",
+        "Brandon", "Cameron", "Darius", "Elijah", "Isaiah", "Jrue", "Khris", "Luka", "Nikola", "Rudy",
+        "Domantas", "Bam", "Mikal", "OG", "Pascal", "Shai", "Tobias", "Victor", "Wendell", "Aaron"
+    };
+    private static final String[] LAST_NAMES = {
+        "Williams", "Johnson", "Brown", "Davis", "Miller", "Wilson", "Moore", "Taylor", "Thomas", "Jackson",
+        "White", "Harris", "Martin", "Thompson", "Robinson", "Walker", "Young", "Allen", "King", "Wright",
+        "Scott", "Green", "Baker", "Adams", "Nelson", "Hill", "Campbell", "Mitchell", "Roberts", "Carter",
+        "Phillips", "Evans", "Turner", "Parker", "Collins", "Edwards", "Stewart", "Morris", "Murphy", "Cook"
+    };
+
+    private final long seed;
+    private final long targetBoxScores;
+    private final int seasons;
+    private int batchSize = 10_000;
+
+    public DatasetGenerator(long seed, long targetBoxScores, int seasons) {
+        if (targetBoxScores <= 0) {
+            throw new IllegalArgumentException("Box score count must be positive");
+        }
+        if (seasons <= 0) {
+            throw new IllegalArgumentException("Season count must be positive");
+        }
+        this.seed = seed;
+        this.targetBoxScores = targetBoxScores;
+        this.seasons = seasons;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public static void main(String[] args) {
+        Path out = Paths.get("SQLite", "synthetic.db");
+        long boxScores = 1_000_000;
+        long seed = 42;
+        int seasons = 30;
+        int batch = 10_000;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--out" -> out = Paths.get(value);
+                case "--box-scores" -> boxScores = parseCount(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--seasons" -> seasons = Integer.parseInt(value);
+                case "--batch" -> batch = Integer.parseInt(value);
+                default -> usage("Unknown option: " + arg);
+            }
+        }
+
+        DatasetGenerator generator = new DatasetGenerator(seed, boxScores, seasons);
+        generator.setBatchSize(batch);
+        try {
+            long start = System.nanoTime();
+            Summary summary = generator.generate(out);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Wrote %s: %,d box scores, %,d games, %,d players, %,d teams in %.1fs%n",
+                out, summary.boxScores(), summary.games(), summary.players(), summary.teams(), elapsedMs / 1000.0);
+        } catch (Exception e) {
+            System.err.println("Generation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: DatasetGenerator [--out file.db] [--box-scores 1M|16M|160M] [--seed 42] [--seasons 30] [--batch 10000]");
+        System.exit(1);
+    }
+
+    // Accepts plain numbers or K/M suffixes (250K, 16M)
+    static long parseCount(String value) {
+        String v = value.trim().toUpperCase().replace("_", "");
+        long multiplier = 1;
+        if (v.endsWith("K")) {
+            multiplier = 1_000;
+            v = v.substring(0, v.length() - 1);
+        } else if (v.endsWith("M")) {
+            multiplier = 1_000_000;
+            v = v.substring(0, v.length() - 1);
+        }
+        return Long.parseLong(v) * multiplier;
+    }
+
+    public record Summary(long boxScores, long games, int players, int teams) {}
+
+    public Summary generate(Path out) throws SQLException, java.io.IOException {
+        Files.deleteIfExists(out);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+
+        // Scale the league so the season range still holds the requested rows:
+        // more box scores means more teams per season, not more seasons.
+        long totalGames = Math.max(1, Math.round(targetBoxScores / BOX_SCORES_PER_GAME));
+        long gamesPerSeason = Math.max(1, totalGames / seasons);
+        int teamCount = (int) Math.max(2, Math.round(2.0 * gamesPerSeason / GAMES_PER_TEAM));
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int firstSeasonEndYear = LAST_SEASON_END_YEAR - seasons + 1;
+        League league = new League(teamCount, firstSeasonEndYear, random);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + out)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=OFF");
+                stmt.execute("PRAGMA synchronous=OFF");
+                stmt.execute("PRAGMA locking_mode=EXCLUSIVE");
+                stmt.execute("PRAGMA cache_size=-262144");
+                createSchema(stmt);
+            }
+            conn.setAutoCommit(false);
+
+            Writer writer = new Writer(conn, batchSize);
+            long boxScores = 0;
+            long gameId = 0;
+
+            for (int s = 0; s < seasons && boxScores < targetBoxScores; s++) {
+                int endYear = firstSeasonEndYear + s;
+                league.startSeason(endYear);
+                LocalDate[] range = seasonRange(endYear);
+                long days = Math.max(1, ChronoUnit.DAYS.between(range[0], range[1]));
+
+                long seasonGames = s == seasons - 1 ? totalGames - gameId : gamesPerSeason;
+                for (long g = 0; g < seasonGames && boxScores < targetBoxScores; g++) {
+                    gameId++;
+                    LocalDate day = range[0].plusDays(g * days / seasonGames);
+                    boxScores += playGame(league, random, writer, gameId, day);
+                }
+
+                // Finish the target in the last season if DNP variance left us short
+                while (s == seasons - 1 && boxScores < targetBoxScores) {
+                    gameId++;
+                    boxScores += playGame(league, random, writer, gameId, range[1]);
+                }
+            }
+
+            writer.writePlayers(league);
+            writer.writeTeams(league, firstSeasonEndYear);
+            writer.flush();
+            conn.commit();
+
+            try (Statement stmt = conn.createStatement()) {
+                createIndexes(stmt);
+            }
+            conn.commit();
+
+            return new Summary(boxScores, gameId, league.players.size(), teamCount);
+        }
+    }
+
+    private static LocalDate[] seasonRange(int endYear) {
+        String season = (endYear - 1) + "-" + String.format("%02d", endYear % 100);
+        SeasonMapper.SeasonDates dates = SeasonMapper.getSeasonDates(season);
+        if (dates != null) {
+            return new LocalDate[] { LocalDate.parse(dates.getStartDate()), LocalDate.parse(dates.getEndDate()) };
+        }
+        return new LocalDate[] { LocalDate.of(endYear - 1, 11, 1), LocalDate.of(endYear, 6, 15) };
+    }
+
+    private int playGame(League league, SplittableRandom random, Writer writer, long gameId, LocalDate day) throws SQLException {
+        int home = random.nextInt(league.teamCount);
+        int away = (home + 1 + random.nextInt(league.teamCount - 1)) % league.teamCount;
+        String gameDate = day + (random.nextBoolean() ? " 19:30:00" : " 22:30:00");
+
+        int[][] homeLines = new int[ROSTER_SIZE][];
+        int[][] awayLines = new int[ROSTER_SIZE][];
+        int homeScore = simulateSide(league, random, home, homeLines);
+        int awayScore = simulateSide(league, random, away, awayLines);
+        if (homeScore == awayScore) {
+            // Overtime: someone on the home side hits the winner
+            homeScore += addOvertimePoints(homeLines, random);
+        }
+        boolean homeWin = homeScore > awayScore;
+
+        writer.game(gameId, gameDate, league, home, away, homeScore, awayScore);
+
+        int written = 0;
+        written += writer.boxScores(league, gameId, gameDate, home, away, homeLines, true, homeWin, homeScore - awayScore, random);
+        written += writer.boxScores(league, gameId, gameDate, away, home, awayLines, false, !homeWin, awayScore - homeScore, random);
+
+        writer.teamGame(league, gameId, gameDate, home, away, homeLines, true, homeWin, homeScore, awayScore, random);
+        writer.teamGame(league, gameId, gameDate, away, home, awayLines, false, !homeWin, awayScore, homeScore, random);
+        league.recordResult(homeWin ? home : away, homeWin ? away : home);
+        return written;
+    }
+
+    // Stat line layout
+    private static final int MIN = 0, PTS = 1, AST = 2, BLK = 3, STL = 4, FGA = 5, FGM = 6, TPA = 7, TPM = 8,
+        FTA = 9, FTM = 10, DREB = 11, OREB = 12, PF = 13, TOV = 14, LINE_WIDTH = 15;
+
+    private int simulateSide(League league, SplittableRandom random, int team, int[][] lines) {
+        int score = 0;
+        int[] roster = league.rosters[team];
+        for (int slot = 0; slot < ROSTER_SIZE; slot++) {
+            PlayerProfile p = league.players.get(roster[slot]);
+            if (random.nextDouble() < DNP_RATE && !p.star) {
+                continue;
+            }
+            int[] line = new int[LINE_WIDTH];
+            double minutes = clamp(p.minutesMean + random.nextGaussian() * 4, 2, 46);
+            double form = Math.exp(random.nextGaussian() * 0.18); // hot and cold nights
+
+            int fga = poisson(random, minutes * p.usage * form);
+            int tpa = binomial(random, fga, p.threeRate);
+            int fg2m = binomial(random, fga - tpa, clamp(p.fgPct + (form - 1) * 0.05, 0.2, 0.8));
+            int tpm = binomial(random, tpa, p.threePct);
+            int fta = poisson(random, fga * p.ftRate);
+            int ftm = binomial(random, fta, p.ftPct);
+            int reb = poisson(random, minutes * p.reboundRate);
+            int oreb = binomial(random, reb, 0.25);
+
+            line[MIN] = (int) Math.round(minutes);
+            line[FGA] = fga;
+            line[FGM] = fg2m + tpm;
+            line[TPA] = tpa;
+            line[TPM] = tpm;
+            line[FTA] = fta;
+            line[FTM] = ftm;
+            line[PTS] = 2 * fg2m + 3 * tpm + ftm;
+            line[OREB] = oreb;
+            line[DREB] = reb - oreb;
+            line[AST] = poisson(random, minutes * p.assistRate);
+            line[STL] = poisson(random, minutes * 0.035);
+            line[BLK] = poisson(random, minutes * p.blockRate);
+            line[TOV] = poisson(random, minutes * (0.03 + p.usage * 0.08));
+            line[PF] = Math.min(6, poisson(random, minutes * 0.07));
+            lines[slot] = line;
+            score += line[PTS];
+        }
+        return score;
+    }
+
+    private static int addOvertimePoints(int[][] lines, SplittableRandom random) {
+        for (int attempt = 0; attempt < ROSTER_SIZE; attempt++) {
+            int[] line = lines[random.nextInt(ROSTER_SIZE)];
+            if (line != null) {
+                line[PTS] += 2;
+                line[FGA] += 1;
+                line[FGM] += 1;
+                return 2;
+            }
+        }
+        return 0;
+    }
+
+    private static double clamp(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+
+    private static int poisson(SplittableRandom random, double lambda) {
+        if (lambda <= 0) {
+            return 0;
+        }
+        if (lambda > 30) {
+            return (int) Math.max(0, Math.round(lambda + random.nextGaussian() * Math.sqrt(lambda)));
+        }
+        double limit = Math.exp(-lambda);
+        double product = random.nextDouble();
+        int k = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            k++;
+        }
+        return k;
+    }
+
+    private static int binomial(SplittableRandom random, int n, double p) {
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (random.nextDouble() < p) {
+                k++;
+            }
+        }
+        return k;
+    }
+
+    private static void createSchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE games (gameId INTEGER PRIMARY KEY, gameDate TEXT, "
+            + "hometeamCity TEXT, hometeamName TEXT, hometeamId INTEGER, "
+            + "awayteamCity TEXT, awayteamName TEXT, awayteamId INTEGER, "
+            + "homeScore INTEGER, awayScore INTEGER, winner INTEGER, gameType TEXT, "
+            + "attendance INTEGER, arenaId INTEGER, gameLabel TEXT, gameSubLabel TEXT, seriesGameNumber INTEGER)");
+        stmt.execute("CREATE TABLE players (personId INTEGER PRIMARY KEY, firstName TEXT, lastName TEXT, "
+            + "birthdate TEXT, lastAttended TEXT, country TEXT, height INTEGER, bodyWeight INTEGER, "
+            + "guard INTEGER, forward INTEGER, center INTEGER, draftYear INTEGER, draftRound INTEGER, draftNumber INTEGER)");
+        stmt.execute("CREATE TABLE player_statistics (firstName TEXT, lastName TEXT, personId INTEGER, "
+            + "gameId INTEGER, gameDate TEXT, playerteamCity TEXT, playerteamName TEXT, "
+            + "opponentteamCity TEXT, opponentteamName TEXT, gameType TEXT, gameLabel TEXT, gameSubLabel TEXT, "
+            + "seriesGameNumber INTEGER, win INTEGER, home INTEGER, numMinutes REAL, points INTEGER, "
+            + "assists INTEGER, blocks INTEGER, steals INTEGER, fieldGoalsAttempted INTEGER, fieldGoalsMade INTEGER, "
+            + "fieldGoalsPercentage REAL, threePointersAttempted INTEGER, threePointersMade INTEGER, "
+            + "threePointersPercentage REAL, freeThrowsAttempted INTEGER, freeThrowsMade INTEGER, "
+            + "freeThrowsPercentage REAL, reboundsDefensive INTEGER, reboundsOffensive INTEGER, "
+            + "reboundsTotal INTEGER, foulsPersonal INTEGER, turnovers INTEGER, plusMinusPoints INTEGER)");
+        stmt.execute("CREATE TABLE team_statistics (gameId INTEGER, gameDate TEXT, teamCity TEXT, teamName TEXT, "
+            + "teamId INTEGER, opponentTeamCity TEXT, opponentTeamName TEXT, opponentTeamId INTEGER, "
+            + "home INTEGER, win INTEGER, teamScore INTEGER, opponentScore INTEGER, assists INTEGER, "
+            + "blocks INTEGER, steals INTEGER, fieldGoalsAttempted INTEGER, fieldGoalsMade INTEGER, "
+            + "fieldGoalsPercentage REAL, threePointersAttempted INTEGER, threePointersMade INTEGER, "
+            + "threePointersPercentage REAL, freeThrowsAttempted INTEGER, freeThrowsMade INTEGER, "
+            + "freeThrowsPercentage REAL, reboundsDefensive INTEGER, reboundsOffensive INTEGER, "
+            + "reboundsTotal INTEGER, foulsPersonal INTEGER, turnovers INTEGER, plusMinusPoints INTEGER, "
+            + "numMinutes REAL, q1Points INTEGER, q2Points INTEGER, q3Points INTEGER, q4Points INTEGER, "
+            + "seasonWins INTEGER, seasonLosses INTEGER, PRIMARY KEY (teamId, gameId))");
+        stmt.execute("CREATE TABLE team_histories (teamId INTEGER PRIMARY KEY, teamCity TEXT, teamName TEXT, "
+            + "teamAbbrev TEXT, seasonFounded INTEGER, seasonActiveTill INTEGER, league TEXT)");
+    }
+
+    private static void createIndexes(Statement stmt) throws SQLException {
+        for (SQLiteStorage.QueryIndex index : SQLiteStorage.QUERY_INDEXES) {
+            stmt.execute(index.toSql());
+        }
+        stmt.execute("ANALYZE");
+    }
+
+    // Per-player tendencies, fixed for the whole career
+    private static final class PlayerProfile {
+        final int personId;
+        final String firstName;
+        final String lastName;
+        final boolean star;
+        final int rookieYear;
+        final int careerSeasons;
+        double minutesMean, usage, fgPct, threeRate, threePct, ftRate, ftPct;
+        double reboundRate, assistRate, blockRate;
+        int height, weight;
+
+        PlayerProfile(int personId, String firstName, String lastName, boolean star, int rookieYear,
+                      int careerSeasons, SplittableRandom random) {
+            this.personId = personId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.star = star;
+            this.rookieYear = rookieYear;
+            this.careerSeasons = careerSeasons;
+
+            // Talent is heavily skewed: a few high-usage scorers, many role players
+            double talent = star ? 1.0 : Math.pow(random.nextDouble(), 2.5);
+            double size = random.nextDouble(); // 0 = point guard, 1 = center
+            minutesMean = 6 + 28 * Math.sqrt(talent) + (star ? 2 : 0);
+            usage = 0.2 + 0.3 * talent + (star ? 0.03 : 0);
+            fgPct = 0.44 + 0.08 * size + random.nextGaussian() * 0.025;
+            threeRate = clamp(0.45 - 0.4 * size + random.nextGaussian() * 0.05, 0.0, 0.65);
+            threePct = clamp(0.35 + random.nextGaussian() * 0.03, 0.2, 0.45);
+            ftRate = 0.2 + 0.15 * talent;
+            ftPct = clamp(0.85 - 0.2 * size + random.nextGaussian() * 0.04, 0.45, 0.95);
+            reboundRate = 0.1 + 0.22 * size + 0.05 * talent;
+            assistRate = 0.03 + 0.18 * (1 - size) * (0.5 + talent);
+            blockRate = 0.005 + 0.05 * size;
+            height = (int) Math.round(73 + 13 * size + random.nextGaussian());
+            weight = (int) Math.round(180 + 80 * size + random.nextGaussian() * 10);
+        }
+
+        boolean isGuard() { return assistRate > 0.12; }
+        boolean isCenter() { return reboundRate > 0.27; }
+    }
+
+    // Teams, rosters and the players that moved through them
+    private static final class League {
+        final int teamCount;
+        final int[][] rosters;
+        final List<PlayerProfile> players = new ArrayList<>();
+        final int[] wins;
+        final int[] losses;
+        private final SplittableRandom random;
+        private final int[] starIds = new int[STARS.length];
+
+        League(int teamCount, int firstSeasonEndYear, SplittableRandom random) {
+            this.teamCount = teamCount;
+            this.rosters = new int[teamCount][ROSTER_SIZE];
+            this.wins = new int[teamCount];
+            this.losses = new int[teamCount];
+            this.random = random;
+            for (int s = 0; s < STARS.length; s++) {
+                int[][] stints = (int[][]) STARS[s][2];
+                PlayerProfile star = new PlayerProfile(players.size() + 1, (String) STARS[s][0], (String) STARS[s][1],
+                    true, stints[0][1] - 1, stints[stints.length - 1][2] - stints[0][1] + 1, random);
+                players.add(star);
+                starIds[s] = players.size() - 1;
+            }
+            // Opening-day rosters are a mix of veterans and young players
+            for (int t = 0; t < teamCount; t++) {
+                for (int slot = 0; slot < ROSTER_SIZE; slot++) {
+                    rosters[t][slot] = newPlayer(firstSeasonEndYear - 1 - random.nextInt(10)).personId - 1;
+                }
+            }
+        }
+
+        void startSeason(int endYear) {
+            Arrays.fill(wins, 0);
+            Arrays.fill(losses, 0);
+
+            // Retire players at the end of their careers (stars are placed below)
+            for (int t = 0; t < teamCount; t++) {
+                for (int slot = 0; slot < ROSTER_SIZE; slot++) {
+                    PlayerProfile p = players.get(rosters[t][slot]);
+                    boolean retired = endYear - p.rookieYear > p.careerSeasons;
+                    if (p.star || retired) {
+                        rosters[t][slot] = newPlayer(endYear - 1).personId - 1;
+                    }
+                }
+            }
+
+            // Place stars on their franchise for this season, if that franchise exists
+            for (int s = 0; s < STARS.length; s++) {
+                for (int[] stint : (int[][]) STARS[s][2]) {
+                    if (endYear >= stint[1] && endYear <= stint[2] && stint[0] < teamCount) {
+                        rosters[stint[0]][s % ROSTER_SIZE] = starIds[s];
+                    }
+                }
+            }
+        }
+
+        void recordResult(int winner, int loser) {
+            wins[winner]++;
+            losses[loser]++;
+        }
+
+        private PlayerProfile newPlayer(int rookieYear) {
+            String first;
+            String last;
+            do {
+                first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            } while (isStarName(first, last));
+
+            PlayerProfile p = new PlayerProfile(players.size() + 1, first, last, false,
+                rookieYear, 2 + random.nextInt(15), random);
+            players.add(p);
+            return p;
+        }
+
+        private static boolean isStarName(String first, String last) {
+            for (Object[] star : STARS) {
+                if (star[0].equals(first) && star[1].equals(last)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String city(int team) {
+            return FRANCHISES[team % FRANCHISES.length][0];
+        }
+
+        // Expansion teams beyond the 30 franchises get numbered names
+        String name(int team) {
+            String base = FRANCHISES[team % FRANCHISES.length][1];
+            return team < FRANCHISES.length ? base : base + " " + (team / FRANCHISES.length + 1);
+        }
+
+        String abbrev(int team) {
+            String base = FRANCHISES[team % FRANCHISES.length][2];
+            return team < FRANCHISES.length ? base : base + (team / FRANCHISES.length + 1);
+        }
+    }
+
+    // Batched prepared-statement inserts for every table
+    private static final class Writer {
+        private final Connection conn;
+        private final int batchSize;
+        private final PreparedStatement games;
+        private final PreparedStatement boxScores;
+        private final PreparedStatement teamStats;
+        private int pendingRows;
+
+        Writer(Connection conn, int batchSize) throws SQLException {
+            this.conn = conn;
+            this.batchSize = batchSize;
+            this.games = conn.prepareStatement(
+                "INSERT INTO games VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'Regular Season', ?, ?, NULL, NULL, NULL)");
+            this.boxScores = conn.prepareStatement("INSERT INTO player_statistics VALUES ("
+                + "?, ?, ?, ?, ?, ?, ?, ?, ?, 'Regular Season', NULL, NULL, NULL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, "
+                + "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            this.teamStats = conn.prepareStatement("INSERT INTO team_statistics VALUES ("
+                + "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+
+        void game(long gameId, String gameDate, League league, int home, int away,
+                  int homeScore, int awayScore) throws SQLException {
+            int p = 1;
+            games.setLong(p++, gameId);
+            games.setString(p++, gameDate);
+            games.setString(p++, league.city(home));
+            games.setString(p++, league.name(home));
+            games.setInt(p++, home + 1);
+            games.setString(p++, league.city(away));
+            games.setString(p++, league.name(away));
+            games.setInt(p++, away + 1);
+            games.setInt(p++, homeScore);
+            games.setInt(p++, awayScore);
+            games.setInt(p++, homeScore > awayScore ? home + 1 : away + 1);
+            games.setInt(p++, 15000 + (int) (gameId * 7919 % 6000));
+            games.setInt(p++, home + 1);
+            games.addBatch();
+            count(1);
+        }
+
+        int boxScores(League league, long gameId, String gameDate, int team, int opponent, int[][] lines,
+                      boolean home, boolean win, int margin, SplittableRandom random) throws SQLException {
+            int written = 0;
+            for (int slot = 0; slot < ROSTER_SIZE; slot++) {
+                int[] line = lines[slot];
+                if (line == null) {
+                    continue;
+                }
+                PlayerProfile player = league.players.get(league.rosters[team][slot]);
+                int p = 1;
+                boxScores.setString(p++, player.firstName);
+                boxScores.setString(p++, player.lastName);
+                boxScores.setInt(p++, player.personId);
+                boxScores.setLong(p++, gameId);
+                boxScores.setString(p++, gameDate);
+                boxScores.setString(p++, league.city(team));
+                boxScores.setString(p++, league.name(team));
+                boxScores.setString(p++, league.city(opponent));
+                boxScores.setString(p++, league.name(opponent));
+                boxScores.setInt(p++, win ? 1 : 0);
+                boxScores.setInt(p++, home ? 1 : 0);
+                boxScores.setDouble(p++, line[MIN]);
+                boxScores.setInt(p++, line[PTS]);
+                p = setShootingLine(boxScores, p, line);
+                boxScores.setInt(p++, line[PF]);
+                boxScores.setInt(p++, line[TOV]);
+                int plusMinus = (int) Math.round(margin * line[MIN] / 48.0 + random.nextGaussian() * 5);
+                boxScores.setInt(p, plusMinus);
+                boxScores.addBatch();
+                written++;
+            }
+            count(written);
+            return written;
+        }
+
+        void teamGame(League league, long gameId, String gameDate, int team, int opponent, int[][] lines,
+                      boolean home, boolean win, int score, int opponentScore, SplittableRandom random) throws SQLException {
+            int[] total = new int[LINE_WIDTH];
+            for (int[] line : lines) {
+                if (line != null) {
+                    for (int i = 0; i < LINE_WIDTH; i++) {
+                        total[i] += line[i];
+                    }
+                }
+            }
+
+            int p = 1;
+            teamStats.setLong(p++, gameId);
+            teamStats.setString(p++, gameDate);
+            teamStats.setString(p++, league.city(team));
+            teamStats.setString(p++, league.name(team));
+            teamStats.setInt(p++, team + 1);
+            teamStats.setString(p++, league.city(opponent));
+            teamStats.setString(p++, league.name(opponent));
+            teamStats.setInt(p++, opponent + 1);
+            teamStats.setInt(p++, home ? 1 : 0);
+            teamStats.setInt(p++, win ? 1 : 0);
+            teamStats.setInt(p++, score);
+            teamStats.setInt(p++, opponentScore);
+            p = setShootingLine(teamStats, p, total);
+            teamStats.setInt(p++, total[PF]);
+            teamStats.setInt(p++, total[TOV]);
+            teamStats.setInt(p++, score - opponentScore);
+            teamStats.setDouble(p++, 240);
+
+            // Split the score into quarters
+            int remaining = score;
+            for (int q = 0; q < 3; q++) {
+                int quarter = (int) Math.round(score / 4.0 + random.nextGaussian() * 4);
+                quarter = Math.max(0, Math.min(remaining, quarter));
+                teamStats.setInt(p++, quarter);
+                remaining -= quarter;
+            }
+            teamStats.setInt(p++, remaining);
+            teamStats.setInt(p++, league.wins[team] + (win ? 1 : 0));
+            teamStats.setInt(p, league.losses[team] + (win ? 0 : 1));
+            teamStats.addBatch();
+            count(1);
+        }
+
+        // assists, blocks, steals, FG, 3P, FT, rebounds (shared column order)
+        private static int setShootingLine(PreparedStatement stmt, int p, int[] line) throws SQLException {
+            stmt.setInt(p++, line[AST]);
+            stmt.setInt(p++, line[BLK]);
+            stmt.setInt(p++, line[STL]);
+            stmt.setInt(p++, line[FGA]);
+            stmt.setInt(p++, line[FGM]);
+            stmt.setDouble(p++, line[FGA] == 0 ? 0.0 : (double) line[FGM] / line[FGA]);
+            stmt.setInt(p++, line[TPA]);
+            stmt.setInt(p++, line[TPM]);
+            stmt.setDouble(p++, line[TPA] == 0 ? 0.0 : (double) line[TPM] / line[TPA]);
+            stmt.setInt(p++, line[FTA]);
+            stmt.setInt(p++, line[FTM]);
+            stmt.setDouble(p++, line[FTA] == 0 ? 0.0 : (double) line[FTM] / line[FTA]);
+            stmt.setInt(p++, line[DREB]);
+            stmt.setInt(p++, line[OREB]);
+            stmt.setInt(p++, line[DREB] + line[OREB]);
+            return p;
+        }
+
+        void writePlayers(League league) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO players VALUES (?, ?, ?, ?, NULL, 'USA', ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (PlayerProfile player : league.players) {
+                    int draftYear = player.rookieYear;
+                    int p = 1;
+                    stmt.setInt(p++, player.personId);
+                    stmt.setString(p++, player.firstName);
+                    stmt.setString(p++, player.lastName);
+                    stmt.setString(p++, LocalDate.of(draftYear - 20, 1 + player.personId % 12, 1 + player.personId % 28).toString());
+                    stmt.setInt(p++, player.height);
+                    stmt.setInt(p++, player.weight);
+                    stmt.setInt(p++, player.isGuard() ? 1 : 0);
+                    stmt.setInt(p++, !player.isGuard() && !player.isCenter() ? 1 : 0);
+                    stmt.setInt(p++, player.isCenter() ? 1 : 0);
+                    stmt.setInt(p++, draftYear);
+                    stmt.setInt(p++, 1 + player.personId % 2);
+                    stmt.setInt(p, 1 + player.personId % 30);
+                    stmt.addBatch();
+                    if (player.personId % batchSize == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+                stmt.executeBatch();
+            }
+        }
+
+        void writeTeams(League league, int firstSeasonEndYear) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO team_histories VALUES (?, ?, ?, ?, ?, ?, 'NBA')")) {
+                for (int team = 0; team < league.teamCount; team++) {
+                    stmt.setInt(1, team + 1);
+                    stmt.setString(2, league.city(team));
+                    stmt.setString(3, league.name(team));
+                    stmt.setString(4, league.abbrev(team));
+                    stmt.setInt(5, firstSeasonEndYear - 1);
+                    stmt.setInt(6, 2100);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+
+        private void count(int rows) throws SQLException {
+            pendingRows += rows;
+            if (pendingRows >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            games.executeBatch();
+            boxScores.executeBatch();
+            teamStats.executeBatch();
+            pendingRows = 0;
+        }
+    }
+}
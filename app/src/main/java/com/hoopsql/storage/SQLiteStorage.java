@@ -1,23 +1,403 @@
 package com.hoopsql.storage;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
-public class SQLiteStorage {
-    private static final String DB_URL = "jdbc:sqlite:/home/david-belanger/dev/HoopsQL/SQLite/hoopsql.db";
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteLimits;
+import org.sqlite.SQLiteOpenMode;
+
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.util.Config;
+
+/**
+ * Access to the HoopsQL database: either a single hoopsql.db file or, when the
+ * configured path is a directory, a ShardSet of per-season/per-decade files.
+ *
+ * In sharded mode route() picks the shards a date range touches, each with its
+ * own storage and connection pool, so a one-season query opens only that
+ * shard. connect() returns a federated connection that ATTACHes every shard
+ * behind UNION ALL views, for callers that need the whole database as one; a
+ * dimension table's view takes each row from the newest shard that has it.
+ *
+ * With Config.setInMemory(true) a single file is copied at startup into a
+ * shared-cache in-memory database (SQLite's backup API) and every connection
+ * is served from there. If the copy won't fit in free memory, or the load
+ * fails, the storage stays in file mode; getModeDescription() says which.
+ */
+public class SQLiteStorage implements AutoCloseable {
+    private static final int MAX_ATTACHED = 125;
+    private static final AtomicInteger MEMORY_DATABASE_IDS = new AtomicInteger();
+
+    // An index the planner's queries rely on
+    record QueryIndex(String name, String table, List<String> columns) {
+        String toSql() {
+            return "CREATE INDEX " + name + " ON " + table + "(" + String.join(", ", columns) + ")";
+        }
+    }
+
+    static final List<QueryIndex> QUERY_INDEXES = List.of(
+        new QueryIndex("idx_player_statistics_game", "player_statistics", List.of("gameId")),
+        new QueryIndex("idx_player_statistics_person", "player_statistics", List.of("personId", "gameDate")),
+        new QueryIndex("idx_games_date", "games", List.of("gameDate")));
+
+    // The in-memory copy and the connection that keeps it alive
+    private record MemoryDatabase(String url, Connection holder, long bytes, long loadMillis) {}
+
+    private final Config config;
+    private final String dbUrl;
+    private final int readPoolSize;
+    private final ShardSet shardSet; // null for a single file
+    private final MemoryDatabase memory; // null in file mode
+    private String modeDescription;
+    private final Map<String, SQLiteStorage> shardStorages = new ConcurrentHashMap<>();
+    private ConnectionPool readPool;
+
+    public SQLiteStorage() {
+        this(new Config());
+    }
+
+    // Point at a specific database file (benchmarks, generated datasets)
+    public SQLiteStorage(String dbPath) {
+        this(new Config().setDatabasePath(dbPath));
+    }
+
+    public SQLiteStorage(Config config) {
+        this(config, SQLiteStorage::freePhysicalMemory);
+    }
+
+    // freeMemory stands in for the machine's free memory when deciding whether the in-memory copy fits
+    SQLiteStorage(Config config, LongSupplier freeMemory) {
+        this.config = config;
+        this.readPoolSize = config.getReadPoolSize();
+
+        Path path = Paths.get(config.getDatabasePath());
+        if (Files.isDirectory(path)) {
+            try {
+                this.shardSet = ShardSet.open(path);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot open sharded database: " + e.getMessage(), e);
+            }
+            this.memory = null;
+            this.dbUrl = "jdbc:sqlite::memory:";
+            this.modeDescription = "sharded (" + shardSet.getShards().size() + " shards in " + path + ")";
+        } else {
+            this.shardSet = null;
+            this.modeDescription = "file " + path;
+            this.memory = config.isInMemory() ? loadIntoMemory(path, freeMemory.getAsLong()) : null;
+            this.dbUrl = memory != null ? memory.url() : "jdbc:sqlite:" + path;
+        }
+    }
+
+    // Storage for a single shard file, sharing the parent's settings
+    private SQLiteStorage(Config config, Path shardPath) {
+        this.config = config;
+        this.readPoolSize = config.getReadPoolSize();
+        this.shardSet = null;
+        this.memory = null;
+        this.dbUrl = "jdbc:sqlite:" + shardPath;
+        this.modeDescription = "file " + shardPath;
+    }
+
+    public Config getConfig() { return config; }
+    public boolean isSharded() { return shardSet != null; }
+    public ShardSet getShardSet() { return shardSet; }
+    public boolean isInMemory() { return memory != null; }
+    public long getMemoryBytes() { return memory != null ? memory.bytes() : 0; }
+    public long getLoadMillis() { return memory != null ? memory.loadMillis() : 0; }
+    public String getModeDescription() { return modeDescription; }
+
+    // Copy the file into a shared-cache in-memory database; null leaves the storage in file mode
+    private MemoryDatabase loadIntoMemory(Path file, long free) {
+        long fileBytes;
+        try {
+            fileBytes = Files.size(file);
+        } catch (IOException e) {
+            modeDescription = "file " + file + " (in-memory load skipped: cannot read " + file + ")";
+            return null;
+        }
+        // The copy is page-for-page the size of the file; leave room for indexes built in memory
+        long needed = fileBytes + fileBytes / 4;
+        if (needed > free) {
+            modeDescription = String.format("file %s (in-memory load skipped: needs ~%s, %s free)",
+                file, megabytes(needed), megabytes(free));
+            return null;
+        }
+
+        String url = "jdbc:sqlite:file:hoopsql-memory-" + MEMORY_DATABASE_IDS.incrementAndGet() + "?mode=memory&cache=shared";
+        long start = System.nanoTime();
+        Connection holder = null;
+        try {
+            holder = DriverManager.getConnection(url, uriConfig().toProperties());
+            long bytes;
+            try (Statement stmt = holder.createStatement()) {
+                stmt.executeUpdate("restore from \"" + file + "\"");
+                createQueryIndexes(holder);
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT page_count * page_size FROM pragma_page_count(), pragma_page_size()")) {
+                    rs.next();
+                    bytes = rs.getLong(1);
+                }
+            }
+            Metrics.DB_LOAD.recordSince(start);
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            modeDescription = String.format("in-memory copy of %s (%s, loaded in %d ms)", file, megabytes(bytes), loadMillis);
+            return new MemoryDatabase(url, holder, bytes, loadMillis);
+        } catch (SQLException e) {
+            // SQLITE_NOMEM and friends: closing the holder frees whatever was copied
+            closeQuietly(holder);
+            modeDescription = "file " + file + " (in-memory load failed: " + e.getMessage() + ")";
+            return null;
+        }
+    }
+
+    // Build any query index the source file lacks (matched by columns, not name)
+    private static void createQueryIndexes(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (QueryIndex index : QUERY_INDEXES) {
+                if (!hasIndex(connection, index.table(), index.columns())) {
+                    stmt.execute(index.toSql());
+                }
+            }
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    static boolean hasIndex(Connection connection, String table, List<String> columns) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT name FROM pragma_index_list(?)")) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    indexes.add(rs.getString(1));
+                }
+            }
+        }
+        for (String index : indexes) {
+            List<String> indexed = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT name FROM pragma_index_info(?) ORDER BY seqno")) {
+                stmt.setString(1, index);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        indexed.add(rs.getString(1));
+                    }
+                }
+            }
+            if (indexed.equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long freePhysicalMemory() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getFreeMemorySize();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static SQLiteConfig uriConfig() {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setOpenMode(SQLiteOpenMode.OPEN_URI);
+        return sqliteConfig;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    // Storages that together hold every row with gameDate in [from, to] (null = open)
+    public List<SQLiteStorage> route(String from, String to) {
+        if (shardSet == null) {
+            return List.of(this);
+        }
+        List<SQLiteStorage> targets = new ArrayList<>();
+        for (ShardSet.Shard shard : shardSet.shardsFor(from, to)) {
+            targets.add(shardStorages.computeIfAbsent(shard.name(), name -> new SQLiteStorage(config, shard.path())));
+        }
+        return targets;
+    }
 
     public Connection connect() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        if (shardSet != null) {
+            return connectFederated();
+        }
+        if (memory != null) {
+            return DriverManager.getConnection(dbUrl, uriConfig().toProperties());
+        }
+        return DriverManager.getConnection(dbUrl);
+    }
+
+    // Read-only connection for query execution; never takes a write lock
+    public Connection connectReadOnly() throws SQLException {
+        if (shardSet != null) {
+            return connectFederated();
+        }
+        if (memory != null) {
+            // SQLite ignores the read-only open flag for in-memory databases
+            Connection connection = DriverManager.getConnection(dbUrl, uriConfig().toProperties());
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+            return connection;
+        }
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        return DriverManager.getConnection(dbUrl, config.toProperties());
+    }
+
+    // In-memory connection with every shard attached read-only and TEMP views
+    // named after the real tables, so unmodified SQL runs across all shards
+    private Connection connectFederated() throws SQLException {
+        Connection connection = DriverManager.getConnection(dbUrl, uriConfig().toProperties());
+        try (Statement stmt = connection.createStatement()) {
+            List<ShardSet.Shard> shards = shardSet.getShards();
+            // The default allows 10 attachments; the library is built with room for 125
+            connection.unwrap(SQLiteConnection.class).setLimit(SQLiteLimits.SQLITE_LIMIT_ATTACHED, MAX_ATTACHED);
+            for (int i = 0; i < shards.size(); i++) {
+                String uri = shards.get(i).path().toUri() + "?mode=ro";
+                stmt.execute("ATTACH DATABASE '" + uri.replace("'", "''") + "' AS shard" + i);
+            }
+
+            for (TableInfo table : tableLayout(stmt)) {
+                String name = table.name();
+                StringBuilder view = new StringBuilder("CREATE TEMP VIEW ").append(name).append(" AS ");
+                if (table.dated()) {
+                    for (int i = 0; i < shards.size(); i++) {
+                        if (i > 0) {
+                            view.append(" UNION ALL ");
+                        }
+                        view.append("SELECT * FROM shard").append(i).append('.').append(name);
+                    }
+                } else {
+                    view.append(dimensionView(table, shards.size()));
+                }
+                stmt.execute(view.toString());
+            }
+        } catch (SQLException e) {
+            connection.close();
+            if (e.getMessage() != null && e.getMessage().contains("too many attached databases")) {
+                throw new SQLException("Too many shards to attach at once (" + shardSet.getShards().size()
+                    + ", limit " + MAX_ATTACHED + "); use decade shards or queries with a season/date filter", e);
+            }
+            throw e;
+        }
+        return connection;
+    }
+
+    // A dimension table across shards. A shard written by a later ingest holds players and teams the
+    // older shards never saw, and its copy of a row may be newer (a team's seasonActiveTill), so each
+    // key's row comes from the newest shard that has it. Tables without a one-column key are UNIONed.
+    private static String dimensionView(TableInfo table, int shards) {
+        String name = table.name();
+        if (shards == 1) {
+            return "SELECT * FROM shard0." + name;
+        }
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < shards; i++) {
+            if (i > 0) {
+                rows.append(table.key() != null ? " UNION ALL " : " UNION ");
+            }
+            rows.append("SELECT *").append(table.key() != null ? ", " + i + " AS shard_ FROM shard" : " FROM shard")
+                .append(i).append('.').append(name);
+        }
+        if (table.key() == null) {
+            return rows.toString();
+        }
+        // With max(), SQLite takes the other columns from the row holding the maximum
+        String columns = String.join(", ", table.columns());
+        return "SELECT " + columns + " FROM (SELECT " + columns + ", max(shard_) FROM (" + rows
+            + ") GROUP BY " + table.key() + ")";
+    }
+
+    // key: the one-column primary key, or null
+    private record TableInfo(String name, boolean dated, List<String> columns, String key) {}
+
+    // Tables in the first shard; dated ones (with a gameDate column) are split across shards
+    private static List<TableInfo> tableLayout(Statement stmt) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT name FROM shard0.sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%'")) {
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+        }
+        List<TableInfo> layout = new ArrayList<>();
+        for (String table : tables) {
+            boolean dated = false;
+            List<String> columns = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA shard0.table_info(" + table + ")")) {
+                while (rs.next()) {
+                    String column = rs.getString("name");
+                    dated |= "gameDate".equals(column);
+                    columns.add(column);
+                    if (rs.getInt("pk") > 0) {
+                        keys.add(column);
+                    }
+                }
+            }
+            layout.add(new TableInfo(table, dated, columns, keys.size() == 1 ? keys.get(0) : null));
+        }
+        return layout;
+    }
+
+    // Shared pool of read-only connections, opened on first use
+    public synchronized ConnectionPool getReadPool() {
+        if (readPool == null) {
+            readPool = new ConnectionPool(this, readPoolSize);
+        }
+        return readPool;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (readPool != null) {
+            readPool.close();
+            readPool = null;
+        }
+        for (SQLiteStorage shard : shardStorages.values()) {
+            shard.close();
+        }
+        shardStorages.clear();
+        if (memory != null) {
+            closeQuietly(memory.holder());
+        }
     }
 
     @SuppressWarnings("CallToPrintStackTrace")
     public boolean testConnection() {
         try (Connection conn = connect();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='games';")) {
+             ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='games' "
+                 + "UNION ALL SELECT name FROM sqlite_temp_master WHERE type='view' AND name='games';")) {
             return rs.next();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -0,0 +1,134 @@
+package com.hoopsql.storage;
+
+import com.hoopsql.util.SeasonMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A directory of SQLite files, one per season or per decade, that together
+ * hold the same tables as a single hoopsql.db.
+ *
+ * Shards are named season-1996-97.db or decade-1990s.db and each covers the
+ * gameDate range from its first season's start up to the next shard's start,
+ * so the layout needs no manifest: adding a season means adding one file.
+ * Dated tables (those with a gameDate column) are split by that range; the
+ * small dimension tables (players, team_histories) are copied into every
+ * shard so joins stay local.
+ */
+public class ShardSet {
+    public enum Granularity { SEASON, DECADE }
+
+    private static final Pattern SEASON_FILE = Pattern.compile("season-(\\d{4})-(\\d{2})\\.db");
+    private static final Pattern DECADE_FILE = Pattern.compile("decade-(\\d{3}0)s\\.db");
+
+    // A shard file and the [from, to) gameDate range it holds
+    public record Shard(String name, Path path, String from, String to) {
+        public boolean overlaps(String rangeFrom, String rangeTo) {
+            // rangeTo is inclusive; dates compare as ISO strings
+            return (rangeTo == null || from.compareTo(rangeTo) <= 0)
+                && (rangeFrom == null || rangeFrom.compareTo(to) < 0);
+        }
+    }
+
+    private final Path directory;
+    private final Granularity granularity;
+    private final List<Shard> shards;
+
+    private ShardSet(Path directory, Granularity granularity, List<Shard> shards) {
+        this.directory = directory;
+        this.granularity = granularity;
+        this.shards = List.copyOf(shards);
+    }
+
+    // Scan a directory for shard files; all shards must share one granularity
+    public static ShardSet open(Path directory) throws IOException {
+        List<Shard> shards = new ArrayList<>();
+        Granularity granularity = null;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                String fileName = file.getFileName().toString();
+                Matcher season = SEASON_FILE.matcher(fileName);
+                Matcher decade = DECADE_FILE.matcher(fileName);
+
+                Granularity found;
+                int startYear;
+                if (season.matches()) {
+                    found = Granularity.SEASON;
+                    startYear = Integer.parseInt(season.group(1));
+                } else if (decade.matches()) {
+                    found = Granularity.DECADE;
+                    startYear = Integer.parseInt(decade.group(1));
+                } else {
+                    continue;
+                }
+
+                if (granularity != null && granularity != found) {
+                    throw new IOException("Mixed season and decade shards in " + directory);
+                }
+                granularity = found;
+                shards.add(shardFor(directory, found, startYear));
+            }
+        }
+
+        if (shards.isEmpty()) {
+            throw new IOException("No season-YYYY-YY.db or decade-YYYYs.db shards in " + directory);
+        }
+        shards.sort((a, b) -> a.from().compareTo(b.from()));
+        return new ShardSet(directory, granularity, shards);
+    }
+
+    public Path getDirectory() { return directory; }
+    public Granularity getGranularity() { return granularity; }
+    public List<Shard> getShards() { return shards; }
+
+    // Shards that can hold rows with gameDate in [from, to]; null bounds are open.
+    // Never empty, so a query always has somewhere to run (and report its columns).
+    public List<Shard> shardsFor(String from, String to) {
+        List<Shard> matching = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get(i);
+            // Undated rows live in the first shard; without a lower bound they may match
+            if (shard.overlaps(from, to) || (i == 0 && from == null)) {
+                matching.add(shard);
+            }
+        }
+        if (matching.isEmpty()) {
+            matching.add(shards.get(shards.size() - 1));
+        }
+        return matching;
+    }
+
+    // The shard a gameDate belongs to, whether or not its file exists yet
+    public static Shard shardFor(Path directory, Granularity granularity, String gameDate) {
+        int year = Integer.parseInt(gameDate.substring(0, 4));
+        int seasonStartYear = gameDate.compareTo(seasonStart(year)) >= 0 ? year : year - 1;
+        int startYear = granularity == Granularity.DECADE ? seasonStartYear - Math.floorMod(seasonStartYear, 10) : seasonStartYear;
+        return shardFor(directory, granularity, startYear);
+    }
+
+    static Shard shardFor(Path directory, Granularity granularity, int startYear) {
+        int span = granularity == Granularity.DECADE ? 10 : 1;
+        String name = granularity == Granularity.DECADE
+            ? "decade-" + startYear + "s"
+            : "season-" + seasonName(startYear);
+        return new Shard(name, directory.resolve(name + ".db"), seasonStart(startYear), seasonStart(startYear + span));
+    }
+
+    // "1996" -> "1996-97"
+    static String seasonName(int startYear) {
+        return startYear + "-" + String.format("%02d", (startYear + 1) % 100);
+    }
+
+    // Opening day where known, otherwise August 1st (between the Finals and the next season)
+    static String seasonStart(int startYear) {
+        SeasonMapper.SeasonDates dates = SeasonMapper.getSeasonDates(seasonName(startYear));
+        return dates != null ? dates.getStartDate() : startYear + "-08-01";
+    }
+}
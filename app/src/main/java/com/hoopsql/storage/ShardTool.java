@@ -0,0 +1,202 @@
+package com.hoopsql.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a hoopsql.db into a sharded directory (see ShardSet).
+ *
+ * Every shard gets the source's table definitions and indexes. Rows of dated
+ * tables go to the shard whose range holds their gameDate (undated rows to the
+ * first shard written); dimension tables are copied whole. Existing shard
+ * files are never modified, so ingesting a new season is a split of a database
+ * holding just that season: it writes one new file and touches nothing else.
+ *
+ * Usage:
+ *   java -cp hoopsql.jar com.hoopsql.storage.ShardTool \
+ *       --source SQLite/hoopsql.db --out SQLite/shards [--by season|decade]
+ */
+public class ShardTool {
+
+    public static void main(String[] args) {
+        Path source = Paths.get("SQLite", "hoopsql.db");
+        Path out = Paths.get("SQLite", "shards");
+        ShardSet.Granularity granularity = ShardSet.Granularity.SEASON;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--source" -> source = Paths.get(value);
+                case "--out" -> out = Paths.get(value);
+                case "--by" -> {
+                    if (!"season".equals(value) && !"decade".equals(value)) {
+                        usage("--by must be 'season' or 'decade'");
+                    }
+                    granularity = ShardSet.Granularity.valueOf(value.toUpperCase());
+                }
+                default -> usage("Unknown option: " + arg);
+            }
+        }
+
+        try {
+            long start = System.nanoTime();
+            Map<ShardSet.Shard, Long> written = split(source, out, granularity);
+            for (Map.Entry<ShardSet.Shard, Long> entry : written.entrySet()) {
+                System.out.printf("  %-22s %,12d games%n", entry.getKey().path().getFileName(), entry.getValue());
+            }
+            System.out.printf("Wrote %d shard(s) to %s in %.1fs%n",
+                written.size(), out, (System.nanoTime() - start) / 1e9);
+        } catch (Exception e) {
+            System.err.println("Sharding failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: ShardTool --source hoopsql.db --out shards/ [--by season|decade]");
+        System.exit(1);
+    }
+
+    // Returns the shards written with their game counts
+    public static Map<ShardSet.Shard, Long> split(Path source, Path outDir, ShardSet.Granularity granularity)
+            throws SQLException, IOException {
+        if (!Files.exists(source)) {
+            throw new IOException("Source database not found: " + source);
+        }
+        Files.createDirectories(outDir);
+
+        List<String> tableSql = new ArrayList<>();
+        List<String> indexSql = new ArrayList<>();
+        List<String> datedTables = new ArrayList<>();
+        List<String> dimensionTables = new ArrayList<>();
+        Map<ShardSet.Shard, Long> shards = new LinkedHashMap<>();
+
+        try (Connection src = DriverManager.getConnection("jdbc:sqlite:" + source);
+             Statement stmt = src.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT type, name, sql FROM sqlite_master WHERE sql IS NOT NULL AND name NOT LIKE 'sqlite_%' ORDER BY type DESC")) {
+                while (rs.next()) {
+                    if ("table".equals(rs.getString("type"))) {
+                        tableSql.add(rs.getString("sql"));
+                        String name = rs.getString("name");
+                        (hasGameDate(src, name) ? datedTables : dimensionTables).add(name);
+                    } else if ("index".equals(rs.getString("type"))) {
+                        indexSql.add(rs.getString("sql"));
+                    }
+                }
+            }
+            if (!datedTables.contains("games")) {
+                throw new SQLException("Source has no games table with a gameDate column");
+            }
+
+            // Which shards the data needs, and how many games each will hold
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT substr(gameDate, 1, 10), COUNT(*) FROM games WHERE gameDate IS NOT NULL GROUP BY 1 ORDER BY 1")) {
+                while (rs.next()) {
+                    ShardSet.Shard shard = ShardSet.shardFor(outDir, granularity, rs.getString(1));
+                    shards.merge(shard, rs.getLong(2), Long::sum);
+                }
+            }
+        }
+
+        if (shards.isEmpty()) {
+            throw new SQLException("Source has no dated games to shard");
+        }
+        for (ShardSet.Shard shard : shards.keySet()) {
+            if (Files.exists(shard.path())) {
+                throw new IOException(shard.path() + " already exists; shards are never overwritten");
+            }
+        }
+
+        boolean first = true;
+        for (ShardSet.Shard shard : shards.keySet()) {
+            writeShard(source, shard, first, tableSql, indexSql, datedTables, dimensionTables);
+            first = false;
+        }
+        return shards;
+    }
+
+    private static boolean hasGameDate(Connection src, String table) throws SQLException {
+        try (Statement stmt = src.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if ("gameDate".equals(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Built under a temporary name and moved into place, so readers never see a partial shard
+    private static void writeShard(Path source, ShardSet.Shard shard, boolean takesUndated,
+                                   List<String> tableSql, List<String> indexSql,
+                                   List<String> datedTables, List<String> dimensionTables)
+            throws SQLException, IOException {
+        Path temp = shard.path().resolveSibling(shard.path().getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + temp)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=OFF");
+                stmt.execute("PRAGMA synchronous=OFF");
+                for (String sql : tableSql) {
+                    stmt.execute(sql);
+                }
+            }
+            try (PreparedStatement attach = conn.prepareStatement("ATTACH DATABASE ? AS src")) {
+                attach.setString(1, source.toString());
+                attach.execute();
+            }
+
+            conn.setAutoCommit(false);
+            for (String table : datedTables) {
+                String sql = "INSERT INTO main." + table + " SELECT * FROM src." + table
+                    + " WHERE (gameDate >= ? AND gameDate < ?)" + (takesUndated ? " OR gameDate IS NULL" : "");
+                try (PreparedStatement insert = conn.prepareStatement(sql)) {
+                    insert.setString(1, shard.from());
+                    insert.setString(2, shard.to());
+                    insert.executeUpdate();
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                for (String table : dimensionTables) {
+                    stmt.executeUpdate("INSERT INTO main." + table + " SELECT * FROM src." + table);
+                }
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DETACH DATABASE src");
+                for (String sql : indexSql) {
+                    stmt.execute(sql);
+                }
+                stmt.execute("ANALYZE");
+            }
+        } catch (SQLException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, shard.path(), StandardCopyOption.ATOMIC_MOVE);
+    }
+}
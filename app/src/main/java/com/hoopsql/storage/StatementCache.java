@@ -0,0 +1,56 @@
+package com.hoopsql.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.hoopsql.metrics.Metrics;
+
+/**
+ * Prepared statements for one pooled connection, reused by SQL text and
+ * evicted least-recently-used. Only the thread holding the connection uses
+ * it, so it needs no locking.
+ */
+final class StatementCache {
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            Metrics.STATEMENT_CACHE_HITS.increment();
+            return statement;
+        }
+
+        Metrics.STATEMENT_CACHE_MISSES.increment();
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        if (statements.size() > capacity) {
+            Map.Entry<String, PreparedStatement> eldest = statements.entrySet().iterator().next();
+            statements.remove(eldest.getKey());
+            eldest.getValue().close();
+        }
+        return statement;
+    }
+
+    // Forget a statement whose run failed. After an interrupt the driver has already
+    // finalized it, yet isClosed() still reports it open, so it cannot be reused.
+    void discard(String sql) {
+        PreparedStatement statement = statements.remove(sql);
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Already finalized by the driver
+            }
+        }
+    }
+}
@@ -1,5 +1,168 @@
 package com.hoopsql.util;
 
+/**
+ * Runtime configuration. Defaults can be overridden with system properties
+ * (e.g. -Dhoopsql.db=/data/hoopsql.db) or programmatically via the setters.
+ */
 public class Config {
-    // TODO: Configuration constants and settings
+    public static final String DEFAULT_DATABASE_PATH = "/home/david-belanger/dev/HoopsQL/SQLite/hoopsql.db";
+
+    private String databasePath;
+    private int readPoolSize;
+    private int maxConcurrentQueries;
+    private int queryPartitions;
+    private long queryTimeoutMillis;
+    private boolean inMemory;
+    private boolean inProcessEngine;
+    private int planCacheSize;
+    private int statementCacheSize;
+    private int heavyQuerySlots; // 0: half the pool
+    private int maxQueuedQueries;
+    private String serverHost;
+    private int serverPort;
+
+    public Config() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.databasePath = System.getProperty("hoopsql.db", DEFAULT_DATABASE_PATH);
+        this.readPoolSize = Integer.getInteger("hoopsql.pool.size", cores);
+        this.maxConcurrentQueries = Integer.getInteger("hoopsql.maxConcurrentQueries", readPoolSize);
+        this.queryPartitions = Integer.getInteger("hoopsql.query.partitions", 1);
+        this.queryTimeoutMillis = Long.getLong("hoopsql.query.timeoutMs", 30_000L);
+        this.inMemory = Boolean.getBoolean("hoopsql.db.inMemory");
+        this.inProcessEngine = Boolean.getBoolean("hoopsql.engine.inProcess");
+        this.planCacheSize = Integer.getInteger("hoopsql.planCache.size", 256);
+        this.statementCacheSize = Integer.getInteger("hoopsql.statementCache.size", 64);
+        this.heavyQuerySlots = Integer.getInteger("hoopsql.scheduler.heavySlots", 0);
+        this.maxQueuedQueries = Integer.getInteger("hoopsql.scheduler.maxQueued", 1000);
+        this.serverHost = System.getProperty("hoopsql.server.host", "127.0.0.1");
+        this.serverPort = Integer.getInteger("hoopsql.server.port", 8080);
+    }
+
+    public String getDatabasePath() { return databasePath; }
+    public int getReadPoolSize() { return readPoolSize; }
+    public int getMaxConcurrentQueries() { return maxConcurrentQueries; }
+    public int getQueryPartitions() { return queryPartitions; }
+    public long getQueryTimeoutMillis() { return queryTimeoutMillis; }
+    public boolean isInMemory() { return inMemory; }
+    public boolean isInProcessEngine() { return inProcessEngine; }
+    public int getPlanCacheSize() { return planCacheSize; }
+    public int getStatementCacheSize() { return statementCacheSize; }
+
+    // At most one less than the pool, so lookups keep a connection; a pool of one has nothing to set
+    // aside, and its heavy lane gets that connection (lookups then wait behind scans)
+    public int getHeavyQuerySlots() {
+        if (readPoolSize == 1) {
+            return 1;
+        }
+        int slots = heavyQuerySlots > 0 ? heavyQuerySlots : readPoolSize / 2;
+        return Math.min(slots, readPoolSize - 1);
+    }
+
+    public int getMaxQueuedQueries() { return maxQueuedQueries; }
+    public String getServerHost() { return serverHost; }
+    public int getServerPort() { return serverPort; }
+
+    public Config setDatabasePath(String databasePath) {
+        this.databasePath = databasePath;
+        return this;
+    }
+
+    // Number of read-only connections kept open for concurrent queries
+    public Config setReadPoolSize(int readPoolSize) {
+        if (readPoolSize < 1) {
+            throw new IllegalArgumentException("Read pool size must be at least 1");
+        }
+        this.readPoolSize = readPoolSize;
+        return this;
+    }
+
+    // Upper bound on queries running at once through the async API (never more than the pool)
+    public Config setMaxConcurrentQueries(int maxConcurrentQueries) {
+        if (maxConcurrentQueries < 1) {
+            throw new IllegalArgumentException("Max concurrent queries must be at least 1");
+        }
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        return this;
+    }
+
+    // Season ranges a league-wide scan of one database file is split into and run in parallel; 1 runs it whole
+    public Config setQueryPartitions(int queryPartitions) {
+        if (queryPartitions < 1) {
+            throw new IllegalArgumentException("Query partitions must be at least 1");
+        }
+        this.queryPartitions = queryPartitions;
+        return this;
+    }
+
+    // Default per-query deadline; 0 disables it
+    public Config setQueryTimeoutMillis(long queryTimeoutMillis) {
+        if (queryTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Query timeout must not be negative");
+        }
+        this.queryTimeoutMillis = queryTimeoutMillis;
+        return this;
+    }
+
+    // Copy the database file into memory at startup (falls back to the file if it won't fit)
+    public Config setInMemory(boolean inMemory) {
+        this.inMemory = inMemory;
+        return this;
+    }
+
+    // Load the box scores into the in-process engine at startup and run the player queries it supports there
+    public Config setInProcessEngine(boolean inProcessEngine) {
+        this.inProcessEngine = inProcessEngine;
+        return this;
+    }
+
+    // Compiled plans a session keeps, by query text; 0 disables the cache
+    public Config setPlanCacheSize(int planCacheSize) {
+        if (planCacheSize < 0) {
+            throw new IllegalArgumentException("Plan cache size must not be negative");
+        }
+        this.planCacheSize = planCacheSize;
+        return this;
+    }
+
+    // Prepared statements kept per pooled connection, by SQL; 0 disables the cache
+    public Config setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    // Scheduler slots for heavy (league-wide) queries; see getHeavyQuerySlots for how the pool bounds them
+    public Config setHeavyQuerySlots(int heavyQuerySlots) {
+        if (heavyQuerySlots < 1) {
+            throw new IllegalArgumentException("Heavy query slots must be at least 1");
+        }
+        this.heavyQuerySlots = heavyQuerySlots;
+        return this;
+    }
+
+    // Queries a scheduler lane holds waiting before it rejects more
+    public Config setMaxQueuedQueries(int maxQueuedQueries) {
+        if (maxQueuedQueries < 0) {
+            throw new IllegalArgumentException("Max queued queries must not be negative");
+        }
+        this.maxQueuedQueries = maxQueuedQueries;
+        return this;
+    }
+
+    // Address 'hoopsql serve' listens on; loopback unless exposed deliberately
+    public Config setServerHost(String serverHost) {
+        this.serverHost = serverHost;
+        return this;
+    }
+
+    // 0 picks a free port
+    public Config setServerPort(int serverPort) {
+        if (serverPort < 0 || serverPort > 65535) {
+            throw new IllegalArgumentException("Server port must be between 0 and 65535");
+        }
+        this.serverPort = serverPort;
+        return this;
+    }
 }
@@ -1,5 +1,255 @@
 package com.hoopsql.util;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import com.hoopsql.storage.SQLiteStorage;
+
+/**
+ * Resolves player names to personIds ("LeBron_James" or "lebron james" ->
+ * 2544), knows the team names, and suggests the closest known names for a
+ * misspelled one ("Stepen_Curry" -> "Stephen_Curry"). Each table is read
+ * from SQLite on first use and kept for the life of the resolver; lookups
+ * after that never touch SQLite. On a sharded database the tables are the
+ * federated views, so a player first seen in the newest shard is known.
+ *
+ * Suggestions come from a trigram index over the normalized names: the
+ * names sharing the most trigrams with the input are ranked by edit
+ * distance, and only those within a few edits are offered.
+ */
 public class NameResolver {
-    // TODO: Resolve canonical names (LeBron_James -> personId)
+    private static final int CANDIDATES = 32; // names ranked by edit distance, out of those sharing most trigrams
+
+    private final SQLiteStorage storage;
+    private volatile Names players; // keyed by normalized full name, valued by personId
+    private volatile Names teams;
+
+    public NameResolver(SQLiteStorage storage) {
+        this.storage = storage;
+    }
+
+    public OptionalLong personId(String name) {
+        Long id = players().ids.get(normalize(name));
+        return id != null ? OptionalLong.of(id) : OptionalLong.empty();
+    }
+
+    public boolean isKnownPlayer(String name) {
+        return players().ids.containsKey(normalize(name));
+    }
+
+    public boolean isKnownTeam(String name) {
+        return teams().ids.containsKey(normalize(name));
+    }
+
+    // The name as the database spells it ("lebron_james" -> "LeBron James"), for binding where SQL compares
+    // exactly; a spelling the database has is kept as is. Empty for an unknown player.
+    public Optional<String> canonicalPlayer(String name) {
+        return players().canonical(name);
+    }
+
+    public Optional<String> canonicalTeam(String name) {
+        return teams().canonical(name);
+    }
+
+    // Normalized names of every known player
+    public Set<String> playerNames() {
+        return Collections.unmodifiableSet(players().ids.keySet());
+    }
+
+    // Normalized names of every known team
+    public Set<String> teamNames() {
+        return Collections.unmodifiableSet(teams().ids.keySet());
+    }
+
+    // Known players closest to a name, best first, spelled the way the name was ("_" for spaces or not)
+    public List<String> suggestPlayers(String name, int max) {
+        return players().closest(name, max);
+    }
+
+    public List<String> suggestTeams(String name, int max) {
+        return teams().closest(name, max);
+    }
+
+    // Underscores are spaces and case doesn't matter: "LeBron_James" == "lebron james"
+    public static String normalize(String name) {
+        return name.replace('_', ' ').trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private Names players() {
+        Names loaded = players;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = players;
+                if (loaded == null) {
+                    loaded = load("player", "SELECT personId, firstName, lastName FROM players");
+                    players = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Names teams() {
+        Names loaded = teams;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = teams;
+                if (loaded == null) {
+                    // Every name a team has played under, not just the current ones
+                    loaded = load("team", "SELECT NULL, teamName, NULL FROM team_histories "
+                        + "UNION SELECT NULL, teamName, NULL FROM team_statistics");
+                    teams = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Rows of (id, first part, last part); the name is the parts joined by a space
+    private Names load(String kind, String sql) {
+        Map<String, Long> ids = new HashMap<>();
+        Map<String, String> display = new HashMap<>();
+        Set<String> spellings = new HashSet<>();
+        try (Connection conn = storage.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String first = rs.getString(2);
+                String last = rs.getString(3);
+                String full = ((first != null ? first : "") + " " + (last != null ? last : "")).trim();
+                spellings.add(full);
+                if (!full.isEmpty() && ids.putIfAbsent(normalize(full), rs.getLong(1)) == null) {
+                    display.put(normalize(full), full);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot load " + kind + " names: " + e.getMessage(), e);
+        }
+        return new Names(ids, display, spellings);
+    }
+
+    private static final class Names {
+        final Map<String, Long> ids;
+        private final Map<String, String> displayNames; // normalized -> first spelling seen
+        private final Set<String> spellings;            // every spelling, as stored
+        private final String[] normalized;
+        private final String[] display;
+        private final int[] gramCounts;
+        private final Map<String, int[]> postings; // trigram -> names containing it, ascending
+
+        Names(Map<String, Long> ids, Map<String, String> displayNames, Set<String> spellings) {
+            this.ids = ids;
+            this.displayNames = displayNames;
+            this.spellings = spellings;
+            this.normalized = ids.keySet().toArray(new String[0]);
+            this.display = new String[normalized.length];
+            this.gramCounts = new int[normalized.length];
+            Map<String, List<Integer>> building = new HashMap<>();
+            for (int i = 0; i < normalized.length; i++) {
+                display[i] = displayNames.get(normalized[i]);
+                List<String> grams = trigrams(normalized[i]);
+                gramCounts[i] = grams.size();
+                for (String gram : grams) {
+                    building.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+                }
+            }
+            this.postings = new HashMap<>();
+            building.forEach((gram, names) -> postings.put(gram, names.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        Optional<String> canonical(String name) {
+            if (spellings.contains(name)) {
+                return Optional.of(name);
+            }
+            return Optional.ofNullable(displayNames.get(normalize(name)));
+        }
+
+        List<String> closest(String name, int max) {
+            String target = normalize(name);
+            List<String> grams = trigrams(target);
+            int[] shared = new int[normalized.length];
+            List<Integer> touched = new ArrayList<>();
+            for (String gram : grams) {
+                for (int id : postings.getOrDefault(gram, new int[0])) {
+                    if (shared[id]++ == 0) {
+                        touched.add(id);
+                    }
+                }
+            }
+            // Dice similarity on trigrams picks the candidates; edit distance orders them
+            touched.sort(Comparator.comparingDouble(id -> -2.0 * shared[id] / (grams.size() + gramCounts[id])));
+            int allowed = Math.max(2, target.length() / 4);
+            Map<Integer, Integer> distances = new LinkedHashMap<>();
+            for (int id : touched.subList(0, Math.min(CANDIDATES, touched.size()))) {
+                int distance = editDistance(target, normalized[id], allowed);
+                if (distance <= allowed) {
+                    distances.put(id, distance);
+                }
+            }
+            List<Integer> ranked = new ArrayList<>(distances.keySet());
+            ranked.sort(Comparator.comparingInt((Integer id) -> distances.get(id)).thenComparing(id -> display[id]));
+
+            boolean underscored = name.contains("_") && !name.trim().contains(" ");
+            List<String> suggestions = new ArrayList<>();
+            for (int id : ranked.subList(0, Math.min(max, ranked.size()))) {
+                suggestions.add(underscored ? display[id].replace(' ', '_') : display[id]);
+            }
+            return suggestions;
+        }
+
+        // Distinct three-letter runs of " name ", so the first and last letters count too
+        private static List<String> trigrams(String name) {
+            String padded = " " + name + " ";
+            List<String> grams = new ArrayList<>();
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                String gram = padded.substring(i, i + 3);
+                if (!grams.contains(gram)) {
+                    grams.add(gram);
+                }
+            }
+            return grams;
+        }
+
+        // Levenshtein distance, or limit + 1 once every path is past limit
+        private static int editDistance(String a, String b, int limit) {
+            if (Math.abs(a.length() - b.length()) > limit) {
+                return limit + 1;
+            }
+            int[] previous = new int[b.length() + 1];
+            int[] current = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                int best = current[0];
+                for (int j = 1; j <= b.length(); j++) {
+                    int substitute = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                    current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+                    best = Math.min(best, current[j]);
+                }
+                if (best > limit) {
+                    return limit + 1;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[b.length()];
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package com.hoopsql.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -61,6 +63,13 @@ public class SeasonMapper {
         return SEASON_MAP.get(season);
     }
     
+    // All known seasons in chronological order
+    public static List<String> getSeasons() {
+        List<String> seasons = new ArrayList<>(SEASON_MAP.keySet());
+        seasons.sort((a, b) -> SEASON_MAP.get(a).getStartDate().compareTo(SEASON_MAP.get(b).getStartDate()));
+        return seasons;
+    }
+    
     public static boolean isValidSeason(String season) {
         return SEASON_MAP.containsKey(season);
     }
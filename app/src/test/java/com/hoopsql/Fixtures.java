@@ -0,0 +1,74 @@
+package com.hoopsql;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.hoopsql.storage.DatasetGenerator;
+import com.hoopsql.util.Config;
+
+/**
+ * The small database the tests share: four generated seasons (about 30,000
+ * box scores, seven teams, LeBron James on the Lakers and Stephen Curry on
+ * the Warriors), written once per test run, then roughened the way real
+ * imports are:
+ *   - NULL points in every 50th box score and in LeBron James's first
+ *     three games, NULL assists in every 70th
+ *   - one LeBron James box score listed twice
+ *   - a second Stephen Curry (another person, on another team)
+ * Integer stats tie all the time, so sorts and extremes meet ties anyway.
+ */
+public final class Fixtures {
+    public static final String LEBRON = "LeBron James";
+    public static final String CURRY = "Stephen Curry";
+
+    private static Path database;
+
+    private Fixtures() {}
+
+    public static synchronized Path database() {
+        if (database == null) {
+            try {
+                Path dir = Files.createTempDirectory("hoopsql-test");
+                Path file = dir.resolve("fixture.db");
+                dir.toFile().deleteOnExit();
+                file.toFile().deleteOnExit();
+                new DatasetGenerator(7, 30_000, 4).generate(file);
+                roughen(file);
+                database = file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not write the test database", e);
+            }
+        }
+        return database;
+    }
+
+    public static Config config() {
+        return new Config().setDatabasePath(database().toString()).setQueryTimeoutMillis(0);
+    }
+
+    private static void roughen(Path file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = connection.createStatement()) {
+            String lebron = "(SELECT personId FROM players WHERE firstName = 'LeBron' AND lastName = 'James')";
+            stmt.executeUpdate("UPDATE player_statistics SET points = NULL WHERE rowid % 50 = 0");
+            stmt.executeUpdate("UPDATE player_statistics SET assists = NULL WHERE rowid % 70 = 0");
+            stmt.executeUpdate("UPDATE player_statistics SET points = NULL WHERE rowid IN (SELECT rowid FROM player_statistics"
+                + " WHERE personId = " + lebron + " ORDER BY gameDate LIMIT 3)");
+            stmt.executeUpdate("INSERT INTO player_statistics SELECT * FROM player_statistics"
+                + " WHERE personId = " + lebron + " ORDER BY gameDate LIMIT 1 OFFSET 10");
+
+            // The last-listed Celtic becomes another Stephen Curry
+            String other = "(SELECT MAX(personId) FROM player_statistics WHERE playerteamName = 'Celtics')";
+            stmt.executeUpdate("UPDATE players SET firstName = 'Stephen', lastName = 'Curry' WHERE personId = " + other);
+            stmt.executeUpdate("UPDATE player_statistics SET firstName = 'Stephen', lastName = 'Curry' WHERE personId = " + other);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.hoopsql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.runtime.CancellationToken;
+import com.hoopsql.runtime.QueryCancelledException;
+import com.hoopsql.runtime.QueryResult;
+
+// The session's caches: plans by query text, and prepared statements on a one-connection pool
+class HoopsQLTest {
+    private static final String LOOKUP = "Player p = \"" + Fixtures.LEBRON + "\" get games where p.points >= 30";
+    private static final String AVERAGES = "Player p = \"" + Fixtures.CURRY + "\" get avg(games) by season";
+
+    private static HoopsQL session;
+    private static HoopsQL uncached;
+
+    @BeforeAll
+    static void open() {
+        session = HoopsQL.open(Fixtures.config().setReadPoolSize(1).setPlanCacheSize(2));
+        uncached = HoopsQL.open(Fixtures.config().setReadPoolSize(1).setPlanCacheSize(0).setStatementCacheSize(0));
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+        uncached.close();
+    }
+
+    private static List<String> sortedRows(QueryResult result) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            rows.add(row.toString());
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    @Test
+    void plansAreCachedByQueryText() {
+        long hits = Metrics.PLAN_CACHE_HITS.get();
+        ExecutionPlan plan = session.compile(LOOKUP);
+        assertSame(plan, session.compile("  " + LOOKUP + "\n"));
+        assertEquals(hits + 1, Metrics.PLAN_CACHE_HITS.get());
+
+        // Two plans fit; the least recently used one goes
+        session.compile(AVERAGES);
+        session.compile(LOOKUP);
+        session.compile("Player p get games where p.points >= 35");
+        assertSame(plan, session.compile(LOOKUP));
+        assertNotSame(session.compile(AVERAGES), session.compile("Player p get games where p.points >= 35"));
+
+        assertNotSame(uncached.compile(LOOKUP), uncached.compile(LOOKUP));
+    }
+
+    @Test
+    void cachedStatementsGiveTheUncachedRows() throws SQLException {
+        for (String query : List.of(LOOKUP, AVERAGES, LOOKUP, AVERAGES)) {
+            assertEquals(sortedRows(uncached.query(query)), sortedRows(session.query(query)), query);
+        }
+        // The one connection already holds the statement
+        long hits = Metrics.STATEMENT_CACHE_HITS.get();
+        session.query(LOOKUP);
+        assertEquals(hits + 1, Metrics.STATEMENT_CACHE_HITS.get());
+    }
+
+    @Test
+    void aStoppedStatementIsPreparedAgain() throws SQLException {
+        // The driver finalizes an interrupted statement, so the cache must not hand it out again
+        ExecutionPlan endless = new ExecutionPlan(
+            "WITH RECURSIVE n(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM n) SELECT max(x) FROM n", Map.of(), "games");
+        for (int i = 0; i < 2; i++) {
+            QueryCancelledException e = assertThrows(QueryCancelledException.class,
+                () -> session.getExecutor().execute(endless, CancellationToken.withTimeout(100)));
+            assertTrue(e.isTimedOut(), e.getMessage());
+        }
+        assertEquals(sortedRows(uncached.query(LOOKUP)), sortedRows(session.query(LOOKUP)));
+    }
+
+    @Test
+    void oneSessionServesManyThreads() throws Exception {
+        List<String> queries = List.of(LOOKUP, AVERAGES, "Player p get games where p.points >= 35",
+            "Player p = \"" + Fixtures.LEBRON + "\" get agg(sum(points), count(games))");
+        List<CompletableFuture<QueryResult>> running = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            for (String query : queries) {
+                running.add(session.queryAsync(query));
+            }
+        }
+        for (int i = 0; i < running.size(); i++) {
+            String query = queries.get(i % queries.size());
+            assertEquals(sortedRows(uncached.query(query)), sortedRows(running.get(i).get(30, TimeUnit.SECONDS)), query);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.hoopsql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.runtime.UnknownNameException;
+
+// Player and team names written another way bind the database's spelling, in SQLite and in the engine
+class NameResolutionTest {
+    private static HoopsQL sqlite;
+    private static HoopsQL engine;
+
+    @BeforeAll
+    static void open() {
+        sqlite = HoopsQL.open(Fixtures.config());
+        engine = HoopsQL.open(Fixtures.config().setInProcessEngine(true));
+    }
+
+    @AfterAll
+    static void close() {
+        sqlite.close();
+        engine.close();
+    }
+
+    private static List<String> sortedRows(QueryResult result) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            rows.add(row.toString());
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    // The respelled query returns the rows the database's spelling does, in both sessions
+    private static void assertSameAs(String canonical, String respelled) throws SQLException {
+        List<String> expected = sortedRows(sqlite.query(canonical));
+        assertFalse(expected.isEmpty(), canonical);
+        assertEquals(expected, sortedRows(sqlite.query(respelled)), respelled);
+        assertTrue(engine.getEngine().supports(engine.compile(respelled)), "the engine should run: " + respelled);
+        assertEquals(expected, sortedRows(engine.query(respelled)), respelled);
+    }
+
+    @Test
+    void playerNamesInAnyCaseOrSpacing() throws SQLException {
+        String games = "\" get games where season = \"2023-24\"";
+        String canonical = "Player p = \"LeBron James" + games;
+        assertSameAs(canonical, "Player p = \"lebron james" + games);
+        assertSameAs(canonical, "Player p = \"LeBron_James" + games);
+        assertSameAs(canonical, "Player p = \"LEBRON  JAMES" + games);
+        assertSameAs("Player p = \"LeBron James\" get agg(sum(points), count(games))",
+            "Player p = \"lebron_james\" get agg(sum(points), count(games))");
+    }
+
+    @Test
+    void teamNamesInAnyCase() throws SQLException {
+        String canonical = "Player p = \"LeBron James\" get games where p.opponent = \"Warriors\"";
+        assertSameAs(canonical, "Player p = \"LeBron James\" get games where p.opponent = \"warriors\"");
+        assertSameAs("Player p = \"LeBron James\" get avg(games) where p.team = \"Lakers\"",
+            "Player p = \"lebron james\" get avg(games) where p.team = \"LAKERS\"");
+    }
+
+    @Test
+    void bothNamesOfAPairAreRespelled() throws SQLException {
+        assertSameAs("Player p = \"LeBron James\" Player q = \"Stephen Curry\" get games",
+            "Player p = \"lebron_james\" Player q = \"stephen curry\" get games");
+    }
+
+    @Test
+    void misspelledPlayersFailWithSuggestions() {
+        for (HoopsQL session : List.of(sqlite, engine)) {
+            UnknownNameException e = assertThrows(UnknownNameException.class,
+                () -> session.query("Player p = \"Lebron Jmaes\" get games"));
+            assertEquals("Lebron Jmaes", e.getName());
+            assertEquals("LeBron James", e.getSuggestions().get(0));
+            assertTrue(e.getMessage().contains("LeBron James"), e.getMessage());
+        }
+        UnknownNameException underscored = assertThrows(UnknownNameException.class,
+            () -> sqlite.query("Player p = \"Stepen_Curry\" get games"));
+        assertEquals("Stephen_Curry", underscored.getSuggestions().get(0));
+    }
+
+    @Test
+    void misspelledTeamsFailWithSuggestions() {
+        UnknownNameException e = assertThrows(UnknownNameException.class,
+            () -> sqlite.query("Player p = \"LeBron James\" get games where p.opponent = \"Warriers\""));
+        assertEquals("Warriors", e.getSuggestions().get(0));
+    }
+
+    @Test
+    void namesFarFromAnyGetNoSuggestions() {
+        UnknownNameException e = assertThrows(UnknownNameException.class,
+            () -> sqlite.query("Player p = \"Qqqqq Zzzzzzz\" get games"));
+        assertTrue(e.getSuggestions().isEmpty(), e.getSuggestions().toString());
+    }
+}
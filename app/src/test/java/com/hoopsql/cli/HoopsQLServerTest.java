@@ -0,0 +1,155 @@
+package com.hoopsql.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.runtime.CancellationToken;
+import com.hoopsql.runtime.QueryScheduler;
+
+// 'hoopsql serve' over localhost: one heavy slot and no queue, so a held slot turns the next scan away
+class HoopsQLServerTest {
+    private static final String LOOKUP = "Player p = \"" + Fixtures.LEBRON + "\" get games where p.points >= 30";
+    private static final String SCAN = "Player p get games where p.points >= 35";
+
+    private static HoopsQL session;
+    private static HoopsQLServer server;
+    private static HttpClient client;
+    private static URI base;
+
+    @BeforeAll
+    static void start() throws IOException {
+        session = HoopsQL.open(Fixtures.config().setServerPort(0).setReadPoolSize(2).setHeavyQuerySlots(1)
+            .setMaxQueuedQueries(0));
+        server = new HoopsQLServer(session);
+        server.start();
+        client = HttpClient.newHttpClient();
+        base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+        session.close();
+    }
+
+    private static HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(path))
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(base.resolve(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // What JsonLinesFormatter writes for the query, run in the session directly
+    private static String jsonLines(String query) throws SQLException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        session.getExecutor().stream(session.compile(query), CancellationToken.withTimeout(0),
+            rs -> new JsonLinesFormatter().write(rs, out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void aQueryStreamsItsRowsAsJsonLines() throws Exception {
+        HttpResponse<String> response = post("/query", LOOKUP);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/x-ndjson"));
+        assertEquals(jsonLines(LOOKUP), response.body());
+        assertEquals(session.query(LOOKUP).getRowCount(), response.body().lines().count());
+        assertTrue(response.body().lines().allMatch(line -> line.contains("\"player_name\":\"LeBron James\"")));
+    }
+
+    @Test
+    void badQueriesAnswer400() throws Exception {
+        HttpResponse<String> unparsable = post("/query", "Player p = get");
+        assertEquals(400, unparsable.statusCode());
+        assertTrue(unparsable.body().startsWith("{\"error\":"), unparsable.body());
+        assertEquals(400, post("/query", "  ").statusCode());
+        HttpResponse<String> unknown = post("/query", "Player p = \"Lebron Jmaes\" get games");
+        assertEquals(400, unknown.statusCode());
+        assertTrue(unknown.body().contains("LeBron James"), unknown.body());
+    }
+
+    @Test
+    void wrongMethodsAnswer405() throws Exception {
+        HttpResponse<String> response = get("/query");
+        assertEquals(405, response.statusCode());
+        assertEquals("POST", response.headers().firstValue("Allow").orElse(null));
+        assertEquals(405, post("/health", "").statusCode());
+        assertEquals(405, post("/metrics", "").statusCode());
+    }
+
+    @Test
+    void aFullLaneAnswers503() throws Exception {
+        // Hold the heavy lane's only slot; with no queue the next scan is turned away at once
+        ExecutionPlan scan = session.compile(SCAN);
+        assertEquals(QueryScheduler.Lane.HEAVY, QueryScheduler.classify(scan));
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            try {
+                session.getScheduler().run("holder", scan, CancellationToken.withTimeout(0), () -> {
+                    admitted.countDown();
+                    try {
+                        return done.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        try {
+            assertTrue(admitted.await(5, TimeUnit.SECONDS));
+            HttpResponse<String> rejected = post("/query", SCAN);
+            assertEquals(503, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+            // The cheap lane is not affected
+            assertEquals(200, post("/query", LOOKUP).statusCode());
+        } finally {
+            done.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(200, post("/query", SCAN).statusCode());
+    }
+
+    @Test
+    void healthAndMetrics() throws Exception {
+        HttpResponse<String> health = get("/health");
+        assertEquals(200, health.statusCode());
+        assertTrue(health.body().startsWith("{\"status\":\"ok\",\"database\":"), health.body());
+
+        post("/query", LOOKUP);
+        HttpResponse<String> metrics = get("/metrics");
+        assertEquals(200, metrics.statusCode());
+        String body = metrics.body();
+        assertTrue(body.startsWith("{\"timers\":{"), body);
+        assertTrue(body.contains("\"histograms\":{"), body);
+        assertTrue(body.contains("\"counters\":{"), body);
+        assertTrue(body.contains("\"scheduler\":{\"cheap\":{\"running\":0,\"queued\":0},\"heavy\":{"), body);
+        assertFalse(body.contains("NaN"), body);
+    }
+}
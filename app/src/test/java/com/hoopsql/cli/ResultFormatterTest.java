@@ -0,0 +1,176 @@
+package com.hoopsql.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResultFormatterTest {
+    // One row of every storage class, plus text that needs quoting or escaping
+    private static final String ROWS = "SELECT 1 AS id, 'Stephen Curry' AS name, 30.5 AS points, NULL AS note, x'00ff' AS raw"
+        + " UNION ALL SELECT -9223372036854775808, 'O''Neal, \"Shaq\"', 1e999, 'two\r\nlines', NULL"
+        + " UNION ALL SELECT 9223372036854775807, 'Dončić' || char(9) || char(1), -0.25, '', x''";
+
+    private Connection connection;
+    private Statement statement;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        statement = connection.createStatement();
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    private String text(ResultFormatter formatter, String sql, long expectedRows) throws SQLException, IOException {
+        return new String(bytes(formatter, sql, expectedRows), StandardCharsets.UTF_8);
+    }
+
+    private byte[] bytes(ResultFormatter formatter, String sql, long expectedRows) throws SQLException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            assertEquals(expectedRows, formatter.write(rs, out));
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void formatsAreChosenByName() {
+        assertInstanceOf(CsvFormatter.class, ResultFormatter.forName("csv"));
+        assertInstanceOf(JsonLinesFormatter.class, ResultFormatter.forName("jsonl"));
+        assertInstanceOf(BinaryFormatter.class, ResultFormatter.forName("bin"));
+        assertThrows(IllegalArgumentException.class, () -> ResultFormatter.forName("xml"));
+    }
+
+    @Test
+    void csvQuotesOnlyFieldsThatNeedIt() throws Exception {
+        String csv = text(new CsvFormatter(), "SELECT id, name, points, note FROM (" + ROWS + ") WHERE id <> 9223372036854775807", 2);
+        // Reals are written as SQLite prints them
+        assertEquals("id,name,points,note\r\n"
+            + "1,Stephen Curry,30.5,\r\n"
+            + "-9223372036854775808,\"O'Neal, \"\"Shaq\"\"\",Inf,\"two\r\nlines\"\r\n", csv);
+    }
+
+    @Test
+    void csvWritesEmptyTextAndNullAlikeAndUnicodeAsUtf8() throws Exception {
+        String csv = text(new CsvFormatter(), "SELECT 'Dončić' AS name, '' AS empty, NULL AS missing", 1);
+        assertEquals("name,empty,missing\r\nDončić,,\r\n", csv);
+    }
+
+    @Test
+    void emptyResultsStillCarryTheirColumns() throws Exception {
+        String empty = "SELECT 1 AS id, 'x' AS name WHERE 0";
+        assertEquals("id,name\r\n", text(new CsvFormatter(), empty, 0));
+        assertEquals("", text(new JsonLinesFormatter(), empty, 0));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes(new BinaryFormatter(), empty, 0)));
+        assertEquals(List.of("id", "name"), readHeader(in));
+        assertEquals(0, in.readByte());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void jsonLinesTypesEachValue() throws Exception {
+        String[] lines = text(new JsonLinesFormatter(), "SELECT id, name, points, note FROM (" + ROWS + ")", 3).split("\n", -1);
+        assertEquals(4, lines.length);
+        assertEquals("{\"id\":1,\"name\":\"Stephen Curry\",\"points\":30.5,\"note\":null}", lines[0]);
+        assertEquals("{\"id\":-9223372036854775808,\"name\":\"O'Neal, \\\"Shaq\\\"\",\"points\":null,\"note\":\"two\\r\\nlines\"}",
+            lines[1]);
+        assertEquals("{\"id\":9223372036854775807,\"name\":\"Dončić\\t\\u0001\",\"points\":-0.25,\"note\":\"\"}", lines[2]);
+        assertEquals("", lines[3]);
+    }
+
+    @Test
+    void jsonLinesEscapeKeysToo() throws Exception {
+        assertEquals("{\"say \\\"hi\\\"\":1}\n", text(new JsonLinesFormatter(), "SELECT 1 AS [say \"hi\"]", 1));
+    }
+
+    @Test
+    void binaryRoundTripsEveryValue() throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes(new BinaryFormatter(), ROWS, 3)));
+        assertEquals(List.of("id", "name", "points", "note", "raw"), readHeader(in));
+
+        List<List<Object>> rows = new ArrayList<>();
+        while (in.readByte() == 1) {
+            List<Object> row = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                row.add(readValue(in));
+            }
+            rows.add(row);
+        }
+        assertEquals(-1, in.read());
+        assertEquals(3, rows.size());
+
+        assertEquals(Arrays.asList(1L, "Stephen Curry", 30.5, null), rows.get(0).subList(0, 4));
+        assertArrayEquals(new byte[] {0, (byte) 0xff}, (byte[]) rows.get(0).get(4));
+        assertEquals(Arrays.asList(Long.MIN_VALUE, "O'Neal, \"Shaq\"", Double.POSITIVE_INFINITY, "two\r\nlines", null),
+            rows.get(1));
+        assertEquals(Arrays.asList(Long.MAX_VALUE, "Dončić\t\u0001", -0.25, ""), rows.get(2).subList(0, 4));
+        assertArrayEquals(new byte[0], (byte[]) rows.get(2).get(4));
+    }
+
+    private static List<String> readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[4];
+        in.readFully(magic);
+        assertEquals("HQLB", new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(1, in.readByte());
+        long columns = readVarint(in);
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            labels.add(new String(readBytes(in), StandardCharsets.UTF_8));
+        }
+        return labels;
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int type = in.readByte();
+        return switch (type) {
+            case 0 -> null;
+            case 1 -> {
+                long zigzag = readVarint(in);
+                yield (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            case 2 -> in.readDouble();
+            case 3 -> new String(readBytes(in), StandardCharsets.UTF_8);
+            case 4 -> readBytes(in);
+            default -> throw new AssertionError("Unknown value type " + type);
+        };
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.hoopsql.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// One Planner for every query and thread: its plans must match those of a fresh Planner per query
+class PlannerTest {
+    private static final List<String> QUERIES = List.of(
+        "Player p = \"LeBron James\" get games where p.points >= 30",
+        "Player p = \"LeBron James\" Player q = \"Stephen Curry\" get games",
+        "Player p = \"Stephen Curry\" Team t = p.team get games where p.points >= 30 and t.name = \"Warriors\"",
+        "Player p = \"LeBron James\" get games where p.opponent = \"Warriors\" and season = \"2023-24\"",
+        "Player p = \"Stephen Curry\" get avg(games) by season",
+        "Player p = \"LeBron James\" get avg(games) select points, minutes",
+        "Player p = \"LeBron James\" get agg(sum(points), max(p.rebounds), min(fgpct), count(games))",
+        "Player p get agg(count(games), sum(points), avg(assists)) where p.points >= 30 by opponent limit 3",
+        "Player p get games where game_date >= \"2023-01-01\" and game_date <= \"2024-01-02\" and p.points >= 35",
+        "Player p = \"LeBron James\" get rolling(5) avg points, sum threePointersMade",
+        "Player p get streaks where p.points >= 25 limit 10",
+        "Player p get avg(games) where p.points >= 35");
+
+    // Everything a plan carries that a caller reads
+    private static String describe(ExecutionPlan plan) {
+        QueryParts parts = plan.getParts();
+        return plan + " fields=" + plan.getReferencedFields() + " players=" + plan.getPlayerVariables()
+            + " parts=" + (parts == null ? null : parts.toSql() + " " + parts.getDateFrom() + ".." + parts.getDateTo())
+            + " query=" + plan.getPlayerQuery();
+    }
+
+    private static ExecutionPlan plan(Planner planner, String query) {
+        return planner.createExecutionPlan(new Parser(new Lexer(query).tokenize()).parse());
+    }
+
+    private static List<String> fresh() {
+        List<String> plans = new ArrayList<>();
+        for (String query : QUERIES) {
+            plans.add(describe(plan(new Planner(), query)));
+        }
+        return plans;
+    }
+
+    @Test
+    void onePlannerCarriesNothingFromQueryToQuery() {
+        List<String> expected = fresh();
+        Planner planner = new Planner();
+        // Forwards, backwards, then forwards again: each plan is the same whatever was planned before it
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < QUERIES.size(); i++) {
+                int index = round == 1 ? QUERIES.size() - 1 - i : i;
+                assertEquals(expected.get(index), describe(plan(planner, QUERIES.get(index))), QUERIES.get(index));
+            }
+        }
+        assertFalse(plan(planner, QUERIES.get(0)).getParameters().isEmpty());
+        assertEquals(plan(planner, QUERIES.get(0)).getParameters(), plan(new Planner(), QUERIES.get(0)).getParameters());
+    }
+
+    @Test
+    void threadsShareOnePlanner() throws Exception {
+        List<String> expected = fresh();
+        Planner planner = new Planner();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<Void>> running = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                running.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    // Each thread walks the queries from its own offset, so different shapes overlap
+                    for (int i = 0; i < 50 * QUERIES.size(); i++) {
+                        int index = (offset + i) % QUERIES.size();
+                        assertEquals(expected.get(index), describe(plan(planner, QUERIES.get(index))), QUERIES.get(index));
+                    }
+                }, pool));
+            }
+            start.countDown();
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameRows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// agg(...) lists and avg(games) select lists: one SELECT of every aggregate, in SQLite and in the engine
+class AggregatesTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" ";
+
+    @Test
+    void theDefaultAveragesAreUnchanged() throws SQLException {
+        QueryResult averages = assertSameRows(LEBRON + "get avg(games)");
+        assertEquals(List.of("avg_points", "avg_rebounds", "avg_assists", "avg_steals", "avg_blocks", "avg_turnovers",
+            "avg_threePointersMade", "avg_fieldGoalsMade", "avg_freeThrowsMade", "games_count"), averages.getColumnNames());
+    }
+
+    @Test
+    void aSelectListAveragesOnlyItsStats() throws SQLException {
+        QueryResult selected = assertSameRows(LEBRON + "get avg(games) select points, minutes");
+        assertEquals(List.of("avg_points", "avg_minutes", "games_count"), selected.getColumnNames());
+        Map<String, Object> all = EngineCheck.sqlite().query(LEBRON + "get avg(games)").getRows().get(0);
+        assertEquals(all.get("avg_points"), selected.getRows().get(0).get("avg_points"));
+        assertEquals(all.get("games_count"), selected.getRows().get(0).get("games_count"));
+        assertFalse(EngineCheck.sqlite().compile(LEBRON + "get avg(games) select points, minutes").getSql()
+            .contains("reboundsTotal"));
+    }
+
+    @Test
+    void valuesMatchTheBoxScores() throws SQLException {
+        QueryResult result = assertSameRows(LEBRON
+            + "get agg(sum(points), max(p.rebounds), min(fgpct), count(games), avg(minutes), count(points))");
+        assertEquals(List.of("sum_points", "max_rebounds", "min_fgpct", "games_count", "avg_minutes", "count_points"),
+            result.getColumnNames());
+        Map<String, Object> row = result.getRows().get(0);
+        try (Connection connection = EngineCheck.sqlite().getStorage().connect();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT SUM(points), MAX(reboundsTotal), MIN(fieldGoalsPercentage),"
+                 + " COUNT(*), AVG(numMinutes), COUNT(points) FROM player_statistics"
+                 + " WHERE firstName = 'LeBron' AND lastName = 'James'")) {
+            assertTrue(rs.next());
+            assertEquals(rs.getLong(1), ((Number) row.get("sum_points")).longValue());
+            assertEquals(rs.getInt(2), ((Number) row.get("max_rebounds")).intValue());
+            assertEquals(rs.getDouble(3), (Double) row.get("min_fgpct"));
+            assertEquals(rs.getInt(4), row.get("games_count"));
+            assertEquals(rs.getDouble(5), (Double) row.get("avg_minutes"));
+            assertEquals(rs.getInt(6), row.get("count_points"));
+        }
+        // Games with NULL points (his first three among them) count as games but not as points
+        assertTrue((Integer) row.get("games_count") - (Integer) row.get("count_points") >= 3, row.toString());
+    }
+
+    @Test
+    void filteredAndLeagueWideLists() throws SQLException {
+        // Past RangeSums: each requested column read once over the rows the filters pick
+        assertSameRows(LEBRON + "get agg(max(rebounds), min(minutes), avg(fgpct), sum(assists)) where p.points >= 25");
+        assertSameRows(LEBRON + "get avg(games) select fgpct, minutes where p.assists >= 5");
+        assertSameRows("Player p get agg(min(points), max(points), sum(minutes), avg(fgpct), count(points)) where p.points >= 30");
+        assertSameRows("Player p get agg(count(games), min(rebounds)) where p.points >= 500");
+    }
+
+    @Test
+    void onlyNumericStatsAggregate() {
+        RuntimeException text = assertThrows(RuntimeException.class,
+            () -> EngineCheck.sqlite().compile(LEBRON + "get agg(sum(firstName))"));
+        assertTrue(text.getMessage().contains("'firstName': it is not a numeric player stat"), text.getMessage());
+        assertThrows(RuntimeException.class, () -> EngineCheck.sqlite().compile(LEBRON + "get agg(max(nosuch))"));
+        assertThrows(RuntimeException.class, () -> EngineCheck.sqlite().compile(LEBRON + "get avg(games) select nosuch"));
+    }
+}
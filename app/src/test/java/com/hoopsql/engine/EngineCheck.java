@@ -0,0 +1,118 @@
+package com.hoopsql.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.runtime.QueryResult;
+
+/**
+ * Runs a query on the fixture database twice, in SQLite and in the
+ * in-process engine, and compares the results. Every check first asserts
+ * that the engine takes the plan, so a query that quietly falls back to
+ * SQLite can't pass by comparing SQLite with itself.
+ *
+ * Values are compared with their types (an Integer is not a Long or a
+ * Double). The engine doesn't promise SQLite's order for unordered rows,
+ * or among rows tied on the sort key, so those are compared as multisets.
+ */
+final class EngineCheck {
+    private static HoopsQL sqlite;
+    private static HoopsQL engine;
+
+    private EngineCheck() {}
+
+    static synchronized HoopsQL sqlite() {
+        if (sqlite == null) {
+            sqlite = HoopsQL.open(Fixtures.config());
+            Runtime.getRuntime().addShutdownHook(new Thread(sqlite::close));
+        }
+        return sqlite;
+    }
+
+    static synchronized HoopsQL engine() {
+        if (engine == null) {
+            engine = HoopsQL.open(Fixtures.config().setInProcessEngine(true));
+            assertNotNull(engine.getEngine(), engine.getEngineDescription());
+            Runtime.getRuntime().addShutdownHook(new Thread(engine::close));
+        }
+        return engine;
+    }
+
+    // The engine's result, after checking it takes the plan and matches SQLite's rows in any order
+    static QueryResult assertSameRows(String query) throws SQLException {
+        Pair results = run(query);
+        assertEquals(sorted(results.expected()), sorted(results.actual()), query);
+        return results.actual();
+    }
+
+    // As assertSameRows, in SQLite's order
+    static QueryResult assertSameOrderedRows(String query) throws SQLException {
+        Pair results = run(query);
+        assertEquals(rows(results.expected()), rows(results.actual()), query);
+        return results.actual();
+    }
+
+    // For ORDER BY ... LIMIT: the same sort keys in the same order; rows tied on the key may differ
+    static QueryResult assertSameTop(String query, String keyColumn) throws SQLException {
+        return assertSameTop(query, keyColumn, Function.identity());
+    }
+
+    // As above, where the ORDER BY sorts on a function of the column (CAST(... AS INTEGER) of a real)
+    static QueryResult assertSameTop(String query, String keyColumn, Function<Object, Object> key) throws SQLException {
+        Pair results = run(query);
+        assertEquals(column(results.expected(), keyColumn, key), column(results.actual(), keyColumn, key), query);
+        return results.actual();
+    }
+
+    static List<Object> column(QueryResult result, String column) {
+        return column(result, column, Function.identity());
+    }
+
+    private static List<Object> column(QueryResult result, String column, Function<Object, Object> key) {
+        List<Object> values = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            values.add(key.apply(row.get(column)));
+        }
+        return values;
+    }
+
+    private record Pair(QueryResult expected, QueryResult actual) {}
+
+    private static Pair run(String query) throws SQLException {
+        assertTrue(engine().getEngine().supports(engine().compile(query)), "the engine should run: " + query);
+        QueryResult expected = sqlite().query(query);
+        QueryResult actual = engine().query(query);
+        assertEquals(expected.getColumnNames(), actual.getColumnNames(), query);
+        assertEquals(expected.getRowCount(), actual.getRowCount(), query);
+        return new Pair(expected, actual);
+    }
+
+    private static List<String> rows(QueryResult result) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<String, Object> cell : row.entrySet()) {
+                Object value = cell.getValue();
+                text.append(cell.getKey()).append('=').append(value)
+                    .append(':').append(value == null ? "null" : value.getClass().getSimpleName()).append(", ");
+            }
+            rows.add(text.toString());
+        }
+        return rows;
+    }
+
+    private static List<String> sorted(QueryResult result) {
+        List<String> rows = rows(result);
+        rows.sort(null);
+        return rows;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameOrderedRows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// "by season|team|opponent|home_or_away|win": GroupTable's groups against SQLite's GROUP BY, in its order
+class GroupTableTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" ";
+    private static final String CURRY = "Player p = \"" + Fixtures.CURRY + "\" ";
+
+    @Test
+    void everyDimension() throws SQLException {
+        assertEquals(4, assertSameOrderedRows(LEBRON + "get avg(games) by season").getRowCount());
+        assertSameOrderedRows(LEBRON + "get agg(sum(points), count(games)) by team");
+        assertSameOrderedRows(LEBRON + "get agg(avg(points), max(rebounds), count(games)) by opponent");
+        assertEquals(2, assertSameOrderedRows(LEBRON + "get agg(avg(assists), count(games)) by home_or_away").getRowCount());
+        assertEquals(2, assertSameOrderedRows(LEBRON + "get agg(sum(points), min(points), count(games)) by win").getRowCount());
+    }
+
+    @Test
+    void nullCellsAreLeftOutOfTheirAggregates() throws SQLException {
+        // NULL points in the first three games of 2021-22, and NULL assists across the league
+        assertSameOrderedRows(LEBRON + "get agg(sum(points), avg(points), count(games)) by season");
+        assertSameOrderedRows("Player p get agg(sum(assists), avg(assists), count(games)) where p.minutes >= 30 by team");
+    }
+
+    @Test
+    void rangesAndStatFilters() throws SQLException {
+        assertSameOrderedRows(LEBRON + "get avg(games) where season = \"2023-24\" by opponent");
+        assertSameOrderedRows(LEBRON + "get agg(avg(points), count(games)) where game_date >= \"2023-01-01\" by win");
+        assertSameOrderedRows(LEBRON + "get agg(avg(rebounds), count(games)) where p.points >= 25 by season");
+        assertTrue(assertSameOrderedRows(LEBRON + "get avg(games) where season = \"1999-00\" by season").isEmpty());
+        assertTrue(assertSameOrderedRows(LEBRON + "get avg(games) where p.points >= 200 by team").isEmpty());
+    }
+
+    @Test
+    void leagueWideWithFilters() throws SQLException {
+        assertSameOrderedRows("Player p get agg(count(games), avg(minutes)) where p.points >= 30 by team");
+        assertSameOrderedRows("Player p get agg(sum(points), count(games)) where p.rebounds >= 15 and season = \"2022-23\" by opponent");
+        assertSameOrderedRows("Player p get agg(avg(points), count(games)) where p.assists >= 10 by home_or_away");
+    }
+
+    @Test
+    void twoPlayersWithOneNameGroupTogether() throws SQLException {
+        // One Stephen Curry plays for the Warriors, the other for the Celtics
+        assertEquals(2, assertSameOrderedRows(CURRY + "get agg(sum(points), count(games)) by team").getRowCount());
+        assertSameOrderedRows(CURRY + "get avg(games) by season");
+    }
+
+    @Test
+    void limitsKeepTheFirstGroups() throws SQLException {
+        assertTrue(assertSameOrderedRows(LEBRON + "get avg(games) by season limit 0").isEmpty());
+        QueryResult first = assertSameOrderedRows(LEBRON + "get agg(sum(points), count(games)) by season limit 1");
+        assertEquals(1, first.getRowCount());
+        assertEquals(4, assertSameOrderedRows(LEBRON + "get agg(sum(points), count(games)) by season limit 50").getRowCount());
+        assertSameOrderedRows("Player p get agg(count(games)) where p.points >= 30 by opponent limit 3");
+    }
+}
@@ -0,0 +1,80 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameTop;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// "order by ... limit 1" for a named player: RangeExtremes' block table against SQLite
+class RangeExtremesTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" get games ";
+    private static final String CURRY = "Player p = \"" + Fixtures.CURRY + "\" get games ";
+
+    @Test
+    void bestAndWorstOverACareer() throws SQLException {
+        assertSameTop(LEBRON + "order by most points limit 1", "points");
+        assertSameTop(LEBRON + "order by most rebounds limit 1", "rebounds");
+        assertSameTop(LEBRON + "order by least plusMinusPoints limit 1", "plusMinusPoints");
+        assertSameTop(LEBRON + "order by most fieldGoalsPercentage limit 1", "fieldGoalsPercentage");
+        assertSameTop(LEBRON + "order by least minutes limit 1", "minutes");
+    }
+
+    @Test
+    void nullCellsSortFirstAscendingAndLastDescending() throws SQLException {
+        // The player's first three games have NULL points
+        QueryResult least = assertSameTop(LEBRON + "order by least points limit 1", "points");
+        assertNull(least.getRows().get(0).get("points"));
+        QueryResult most = assertSameTop(LEBRON + "order by most points limit 1", "points");
+        assertTrue(most.getRows().get(0).get("points") != null);
+    }
+
+    @Test
+    void tiesGoToTheEarliestGame() throws SQLException {
+        // Integer stats tie often; the block table keeps the lower row, the earlier game
+        QueryResult best = assertSameTop(LEBRON + "order by most steals limit 1", "steals");
+        Object steals = best.getRows().get(0).get("steals");
+        String earliest = null;
+        for (Map<String, Object> row : EngineCheck.sqlite().query(LEBRON + "where p.steals = " + steals).getRows()) {
+            String date = (String) row.get("game_date");
+            earliest = earliest == null || date.compareTo(earliest) < 0 ? date : earliest;
+        }
+        assertEquals(earliest, best.getRows().get(0).get("game_date"));
+    }
+
+    @Test
+    void seasonsAndDateRanges() throws SQLException {
+        assertSameTop(LEBRON + "where season = \"2023-24\" order by most points limit 1", "points");
+        assertSameTop(LEBRON + "where game_date >= \"2022-01-01\" and game_date < \"2022-03-01\" order by most assists limit 1",
+            "assists");
+        assertSameTop(LEBRON + "where game_date > \"2024-04-01\" order by least turnovers limit 1", "turnovers");
+    }
+
+    @Test
+    void emptyRangesReturnNoRow() throws SQLException {
+        assertTrue(assertSameTop(LEBRON + "where season = \"1999-00\" order by most points limit 1", "points").isEmpty());
+        assertTrue(assertSameTop(LEBRON + "where game_date >= \"2023-01-01\" and game_date < \"2023-01-01\""
+            + " order by most points limit 1", "points").isEmpty());
+    }
+
+    @Test
+    void twoPlayersWithOneNameShareOneBest() throws SQLException {
+        assertSameTop(CURRY + "order by most points limit 1", "points");
+        assertSameTop(CURRY + "order by least assists limit 1", "assists");
+    }
+
+    @Test
+    void otherLimitsStillMatch() throws SQLException {
+        assertTrue(assertSameTop(LEBRON + "order by most points limit 0", "points").isEmpty());
+        assertEquals(3, assertSameTop(LEBRON + "order by most points limit 3", "points").getRowCount());
+        QueryResult all = assertSameTop(LEBRON + "order by most points limit 100000", "points");
+        assertEquals(EngineCheck.sqlite().query(LEBRON).getRowCount(), all.getRowCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameRows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// avg(games) and agg(...) for a named player without stat filters: RangeSums' subtractions against SQLite
+class RangeSumsTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" ";
+    private static final String CURRY = "Player p = \"" + Fixtures.CURRY + "\" ";
+
+    @Test
+    void wholeCareerAveragesSkipNullCells() throws SQLException {
+        // The first three games have NULL points and one box score is listed twice
+        assertSameRows(LEBRON + "get avg(games)");
+        assertSameRows(LEBRON + "get agg(sum(points), count(games), avg(points), sum(assists), avg(assists))");
+    }
+
+    @Test
+    void seasonsAndDateRanges() throws SQLException {
+        assertSameRows(LEBRON + "get avg(games) where season = \"2022-23\"");
+        assertSameRows(LEBRON + "get agg(sum(points), avg(rebounds), count(games)) where game_date >= \"2023-01-01\"");
+        assertSameRows(LEBRON + "get agg(sum(points), count(games)) where game_date < \"2022-02-01\"");
+        assertSameRows(LEBRON + "get avg(games) select points, minutes where game_date > \"2022-11-04\" and game_date <= \"2023-03-01\"");
+    }
+
+    @Test
+    void emptyRangesCountZeroAndAverageNull() throws SQLException {
+        QueryResult none = assertSameRows(LEBRON + "get agg(sum(points), avg(points), count(games)) where season = \"1999-00\"");
+        Map<String, Object> row = none.getRows().get(0);
+        assertNull(row.get("sum_points"));
+        assertNull(row.get("avg_points"));
+        assertEquals(0, row.get("games_count"));
+        assertSameRows(LEBRON + "get avg(games) where game_date >= \"2023-01-01\" and game_date < \"2023-01-01\"");
+    }
+
+    @Test
+    void twoPlayersWithOneNameAreSummedTogether() throws SQLException {
+        assertSameRows(CURRY + "get agg(sum(points), count(games), avg(assists))");
+        assertSameRows(CURRY + "get avg(games) where season = \"2023-24\"");
+    }
+
+    @Test
+    void limitZeroDropsTheRow() throws SQLException {
+        assertTrue(assertSameRows(LEBRON + "get avg(games) limit 0").isEmpty());
+        assertEquals(1, assertSameRows(LEBRON + "get agg(sum(points)) limit 5").getRowCount());
+    }
+}
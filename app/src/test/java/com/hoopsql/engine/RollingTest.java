@@ -0,0 +1,71 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameOrderedRows;
+import static com.hoopsql.engine.EngineCheck.assertSameRows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// get rolling(N): the engine's sliding sums against SQLite's window frames, in game order
+class RollingTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" get rolling";
+    private static final String CURRY = "Player p = \"" + Fixtures.CURRY + "\" get rolling";
+
+    @Test
+    void windowsOverACareer() throws SQLException {
+        assertSameOrderedRows(LEBRON + "(5) avg points, sum threePointersMade");
+        assertSameOrderedRows(LEBRON + "(10) avg rebounds, avg assists, sum points");
+        assertSameOrderedRows(LEBRON + "(3) sum minutes");
+    }
+
+    @Test
+    void aWindowOfOneIsEachGame() throws SQLException {
+        QueryResult single = assertSameOrderedRows(LEBRON + "(1) sum rebounds");
+        assertTrue(single.getRows().stream().allMatch(row -> Integer.valueOf(1).equals(row.get("window_games"))));
+    }
+
+    @Test
+    void aWindowWiderThanTheCareerGrowsToTheEnd() throws SQLException {
+        QueryResult wide = assertSameOrderedRows(LEBRON + "(1000) avg points, sum assists");
+        Map<String, Object> last = wide.getRows().get(wide.getRowCount() - 1);
+        assertEquals(wide.getRowCount(), ((Number) last.get("window_games")).intValue());
+    }
+
+    @Test
+    void nullCellsInTheWindow() throws SQLException {
+        // The first three games have NULL points: the average skips them, the window still counts them
+        assertSameOrderedRows(LEBRON + "(2) avg points, sum points");
+        assertSameOrderedRows(LEBRON + "(4) avg points where season = \"2021-22\"");
+        assertSameOrderedRows("Player p get rolling(3) avg assists where p.points >= 35");
+    }
+
+    @Test
+    void filtersAndRanges() throws SQLException {
+        assertSameOrderedRows(LEBRON + "(5) avg points where season = \"2023-24\"");
+        assertSameOrderedRows(LEBRON + "(5) avg points where p.minutes >= 30 and game_date >= \"2022-06-01\"");
+        assertTrue(assertSameOrderedRows(LEBRON + "(5) avg points where season = \"1999-00\"").isEmpty());
+        assertTrue(assertSameOrderedRows(LEBRON + "(5) avg points where p.points >= 200").isEmpty());
+    }
+
+    @Test
+    void twoPlayersWithOneName() throws SQLException {
+        // The two Stephen Currys can play on one date, so their rows are compared in any order
+        assertSameRows(CURRY + "(5) avg points, sum threePointersMade");
+        assertSameRows(CURRY + "(8) avg minutes where season = \"2022-23\"");
+    }
+
+    @Test
+    void limits() throws SQLException {
+        assertTrue(assertSameOrderedRows(LEBRON + "(5) avg points limit 0").isEmpty());
+        assertEquals(7, assertSameOrderedRows(LEBRON + "(5) avg points limit 7").getRowCount());
+        QueryResult all = assertSameOrderedRows(LEBRON + "(5) avg points limit 100000");
+        assertEquals(EngineCheck.sqlite().query(LEBRON + "(5) avg points").getRowCount(), all.getRowCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameRows;
+import static com.hoopsql.engine.EngineCheck.assertSameTop;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// ORDER BY in the engine: RowSort's packed full sort and its bounded heap, against SQLite
+class RowSortTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" get games ";
+    private static final String CURRY = "Player p = \"" + Fixtures.CURRY + "\" get games ";
+
+    // The same sort keys in the same order and, without a limit, the same rows
+    private static QueryResult assertSameSort(String query, String keyColumn) throws SQLException {
+        if (!query.contains(" limit ")) {
+            assertSameRows(query);
+        }
+        return assertSameTop(query, keyColumn);
+    }
+
+    // Other stat columns sort as CAST(... AS INTEGER): a percentage sorts as 0 or 1
+    private static QueryResult assertSameTruncatedSort(String query, String keyColumn) throws SQLException {
+        Function<Object, Object> truncated = value -> value == null ? null : (long) ((Number) value).doubleValue();
+        if (!query.contains(" limit ")) {
+            assertSameRows(query);
+        }
+        return assertSameTop(query, keyColumn, truncated);
+    }
+
+    // The engine's sort is stable over game order: rows tied on the key stay in date order
+    private static void assertTiesInDateOrder(QueryResult result, String keyColumn) {
+        List<Map<String, Object>> rows = result.getRows();
+        for (int i = 1; i < rows.size(); i++) {
+            Map<String, Object> previous = rows.get(i - 1);
+            Map<String, Object> row = rows.get(i);
+            if (Objects.equals(previous.get(keyColumn), row.get(keyColumn))) {
+                String before = (String) previous.get("game_date");
+                assertTrue(before.compareTo((String) row.get("game_date")) <= 0, "tie out of date order at row " + i);
+            }
+        }
+    }
+
+    @Test
+    void fullSortsOfIntegerColumns() throws SQLException {
+        assertTiesInDateOrder(assertSameSort(LEBRON + "order by most points", "points"), "points");
+        assertTiesInDateOrder(assertSameSort(LEBRON + "order by least assists", "assists"), "assists");
+        // Negative keys pack below the positive ones
+        assertTiesInDateOrder(assertSameSort(LEBRON + "order by least plusMinusPoints", "plusMinusPoints"), "plusMinusPoints");
+        assertSameSort(LEBRON + "order by most plusMinusPoints", "plusMinusPoints");
+    }
+
+    @Test
+    void nullCellsSortFirstAscendingAndLastDescending() throws SQLException {
+        QueryResult least = assertSameSort(LEBRON + "order by least points", "points");
+        assertNull(least.getRows().get(0).get("points"));
+        QueryResult most = assertSameSort(LEBRON + "order by most points", "points");
+        assertNull(most.getRows().get(most.getRowCount() - 1).get("points"));
+    }
+
+    @Test
+    void fullSortsOfRealColumnsRankTheirKeys() throws SQLException {
+        // Minutes sort as REAL
+        assertTiesInDateOrder(assertSameSort(LEBRON + "order by most minutes", "minutes"), "minutes");
+        assertSameSort(LEBRON + "order by least minutes", "minutes");
+        assertSameTruncatedSort(LEBRON + "order by most fieldGoalsPercentage", "fieldGoalsPercentage");
+        assertSameTruncatedSort(LEBRON + "order by least threePointersPercentage", "threePointersPercentage");
+    }
+
+    @Test
+    void limitsBelowTheRowCountKeepAHeap() throws SQLException {
+        assertTiesInDateOrder(assertSameSort(LEBRON + "order by most points limit 5", "points"), "points");
+        assertSameSort(LEBRON + "order by least points limit 5", "points");
+        assertSameSort(LEBRON + "order by least plusMinusPoints limit 9", "plusMinusPoints");
+        assertSameSort(LEBRON + "order by most minutes limit 12", "minutes");
+        assertSameTruncatedSort(LEBRON + "order by most fieldGoalsPercentage limit 12", "fieldGoalsPercentage");
+        // A filter keeps limit 1 off RangeExtremes
+        assertSameSort(LEBRON + "where p.minutes >= 30 order by most points limit 1", "points");
+    }
+
+    @Test
+    void limitsAtAndAboveTheRowCount() throws SQLException {
+        int count = EngineCheck.sqlite().query(LEBRON).getRowCount();
+        for (int limit : new int[] {count - 1, count, count + 1, 1_000_000}) {
+            QueryResult sorted = assertSameSort(LEBRON + "order by most rebounds limit " + limit, "rebounds");
+            assertEquals(Math.min(limit, count), sorted.getRowCount());
+        }
+        assertTrue(assertSameSort(LEBRON + "order by most rebounds limit 0", "rebounds").isEmpty());
+    }
+
+    @Test
+    void twoPlayersWithOneNameSortTogether() throws SQLException {
+        assertTiesInDateOrder(assertSameSort(CURRY + "order by most points", "points"), "points");
+        assertSameSort(CURRY + "order by least minutes limit 6", "minutes");
+    }
+
+    @Test
+    void filtersRangesAndLeagueWideRuns() throws SQLException {
+        assertSameSort(LEBRON + "where season = \"2023-24\" and p.points >= 20 order by least turnovers", "turnovers");
+        assertTrue(assertSameSort(LEBRON + "where season = \"1999-00\" order by most points", "points").isEmpty());
+        assertTrue(assertSameSort(LEBRON + "where season = \"1999-00\" order by most points limit 3", "points").isEmpty());
+        // A selective threshold's run, then sorted
+        assertSameSort("Player p get games where p.points >= 35 order by least assists limit 8", "assists");
+        assertSameSort("Player p get games where p.points >= 35 order by most steals", "steals");
+    }
+}
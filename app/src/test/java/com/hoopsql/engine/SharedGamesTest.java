@@ -0,0 +1,80 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameRows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+
+// Queries naming two or more players: the games SharedGames says they met in, against SQLite
+class SharedGamesTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" ";
+    private static final String CURRY = "Player q = \"" + Fixtures.CURRY + "\" ";
+
+    // Someone who played for the Lakers alongside LeBron James
+    private static String teammate() throws SQLException {
+        String query = "Player p get games where p.team = \"Lakers\" and season = \"2023-24\"";
+        for (Map<String, Object> row : EngineCheck.sqlite().query(query).getRows()) {
+            if (!Fixtures.LEBRON.equals(row.get("player_name"))) {
+                return (String) row.get("player_name");
+            }
+        }
+        throw new IllegalStateException("The fixture has no Lakers besides " + Fixtures.LEBRON);
+    }
+
+    @Test
+    void opponentsMeetInTheirHeadToHeadGames() throws SQLException {
+        // Two Stephen Currys: the Warriors' and the Celtics' both count
+        assertFalse(assertSameRows(LEBRON + CURRY + "get games").isEmpty());
+        assertSameRows(LEBRON + CURRY + "get games where p.points >= 25 and q.points >= 20");
+    }
+
+    @Test
+    void teammatesMeetInEveryGameTheyBothPlayed() throws SQLException {
+        String teammate = "Player q = \"" + teammate() + "\" ";
+        assertFalse(assertSameRows(LEBRON + teammate + "get games").isEmpty());
+        assertSameRows(LEBRON + teammate + "get games where q.points >= 20");
+    }
+
+    @Test
+    void oneNameTwiceIsThePlayerWithHimself() throws SQLException {
+        // The duplicated box score and the NULL points games are in there
+        assertSameRows(LEBRON + "Player q = \"" + Fixtures.LEBRON + "\" get games");
+        assertSameRows(LEBRON + "Player q = \"" + Fixtures.LEBRON + "\" get games where season = \"2021-22\"");
+        assertSameRows("Player p = \"" + Fixtures.CURRY + "\" " + CURRY + "get games");
+    }
+
+    @Test
+    void seasonsAndEmptyRanges() throws SQLException {
+        assertSameRows(LEBRON + CURRY + "get games where season = \"2023-24\"");
+        assertTrue(assertSameRows(LEBRON + CURRY + "get games where season = \"1999-00\"").isEmpty());
+        assertTrue(assertSameRows(LEBRON + CURRY + "get games where p.points >= 200").isEmpty());
+    }
+
+    @Test
+    void threeNamedPlayers() throws SQLException {
+        String teammate = "Player r = \"" + teammate() + "\" ";
+        assertSameRows(LEBRON + CURRY + teammate + "get games");
+        assertSameRows(LEBRON + CURRY + teammate + "get games where r.points >= 15");
+    }
+
+    @Test
+    void namedPlayersWithARelation() throws SQLException {
+        assertSameRows(LEBRON + CURRY + "Player r = p.opponent get games where r.points >= 30");
+        assertSameRows(LEBRON + "Player q = p.opponent get games where p.points >= 30 and q.points >= 30");
+    }
+
+    @Test
+    void limitsOfNothingAndOfEverything() throws SQLException {
+        // ORDER BY with several players stays in SQLite, and an unordered limit may keep other rows
+        assertTrue(assertSameRows(LEBRON + CURRY + "get games limit 0").isEmpty());
+        int count = EngineCheck.sqlite().query(LEBRON + CURRY + "get games").getRowCount();
+        assertEquals(count, assertSameRows(LEBRON + CURRY + "get games limit 100000").getRowCount());
+    }
+}
@@ -0,0 +1,81 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameRows;
+import static com.hoopsql.engine.EngineCheck.assertSameTop;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.runtime.QueryResult;
+
+// League-wide rows: thresholds read as runs of a StatIndex, and top-N walks of one, against SQLite
+class StatIndexTest {
+    private static final String ANYONE = "Player p get games where ";
+
+    @Test
+    void everyOperatorIsOneRun() throws SQLException {
+        assertFalse(assertSameRows(ANYONE + "p.points >= 35").isEmpty());
+        assertSameRows(ANYONE + "p.points > 34");
+        assertSameRows(ANYONE + "p.points = 40");
+        assertSameRows(ANYONE + "p.rebounds <= 0 and p.minutes >= 20");
+        assertSameRows(ANYONE + "p.assists < 1 and p.minutes >= 36");
+    }
+
+    @Test
+    void nullCellsPassNoThreshold() throws SQLException {
+        // NULL points come first in the index; p.points < 2 must not take them
+        QueryResult low = assertSameRows(ANYONE + "p.points < 2 and p.minutes >= 25");
+        assertTrue(low.getRows().stream().allMatch(row -> row.get("points") != null));
+    }
+
+    @Test
+    void realAndNegativeColumns() throws SQLException {
+        assertSameRows(ANYONE + "p.minutes >= 44");
+        assertSameRows(ANYONE + "p.fieldGoalsPercentage = 1 and p.fieldGoalsAttempted >= 8");
+        // No negative literals in the language; a run up to 0 holds the negative cells
+        assertSameRows(ANYONE + "p.plusMinusPoints < 0 and p.points >= 30");
+    }
+
+    @Test
+    void theNarrowestOfSeveralThresholdsIsRead() throws SQLException {
+        assertSameRows(ANYONE + "p.assists >= 12 and p.points >= 10 and p.rebounds >= 5");
+        assertSameRows(ANYONE + "p.blocks >= 6 and p.points != 0");
+    }
+
+    @Test
+    void emptyRunsAndRanges() throws SQLException {
+        assertTrue(assertSameRows(ANYONE + "p.points >= 200").isEmpty());
+        assertSameRows(ANYONE + "season = \"2023-24\" and p.points >= 35");
+        assertTrue(assertSameRows(ANYONE + "season = \"1999-00\" and p.points >= 35").isEmpty());
+        assertTrue(assertSameRows(ANYONE + "game_date >= \"2023-01-01\" and game_date < \"2023-01-01\" and p.points >= 35")
+            .isEmpty());
+    }
+
+    @Test
+    void topListingsWalkTheSortColumnsIndex() throws SQLException {
+        // Without a selective threshold the walk starts at the top of points and stops once ten rows pass
+        assertSameTop(ANYONE + "p.minutes >= 30 order by most points limit 10", "points");
+        assertSameTop(ANYONE + "p.minutes >= 30 and season = \"2022-23\" order by most rebounds limit 25", "rebounds");
+        assertSameTop(ANYONE + "p.minutes >= 10 order by least plusMinusPoints limit 7", "plusMinusPoints");
+        assertSameTop(ANYONE + "p.minutes >= 10 order by most minutes limit 7", "minutes");
+    }
+
+    @Test
+    void ascendingWalksMeetNullCellsFirst() throws SQLException {
+        QueryResult least = assertSameTop(ANYONE + "p.minutes >= 30 order by least points limit 5", "points");
+        assertTrue(least.getRows().stream().allMatch(row -> row.get("points") == null));
+    }
+
+    @Test
+    void limitsOfNothingAndOfEverything() throws SQLException {
+        assertTrue(assertSameTop(ANYONE + "p.minutes >= 30 order by most points limit 0", "points").isEmpty());
+        QueryResult all = assertSameTop(ANYONE + "p.minutes >= 42 order by most blocks limit 1000000", "blocks");
+        assertEquals(EngineCheck.sqlite().query(ANYONE + "p.minutes >= 42").getRowCount(), all.getRowCount());
+        assertTrue(assertSameTop(ANYONE + "season = \"1999-00\" and p.minutes >= 30 order by most points limit 5", "points")
+            .isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.hoopsql.engine;
+
+import static com.hoopsql.engine.EngineCheck.assertSameOrderedRows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.runtime.QueryResult;
+
+// get streaks: Streaks' one pass and its packed run keys against SQLite's window functions, in its order
+class StreaksTest {
+    private static final String LEBRON = "Player p = \"" + Fixtures.LEBRON + "\" get streaks where ";
+    private static final String CURRY = "Player p = \"" + Fixtures.CURRY + "\" get streaks where ";
+
+    @Test
+    void oneCareer() throws SQLException {
+        assertFalse(assertSameOrderedRows(LEBRON + "p.points >= 25").isEmpty());
+        assertSameOrderedRows(LEBRON + "p.rebounds >= 8 and p.assists >= 6");
+        assertSameOrderedRows(LEBRON + "p.minutes >= 35");
+        assertSameOrderedRows(LEBRON + "p.plusMinusPoints > 0");
+    }
+
+    @Test
+    void nullCellsBreakAStreak() throws SQLException {
+        // The first three games have NULL points, and one box score is listed twice
+        assertSameOrderedRows(LEBRON + "p.points >= 10");
+        assertSameOrderedRows(LEBRON + "p.points < 40");
+        assertSameOrderedRows(LEBRON + "p.assists >= 1");
+    }
+
+    @Test
+    void seasonsAndEmptyRanges() throws SQLException {
+        assertSameOrderedRows(LEBRON + "p.points >= 25 and season = \"2022-23\"");
+        assertSameOrderedRows(LEBRON + "p.points >= 20 and game_date >= \"2023-01-01\" and game_date < \"2024-01-01\"");
+        assertTrue(assertSameOrderedRows(LEBRON + "p.points >= 25 and season = \"1999-00\"").isEmpty());
+        assertTrue(assertSameOrderedRows(LEBRON + "p.points >= 200").isEmpty());
+    }
+
+    @Test
+    void twoPlayersWithOneNameStreakApart() throws SQLException {
+        // A run belongs to one person: the two Stephen Currys' games never join up
+        assertSameOrderedRows(CURRY + "p.points >= 15");
+        assertSameOrderedRows(CURRY + "p.minutes >= 20 limit 4");
+    }
+
+    @Test
+    void leagueWide() throws SQLException {
+        assertEquals(10, assertSameOrderedRows("Player p get streaks where p.points >= 25 limit 10").getRowCount());
+        assertSameOrderedRows("Player p get streaks where p.rebounds >= 12 and season = \"2023-24\" limit 25");
+        assertSameOrderedRows("Player p get streaks where p.assists >= 10");
+    }
+
+    @Test
+    void limits() throws SQLException {
+        assertTrue(assertSameOrderedRows(LEBRON + "p.points >= 25 limit 0").isEmpty());
+        assertEquals(1, assertSameOrderedRows(LEBRON + "p.points >= 25 limit 1").getRowCount());
+        QueryResult all = assertSameOrderedRows(LEBRON + "p.points >= 25 limit 100000");
+        assertEquals(EngineCheck.sqlite().query(LEBRON + "p.points >= 25").getRowCount(), all.getRowCount());
+    }
+}
@@ -0,0 +1,120 @@
+package com.hoopsql.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+    @Test
+    void smallValuesHaveTheirOwnBuckets() {
+        for (long value = 0; value < 8; value++) {
+            assertEquals(value, Histogram.bucketIndex(value));
+            assertEquals(value, Histogram.bucketUpperBound((int) value));
+        }
+    }
+
+    @Test
+    void everyValueFallsInABucketWithinAnEighthOfIt() {
+        List<Long> values = new ArrayList<>();
+        for (long value = 0; value < 5000; value++) {
+            values.add(value);
+        }
+        for (int shift = 13; shift < 63; shift++) {
+            values.add(1L << shift);
+            values.add((1L << shift) - 1);
+            values.add((1L << shift) + 1);
+        }
+        values.add(Long.MAX_VALUE);
+
+        for (long value : values) {
+            int index = Histogram.bucketIndex(value);
+            long upper = Histogram.bucketUpperBound(index);
+            assertTrue(upper >= value, "bucket of " + value + " ends at " + upper);
+            assertTrue(upper - value <= value / 8, "bucket of " + value + " is too wide: ends at " + upper);
+            if (index > 0) {
+                assertTrue(Histogram.bucketUpperBound(index - 1) < value, "previous bucket already holds " + value);
+            }
+        }
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        for (int index = 1; index <= Histogram.bucketIndex(Long.MAX_VALUE); index++) {
+            long start = Histogram.bucketUpperBound(index - 1) + 1;
+            assertEquals(index, Histogram.bucketIndex(start));
+            assertEquals(index, Histogram.bucketIndex(Histogram.bucketUpperBound(index)));
+        }
+    }
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMean());
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void percentilesAreBucketUpperBoundsCappedAtTheMax() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(100, histogram.getMax());
+        assertEquals(1, histogram.getPercentile(0.0));
+        assertEquals(Histogram.bucketUpperBound(Histogram.bucketIndex(50)), histogram.getPercentile(0.5));
+        assertEquals(Histogram.bucketUpperBound(Histogram.bucketIndex(95)), histogram.getPercentile(0.95));
+        assertEquals(100, histogram.getPercentile(1.0)); // its bucket runs to 103
+    }
+
+    @Test
+    void negativeValuesRecordAsZero() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        Histogram histogram = new Histogram();
+        histogram.record(10);
+        histogram.record(1_000_000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(1.0));
+        histogram.record(3);
+        assertEquals(3, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i + offset);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(9_999 + 7, histogram.getMax());
+    }
+}
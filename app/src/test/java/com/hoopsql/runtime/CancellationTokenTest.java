@@ -0,0 +1,146 @@
+package com.hoopsql.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.storage.ConnectionPool;
+
+// Deadlines and cancels on a one-connection pool, so every test reuses the connection the last one stopped on
+class CancellationTokenTest {
+    // Counts forever; only the token stops it
+    private static final String ENDLESS = "WITH RECURSIVE n(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM n) SELECT max(x) FROM n";
+    private static final String QUERY = "Player p = \"" + Fixtures.LEBRON + "\" get games where p.points >= 30";
+
+    private static HoopsQL session;
+    private static ConnectionPool pool;
+
+    @BeforeAll
+    static void open() {
+        session = HoopsQL.open(Fixtures.config().setReadPoolSize(1));
+        pool = session.getExecutor().getStorage().getReadPool();
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    // Runs sql on the pooled connection under the token, the way Executor does
+    private static void run(String sql, CancellationToken token) throws SQLException {
+        Connection connection = pool.acquire();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            try {
+                token.attach(connection, stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                }
+            } finally {
+                token.detach(connection);
+            }
+        } catch (SQLException e) {
+            throw token.translate(e);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    // The connection runs statements with no token attached: no progress handler was left behind
+    private static void assertConnectionIsClean() throws SQLException {
+        Connection connection = pool.acquire();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM player_statistics")) {
+            assertTrue(rs.next());
+        } finally {
+            pool.release(connection);
+        }
+        assertFalse(session.getExecutor().execute(session.compile(QUERY), CancellationToken.withTimeout(0)).isEmpty());
+    }
+
+    @Test
+    void aDeadlineStopsARunningQuery() throws SQLException {
+        CancellationToken token = CancellationToken.withTimeout(100);
+        long start = System.nanoTime();
+        QueryCancelledException e = assertThrows(QueryCancelledException.class, () -> run(ENDLESS, token));
+        assertTrue(e.isTimedOut(), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, token.attachedCount());
+        assertConnectionIsClean();
+    }
+
+    @Test
+    void cancelFromAnotherThreadStopsARunningQuery() throws Exception {
+        CancellationToken token = CancellationToken.withTimeout(0);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            try {
+                run(ENDLESS, token);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        token.cancel();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        QueryCancelledException cancelled = assertInstanceOf(QueryCancelledException.class, e.getCause().getCause());
+        assertFalse(cancelled.isTimedOut());
+        assertEquals(0, token.attachedCount());
+        assertConnectionIsClean();
+    }
+
+    @Test
+    void aStoppedTokenAttachesNothing() throws Exception {
+        CancellationToken expired = CancellationToken.withTimeout(1);
+        Thread.sleep(5);
+        Connection connection = pool.acquire();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT 1")) {
+            assertTrue(assertThrows(QueryCancelledException.class, () -> expired.attach(connection, stmt)).isTimedOut());
+        } finally {
+            pool.release(connection);
+        }
+        assertEquals(0, expired.attachedCount());
+        assertConnectionIsClean();
+
+        CancellationToken cancelled = CancellationToken.withTimeout(0);
+        cancelled.cancel();
+        assertThrows(QueryCancelledException.class, () -> run("SELECT 1", cancelled));
+        assertEquals(0, cancelled.attachedCount());
+        assertConnectionIsClean();
+    }
+
+    @Test
+    void aDeadlinePassingWhileWaitingForTheConnection() throws Exception {
+        // The query starts in time, waits for the one connection, and gets it after its deadline
+        CancellationToken token = CancellationToken.withTimeout(100);
+        Connection held = pool.acquire();
+        CompletableFuture<QueryResult> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return session.getExecutor().execute(session.compile(QUERY), token);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(300);
+        pool.release(held);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertTrue(assertInstanceOf(QueryCancelledException.class, e.getCause().getCause()).isTimedOut());
+        assertEquals(0, token.attachedCount());
+        assertConnectionIsClean();
+    }
+}
@@ -0,0 +1,134 @@
+package com.hoopsql.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.compiler.ExecutionPlan;
+
+// executeAsync and executeAll on an executor allowed two of the pool's four connections
+class ExecutorTest {
+    // Counts forever; only a token stops it
+    private static final ExecutionPlan ENDLESS = new ExecutionPlan(
+        "WITH RECURSIVE n(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM n) SELECT max(x) FROM n", Map.of(), "games");
+    private static final ExecutionPlan BROKEN = new ExecutionPlan("SELECT * FROM no_such_table", Map.of(), "games");
+
+    private static HoopsQL session;
+    private static Executor executor;
+
+    @BeforeAll
+    static void open() {
+        session = HoopsQL.open(Fixtures.config().setReadPoolSize(4));
+        executor = new Executor(session.getExecutor().getStorage(), 2);
+    }
+
+    @AfterAll
+    static void close() {
+        executor.close();
+        session.close();
+    }
+
+    private static List<ExecutionPlan> plans(String... queries) {
+        List<ExecutionPlan> plans = new ArrayList<>();
+        for (String query : queries) {
+            plans.add(session.compile(query));
+        }
+        return plans;
+    }
+
+    private static void awaitEquals(int expected, IntSupplier actual) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (actual.getAsInt() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, actual.getAsInt());
+    }
+
+    @Test
+    void resultsComeBackInInputOrder() throws SQLException {
+        // A slow scan first, so later plans finish before it
+        List<ExecutionPlan> batch = plans(
+            "Player p get games where p.points >= 30",
+            "Player p = \"" + Fixtures.LEBRON + "\" get games",
+            "Player p = \"" + Fixtures.CURRY + "\" get avg(games) by season",
+            "Player p = \"" + Fixtures.LEBRON + "\" get games where p.points >= 200",
+            "Player p = \"" + Fixtures.LEBRON + "\" get agg(sum(points), count(games))");
+        List<QueryResult> results = executor.executeAll(batch);
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(executor.execute(batch.get(i)).getRows(), results.get(i).getRows(), batch.get(i).getSql());
+        }
+        assertTrue(results.get(3).isEmpty());
+        assertEquals(0, executor.runningAsync());
+    }
+
+    @Test
+    void aFailingPlanStopsTheRestOfItsBatch() throws Exception {
+        // The endless plan comes first: the failure behind it still ends the batch
+        long start = System.nanoTime();
+        SQLException e = assertThrows(SQLException.class, () -> executor.executeAll(List.of(ENDLESS, BROKEN)));
+        assertFalse(e instanceof QueryCancelledException, e.getMessage());
+        assertTrue(e.getMessage().contains("no_such_table"), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        // Its token was cancelled, so the endless plan gives its permit and connection back
+        awaitEquals(0, executor::runningAsync);
+
+        // Under one token the same holds, and the token is left cancelled
+        CancellationToken token = CancellationToken.withTimeout(0);
+        assertThrows(SQLException.class, () -> executor.executeAll(List.of(ENDLESS, BROKEN), token));
+        assertTrue(token.isCancelled());
+        awaitEquals(0, executor::runningAsync);
+        assertFalse(executor.executeAll(plans("Player p = \"" + Fixtures.LEBRON + "\" get games")).get(0).isEmpty());
+    }
+
+    @Test
+    void noMoreThanTheAllowedQueriesRunAtOnce() throws Exception {
+        assertEquals(2, executor.getMaxConcurrency());
+        List<CancellationToken> tokens = new ArrayList<>();
+        List<CompletableFuture<QueryResult>> running = new ArrayList<>();
+        try {
+            // The first two take the permits before the others are submitted
+            for (int i = 0; i < 4; i++) {
+                CancellationToken token = CancellationToken.withTimeout(0);
+                tokens.add(token);
+                running.add(executor.executeAsync(ENDLESS, token));
+                awaitEquals(Math.min(i + 1, 2), executor::runningAsync);
+            }
+            Thread.sleep(200);
+            // Two run, two wait for a permit, and the pool keeps connections to spare
+            assertEquals(2, executor.runningAsync());
+            assertFalse(session.query("Player p = \"" + Fixtures.LEBRON + "\" get games").isEmpty());
+
+            // Stopping a running one lets exactly one waiter in
+            tokens.get(0).cancel();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> running.get(0).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(QueryCancelledException.class, e.getCause());
+            Thread.sleep(200);
+            assertEquals(2, executor.runningAsync());
+            assertEquals(3, running.stream().filter(f -> !f.isDone()).count());
+        } finally {
+            tokens.forEach(CancellationToken::cancel);
+        }
+        for (CompletableFuture<QueryResult> future : running) {
+            assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        }
+        awaitEquals(0, executor::runningAsync);
+    }
+}
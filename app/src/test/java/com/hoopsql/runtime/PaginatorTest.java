@@ -0,0 +1,146 @@
+package com.hoopsql.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+
+class PaginatorTest {
+    private static HoopsQL hoopsql;
+
+    @BeforeAll
+    static void open() {
+        hoopsql = HoopsQL.open(Fixtures.config());
+    }
+
+    @AfterAll
+    static void close() {
+        hoopsql.close();
+    }
+
+    // Every page of a listing, in order
+    private static List<Page> pages(String query, int pageSize) throws SQLException {
+        List<Page> pages = new ArrayList<>();
+        String token = null;
+        do {
+            Page page = hoopsql.queryPage(query, pageSize, token);
+            pages.add(page);
+            token = page.getResumeToken();
+        } while (token != null);
+        return pages;
+    }
+
+    private static List<Map<String, Object>> rows(List<Page> pages) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Page page : pages) {
+            rows.addAll(page.getResult().getRows());
+        }
+        return rows;
+    }
+
+    private static List<String> sorted(List<Map<String, Object>> rows) {
+        List<String> strings = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            strings.add(row.toString());
+        }
+        strings.sort(null);
+        return strings;
+    }
+
+    @Test
+    void tokensRoundTripEveryKeyType() {
+        ResumeToken token = new ResumeToken("1a2b", 40, 2, Arrays.asList(null, 42, 7L, 3.5, "2024-01-05", "Luka Dončić"));
+        String encoded = token.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+
+        ResumeToken decoded = ResumeToken.decode(encoded);
+        assertEquals(40, decoded.getReturned());
+        assertEquals(2, decoded.getRepeats());
+        // Integers come back as longs; SQLite compares them the same
+        assertEquals(Arrays.asList(null, 42L, 7L, 3.5, "2024-01-05", "Luka Dončić"), decoded.getLastKey());
+        assertEquals(encoded, decoded.encode());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ResumeToken.decode("not a token!"));
+        assertThrows(IllegalArgumentException.class, () -> ResumeToken.decode(""));
+        String valid = new ResumeToken("1a2b", 3, 1, List.of(5)).encode();
+        assertThrows(IllegalArgumentException.class, () -> ResumeToken.decode(valid.substring(0, valid.length() - 4)));
+
+        byte[] bytes = Base64.getUrlDecoder().decode(valid);
+        bytes[0] = 9; // version
+        assertThrows(IllegalArgumentException.class,
+            () -> ResumeToken.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)));
+        bytes[0] = 2;
+        bytes[bytes.length - 9] = 'X'; // key type tag
+        assertThrows(IllegalArgumentException.class,
+            () -> ResumeToken.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)));
+    }
+
+    @Test
+    void tokensOnlyResumeTheirOwnQuery() throws SQLException {
+        Page first = hoopsql.queryPage("Player p get games where p.points >= 30 order by most points", 5, null);
+        assertTrue(first.hasMore());
+        assertThrows(IllegalArgumentException.class,
+            () -> hoopsql.queryPage("Player p get games where p.points >= 31 order by most points", 5, first.getResumeToken()));
+    }
+
+    @Test
+    void orderedPagesConcatenateToTheWholeListing() throws SQLException {
+        String query = "Player p get games where p.points >= 25 order by most points";
+        List<Page> pages = pages(query, 7);
+        QueryResult whole = hoopsql.query(query);
+
+        List<Map<String, Object>> paged = rows(pages);
+        assertEquals(sorted(whole.getRows()), sorted(paged));
+        for (int i = 1; i < paged.size(); i++) {
+            assertTrue(((Number) paged.get(i - 1).get("points")).intValue() >= ((Number) paged.get(i).get("points")).intValue());
+        }
+        int firstRow = 1;
+        for (Page page : pages) {
+            assertEquals(firstRow, page.getFirstRow());
+            assertEquals(whole.getColumnNames(), page.getResult().getColumnNames());
+            firstRow += page.getResult().getRowCount();
+        }
+    }
+
+    @Test
+    void pagesKeepNullKeysAndRepeatedRows() throws SQLException {
+        // The player's first games have NULL points, and one box score is listed twice: one row key for two rows
+        for (String order : new String[] {"", " order by most points", " order by least points"}) {
+            String query = "Player p = \"" + Fixtures.LEBRON + "\" get games" + order;
+            List<String> expected = sorted(hoopsql.query(query).getRows());
+            for (int pageSize : new int[] {1, 2, 10, 1000}) {
+                assertEquals(expected, sorted(rows(pages(query, pageSize))), query + ", page size " + pageSize);
+            }
+        }
+    }
+
+    @Test
+    void thePlansLimitCutsTheLastPage() throws SQLException {
+        List<Page> pages = pages("Player p get games where p.points >= 20 order by least points limit 10", 4);
+        assertEquals(3, pages.size());
+        assertEquals(List.of(4, 4, 2), pages.stream().map(p -> p.getResult().getRowCount()).toList());
+        assertNull(pages.get(2).getResumeToken());
+
+        Page none = hoopsql.queryPage("Player p get games where p.points >= 20 limit 0", 4, null);
+        assertTrue(none.getResult().isEmpty());
+        assertFalse(none.hasMore());
+    }
+}
@@ -0,0 +1,121 @@
+package com.hoopsql.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.compiler.ExecutionPlan;
+
+class ParallelExecutorTest {
+    // About one partition per season, so the fixture's four seasons land in different ones
+    private static final int PARTITIONS = 80;
+
+    private static HoopsQL whole;
+    private static HoopsQL split;
+
+    @BeforeAll
+    static void open() {
+        whole = HoopsQL.open(Fixtures.config());
+        split = HoopsQL.open(Fixtures.config().setQueryPartitions(PARTITIONS));
+    }
+
+    @AfterAll
+    static void close() {
+        whole.close();
+        split.close();
+    }
+
+    private static List<Object> column(QueryResult result, String column) {
+        List<Object> values = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            values.add(row.get(column));
+        }
+        return values;
+    }
+
+    private static List<String> sortedRows(QueryResult result) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            rows.add(row.toString());
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    @Test
+    void onlyHeavyMergeablePlansArePartitioned() {
+        ParallelExecutor parallel = new ParallelExecutor(whole.getExecutor(), PARTITIONS);
+        assertTrue(parallel.shouldPartition(whole.compile("Player p get games where p.points >= 30 order by most points limit 10")));
+        assertTrue(parallel.shouldPartition(whole.compile("Player p get agg(avg(points), count(games)) where p.points >= 20")));
+        assertFalse(parallel.shouldPartition(whole.compile("Player p = \"" + Fixtures.LEBRON + "\" get avg(games)")));
+        assertFalse(parallel.shouldPartition(whole.compile("Player p get games where p.points >= 30 limit 5")));
+        assertFalse(parallel.shouldPartition(whole.compile("Player p get avg(games) by season where p.points >= 20")));
+        assertFalse(new ParallelExecutor(whole.getExecutor(), 1)
+            .shouldPartition(whole.compile("Player p get games where p.points >= 30 order by most points limit 10")));
+    }
+
+    @Test
+    void partitionsTogetherCoverEveryRow() throws SQLException {
+        String query = "Player p get agg(count(games)) where p.points >= 0";
+        List<ExecutionPlan> partitions = new ParallelExecutor(whole.getExecutor(), PARTITIONS).partition(whole.compile(query));
+        assertTrue(partitions.size() > 1 && partitions.size() <= PARTITIONS);
+        long total = 0;
+        for (ExecutionPlan partition : partitions) {
+            total += ((Number) whole.getExecutor().execute(partition).getRows().get(0).get("games_count")).longValue();
+        }
+        assertEquals(((Number) whole.query(query).getRows().get(0).get("games_count")).longValue(), total);
+    }
+
+    @Test
+    void topListingsMatchTheWholeQuery() throws SQLException {
+        for (String query : List.of(
+                "Player p get games where p.points >= 20 order by most points limit 15",
+                "Player p get games where p.assists >= 5 order by least points limit 12",
+                "Player p get games where p.points >= 25 order by most rebounds limit 0")) {
+            QueryResult expected = whole.query(query);
+            QueryResult actual = split.query(query);
+            assertEquals(expected.getColumnNames(), actual.getColumnNames(), query);
+            String key = query.contains("rebounds") ? "rebounds" : "points";
+            // Rows tied on the key may differ; the keys may not
+            assertEquals(column(expected, key), column(actual, key), query);
+        }
+    }
+
+    @Test
+    void unorderedListingsReturnTheSameRows() throws SQLException {
+        String query = "Player p get games where p.points >= 30";
+        assertEquals(sortedRows(whole.query(query)), sortedRows(split.query(query)));
+    }
+
+    @Test
+    void aggregatesMatchTheWholeQuery() throws SQLException {
+        String query = "Player p get agg(avg(points), sum(assists), count(games), min(points), max(rebounds)) where p.points >= 10";
+        Map<String, Object> expected = whole.query(query).getRows().get(0);
+        Map<String, Object> actual = split.query(query).getRows().get(0);
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals((Double) expected.get("avg_points"), (Double) actual.get("avg_points"), 1e-9);
+        for (String column : List.of("sum_assists", "games_count", "min_points", "max_rebounds")) {
+            assertEquals(expected.get(column), actual.get(column), column);
+        }
+    }
+
+    @Test
+    void aggregatesOverNoRowsMatchTheWholeQuery() throws SQLException {
+        String query = "Player p get agg(count(games), sum(points), avg(assists)) where p.points >= 500";
+        Map<String, Object> expected = whole.query(query).getRows().get(0);
+        assertEquals(0, expected.get("games_count"));
+        assertEquals(expected, split.query(query).getRows().get(0));
+        assertTrue(split.query("Player p get agg(count(games)) where p.points >= 10 limit 0").isEmpty());
+    }
+}
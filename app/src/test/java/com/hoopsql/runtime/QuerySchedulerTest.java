@@ -0,0 +1,188 @@
+package com.hoopsql.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.metrics.Metrics;
+import com.hoopsql.util.Config;
+
+// Lanes of one slot: a test holds the slot, queues work behind it, then lets go and watches the order
+class QuerySchedulerTest {
+    private static final String LOOKUP = "Player p = \"" + Fixtures.LEBRON + "\" get games";
+
+    private static HoopsQL session;
+    private static ExecutionPlan lookup;
+
+    @BeforeAll
+    static void open() {
+        session = HoopsQL.open(Fixtures.config());
+        lookup = session.compile(LOOKUP);
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    private static QueryScheduler.Lane lane(String query) {
+        return QueryScheduler.classify(session.compile(query));
+    }
+
+    // Holds the plan's lane slot until released
+    private static final class Holder implements AutoCloseable {
+        private final CountDownLatch admitted = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final CompletableFuture<Object> running;
+
+        Holder(QueryScheduler scheduler) throws InterruptedException {
+            running = submit(scheduler, "holder", CancellationToken.withTimeout(0), () -> {
+                admitted.countDown();
+                await(done);
+            });
+            assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void close() throws Exception {
+            done.countDown();
+            running.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static CompletableFuture<Object> submit(QueryScheduler scheduler, String client, CancellationToken token,
+                                                    Runnable work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.run(client, lookup, token, () -> {
+                    work.run();
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQueued(QueryScheduler scheduler, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getQueued(QueryScheduler.Lane.CHEAP) != queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(queued, scheduler.getQueued(QueryScheduler.Lane.CHEAP));
+    }
+
+    @Test
+    void clientsTakeTurnsWithinALane() throws Exception {
+        QueryScheduler scheduler = new QueryScheduler(session.getExecutor(), 1, 1, 100);
+        List<String> order = new ArrayList<>();
+        List<CompletableFuture<Object>> queued = new ArrayList<>();
+        try (Holder holder = new Holder(scheduler)) {
+            // One client queues three, then another queues one
+            String[] arrivals = {"a1", "a2", "a3", "b1"};
+            for (int i = 0; i < arrivals.length; i++) {
+                String label = arrivals[i];
+                queued.add(submit(scheduler, label.substring(0, 1), CancellationToken.withTimeout(0), () -> {
+                    synchronized (order) {
+                        order.add(label);
+                    }
+                }));
+                awaitQueued(scheduler, i + 1);
+            }
+        }
+        CompletableFuture.allOf(queued.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("a1", "b1", "a2", "a3"), order);
+        assertEquals(0, scheduler.getRunning(QueryScheduler.Lane.CHEAP));
+    }
+
+    @Test
+    void aFullQueueTurnsQueriesAway() throws Exception {
+        QueryScheduler scheduler = new QueryScheduler(session.getExecutor(), 1, 1, 1);
+        long rejected = Metrics.QUERIES_REJECTED.get();
+        CompletableFuture<Object> waiting;
+        try (Holder holder = new Holder(scheduler)) {
+            waiting = submit(scheduler, "a", CancellationToken.withTimeout(0), () -> {});
+            awaitQueued(scheduler, 1);
+            assertThrows(QueryRejectedException.class,
+                () -> scheduler.run("b", lookup, CancellationToken.withTimeout(0), () -> 0));
+            assertEquals(rejected + 1, Metrics.QUERIES_REJECTED.get());
+        }
+        // The queued one still runs once the slot frees
+        waiting.get(5, TimeUnit.SECONDS);
+        // The other lane has a queue of its own
+        assertEquals(0, scheduler.getQueued(QueryScheduler.Lane.HEAVY));
+    }
+
+    @Test
+    void aQueryWhoseDeadlinePassesLeavesTheQueue() throws Exception {
+        QueryScheduler scheduler = new QueryScheduler(session.getExecutor(), 1, 1, 100);
+        try (Holder holder = new Holder(scheduler)) {
+            CompletableFuture<Object> late = submit(scheduler, "a", CancellationToken.withTimeout(100), () -> {});
+            ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+            assertTrue(((QueryCancelledException) e.getCause().getCause()).isTimedOut());
+            assertEquals(0, scheduler.getQueued(QueryScheduler.Lane.CHEAP));
+
+            CancellationToken token = CancellationToken.withTimeout(0);
+            CompletableFuture<Object> cancelled = submit(scheduler, "b", token, () -> {});
+            awaitQueued(scheduler, 1);
+            token.cancel();
+            e = assertThrows(ExecutionException.class, () -> cancelled.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause().getCause() instanceof QueryCancelledException);
+            assertEquals(0, scheduler.getQueued(QueryScheduler.Lane.CHEAP));
+        }
+        // Withdrawn queries took no slot with them
+        assertEquals(0, scheduler.getRunning(QueryScheduler.Lane.CHEAP));
+        assertFalse(scheduler.execute("c", lookup, CancellationToken.withTimeout(0)).isEmpty());
+    }
+
+    @Test
+    void namedPlayersAndShortRangesAreCheap() {
+        assertEquals(QueryScheduler.Lane.CHEAP, lane(LOOKUP));
+        assertEquals(QueryScheduler.Lane.CHEAP, lane("Player p = \"" + Fixtures.LEBRON + "\" get avg(games)"));
+        assertEquals(QueryScheduler.Lane.CHEAP, lane("Player p = \"" + Fixtures.LEBRON + "\" Player q = \"" + Fixtures.CURRY
+            + "\" get games"));
+        assertEquals(QueryScheduler.Lane.CHEAP, lane("Player p get games where season = \"2023-24\" and p.points >= 35"));
+        // 366 days is the most a cheap range spans
+        assertEquals(QueryScheduler.Lane.CHEAP,
+            lane("Player p get games where game_date >= \"2023-01-01\" and game_date <= \"2024-01-02\" and p.points >= 35"));
+        assertEquals(QueryScheduler.Lane.HEAVY,
+            lane("Player p get games where game_date >= \"2023-01-01\" and game_date <= \"2024-01-03\" and p.points >= 35"));
+        assertEquals(QueryScheduler.Lane.HEAVY, lane("Player p get games where p.points >= 35"));
+        assertEquals(QueryScheduler.Lane.HEAVY, lane("Player p get avg(games) where p.points >= 35"));
+    }
+
+    @Test
+    void heavySlotsLeaveALookupConnection() {
+        assertEquals(1, new Config().setReadPoolSize(1).getHeavyQuerySlots());
+        assertEquals(1, new Config().setReadPoolSize(2).getHeavyQuerySlots());
+        assertEquals(4, new Config().setReadPoolSize(8).getHeavyQuerySlots());
+        // Set before or after the pool, an explicit count stays below it
+        assertEquals(3, new Config().setHeavyQuerySlots(10).setReadPoolSize(4).getHeavyQuerySlots());
+        assertEquals(3, new Config().setReadPoolSize(4).setHeavyQuerySlots(10).getHeavyQuerySlots());
+        assertEquals(2, new Config().setReadPoolSize(4).setHeavyQuerySlots(2).getHeavyQuerySlots());
+        assertEquals(1, new Config().setReadPoolSize(1).setHeavyQuerySlots(3).getHeavyQuerySlots());
+    }
+}
@@ -0,0 +1,209 @@
+package com.hoopsql.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.compiler.QueryParts;
+
+class ResultMergerTest {
+    private static final String FROM = "games LEFT JOIN player_statistics ON games.gameId = player_statistics.gameId";
+
+    private static QueryParts listing(String orderBy, boolean ascending, Integer limit) {
+        return new QueryParts("games.gameId AS gameId, player_statistics.points AS points", FROM,
+            List.of("player_statistics.points >= 30"), orderBy, ascending, limit, List.of());
+    }
+
+    private static QueryParts aggregates(Integer limit, QueryParts.Aggregate... aggregates) {
+        List<String> select = new ArrayList<>();
+        for (QueryParts.Aggregate aggregate : aggregates) {
+            select.add(aggregate.toSql());
+        }
+        return new QueryParts(String.join(", ", select), FROM, List.of(), null, false, limit, Arrays.asList(aggregates));
+    }
+
+    private static QueryResult result(List<String> columns, Object[]... rows) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Object[] values : rows) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                row.put(columns.get(i), values[i]);
+            }
+            list.add(row);
+        }
+        return new QueryResult(list, columns, "games");
+    }
+
+    private static Object[] row(Object... values) {
+        return values;
+    }
+
+    private static List<Object> column(QueryResult result, String column) {
+        List<Object> values = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            values.add(row.get(column));
+        }
+        return values;
+    }
+
+    @Test
+    void splittableAggregatesMerge() {
+        assertTrue(ResultMerger.canMerge(listing(null, false, null)));
+        assertTrue(ResultMerger.canMerge(aggregates(null,
+            new QueryParts.Aggregate("AVG", "player_statistics.points", "avg_points"),
+            new QueryParts.Aggregate("COUNT", "*", "games_count"))));
+    }
+
+    @Test
+    void groupedDistinctAndOtherAggregatesRunWhole() {
+        assertFalse(ResultMerger.canMerge(null));
+        assertFalse(ResultMerger.canMerge(aggregates(null,
+            new QueryParts.Aggregate("COUNT", "DISTINCT games.gameId", "games_count"))));
+        assertFalse(ResultMerger.canMerge(aggregates(null,
+            new QueryParts.Aggregate("GROUP_CONCAT", "games.gameId", "ids"))));
+        assertFalse(ResultMerger.canMerge(aggregates(null,
+            new QueryParts.Aggregate("SUM", "player_statistics.points", "sum_points")).withGroupBy("season")));
+    }
+
+    @Test
+    void averagesSplitIntoSumsAndCounts() {
+        QueryParts parts = aggregates(null,
+            new QueryParts.Aggregate("AVG", "player_statistics.points", "avg_points"),
+            new QueryParts.Aggregate("MAX", "player_statistics.points", "max_points"));
+        QueryParts partial = ResultMerger.partialForm(parts);
+        assertEquals(List.of(
+            new QueryParts.Aggregate("SUM", "player_statistics.points", "avg_points__sum"),
+            new QueryParts.Aggregate("COUNT", "player_statistics.points", "avg_points__count"),
+            new QueryParts.Aggregate("MAX", "player_statistics.points", "max_points")), partial.getAggregates());
+        // A partition spanning shards is split again; its form must not change
+        assertEquals(partial.toSql(), ResultMerger.partialForm(partial).toSql());
+    }
+
+    @Test
+    void orderedListingsCarryTheirSortKeyOnce() {
+        QueryParts partial = ResultMerger.partialForm(listing("player_statistics.points", false, 5));
+        assertTrue(partial.getSelect().endsWith(", player_statistics.points AS __sort_key"));
+        assertEquals(partial.toSql(), ResultMerger.partialForm(partial).toSql());
+        QueryParts unordered = listing(null, false, 5);
+        assertEquals(unordered.toSql(), ResultMerger.partialForm(unordered).toSql());
+    }
+
+    @Test
+    void averagesRecombineFromSumsAndCounts() {
+        QueryParts parts = aggregates(null, new QueryParts.Aggregate("AVG", "player_statistics.points", "avg_points"));
+        List<String> columns = List.of("avg_points__sum", "avg_points__count");
+        QueryResult merged = ResultMerger.merge(parts, List.of(
+            result(columns, row(30, 2)),
+            result(columns, row(null, 0)), // a partition with no matching rows
+            result(columns, row(15, 1))), "averages");
+        assertEquals(List.of("avg_points"), merged.getColumnNames());
+        assertEquals(15.0, merged.getRows().get(0).get("avg_points"));
+
+        QueryResult none = ResultMerger.merge(parts, List.of(result(columns, row(null, 0))), "averages");
+        assertNull(none.getRows().get(0).get("avg_points"));
+    }
+
+    @Test
+    void sumsStayIntegralUnlessAPartIsFractional() {
+        QueryParts parts = aggregates(null, new QueryParts.Aggregate("SUM", "player_statistics.points", "total"));
+        List<String> columns = List.of("total");
+        assertEquals(7, ResultMerger.merge(parts, List.of(result(columns, row(3)), result(columns, row(4))), "averages")
+            .getRows().get(0).get("total"));
+        long big = Integer.MAX_VALUE;
+        assertEquals(2 * big, ResultMerger.merge(parts, List.of(result(columns, row((int) big)), result(columns, row(big))),
+            "averages").getRows().get(0).get("total"));
+        assertEquals(4.5, ResultMerger.merge(parts, List.of(result(columns, row(3)), result(columns, row(1.5))), "averages")
+            .getRows().get(0).get("total"));
+    }
+
+    @Test
+    void countOfNothingIsZeroButSumIsNull() {
+        QueryParts parts = aggregates(null,
+            new QueryParts.Aggregate("COUNT", "*", "games_count"),
+            new QueryParts.Aggregate("SUM", "player_statistics.points", "sum_points"));
+        List<String> columns = List.of("games_count", "sum_points");
+
+        QueryResult noPartials = ResultMerger.merge(parts, List.of(result(columns), result(columns)), "averages");
+        assertEquals(0, noPartials.getRows().get(0).get("games_count"));
+        assertNull(noPartials.getRows().get(0).get("sum_points"));
+
+        QueryResult emptyParts = ResultMerger.merge(parts, List.of(result(columns, row(0, null))), "averages");
+        assertEquals(0, emptyParts.getRows().get(0).get("games_count"));
+        assertNull(emptyParts.getRows().get(0).get("sum_points"));
+    }
+
+    @Test
+    void extremesSkipNulls() {
+        QueryParts parts = aggregates(null,
+            new QueryParts.Aggregate("MIN", "player_statistics.points", "min_points"),
+            new QueryParts.Aggregate("MAX", "player_statistics.points", "max_points"));
+        List<String> columns = List.of("min_points", "max_points");
+        Map<String, Object> merged = ResultMerger.merge(parts, List.of(
+            result(columns, row(null, null)), result(columns, row(12, 40)), result(columns, row(9, 38))), "averages")
+            .getRows().get(0);
+        assertEquals(9, merged.get("min_points"));
+        assertEquals(40, merged.get("max_points"));
+    }
+
+    @Test
+    void limitZeroDropsTheAggregateRow() {
+        QueryParts parts = aggregates(0, new QueryParts.Aggregate("COUNT", "*", "games_count"));
+        QueryResult merged = ResultMerger.merge(parts, List.of(result(List.of("games_count"))), "averages");
+        assertTrue(merged.isEmpty());
+        assertEquals(List.of("games_count"), merged.getColumnNames());
+    }
+
+    @Test
+    void unorderedListingsConcatenateInPartitionOrderUpToTheLimit() {
+        List<String> columns = List.of("gameId", "points");
+        List<QueryResult> partials = List.of(
+            result(columns, row(1, 30), row(2, 31)),
+            result(columns),
+            result(columns, row(7, 44), row(8, 35)));
+        assertEquals(List.of(1, 2, 7), column(ResultMerger.merge(listing(null, false, 3), partials, "games"), "gameId"));
+        assertEquals(List.of(1, 2, 7, 8), column(ResultMerger.merge(listing(null, false, null), partials, "games"), "gameId"));
+        assertTrue(ResultMerger.merge(listing(null, false, 0), partials, "games").isEmpty());
+    }
+
+    @Test
+    void orderedListingsMergeByTheirSortKeyAndDropIt() {
+        List<String> columns = List.of("gameId", "points", "__sort_key");
+        List<QueryResult> partials = List.of(
+            result(columns, row(1, 44, 44), row(2, 35, 35), row(3, 30, 30)),
+            result(columns, row(4, 40, 40), row(5, 35, 35)));
+        QueryResult merged = ResultMerger.merge(listing("player_statistics.points", false, 4), partials, "games");
+        // The tie at 35 goes to the earlier partition
+        assertEquals(List.of(1, 4, 2, 5), column(merged, "gameId"));
+        assertEquals(List.of("gameId", "points"), merged.getColumnNames());
+        assertFalse(merged.getRows().get(0).containsKey("__sort_key"));
+    }
+
+    @Test
+    void ascendingMergePutsNullsFirst() {
+        List<String> columns = List.of("gameId", "points", "__sort_key");
+        List<QueryResult> partials = List.of(
+            result(columns, row(1, 10, 10), row(2, 12, 12)),
+            result(columns, row(3, null, null), row(4, 11, 11)));
+        QueryResult merged = ResultMerger.merge(listing("player_statistics.points", true, null), partials, "games");
+        assertEquals(List.of(3, 1, 4, 2), column(merged, "gameId"));
+    }
+
+    @Test
+    void keysCompareAsSqliteOrdersThem() {
+        assertEquals(0, ResultMerger.compareKeys(null, null));
+        assertTrue(ResultMerger.compareKeys(null, -5) < 0);
+        assertTrue(ResultMerger.compareKeys(3, 3.5) < 0);
+        assertEquals(0, ResultMerger.compareKeys(4, 4.0));
+        assertTrue(ResultMerger.compareKeys(1_000_000, "10") < 0);
+        assertTrue(ResultMerger.compareKeys("b", "a") > 0);
+    }
+}
@@ -0,0 +1,151 @@
+package com.hoopsql.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.util.SeasonMapper;
+
+// Small generated databases: what a seed determines, and the box scores adding up
+class DatasetGeneratorTest {
+    private static final long BOX_SCORES = 6_000;
+    private static final int SEASONS = 3;
+    private static final String[] TABLES = {"games", "players", "player_statistics", "team_statistics", "team_histories"};
+
+    private static Path dir;
+    private static Path database;
+    private static DatasetGenerator.Summary summary;
+
+    @BeforeAll
+    static void generate() throws IOException, SQLException {
+        dir = Files.createTempDirectory("hoopsql-generated");
+        database = dir.resolve("seed42.db");
+        summary = new DatasetGenerator(42, BOX_SCORES, SEASONS).generate(database);
+    }
+
+    private static List<String> rows(Path file, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(rs.getObject(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private static long count(String sql) throws SQLException {
+        return Long.parseLong(rows(database, sql).get(0).replace("|", ""));
+    }
+
+    private static List<String> table(Path file, String table) throws SQLException {
+        List<String> rows = rows(file, "SELECT * FROM " + table);
+        rows.sort(null);
+        return rows;
+    }
+
+    @Test
+    void aSeedDeterminesTheDatabase() throws IOException, SQLException {
+        Path again = dir.resolve("again.db");
+        assertEquals(summary, new DatasetGenerator(42, BOX_SCORES, SEASONS).generate(again));
+        // The batch size only changes how rows are written
+        Path batched = dir.resolve("batched.db");
+        DatasetGenerator small = new DatasetGenerator(42, BOX_SCORES, SEASONS);
+        small.setBatchSize(7);
+        small.generate(batched);
+        for (String table : TABLES) {
+            assertEquals(table(database, table), table(again, table), table);
+            assertEquals(table(database, table), table(batched, table), table);
+        }
+
+        Path other = dir.resolve("seed43.db");
+        new DatasetGenerator(43, BOX_SCORES, SEASONS).generate(other);
+        assertNotEquals(table(database, "player_statistics"), table(other, "player_statistics"));
+    }
+
+    @Test
+    void theTargetIsReached() throws SQLException {
+        assertEquals(summary.boxScores(), count("SELECT count(*) FROM player_statistics"));
+        assertEquals(summary.games(), count("SELECT count(*) FROM games"));
+        assertEquals(summary.players(), count("SELECT count(*) FROM players"));
+        assertEquals(summary.teams(), count("SELECT count(*) FROM team_histories"));
+        assertEquals(2 * summary.games(), count("SELECT count(*) FROM team_statistics"));
+        // At most one game's box scores over
+        assertTrue(summary.boxScores() >= BOX_SCORES && summary.boxScores() <= BOX_SCORES + 30, summary.toString());
+    }
+
+    @Test
+    void gamesFallInTheLastSeasons() throws SQLException {
+        String first = SeasonMapper.getSeasonDates("2022-23").getStartDate();
+        String last = SeasonMapper.getSeasonDates("2024-25").getEndDate();
+        assertEquals(0, count("SELECT count(*) FROM games WHERE substr(gameDate, 1, 10) < '" + first
+            + "' OR substr(gameDate, 1, 10) > '" + last + "'"));
+        for (String season : List.of("2022-23", "2023-24", "2024-25")) {
+            SeasonMapper.SeasonDates dates = SeasonMapper.getSeasonDates(season);
+            assertTrue(count("SELECT count(*) FROM games WHERE gameDate >= '" + dates.getStartDate()
+                + "' AND gameDate <= '" + dates.getEndDate() + " 23:59:59'") > 0, season);
+        }
+        // Star franchises come first, so even a two-team league has LeBron's Lakers
+        assertEquals(2, summary.teams());
+        assertEquals(1, count("SELECT count(*) FROM players WHERE firstName = 'LeBron' AND lastName = 'James'"));
+        assertTrue(count("SELECT count(*) FROM player_statistics WHERE firstName = 'LeBron' AND lastName = 'James'"
+            + " AND playerteamName = 'Lakers'") > 0);
+    }
+
+    @Test
+    void boxScoresAddUp() throws SQLException {
+        assertEquals(0, count("SELECT count(*) FROM player_statistics"
+            + " WHERE points != 2 * fieldGoalsMade + threePointersMade + freeThrowsMade"
+            + " OR reboundsTotal != reboundsOffensive + reboundsDefensive"
+            + " OR fieldGoalsMade > fieldGoalsAttempted OR threePointersMade > fieldGoalsMade"));
+        // A team's line is the sum of its players', and its score is theirs too
+        assertEquals(0, count("SELECT count(*) FROM team_statistics t JOIN (SELECT gameId, playerteamName,"
+            + " sum(points) AS points, sum(assists) AS assists, sum(reboundsTotal) AS rebounds"
+            + " FROM player_statistics GROUP BY gameId, playerteamName) p"
+            + " ON p.gameId = t.gameId AND p.playerteamName = t.teamName"
+            + " WHERE t.teamScore != p.points OR t.assists != p.assists OR t.reboundsTotal != p.rebounds"
+            + " OR t.q1Points + t.q2Points + t.q3Points + t.q4Points != t.teamScore"));
+        assertEquals(0, count("SELECT count(*) FROM games g JOIN team_statistics t ON t.gameId = g.gameId AND t.home = 1"
+            + " WHERE t.teamScore != g.homeScore OR t.opponentScore != g.awayScore OR t.win != (g.homeScore > g.awayScore)"));
+    }
+
+    @Test
+    void theQueryIndexesAreBuilt() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database)) {
+            for (SQLiteStorage.QueryIndex index : SQLiteStorage.QUERY_INDEXES) {
+                assertTrue(SQLiteStorage.hasIndex(connection, index.table(), index.columns()), index.name());
+            }
+        }
+    }
+
+    @Test
+    void counts() {
+        assertEquals(250_000, DatasetGenerator.parseCount("250K"));
+        assertEquals(16_000_000, DatasetGenerator.parseCount("16m"));
+        assertEquals(1_000_000, DatasetGenerator.parseCount("1_000_000"));
+        assertThrows(NumberFormatException.class, () -> DatasetGenerator.parseCount("lots"));
+        assertThrows(IllegalArgumentException.class, () -> new DatasetGenerator(42, 0, SEASONS));
+        assertThrows(IllegalArgumentException.class, () -> new DatasetGenerator(42, BOX_SCORES, 0));
+    }
+}
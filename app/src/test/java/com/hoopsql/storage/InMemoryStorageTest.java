@@ -0,0 +1,135 @@
+package com.hoopsql.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.util.Config;
+
+// Config.setInMemory(true): the Fixtures database copied into memory, against the same file read from disk
+class InMemoryStorageTest {
+    private static HoopsQL file;
+    private static HoopsQL memory;
+
+    @BeforeAll
+    static void open() {
+        file = HoopsQL.open(Fixtures.config());
+        memory = HoopsQL.open(Fixtures.config().setInMemory(true));
+    }
+
+    @AfterAll
+    static void close() {
+        file.close();
+        memory.close();
+    }
+
+    private static List<String> sortedRows(QueryResult result) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            rows.add(row.toString());
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void assertSameRows(String query) throws SQLException {
+        List<String> expected = sortedRows(file.query(query));
+        assertEquals(expected, sortedRows(memory.query(query)), query);
+    }
+
+    @Test
+    void theCopyIsLoaded() {
+        SQLiteStorage storage = memory.getStorage();
+        assertTrue(storage.isInMemory(), storage.getModeDescription());
+        assertTrue(storage.getModeDescription().startsWith("in-memory copy of " + Fixtures.database()),
+            storage.getModeDescription());
+        assertTrue(storage.getMemoryBytes() > 0);
+        assertFalse(file.getStorage().isInMemory());
+        assertEquals("file " + Fixtures.database(), file.getStorage().getModeDescription());
+    }
+
+    @Test
+    void queriesMatchTheFile() throws SQLException {
+        assertSameRows("Player p = \"" + Fixtures.LEBRON + "\" get games where p.points >= 30");
+        assertSameRows("Player p = \"" + Fixtures.CURRY + "\" get avg(games) by season");
+        assertSameRows("Player p get games where p.points >= 35");
+        assertSameRows("Player p = \"" + Fixtures.LEBRON + "\" get agg(sum(points), count(games))");
+    }
+
+    @Test
+    void everyConnectionSharesTheOneCopy() throws SQLException {
+        // Pooled read connections and new ones all open the same shared-cache database, indexes included
+        SQLiteStorage storage = memory.getStorage();
+        try (Connection disk = file.getStorage().connect();
+             Connection first = storage.connectReadOnly();
+             Connection second = storage.connect()) {
+            String rows = "SELECT count(*) FROM player_statistics";
+            assertEquals(count(disk, rows), count(first, rows));
+            assertEquals(count(disk, rows), count(second, rows));
+            for (SQLiteStorage.QueryIndex index : SQLiteStorage.QUERY_INDEXES) {
+                assertTrue(SQLiteStorage.hasIndex(second, index.table(), index.columns()), index.name());
+            }
+            // Read-only connections refuse writes, like the file's
+            assertThrows(SQLException.class, () -> first.createStatement().executeUpdate("DELETE FROM games"));
+        }
+    }
+
+    @Test
+    void aCopyThatWontFitStaysOnTheFile() throws SQLException {
+        try (SQLiteStorage refused = new SQLiteStorage(Fixtures.config().setInMemory(true), () -> 1024)) {
+            assertFalse(refused.isInMemory());
+            String description = refused.getModeDescription();
+            assertTrue(description.startsWith("file " + Fixtures.database() + " (in-memory load skipped: needs ~"),
+                description);
+            assertTrue(description.endsWith(", 0.0 MB free)"), description);
+            assertEquals(0, refused.getMemoryBytes());
+            try (Connection connection = refused.connectReadOnly();
+                 Connection disk = file.getStorage().connect()) {
+                String rows = "SELECT count(*) FROM player_statistics";
+                assertEquals(count(disk, rows), count(connection, rows));
+            }
+        }
+    }
+
+    @Test
+    void aFileThatCannotBeCopiedStaysOnTheFile() throws IOException {
+        Path notADatabase = Files.writeString(Files.createTempFile("hoopsql", ".db"), "not a database");
+        try (SQLiteStorage storage = new SQLiteStorage(new Config().setDatabasePath(notADatabase.toString()).setInMemory(true))) {
+            assertFalse(storage.isInMemory());
+            assertTrue(storage.getModeDescription().startsWith("file " + notADatabase + " (in-memory load failed: "),
+                storage.getModeDescription());
+        }
+        Path missing = notADatabase.resolveSibling("hoopsql-missing.db");
+        try (SQLiteStorage storage = new SQLiteStorage(new Config().setDatabasePath(missing.toString()).setInMemory(true))) {
+            assertFalse(storage.isInMemory());
+            assertEquals("file " + missing + " (in-memory load skipped: cannot read " + missing + ")",
+                storage.getModeDescription());
+        }
+    }
+}
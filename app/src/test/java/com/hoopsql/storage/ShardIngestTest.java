@@ -0,0 +1,171 @@
+package com.hoopsql.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hoopsql.Fixtures;
+import com.hoopsql.HoopsQL;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.runtime.UnknownNameException;
+import com.hoopsql.util.Config;
+import com.hoopsql.util.NameResolver;
+
+/**
+ * A sharded directory grown the documented way: the older seasons split
+ * first, then a database holding only the newest season split into the same
+ * directory. The newest season brings a rookie the older shards never saw,
+ * and a newer team_histories row for the Lakers. Sharded results must match
+ * the single file holding everything.
+ */
+class ShardIngestTest {
+    static final String ROOKIE = "Victor Newcomer";
+
+    private static Path single;
+    private static Path shards;
+    private static HoopsQL whole;
+    private static HoopsQL sharded;
+
+    @BeforeAll
+    static void build() throws IOException, SQLException {
+        Path dir = Files.createTempDirectory("hoopsql-shards");
+        shards = Files.createDirectory(dir.resolve("shards"));
+        String newest = ShardSet.shardFor(shards, ShardSet.Granularity.SEASON, "2025-01-01").from();
+
+        // The newest season's games of one Warrior go to a rookie, and the Lakers' history gains a season
+        single = Files.copy(Fixtures.database(), dir.resolve("single.db"));
+        execute(single,
+            "INSERT INTO players (personId, firstName, lastName) SELECT MAX(personId) + 1, 'Victor', 'Newcomer' FROM players",
+            "UPDATE player_statistics SET personId = (SELECT MAX(personId) FROM players), firstName = 'Victor',"
+                + " lastName = 'Newcomer' WHERE gameDate >= '" + newest + "' AND personId = (SELECT MIN(personId)"
+                + " FROM player_statistics WHERE playerteamName = 'Warriors' AND lastName != 'Curry'"
+                + " AND gameDate >= '" + newest + "')",
+            "UPDATE team_histories SET seasonActiveTill = 2100 WHERE teamName = 'Lakers'");
+
+        Path older = Files.copy(single, dir.resolve("older.db"));
+        execute(older,
+            "DELETE FROM games WHERE gameDate >= '" + newest + "'",
+            "DELETE FROM player_statistics WHERE gameDate >= '" + newest + "'",
+            "DELETE FROM team_statistics WHERE gameDate >= '" + newest + "'",
+            "DELETE FROM players WHERE firstName = 'Victor' AND lastName = 'Newcomer'",
+            "UPDATE team_histories SET seasonActiveTill = 2024 WHERE teamName = 'Lakers'");
+        Path season = Files.copy(single, dir.resolve("season.db"));
+        execute(season,
+            "DELETE FROM games WHERE gameDate < '" + newest + "'",
+            "DELETE FROM player_statistics WHERE gameDate < '" + newest + "'",
+            "DELETE FROM team_statistics WHERE gameDate < '" + newest + "'");
+
+        ShardTool.split(older, shards, ShardSet.Granularity.SEASON);
+        ShardTool.split(season, shards, ShardSet.Granularity.SEASON);
+
+        whole = HoopsQL.open(new Config().setDatabasePath(single.toString()).setQueryTimeoutMillis(0));
+        sharded = HoopsQL.open(new Config().setDatabasePath(shards.toString()).setQueryTimeoutMillis(0));
+    }
+
+    @AfterAll
+    static void close() {
+        whole.close();
+        sharded.close();
+    }
+
+    private static void execute(Path file, String... statements) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = connection.createStatement()) {
+            for (String sql : statements) {
+                stmt.executeUpdate(sql);
+            }
+        }
+    }
+
+    private static List<String> sortedRows(QueryResult result) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : result.getRows()) {
+            rows.add(row.toString());
+        }
+        rows.sort(null);
+        return rows;
+    }
+
+    private static List<String> rows(SQLiteStorage storage, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = storage.connect();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(rs.getObject(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private static void assertSameRows(String query) throws SQLException {
+        List<String> expected = sortedRows(whole.query(query));
+        assertEquals(expected, sortedRows(sharded.query(query)), query);
+    }
+
+    @Test
+    void dimensionViewsHoldEveryShardsRowsOnce() throws SQLException {
+        try (SQLiteStorage file = new SQLiteStorage(single.toString());
+             SQLiteStorage directory = new SQLiteStorage(shards.toString())) {
+            // Three seasons from the first split, one from the second
+            assertEquals(4, directory.getShardSet().getShards().size());
+            String players = "SELECT personId, firstName, lastName FROM players ORDER BY personId";
+            assertEquals(rows(file, players), rows(directory, players));
+            // The newest shard's row wins over an older copy of the same team
+            String teams = "SELECT * FROM team_histories ORDER BY teamId";
+            assertEquals(rows(file, teams), rows(directory, teams));
+            assertEquals(List.of("2100|"), rows(directory, "SELECT seasonActiveTill FROM team_histories WHERE teamName = 'Lakers'"));
+        }
+    }
+
+    @Test
+    void aRookieOfTheNewestShardIsQueried() throws SQLException {
+        String rookie = "Player p = \"" + ROOKIE + "\" get games";
+        assertFalse(whole.query(rookie).isEmpty());
+        assertSameRows(rookie);
+        assertSameRows("Player p = \"" + ROOKIE + "\" get agg(sum(points), count(games))");
+        assertSameRows("Player p = \"" + ROOKIE + "\" get games where season = \"2024-25\" and p.points >= 10");
+    }
+
+    @Test
+    void namesOfTheNewestShardResolve() {
+        try (SQLiteStorage directory = new SQLiteStorage(shards.toString())) {
+            NameResolver names = new NameResolver(directory);
+            assertEquals(Optional.of(ROOKIE), names.canonicalPlayer("victor_newcomer"));
+            assertEquals(ROOKIE, names.suggestPlayers("Victor Newcomr", 3).get(0));
+        }
+        UnknownNameException e = assertThrows(UnknownNameException.class,
+            () -> sharded.query("Player p = \"Victor Newcomr\" get games"));
+        assertEquals(ROOKIE, e.getSuggestions().get(0));
+    }
+
+    @Test
+    void queriesAcrossShardsMatchTheSingleFile() throws SQLException {
+        assertSameRows("Player p get games where p.points >= 35");
+        assertSameRows("Player p = \"" + Fixtures.LEBRON + "\" get avg(games) by season");
+        assertSameRows("Player p = \"" + Fixtures.CURRY + "\" Team t = p.team get games where p.points >= 30"
+            + " and t.name = \"Warriors\"");
+    }
+}
@@ -0,0 +1,46 @@
+package com.hoopsql.bench;
+
+import com.hoopsql.storage.DatasetGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Database used by the execution benchmarks: -Dhoopsql.bench.db=/path/to/hoopsql.db
+ * when given, otherwise a seeded synthetic database generated into a temp
+ * directory and deleted again on close().
+ */
+final class BenchDatabase implements AutoCloseable {
+    private final Path path;
+    private final boolean generated;
+
+    private BenchDatabase(Path path, boolean generated) {
+        this.path = path;
+        this.generated = generated;
+    }
+
+    static BenchDatabase open(long fixtureBoxScores) throws Exception {
+        String dbPath = System.getProperty("hoopsql.bench.db");
+        if (dbPath != null) {
+            if (!Files.exists(Paths.get(dbPath))) {
+                throw new IllegalArgumentException("hoopsql.bench.db does not exist: " + dbPath);
+            }
+            return new BenchDatabase(Paths.get(dbPath), false);
+        }
+
+        Path fixture = Files.createTempDirectory("hoopsql-bench").resolve("fixture.db");
+        new DatasetGenerator(42L, fixtureBoxScores, 30).generate(fixture);
+        return new BenchDatabase(fixture, true);
+    }
+
+    String getPath() { return path.toString(); }
+
+    @Override
+    public void close() throws IOException {
+        if (generated) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(path.getParent());
+        }
+    }
+}
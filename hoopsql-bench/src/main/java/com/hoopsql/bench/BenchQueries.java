@@ -0,0 +1,25 @@
+package com.hoopsql.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the realistic .hpsql inputs bundled under /queries.
+ */
+public final class BenchQueries {
+    private BenchQueries() {}
+
+    public static String load(String name) {
+        String resource = "/queries/" + name + ".hpsql";
+        try (InputStream in = BenchQueries.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No benchmark query named '" + name + "'");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + resource, e);
+        }
+    }
+}
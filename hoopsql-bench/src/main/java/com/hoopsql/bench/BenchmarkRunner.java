@@ -0,0 +1,34 @@
+package com.hoopsql.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line and, unless
+ * -rf/-rff are given, writes JSON results to target/jmh/<tag>.json where the tag
+ * comes from -Dbench.tag (e.g. the git commit) so runs can be diffed across commits.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            String tag = System.getProperty("bench.tag", "latest");
+            Path out = Paths.get("target", "jmh", tag + ".json");
+            Files.createDirectories(out.getParent());
+            options.result(out.toString());
+        }
+
+        new Runner(options.build()).run();
+    }
+}
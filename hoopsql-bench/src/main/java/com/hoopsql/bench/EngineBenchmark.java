@@ -0,0 +1,83 @@
+package com.hoopsql.bench;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.Lexer;
+import com.hoopsql.compiler.Parser;
+import com.hoopsql.compiler.Planner;
+import com.hoopsql.engine.InProcessEngine;
+import com.hoopsql.runtime.Executor;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.storage.SQLiteStorage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queries run by SQLite against the same plans run by the in-process
+ * engine: multi-player joins (semi-join, then hash join on the game), and
+ * ORDER BY with a LIMIT (bounded heap) and without (parallel sort), which
+ * SQLite answers with a temp B-tree sort.
+ *
+ * The engine is loaded once per trial; its load time is not measured here
+ * and is reported by the engine.load metric instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+    @Param({"multi_player", "relational", "three_player", "four_player", "order_top_k", "order_full", "aggregates", "season_splits", "streaks", "rolling"})
+    public String query;
+
+    @Param({"250000"})
+    public long fixtureBoxScores;
+
+    private BenchDatabase database;
+    private Executor sqlite;
+    private Executor engine;
+    private ExecutionPlan plan;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        database = BenchDatabase.open(fixtureBoxScores);
+        sqlite = new Executor(new SQLiteStorage(database.getPath()));
+        SQLiteStorage storage = new SQLiteStorage(database.getPath());
+        engine = new Executor(storage);
+        engine.setEngine(InProcessEngine.load(storage));
+        var program = new Parser(new Lexer(BenchQueries.load(query)).tokenize()).parse();
+        plan = new Planner().createExecutionPlan(program);
+        if (!engine.getEngine().supports(plan)) {
+            throw new IllegalStateException("The in-process engine does not support query '" + query + "'");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sqlite.close();
+        engine.close();
+        database.close();
+    }
+
+    @Benchmark
+    public QueryResult sqlite() throws Exception {
+        return sqlite.execute(plan);
+    }
+
+    @Benchmark
+    public QueryResult inProcess() throws Exception {
+        return engine.execute(plan);
+    }
+}
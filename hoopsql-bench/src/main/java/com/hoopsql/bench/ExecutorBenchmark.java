@@ -0,0 +1,66 @@
+package com.hoopsql.bench;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.Lexer;
+import com.hoopsql.compiler.Parser;
+import com.hoopsql.compiler.Planner;
+import com.hoopsql.runtime.Executor;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.storage.SQLiteStorage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end Executor.execute latency (connect, prepare, run, materialize).
+ *
+ * Uses -Dhoopsql.bench.db=/path/to/hoopsql.db when given, otherwise generates a
+ * seeded synthetic database (see BenchDatabase) for the duration of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorBenchmark {
+    @Param({"single_player", "multi_player", "relational", "averages", "aggregates", "season_splits", "unbound_player"})
+    public String query;
+
+    @Param({"250000"})
+    public long fixtureBoxScores;
+
+    private BenchDatabase database;
+    private Executor executor;
+    private ExecutionPlan plan;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        database = BenchDatabase.open(fixtureBoxScores);
+        executor = new Executor(new SQLiteStorage(database.getPath()));
+        var program = new Parser(new Lexer(BenchQueries.load(query)).tokenize()).parse();
+        plan = new Planner().createExecutionPlan(program);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.close();
+        database.close();
+    }
+
+    @Benchmark
+    public QueryResult execute() throws Exception {
+        return executor.execute(plan);
+    }
+}
@@ -0,0 +1,82 @@
+package com.hoopsql.bench;
+
+import com.hoopsql.compiler.ExecutionPlan;
+import com.hoopsql.compiler.Lexer;
+import com.hoopsql.compiler.Parser;
+import com.hoopsql.compiler.Planner;
+import com.hoopsql.runtime.Executor;
+import com.hoopsql.runtime.ParallelExecutor;
+import com.hoopsql.runtime.QueryResult;
+import com.hoopsql.storage.SQLiteStorage;
+import com.hoopsql.util.Config;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scatter-gather scaling for full-scan queries: the same plan run as one
+ * SQLite query (serial) and split across season partitions on a pool of
+ * the given size (parallel). Compare parallel across thread counts against
+ * serial to see how close to linear it gets on the host.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ParallelExecutorBenchmark {
+    @Param({"unbound_player", "league_averages"})
+    public String query;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"250000"})
+    public long fixtureBoxScores;
+
+    private BenchDatabase database;
+    private Executor executor;
+    private ParallelExecutor parallel;
+    private ExecutionPlan plan;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        database = BenchDatabase.open(fixtureBoxScores);
+        Config config = new Config()
+            .setDatabasePath(database.getPath())
+            .setReadPoolSize(threads)
+            .setQueryTimeoutMillis(0);
+        executor = new Executor(new SQLiteStorage(config));
+        parallel = new ParallelExecutor(executor);
+        var program = new Parser(new Lexer(BenchQueries.load(query)).tokenize()).parse();
+        plan = new Planner().createExecutionPlan(program);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.close();
+        database.close();
+    }
+
+    @Benchmark
+    public QueryResult serial() throws Exception {
+        return executor.execute(plan);
+    }
+
+    @Benchmark
+    public QueryResult parallel() throws Exception {
+        return parallel.execute(plan);
+    }
+}
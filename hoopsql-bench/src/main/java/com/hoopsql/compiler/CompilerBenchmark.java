@@ -0,0 +1,53 @@
+package com.hoopsql.compiler;
+
+import com.hoopsql.bench.BenchQueries;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Lexer and Parser throughput on the bundled .hpsql inputs.
+// Lives in com.hoopsql.compiler because the AST types are package-private.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilerBenchmark {
+    @Param({"single_player", "multi_player", "relational", "averages", "unbound_player"})
+    public String query;
+
+    private String source;
+    private List<Token> tokens;
+
+    @Setup
+    public void setup() {
+        source = BenchQueries.load(query);
+        tokens = new Lexer(source).tokenize();
+    }
+
+    @Benchmark
+    public List<Token> tokenize() {
+        return new Lexer(source).tokenize();
+    }
+
+    @Benchmark
+    public ProgramNode parse() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public ProgramNode tokenizeAndParse() {
+        return new Parser(new Lexer(source).tokenize()).parse();
+    }
+}
@@ -0,0 +1,79 @@
+package com.hoopsql.compiler;
+
+import com.hoopsql.bench.BenchQueries;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+// Full text-to-plan compiles through one shared Planner, from 1, 2, 4 and all
+// available threads. Throughput is reported per benchmark (summed over threads),
+// so it should grow in step with the thread count up to the number of cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentCompileBenchmark {
+    private static final List<String> QUERIES =
+        List.of("single_player", "multi_player", "relational", "averages", "unbound_player");
+
+    private final Planner planner = new Planner();
+    private List<String> sources;
+
+    @Setup
+    public void setup() {
+        sources = QUERIES.stream().map(BenchQueries::load).toList();
+    }
+
+    // Each thread walks the query mix from its own offset so threads aren't in lockstep
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup
+        public void setup(ThreadParams thread) {
+            next = thread.getThreadIndex();
+        }
+    }
+
+    private ExecutionPlan compile(Cursor cursor) {
+        String source = sources.get(cursor.next++ % sources.size());
+        return planner.createExecutionPlan(new Parser(new Lexer(source).tokenize()).parse());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ExecutionPlan threads1(Cursor cursor) {
+        return compile(cursor);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public ExecutionPlan threads2(Cursor cursor) {
+        return compile(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ExecutionPlan threads4(Cursor cursor) {
+        return compile(cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ExecutionPlan threadsMax(Cursor cursor) {
+        return compile(cursor);
+    }
+}
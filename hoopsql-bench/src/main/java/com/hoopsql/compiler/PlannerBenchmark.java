@@ -0,0 +1,40 @@
+package com.hoopsql.compiler;
+
+import com.hoopsql.bench.BenchQueries;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Planner.createExecutionPlan for single-player, multi-player and relational queries
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+    @Param({"single_player", "multi_player", "relational", "averages"})
+    public String query;
+
+    private final Planner planner = new Planner();
+    private ProgramNode program;
+
+    @Setup
+    public void setup() {
+        program = new Parser(new Lexer(BenchQueries.load(query)).tokenize()).parse();
+    }
+
+    @Benchmark
+    public ExecutionPlan createExecutionPlan() {
+        return planner.createExecutionPlan(program);
+    }
+}